@@ -0,0 +1,57 @@
+package com.phoebus.communityapi.benchmark;
+
+import com.phoebus.communityapi.model.CentroComunitario;
+import com.phoebus.communityapi.model.IntercambioRequest;
+import com.phoebus.communityapi.model.Recursos;
+import com.phoebus.communityapi.model.TipoRecurso;
+
+// Dados de entrada dos benchmarks: centros com ocupação abaixo de 90%, então os intercâmbios exigem pontuação igual
+final class Amostras {
+    private Amostras() {
+    }
+
+    static CentroComunitario centro(String id) {
+        CentroComunitario centro = new CentroComunitario();
+        centro.setId(id);
+        centro.setNome("Centro " + id);
+        centro.setEndereco("Rua " + id + ", 100");
+        CentroComunitario.Localizacao localizacao = new CentroComunitario.Localizacao();
+        localizacao.setLatitude(-8.05);
+        localizacao.setLongitude(-34.9);
+        centro.setLocalizacao(localizacao);
+        centro.setCapacidadeMaxima(200);
+        centro.setOcupacaoAtual(120);
+        Recursos recursos = new Recursos();
+        recursos.definir(TipoRecurso.MEDICOS, 50);
+        recursos.definir(TipoRecurso.VOLUNTARIOS, 80);
+        recursos.definir(TipoRecurso.KITS_MEDICOS, 40);
+        recursos.definir(TipoRecurso.VEICULOS, 10);
+        recursos.definir(TipoRecurso.CESTAS_BASICAS, 300);
+        centro.setRecursos(recursos);
+        return centro;
+    }
+
+    // 1 médico + 1 kit médico (11 pontos) contra 1 voluntário + 4 cestas básicas (11 pontos)
+    static Recursos recursosOrigem() {
+        Recursos recursos = new Recursos();
+        recursos.definir(TipoRecurso.MEDICOS, 1);
+        recursos.definir(TipoRecurso.KITS_MEDICOS, 1);
+        return recursos;
+    }
+
+    static Recursos recursosDestino() {
+        Recursos recursos = new Recursos();
+        recursos.definir(TipoRecurso.VOLUNTARIOS, 1);
+        recursos.definir(TipoRecurso.CESTAS_BASICAS, 4);
+        return recursos;
+    }
+
+    static IntercambioRequest intercambio(String origemId, String destinoId) {
+        IntercambioRequest request = new IntercambioRequest();
+        request.setCentroOrigemId(origemId);
+        request.setCentroDestinoId(destinoId);
+        request.setRecursosOrigem(recursosOrigem());
+        request.setRecursosDestino(recursosDestino());
+        return request;
+    }
+}
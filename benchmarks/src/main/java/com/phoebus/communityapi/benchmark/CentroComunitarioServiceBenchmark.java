@@ -0,0 +1,96 @@
+package com.phoebus.communityapi.benchmark;
+
+import com.phoebus.communityapi.config.PhoebusProperties;
+import com.phoebus.communityapi.model.CentroComunitario;
+import com.phoebus.communityapi.model.IntercambioRequest;
+import com.phoebus.communityapi.model.Negociacao;
+import com.phoebus.communityapi.model.Recursos;
+import com.phoebus.communityapi.model.ResultadoIntercambio;
+import com.phoebus.communityapi.repository.CentroComunitarioRepository;
+import com.phoebus.communityapi.service.CacheCentros;
+import com.phoebus.communityapi.service.CentroComunitarioService;
+import com.phoebus.communityapi.service.HistoricoOcupacaoService;
+import com.phoebus.communityapi.service.IndiceExcedentes;
+import com.phoebus.communityapi.service.MetricasServico;
+import com.phoebus.communityapi.service.TransmissaoOcupacaoService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Caminhos completos do serviço (validação, cache, índice de excedentes, métricas das etapas) sobre os repositórios
+// em memória: mede a CPU e as alocações da API, sem a ida ao MongoDB. Sem o proxy do @Timed, que só existe no Spring
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CentroComunitarioServiceBenchmark {
+    private static final int CENTROS = 16;
+
+    private CentroComunitarioService service;
+    private CentroComunitario novoCentro;
+    private Recursos recursosOrigem;
+    private Recursos recursosDestino;
+    private List<IntercambioRequest> lote;
+
+    @Setup
+    public void preparar() {
+        PhoebusProperties properties = new PhoebusProperties();
+        properties.getSugestoes().setIntervaloRecarga(Duration.ZERO);
+        RepositoriosEmMemoria repositorios = new RepositoriosEmMemoria();
+        CentroComunitarioRepository repository = repositorios.centros();
+        IndiceExcedentes indiceExcedentes = new IndiceExcedentes(repository, properties);
+        CacheCentros cache = new CacheCentros(repository, properties);
+        MetricasServico metricas = new MetricasServico(new SimpleMeterRegistry());
+        // Sem iniciar: o registro do histórico fica inativo e não acessa o repositório
+        HistoricoOcupacaoService historico = new HistoricoOcupacaoService(repositorios.historico(), cache, properties, metricas);
+        service = new CentroComunitarioService(repository, cache, indiceExcedentes,
+                new TransmissaoOcupacaoService(cache, properties), historico, repositorios.negociacoes(),
+                repositorios.estatisticas(), properties, metricas);
+
+        for (int i = 0; i < CENTROS; i++) {
+            CentroComunitario centro = Amostras.centro(String.valueOf(i));
+            repositorios.adicionar(centro);
+            indiceExcedentes.atualizar(RepositoriosEmMemoria.copiar(centro));
+        }
+        novoCentro = Amostras.centro("novo");
+        recursosOrigem = Amostras.recursosOrigem();
+        recursosDestino = Amostras.recursosDestino();
+        // Pares disjuntos: cada intercâmbio do lote altera o saldo de dois centros diferentes
+        lote = new ArrayList<>();
+        for (int i = 0; i < CENTROS; i += 2) {
+            lote.add(Amostras.intercambio(String.valueOf(i), String.valueOf(i + 1)));
+        }
+    }
+
+    @Benchmark
+    public CentroComunitario adicionarCentro() {
+        return service.adicionarCentro(novoCentro);
+    }
+
+    // O intercâmbio invalida os dois centros no cache: cada invocação inclui a releitura pelo findAllById
+    @Benchmark
+    public Negociacao realizarIntercambio() {
+        return service.realizarIntercambio("0", "1", recursosOrigem, recursosDestino);
+    }
+
+    // Inclui as variações acumuladas com Recursos.trocar, duas por intercâmbio, sobre as cópias em memória
+    @Benchmark
+    public List<ResultadoIntercambio> realizarIntercambiosEmLote() {
+        return service.realizarIntercambiosEmLote(lote);
+    }
+}
@@ -0,0 +1,26 @@
+package com.phoebus.communityapi.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+// Mesmos argumentos do JMH, mas sempre com o profiler de GC (gc.alloc.rate.norm = bytes alocados por operação)
+// e o resultado em jmh-result.json, para comparar execuções antes e depois de uma mudança
+public class ExecutarBenchmarks {
+    public static void main(String[] args) throws CommandLineOptionException, RunnerException {
+        CommandLineOptions linhaComando = new CommandLineOptions(args);
+        ChainedOptionsBuilder opcoes = new OptionsBuilder().parent(linhaComando);
+        if (linhaComando.getProfilers().stream().noneMatch(p -> p.getKlass().equals("gc") || p.getKlass().equals(GCProfiler.class.getName()))) {
+            opcoes.addProfiler(GCProfiler.class);
+        }
+        if (!linhaComando.getResult().hasValue()) {
+            opcoes.resultFormat(ResultFormatType.JSON).result("jmh-result.json");
+        }
+        new Runner(opcoes.build()).run();
+    }
+}
@@ -0,0 +1,67 @@
+package com.phoebus.communityapi.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.phoebus.communityapi.model.CentroComunitario;
+import com.phoebus.communityapi.model.IntercambioRequest;
+import com.phoebus.communityapi.model.Negociacao;
+import com.phoebus.communityapi.service.RegrasCentro;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+// Corpos de requisição e resposta dos endpoints mais chamados, com o ObjectMapper montado como o do Spring MVC
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonBenchmark {
+    private ObjectMapper objectMapper;
+    private CentroComunitario centro;
+    private Negociacao negociacao;
+    private byte[] centroJson;
+    private byte[] intercambioJson;
+
+    @Setup
+    public void preparar() throws IOException {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        centro = Amostras.centro("68815b1396ef83016f0fee2e");
+        IntercambioRequest intercambio = Amostras.intercambio("68815b1396ef83016f0fee2e", "68815b1396ef83016f0fee2f");
+        negociacao = RegrasCentro.criarNegociacao(intercambio.getCentroOrigemId(), intercambio.getCentroDestinoId(),
+                intercambio.getRecursosOrigem(), intercambio.getRecursosDestino());
+        centroJson = objectMapper.writeValueAsBytes(centro);
+        intercambioJson = objectMapper.writeValueAsBytes(intercambio);
+    }
+
+    @Benchmark
+    public CentroComunitario desserializarCentro() throws IOException {
+        return objectMapper.readValue(centroJson, CentroComunitario.class);
+    }
+
+    @Benchmark
+    public byte[] serializarCentro() throws IOException {
+        return objectMapper.writeValueAsBytes(centro);
+    }
+
+    @Benchmark
+    public IntercambioRequest desserializarIntercambio() throws IOException {
+        return objectMapper.readValue(intercambioJson, IntercambioRequest.class);
+    }
+
+    @Benchmark
+    public byte[] serializarNegociacao() throws IOException {
+        return objectMapper.writeValueAsBytes(negociacao);
+    }
+}
@@ -0,0 +1,62 @@
+package com.phoebus.communityapi.benchmark;
+
+import com.phoebus.communityapi.model.CentroComunitario;
+import com.phoebus.communityapi.model.Negociacao;
+import com.phoebus.communityapi.model.Recursos;
+import com.phoebus.communityapi.service.RegrasCentro;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// Regras puras, sem repositório: pontuação, validações e a criação da Negociacao
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RegrasCentroBenchmark {
+    private CentroComunitario origem;
+    private CentroComunitario destino;
+    private Recursos recursosOrigem;
+    private Recursos recursosDestino;
+
+    @Setup
+    public void preparar() {
+        origem = Amostras.centro("a");
+        destino = Amostras.centro("b");
+        recursosOrigem = Amostras.recursosOrigem();
+        recursosDestino = Amostras.recursosDestino();
+    }
+
+    @Benchmark
+    public int calcularPontos() {
+        return recursosOrigem.pontos();
+    }
+
+    @Benchmark
+    public CentroComunitario validarCentro() {
+        RegrasCentro.validarCentro(origem);
+        return origem;
+    }
+
+    @Benchmark
+    public Recursos validarIntercambio() {
+        RegrasCentro.validarIntercambio(origem, destino, recursosOrigem, recursosDestino);
+        return recursosOrigem;
+    }
+
+    @Benchmark
+    public Negociacao criarNegociacao() {
+        return RegrasCentro.criarNegociacao(origem.getId(), destino.getId(), recursosOrigem, recursosDestino);
+    }
+}
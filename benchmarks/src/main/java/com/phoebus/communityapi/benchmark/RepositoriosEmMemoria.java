@@ -0,0 +1,98 @@
+package com.phoebus.communityapi.benchmark;
+
+import com.phoebus.communityapi.model.CentroComunitario;
+import com.phoebus.communityapi.model.Negociacao;
+import com.phoebus.communityapi.model.Recursos;
+import com.phoebus.communityapi.repository.CentroComunitarioRepository;
+import com.phoebus.communityapi.repository.EstatisticasRecursosRepository;
+import com.phoebus.communityapi.repository.HistoricoOcupacaoRepository;
+import com.phoebus.communityapi.repository.NegociacaoRepository;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+// Substitutos em memória dos repositórios MongoDB, só com os métodos que os caminhos medidos chamam.
+// As leituras devolvem cópias, como o driver materializa um documento novo a cada consulta, e as escritas de
+// intercâmbio só conferem o saldo: o estado não muda entre invocações e cada operação mede sempre o mesmo caminho.
+// A chamada via Proxy tem custo fixo pequeno (array de argumentos), igual em todas as medições
+final class RepositoriosEmMemoria {
+    private final Map<String, CentroComunitario> centros = new HashMap<>();
+
+    void adicionar(CentroComunitario centro) {
+        centros.put(centro.getId(), centro);
+    }
+
+    CentroComunitarioRepository centros() {
+        return proxy(CentroComunitarioRepository.class, (proxy, metodo, args) -> switch (metodo.getName()) {
+            case "substituir" -> Optional.empty();
+            case "findById" -> Optional.ofNullable(centros.get((String) args[0])).map(RepositoriosEmMemoria::copiar);
+            case "findAllById" -> {
+                List<CentroComunitario> encontrados = new ArrayList<>();
+                for (Object id : (Iterable<?>) args[0]) {
+                    CentroComunitario centro = centros.get((String) id);
+                    if (centro != null) {
+                        encontrados.add(copiar(centro));
+                    }
+                }
+                yield encontrados;
+            }
+            case "aplicarIntercambio" -> possuiSaldo(centros.get((String) args[0]), (Recursos) args[1]);
+            case "aplicarVariacoesEmLote" -> ((Map<?, ?>) args[1]).size();
+            case "decidirLote" -> args[1];
+            case "desfazerIntercambio", "concluirLote" -> null;
+            case "desfazerLote" -> Map.of();
+            default -> naoSuportado(metodo.getName());
+        });
+    }
+
+    NegociacaoRepository negociacoes() {
+        return proxy(NegociacaoRepository.class, (proxy, metodo, args) -> switch (metodo.getName()) {
+            case "save" -> args[0];
+            case "saveAll" -> new ArrayList<>((Collection<?>) args[0]);
+            case "concluirLote", "removerLote" -> null;
+            default -> naoSuportado(metodo.getName());
+        });
+    }
+
+    EstatisticasRecursosRepository estatisticas() {
+        return proxy(EstatisticasRecursosRepository.class, (proxy, metodo, args) -> switch (metodo.getName()) {
+            case "incrementar" -> null;
+            default -> naoSuportado(metodo.getName());
+        });
+    }
+
+    HistoricoOcupacaoRepository historico() {
+        return proxy(HistoricoOcupacaoRepository.class, (proxy, metodo, args) -> naoSuportado(metodo.getName()));
+    }
+
+    private static boolean possuiSaldo(CentroComunitario centro, Recursos saida) {
+        return centro != null && centro.getRecursos() != null && centro.getRecursos().cobre(saida);
+    }
+
+    static CentroComunitario copiar(CentroComunitario centro) {
+        CentroComunitario copia = new CentroComunitario();
+        copia.setId(centro.getId());
+        copia.setNome(centro.getNome());
+        copia.setEndereco(centro.getEndereco());
+        copia.setLocalizacao(centro.getLocalizacao());
+        copia.setCapacidadeMaxima(centro.getCapacidadeMaxima());
+        copia.setOcupacaoAtual(centro.getOcupacaoAtual());
+        copia.setRecursos(centro.getRecursos().copia());
+        return copia;
+    }
+
+    private static Object naoSuportado(String metodo) {
+        throw new UnsupportedOperationException("Método não suportado pelo repositório em memória: " + metodo);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> tipo, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(tipo.getClassLoader(), new Class<?>[]{tipo}, handler);
+    }
+}
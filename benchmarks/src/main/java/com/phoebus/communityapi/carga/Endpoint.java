@@ -0,0 +1,45 @@
+package com.phoebus.communityapi.carga;
+
+// Endpoints exercitados pelo gerador e o peso de cada um no mix: a maior parte é atualização de ocupação,
+// alguns intercâmbios e relatórios periódicos
+enum Endpoint {
+    CADASTRO("POST /centers", 2),
+    OCUPACAO("PUT /centers/{id}/occupancy", 80),
+    INTERCAMBIO("POST /centers/exchange", 10),
+    ALTA_OCUPACAO("GET /centers/high-occupancy", 4),
+    MEDIA_RECURSOS("GET /centers/resources-average", 2),
+    HISTORICO("GET /centers/{id}/exchanges", 2);
+
+    private static final int PESO_TOTAL = java.util.Arrays.stream(values()).mapToInt(Endpoint::getPeso).sum();
+
+    private final String descricao;
+    private final int peso;
+
+    Endpoint(String descricao, int peso) {
+        this.descricao = descricao;
+        this.peso = peso;
+    }
+
+    String getDescricao() {
+        return descricao;
+    }
+
+    int getPeso() {
+        return peso;
+    }
+
+    static Endpoint sortear(int sorteio) {
+        int acumulado = 0;
+        for (Endpoint endpoint : values()) {
+            acumulado += endpoint.peso;
+            if (sorteio < acumulado) {
+                return endpoint;
+            }
+        }
+        throw new IllegalArgumentException("Sorteio fora do intervalo: " + sorteio);
+    }
+
+    static int getPesoTotal() {
+        return PESO_TOTAL;
+    }
+}
@@ -0,0 +1,263 @@
+package com.phoebus.communityapi.carga;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.phoebus.communityapi.PhoebusApplication;
+import de.flapdoodle.embed.mongo.commands.ServerAddress;
+import de.flapdoodle.embed.mongo.distribution.Version;
+import de.flapdoodle.embed.mongo.transitions.Mongod;
+import de.flapdoodle.embed.mongo.transitions.RunningMongodProcess;
+import de.flapdoodle.reverse.TransitionWalker;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.LockSupport;
+
+// Gerador de carga de ponta a ponta: sem --url, sobe um mongod local descartável (flapdoodle, sem container nem
+// instalação) e a API no próprio processo, e mede latência e vazão de cada endpoint do mix.
+// Com --taxa, cada cliente segue uma agenda fixa e a latência é contada a partir do horário agendado,
+// então um servidor lento não esconde a fila que ele mesmo causou (omissão coordenada)
+public class GeradorCarga {
+    private static final int CAPACIDADE_CENTRO = 200;
+    private static final int RECURSOS_INICIAIS = 1000;
+
+    private final String url;
+    private final int clientes;
+    private final double taxa;
+    private final HttpClient http = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<String> ids = new ArrayList<>();
+
+    GeradorCarga(String url, int clientes, double taxa) {
+        this.url = url;
+        this.clientes = clientes;
+        this.taxa = taxa;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opcoes = lerOpcoes(args);
+        Duration duracao = DurationStyle.detectAndParse(opcoes.getOrDefault("duracao", "60s"));
+        Duration aquecimento = DurationStyle.detectAndParse(opcoes.getOrDefault("aquecimento", "10s"));
+        int clientes = Integer.parseInt(opcoes.getOrDefault("clientes", "32"));
+        int centros = Integer.parseInt(opcoes.getOrDefault("centros", "1000"));
+        double taxa = Double.parseDouble(opcoes.getOrDefault("taxa", "0"));
+        if (clientes <= 0 || centros < 2 || taxa < 0) {
+            throw new IllegalArgumentException("Use --clientes > 0, --centros >= 2 e --taxa >= 0");
+        }
+
+        String url = opcoes.get("url");
+        TransitionWalker.ReachedState<RunningMongodProcess> mongo = null;
+        ConfigurableApplicationContext api = null;
+        try {
+            if (url == null) {
+                mongo = Mongod.instance().start(Version.Main.V7_0);
+                api = iniciarApi(mongo.current().getServerAddress());
+                url = "http://localhost:" + ((WebServerApplicationContext) api).getWebServer().getPort();
+            }
+            GeradorCarga gerador = new GeradorCarga(url, clientes, taxa);
+            gerador.popular(centros);
+            gerador.executar(aquecimento);
+            Map<Endpoint, Latencias> resultado = gerador.executar(duracao);
+            gerador.imprimir(resultado, duracao);
+        } finally {
+            if (api != null) {
+                api.close();
+            }
+            if (mongo != null) {
+                mongo.close();
+            }
+        }
+    }
+
+    private static Map<String, String> lerOpcoes(String[] args) {
+        Map<String, String> opcoes = new HashMap<>();
+        for (String arg : args) {
+            int separador = arg.indexOf('=');
+            if (!arg.startsWith("--") || separador < 0) {
+                throw new IllegalArgumentException("Argumento inválido: " + arg + " (use --opcao=valor)");
+            }
+            opcoes.put(arg.substring(2, separador), arg.substring(separador + 1));
+        }
+        return opcoes;
+    }
+
+    private static ConfigurableApplicationContext iniciarApi(ServerAddress mongo) {
+        // Argumentos de linha de comando têm precedência sobre o application.properties da API
+        return new SpringApplicationBuilder(PhoebusApplication.class).run(
+                "--server.port=0",
+                "--spring.data.mongodb.uri=mongodb://" + mongo.getHost() + ":" + mongo.getPort() + "/community_center",
+                "--logging.level.root=WARN");
+    }
+
+    void popular(int centros) throws IOException, InterruptedException {
+        for (int i = 0; i < centros; i++) {
+            HttpResponse<String> resposta = http.send(requisicao(Endpoint.CADASTRO, ThreadLocalRandom.current()),
+                    HttpResponse.BodyHandlers.ofString());
+            if (resposta.statusCode() / 100 != 2) {
+                throw new IllegalStateException("Falha ao cadastrar centro: " + resposta.statusCode() + " " + resposta.body());
+            }
+            JsonNode centro = objectMapper.readTree(resposta.body());
+            ids.add(centro.get("id").asText());
+        }
+    }
+
+    Map<Endpoint, Latencias> executar(Duration duracao) throws InterruptedException, ExecutionException {
+        long inicio = System.nanoTime();
+        long fim = inicio + duracao.toNanos();
+        // Intervalo entre requisições de um mesmo cliente para somar a taxa alvo; 0 dispara assim que a anterior responde
+        long intervalo = taxa > 0 ? (long) (clientes * 1_000_000_000L / taxa) : 0;
+
+        ExecutorService executor = Executors.newFixedThreadPool(clientes);
+        try {
+            List<Future<Map<Endpoint, Latencias>>> resultados = new ArrayList<>();
+            for (int i = 0; i < clientes; i++) {
+                // Inícios espalhados ao longo do primeiro intervalo para não sincronizar os clientes
+                long primeira = inicio + (intervalo * i) / clientes;
+                resultados.add(executor.submit(() -> executarCliente(primeira, fim, intervalo)));
+            }
+            Map<Endpoint, Latencias> total = new EnumMap<>(Endpoint.class);
+            for (Future<Map<Endpoint, Latencias>> resultado : resultados) {
+                resultado.get().forEach((endpoint, latencias) ->
+                        total.computeIfAbsent(endpoint, e -> new Latencias()).juntar(latencias));
+            }
+            return total;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Map<Endpoint, Latencias> executarCliente(long primeira, long fim, long intervalo) {
+        Map<Endpoint, Latencias> latencias = new EnumMap<>(Endpoint.class);
+        ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+        long agendada = primeira;
+        while (true) {
+            long agora = System.nanoTime();
+            if (intervalo > 0) {
+                if (agendada >= fim) {
+                    break;
+                }
+                if (agendada > agora) {
+                    LockSupport.parkNanos(agendada - agora);
+                }
+            } else if (agora >= fim) {
+                break;
+            }
+            long inicio = intervalo > 0 ? agendada : System.nanoTime();
+
+            Endpoint endpoint = Endpoint.sortear(aleatorio.nextInt(Endpoint.getPesoTotal()));
+            Latencias registro = latencias.computeIfAbsent(endpoint, e -> new Latencias());
+            try {
+                int status = http.send(requisicao(endpoint, aleatorio), HttpResponse.BodyHandlers.discarding()).statusCode();
+                long micros = (System.nanoTime() - inicio) / 1000;
+                if (status / 100 == 2) {
+                    registro.registrar(micros);
+                } else if (status / 100 == 4) {
+                    registro.registrarRejeicao(micros);
+                } else {
+                    registro.registrarErro();
+                }
+            } catch (IOException e) {
+                registro.registrarErro();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            agendada += intervalo;
+        }
+        return latencias;
+    }
+
+    private HttpRequest requisicao(Endpoint endpoint, ThreadLocalRandom aleatorio) {
+        return switch (endpoint) {
+            // Locale.ROOT: coordenadas com ponto decimal em qualquer locale da máquina
+            case CADASTRO -> post("/centers", String.format(Locale.ROOT, """
+                    {"nome": "Centro %d", "endereco": "Rua %d", "localizacao": {"latitude": %.5f, "longitude": %.5f},
+                     "capacidadeMaxima": %d, "ocupacaoAtual": 0,
+                     "recursos": {"medicos": %d, "voluntarios": %d, "kitsMedicos": %d, "veiculos": %d, "cestasBasicas": %d}}
+                    """, aleatorio.nextInt(1_000_000), aleatorio.nextInt(1_000_000),
+                    -8 + aleatorio.nextDouble(-0.5, 0.5), -35 + aleatorio.nextDouble(-0.5, 0.5), CAPACIDADE_CENTRO,
+                    RECURSOS_INICIAIS, RECURSOS_INICIAIS, RECURSOS_INICIAIS, RECURSOS_INICIAIS, RECURSOS_INICIAIS));
+            case OCUPACAO -> HttpRequest.newBuilder(URI.create(url + "/centers/" + centroAleatorio(aleatorio) + "/occupancy"))
+                    .header("Content-Type", "application/json")
+                    .PUT(HttpRequest.BodyPublishers.ofString(String.valueOf(aleatorio.nextInt(CAPACIDADE_CENTRO + 1))))
+                    .build();
+            case INTERCAMBIO -> {
+                // Mesma pontuação nos dois lados (11 pontos), em direção aleatória para não esgotar os saldos
+                String origem = centroAleatorio(aleatorio);
+                String destino = centroAleatorio(aleatorio);
+                while (destino.equals(origem)) {
+                    destino = centroAleatorio(aleatorio);
+                }
+                yield post("/centers/exchange", """
+                        {"centroOrigemId": "%s", "centroDestinoId": "%s",
+                         "recursosOrigem": {"medicos": 1, "kitsMedicos": 1},
+                         "recursosDestino": {"voluntarios": 1, "cestasBasicas": 4}}
+                        """.formatted(origem, destino));
+            }
+            case ALTA_OCUPACAO -> get("/centers/high-occupancy?limite=50");
+            case MEDIA_RECURSOS -> get("/centers/resources-average");
+            case HISTORICO -> get("/centers/" + centroAleatorio(aleatorio) + "/exchanges?tamanhoPagina=50");
+        };
+    }
+
+    private String centroAleatorio(ThreadLocalRandom aleatorio) {
+        return ids.get(aleatorio.nextInt(ids.size()));
+    }
+
+    private HttpRequest post(String caminho, String corpo) {
+        return HttpRequest.newBuilder(URI.create(url + caminho))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(corpo))
+                .build();
+    }
+
+    private HttpRequest get(String caminho) {
+        return HttpRequest.newBuilder(URI.create(url + caminho)).GET().build();
+    }
+
+    private void imprimir(Map<Endpoint, Latencias> resultado, Duration duracao) {
+        double segundos = duracao.toMillis() / 1000.0;
+        System.out.printf("%nAlvo: %s | %d clientes | %s | %.0fs%n", url, clientes,
+                taxa > 0 ? "taxa alvo " + taxa + " req/s" : "laço fechado", segundos);
+        System.out.printf("%-32s %10s %10s %9s %9s %9s %9s %10s %8s%n",
+                "Endpoint", "Requisições", "req/s", "p50 ms", "p99 ms", "p999 ms", "máx ms", "Rejeitadas", "Erros");
+        Latencias total = new Latencias();
+        for (Endpoint endpoint : Endpoint.values()) {
+            Latencias latencias = resultado.get(endpoint);
+            if (latencias != null) {
+                total.juntar(latencias);
+                imprimirLinha(endpoint.getDescricao(), latencias, segundos);
+            }
+        }
+        imprimirLinha("Total", total, segundos);
+    }
+
+    private void imprimirLinha(String nome, Latencias latencias, double segundos) {
+        long[] percentis = latencias.percentis(50, 99, 99.9, 100);
+        System.out.printf("%-32s %10d %10.1f %9.2f %9.2f %9.2f %9.2f %10d %8d%n", nome, latencias.getTotal(),
+                latencias.getTotal() / segundos, percentis[0] / 1000.0, percentis[1] / 1000.0, percentis[2] / 1000.0,
+                percentis[3] / 1000.0, latencias.getRejeitadas(), latencias.getErros());
+    }
+}
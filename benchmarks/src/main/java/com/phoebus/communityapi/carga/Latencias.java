@@ -0,0 +1,61 @@
+package com.phoebus.communityapi.carga;
+
+import java.util.Arrays;
+
+// Latências (em microssegundos) de um endpoint registradas por um único cliente; os registros dos clientes
+// são juntados só no fim, então a medição não disputa lock nem contador compartilhado
+final class Latencias {
+    private long[] valores = new long[1024];
+    private int tamanho;
+    private long rejeitadas;
+    private long erros;
+
+    void registrar(long micros) {
+        if (tamanho == valores.length) {
+            valores = Arrays.copyOf(valores, tamanho * 2);
+        }
+        valores[tamanho++] = micros;
+    }
+
+    // Respostas 4xx: regra de negócio (ex.: saldo insuficiente para o intercâmbio), a latência conta normalmente
+    void registrarRejeicao(long micros) {
+        registrar(micros);
+        rejeitadas++;
+    }
+
+    // Respostas 5xx e falhas de conexão
+    void registrarErro() {
+        erros++;
+    }
+
+    void juntar(Latencias outras) {
+        for (int i = 0; i < outras.tamanho; i++) {
+            registrar(outras.valores[i]);
+        }
+        rejeitadas += outras.rejeitadas;
+        erros += outras.erros;
+    }
+
+    int getTotal() {
+        return tamanho;
+    }
+
+    long getRejeitadas() {
+        return rejeitadas;
+    }
+
+    long getErros() {
+        return erros;
+    }
+
+    // Ordena no lugar: chamado apenas no relatório final
+    long[] percentis(double... percentis) {
+        Arrays.sort(valores, 0, tamanho);
+        long[] resultado = new long[percentis.length];
+        for (int i = 0; i < percentis.length && tamanho > 0; i++) {
+            int posicao = (int) Math.ceil(percentis[i] / 100 * tamanho) - 1;
+            resultado[i] = valores[Math.max(0, Math.min(posicao, tamanho - 1))];
+        }
+        return resultado;
+    }
+}
@@ -0,0 +1,55 @@
+package com.phoebus.communityapi.config;
+
+import com.phoebus.communityapi.model.Recursos;
+import com.phoebus.communityapi.model.TipoRecurso;
+import org.bson.Document;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.data.convert.ReadingConverter;
+import org.springframework.data.convert.WritingConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+
+import java.util.List;
+
+@Configuration
+public class MongoConfig {
+
+    // Recursos é gravado como o subdocumento {medicos: 2, ...} de sempre, não como o int[] interno; as consultas e
+    // os $inc continuam usando os caminhos recursos.<campo>
+    @Bean
+    public MongoCustomConversions mongoCustomConversions() {
+        return new MongoCustomConversions(List.of(RecursosParaDocumento.INSTANCIA, DocumentoParaRecursos.INSTANCIA));
+    }
+
+    @WritingConverter
+    enum RecursosParaDocumento implements Converter<Recursos, Document> {
+        INSTANCIA;
+
+        @Override
+        public Document convert(Recursos recursos) {
+            Document documento = new Document();
+            for (TipoRecurso tipo : TipoRecurso.values()) {
+                documento.put(tipo.getCampo(), recursos.quantidade(tipo));
+            }
+            return documento;
+        }
+    }
+
+    // Campos ausentes valem 0
+    @ReadingConverter
+    enum DocumentoParaRecursos implements Converter<Document, Recursos> {
+        INSTANCIA;
+
+        @Override
+        public Recursos convert(Document documento) {
+            Recursos recursos = new Recursos();
+            for (TipoRecurso tipo : TipoRecurso.values()) {
+                if (documento.get(tipo.getCampo()) instanceof Number quantidade) {
+                    recursos.definir(tipo, quantidade.intValue());
+                }
+            }
+            return recursos;
+        }
+    }
+}
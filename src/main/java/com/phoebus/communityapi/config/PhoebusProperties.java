@@ -0,0 +1,170 @@
+package com.phoebus.communityapi.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "phoebus")
+public class PhoebusProperties {
+    private Relatorios relatorios = new Relatorios();
+    private Mongo mongo = new Mongo();
+    private Intercambio intercambio = new Intercambio();
+    private Importacao importacao = new Importacao();
+    private Exportacao exportacao = new Exportacao();
+    private Ocupacao ocupacao = new Ocupacao();
+    private TransmissaoOcupacao transmissaoOcupacao = new TransmissaoOcupacao();
+    private HistoricoOcupacao historicoOcupacao = new HistoricoOcupacao();
+    private Cache cache = new Cache();
+    private Sugestoes sugestoes = new Sugestoes();
+    private Rebalanceamento rebalanceamento = new Rebalanceamento();
+    private Eventos eventos = new Eventos();
+    private Outbox outbox = new Outbox();
+    private EstatisticasIntercambio estatisticasIntercambio = new EstatisticasIntercambio();
+
+    @Data
+    public static class Relatorios {
+        // AGREGACAO calcula a média no MongoDB a cada chamada; TOTAIS_ACUMULADOS lê um único documento de somas
+        private ModoMediaRecursos mediaRecursos = ModoMediaRecursos.AGREGACAO;
+    }
+
+    @Data
+    public static class Mongo {
+        // Backfill de campos derivados e reconstrução de estatísticas ao iniciar a aplicação
+        private boolean manutencaoNaInicializacao = true;
+        private Profiler profiler = new Profiler();
+    }
+
+    @Data
+    public static class Profiler {
+        // Registra os comandos enviados ao MongoDB; top comandos mais lentos em GET /internal/mongo/slow
+        private boolean ativo = false;
+        // Sem ele, GET /internal/mongo/slow só responde a chamadas da própria máquina (os resumos trazem filtros)
+        private boolean acessoRemoto = false;
+        private int top = 20;
+        // Os comandos saem da visão entre uma e duas janelas depois de executados
+        private Duration janela = Duration.ofMinutes(5);
+        // Linha de log por requisição HTTP com a quantidade de comandos, o tempo e os documentos lidos
+        private boolean logRequisicoes = true;
+    }
+
+    @Data
+    public static class Intercambio {
+        private int tamanhoMaximoLote = 1000;
+        // Ciclo que trata os lotes interrompidos entre as etapas (queda do processo ou do banco); 0 desativa
+        private Duration intervaloRecuperacaoLotes = Duration.ofMinutes(1);
+        // Idade das marcas a partir da qual um lote é considerado interrompido: concluído se já confirmado, senão desfeito
+        private Duration tempoLimiteLote = Duration.ofMinutes(2);
+    }
+
+    @Data
+    public static class Importacao {
+        // Quantidade de centros por insertMany em POST /centers/bulk
+        private int tamanhoLote = 500;
+    }
+
+    @Data
+    public static class Exportacao {
+        // Negociações por lote do cursor em GET /centers/(id)/exchanges/export; a resposta é descarregada a cada lote
+        private int tamanhoLote = 500;
+    }
+
+    @Data
+    public static class Ocupacao {
+        // Buffer de amostras dos sensores: grava a cada intervalo ou ao acumular tamanhoLote centros distintos
+        private long intervaloDescargaMs = 1000;
+        private int tamanhoLote = 1000;
+    }
+
+    @Data
+    public static class TransmissaoOcupacao {
+        // Eventos aguardando envio por assinante; acima disso os mais antigos são descartados e o cliente é avisado
+        private int tamanhoBuffer = 1000;
+        // Comentário SSE enviado a assinantes sem eventos, para detectar desconexões e manter proxies abertos; 0 desativa
+        private Duration intervaloHeartbeat = Duration.ofSeconds(15);
+        // Duração máxima de cada conexão, depois dela o EventSource reconecta; 0 não limita
+        private Duration tempoConexao = Duration.ofMinutes(30);
+    }
+
+    @Data
+    public static class HistoricoOcupacao {
+        // Leituras gravadas em lote (insertMany) a cada intervalo; 0 desativa o registro do histórico
+        private Duration intervaloGravacao = Duration.ofSeconds(1);
+        private int tamanhoLote = 1000;
+        // Leituras aguardando gravação; com a fila cheia as novas são descartadas
+        private int capacidadeFila = 100000;
+        // Ciclo que consolida as leituras por minuto e por hora; 0 desativa
+        private Duration intervaloConsolidacao = Duration.ofMinutes(1);
+        // Cada ciclo recalcula também os minutos desde (última consolidação - margem), para leituras gravadas com atraso
+        private Duration margem = Duration.ofMinutes(5);
+        // Retenção de cada camada, aplicada pelo MongoDB (expireAfterSeconds e índices TTL)
+        private Duration retencaoLeituras = Duration.ofDays(7);
+        private Duration retencaoMinutos = Duration.ofDays(30);
+        private Duration retencaoHoras = Duration.ofDays(730);
+    }
+
+    @Data
+    public static class Cache {
+        // Cache dos centros comunitários; tamanhoMaximo 0 desativa
+        private int tamanhoMaximo = 10000;
+        private Duration ttl = Duration.ofSeconds(30);
+    }
+
+    @Data
+    public static class Sugestoes {
+        // Recarga completa do índice de excedentes, que corrige escritas feitas por outras instâncias; 0 desativa
+        private Duration intervaloRecarga = Duration.ofMinutes(5);
+        // Primeira carga em segundo plano quando a aplicação fica pronta, independente da recarga
+        private boolean carregarNaInicializacao = true;
+    }
+
+    @Data
+    public static class Rebalanceamento {
+        // Padrões de POST /centers/rebalance/plan quando a requisição não informa
+        private Duration tempoMaximo = Duration.ofSeconds(2);
+        private int maximoIntercambios = 500;
+    }
+
+    @Data
+    public static class Eventos {
+        // Fila dos eventos de capacidade máxima, entregues aos listeners em lotes fora da thread da requisição
+        private int capacidadeFila = 10000;
+        private int tamanhoLote = 100;
+        private PoliticaTransbordo politicaTransbordo = PoliticaTransbordo.DESCARTAR_ANTIGOS;
+        // Threads virtuais na entrega quando a JVM suporta (Java 21+); senão, uma thread de plataforma dedicada
+        private boolean threadsVirtuais = true;
+    }
+
+    @Data
+    public static class Outbox {
+        // Ciclo do relay que entrega os eventos gravados junto com as alterações; 0 desativa
+        private Duration intervaloRelay = Duration.ofSeconds(1);
+        private int tamanhoLote = 500;
+        // Evento de capacidade enviado e não confirmado nesse prazo (descartado pela fila ou rejeitado) é reenviado
+        private Duration tempoReenvio = Duration.ofSeconds(30);
+        // Evento de intercâmbio recusado pelo listener: nova tentativa após tempoReenvio, dobrando a cada falha,
+        // até maximoTentativas; depois sai do outbox marcado como descartado
+        private int maximoTentativas = 10;
+    }
+
+    @Data
+    public static class EstatisticasIntercambio {
+        // Ciclo que consolida as negociações novas por hora e por dia; 0 desativa
+        private Duration intervalo = Duration.ofMinutes(1);
+        // Cada ciclo recalcula também as horas desde (última consolidação - margem), para negociações gravadas
+        // com atraso ou por instâncias com relógio adiantado
+        private Duration margem = Duration.ofMinutes(5);
+    }
+
+    public enum ModoMediaRecursos {
+        AGREGACAO,
+        TOTAIS_ACUMULADOS
+    }
+
+    public enum PoliticaTransbordo {
+        DESCARTAR_NOVOS,
+        DESCARTAR_ANTIGOS,
+        ENTREGAR_NO_CHAMADOR
+    }
+}
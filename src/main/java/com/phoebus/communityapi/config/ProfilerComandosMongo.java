@@ -0,0 +1,288 @@
+package com.phoebus.communityapi.config;
+
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import com.phoebus.communityapi.model.ComandoMongo;
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+// Registra cada comando enviado ao MongoDB com duração, documentos devolvidos, coleção e rota HTTP de origem.
+// O driver síncrono notifica na thread que executou o comando, então a rota vem da requisição em andamento nessa
+// thread: aberta pelo filtro, que roda antes do SessionRepositoryFilter, e refinada para o padrão da rota pelo
+// interceptor. O comando só é válido durante o commandStarted: coleção, resumo e varredura são extraídos ali
+@Component
+@ConditionalOnProperty(prefix = "phoebus.mongo.profiler", name = "ativo")
+public class ProfilerComandosMongo implements CommandListener, HandlerInterceptor, Filter {
+    private static final Logger logger = LoggerFactory.getLogger(ProfilerComandosMongo.class);
+    private static final String SEM_ROTA = "-";
+    private static final int TAMANHO_MAXIMO_RESUMO = 300;
+    // Primeiros estágios que usam índice; qualquer outro faz o aggregate percorrer a coleção inteira
+    private static final Set<String> ESTAGIOS_SELETIVOS = Set.of("$match", "$geoNear");
+
+    private final PhoebusProperties.Profiler configuracao;
+    private final TopComandos maisLentos;
+    private final Map<Integer, ComandoEmAndamento> emAndamento = new ConcurrentHashMap<>();
+    private final ThreadLocal<Requisicao> requisicaoAtual = new ThreadLocal<>();
+
+    public ProfilerComandosMongo(PhoebusProperties properties) {
+        this.configuracao = properties.getMongo().getProfiler();
+        if (configuracao.getTop() <= 0 || configuracao.getJanela().isNegative() || configuracao.getJanela().isZero()) {
+            throw new IllegalArgumentException("Top e janela do profiler do MongoDB devem ser maiores que 0");
+        }
+        this.maisLentos = new TopComandos(configuracao.getTop(), configuracao.getJanela().toNanos());
+    }
+
+    public List<ComandoMongo> comandosMaisLentos() {
+        return maisLentos.listar();
+    }
+
+    @Override
+    public void commandStarted(CommandStartedEvent evento) {
+        String nome = evento.getCommandName();
+        BsonDocument comando = evento.getCommand();
+        String colecao = colecao(nome, comando);
+        if (colecao == null) {
+            // Comandos de sessão, handshake e administração
+            return;
+        }
+        emAndamento.put(evento.getRequestId(), new ComandoEmAndamento(colecao, requisicaoAtual.get(),
+                varreduraCompleta(nome, comando), resumo(nome, comando)));
+    }
+
+    @Override
+    public void commandSucceeded(CommandSucceededEvent evento) {
+        ComandoEmAndamento comando = emAndamento.remove(evento.getRequestId());
+        if (comando != null) {
+            registrar(evento.getCommandName(), comando, evento.getElapsedTime(TimeUnit.NANOSECONDS),
+                    documentos(evento.getResponse()));
+        }
+    }
+
+    @Override
+    public void commandFailed(CommandFailedEvent evento) {
+        ComandoEmAndamento comando = emAndamento.remove(evento.getRequestId());
+        if (comando != null) {
+            registrar(evento.getCommandName(), comando, evento.getElapsedTime(TimeUnit.NANOSECONDS), 0);
+        }
+    }
+
+    // Cobre a requisição inteira, inclusive a leitura e a gravação da sessão feitas pelo SessionRepositoryFilter
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+        if (!(request instanceof HttpServletRequest http) || requisicaoAtual.get() != null) {
+            chain.doFilter(request, response);
+            return;
+        }
+        Requisicao requisicao = new Requisicao(http.getMethod() + " " + http.getRequestURI());
+        requisicaoAtual.set(requisicao);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            requisicaoAtual.remove();
+            // Respostas em streaming continuam em outra thread, cujos comandos ficam sem rota e fora da contagem
+            if (!request.isAsyncStarted() && configuracao.isLogRequisicoes() && logger.isInfoEnabled()) {
+                logger.info("{} {}: {} comandos no MongoDB em {} ms, {} documentos, {} varreduras completas",
+                        requisicao.rota, ((HttpServletResponse) response).getStatus(), requisicao.comandos.get(),
+                        String.format("%.1f", requisicao.duracaoNanos.get() / 1_000_000.0),
+                        requisicao.documentos.get(), requisicao.varreduras.get());
+            }
+        }
+    }
+
+    // Até aqui a rota é a URI; a partir do mapeamento, o padrão (/centers/{id}) agrupa os comandos de todos os ids
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        Requisicao requisicao = requisicaoAtual.get();
+        Object padrao = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        if (requisicao != null && padrao != null) {
+            requisicao.rota = request.getMethod() + " " + padrao;
+        }
+        return true;
+    }
+
+    private void registrar(String nome, ComandoEmAndamento comando, long duracaoNanos, int documentos) {
+        Requisicao requisicao = comando.requisicao;
+        if (requisicao != null) {
+            requisicao.comandos.incrementAndGet();
+            requisicao.duracaoNanos.addAndGet(duracaoNanos);
+            requisicao.documentos.addAndGet(documentos);
+            if (comando.varreduraCompleta) {
+                requisicao.varreduras.incrementAndGet();
+            }
+        }
+        maisLentos.oferecer(new ComandoMongo(nome, comando.colecao, requisicao != null ? requisicao.rota : SEM_ROTA,
+                duracaoNanos / 1_000_000.0, documentos, comando.varreduraCompleta, comando.resumo, LocalDateTime.now()));
+    }
+
+    private static String colecao(String nome, BsonDocument comando) {
+        BsonValue valor = comando.get("getMore".equals(nome) ? "collection" : nome);
+        return valor != null && valor.isString() ? valor.asString().getValue() : null;
+    }
+
+    private static boolean varreduraCompleta(String nome, BsonDocument comando) {
+        return switch (nome) {
+            case "find" -> vazio(comando.get("filter"));
+            case "count" -> vazio(comando.get("query"));
+            case "aggregate" -> {
+                BsonValue pipeline = comando.get("pipeline");
+                if (pipeline == null || !pipeline.isArray() || pipeline.asArray().isEmpty()) {
+                    yield true;
+                }
+                BsonValue primeiro = pipeline.asArray().get(0);
+                yield !primeiro.isDocument() || primeiro.asDocument().isEmpty() ||
+                        !ESTAGIOS_SELETIVOS.contains(primeiro.asDocument().getFirstKey());
+            }
+            default -> false;
+        };
+    }
+
+    private static boolean vazio(BsonValue filtro) {
+        return filtro == null || (filtro.isDocument() && filtro.asDocument().isEmpty());
+    }
+
+    private static String resumo(String nome, BsonDocument comando) {
+        return switch (nome) {
+            case "find" -> json(comando.get("filter"));
+            case "aggregate" -> json(comando.get("pipeline"));
+            case "count", "distinct", "findAndModify" -> json(comando.get("query"));
+            case "update" -> primeiraOperacao(comando.get("updates"));
+            case "delete" -> primeiraOperacao(comando.get("deletes"));
+            case "insert" -> {
+                BsonValue documentos = comando.get("documents");
+                yield documentos != null && documentos.isArray() ? documentos.asArray().size() + " documentos" : "";
+            }
+            default -> "";
+        };
+    }
+
+    // Operações em lote: o filtro da primeira e a quantidade enviada no mesmo comando
+    private static String primeiraOperacao(BsonValue operacoes) {
+        if (operacoes == null || !operacoes.isArray() || operacoes.asArray().isEmpty()) {
+            return "";
+        }
+        BsonArray lista = operacoes.asArray();
+        BsonValue primeira = lista.get(0);
+        String filtro = primeira.isDocument() ? json(primeira.asDocument().get("q")) : "";
+        return lista.size() > 1 ? lista.size() + " operações, primeira " + filtro : filtro;
+    }
+
+    private static String json(BsonValue valor) {
+        if (valor == null) {
+            return "";
+        }
+        String json;
+        if (valor.isDocument()) {
+            json = valor.asDocument().toJson();
+        } else if (valor.isArray()) {
+            json = valor.asArray().stream()
+                    .map(item -> item.isDocument() ? item.asDocument().toJson() : item.toString())
+                    .collect(Collectors.joining(", ", "[", "]"));
+        } else {
+            json = valor.toString();
+        }
+        return json.length() > TAMANHO_MAXIMO_RESUMO ? json.substring(0, TAMANHO_MAXIMO_RESUMO) + "..." : json;
+    }
+
+    // find, aggregate e getMore devolvem o lote do cursor; escritas e count devolvem n
+    private static int documentos(BsonDocument resposta) {
+        BsonValue cursor = resposta.get("cursor");
+        if (cursor != null && cursor.isDocument()) {
+            BsonValue lote = cursor.asDocument().containsKey("firstBatch") ?
+                    cursor.asDocument().get("firstBatch") : cursor.asDocument().get("nextBatch");
+            return lote != null && lote.isArray() ? lote.asArray().size() : 0;
+        }
+        BsonValue n = resposta.get("n");
+        return n != null && n.isNumber() ? n.asNumber().intValue() : 0;
+    }
+
+    private record ComandoEmAndamento(String colecao, Requisicao requisicao, boolean varreduraCompleta, String resumo) {
+    }
+
+    private static final class Requisicao {
+        private volatile String rota;
+        private final AtomicInteger comandos = new AtomicInteger();
+        private final AtomicLong duracaoNanos = new AtomicLong();
+        private final AtomicLong documentos = new AtomicLong();
+        private final AtomicInteger varreduras = new AtomicInteger();
+
+        private Requisicao(String rota) {
+            this.rota = rota;
+        }
+    }
+
+    // Top N em duas janelas: a atual e a anterior. Ao virar a janela a atual passa a anterior, então um comando
+    // fica visível entre uma e duas janelas sem precisar guardar todos os comandos do período
+    private static final class TopComandos {
+        private static final Comparator<ComandoMongo> POR_DURACAO = Comparator.comparingDouble(ComandoMongo::getDuracaoMs);
+
+        private final int tamanho;
+        private final long janelaNanos;
+        private PriorityQueue<ComandoMongo> atual = new PriorityQueue<>(POR_DURACAO);
+        private PriorityQueue<ComandoMongo> anterior = new PriorityQueue<>(POR_DURACAO);
+        private long inicioJanela = System.nanoTime();
+
+        private TopComandos(int tamanho, long janelaNanos) {
+            this.tamanho = tamanho;
+            this.janelaNanos = janelaNanos;
+        }
+
+        synchronized void oferecer(ComandoMongo comando) {
+            girar();
+            if (atual.size() < tamanho) {
+                atual.add(comando);
+            } else if (comando.getDuracaoMs() > atual.peek().getDuracaoMs()) {
+                atual.poll();
+                atual.add(comando);
+            }
+        }
+
+        synchronized List<ComandoMongo> listar() {
+            girar();
+            List<ComandoMongo> comandos = new ArrayList<>(atual);
+            comandos.addAll(anterior);
+            comandos.sort(POR_DURACAO.reversed());
+            return comandos.size() > tamanho ? new ArrayList<>(comandos.subList(0, tamanho)) : comandos;
+        }
+
+        private void girar() {
+            long decorrido = System.nanoTime() - inicioJanela;
+            if (decorrido < janelaNanos) {
+                return;
+            }
+            anterior = decorrido < 2 * janelaNanos ? atual : new PriorityQueue<>(POR_DURACAO);
+            atual = new PriorityQueue<>(POR_DURACAO);
+            inicioJanela += decorrido < 2 * janelaNanos ? janelaNanos : decorrido;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.phoebus.communityapi.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "phoebus.mongo.profiler", name = "ativo")
+public class ProfilerMongoConfig implements WebMvcConfigurer {
+    // Uma posição antes do SessionRepositoryFilter (SessionRepositoryFilter.DEFAULT_ORDER = HIGHEST_PRECEDENCE + 50)
+    private static final int ORDEM_FILTRO = Ordered.HIGHEST_PRECEDENCE + 49;
+
+    private final ProfilerComandosMongo profiler;
+
+    @Bean
+    public MongoClientSettingsBuilderCustomizer listenerProfilerMongo() {
+        return builder -> builder.addCommandListener(profiler);
+    }
+
+    // Associa os comandos à requisição e escreve a contagem no log ao final de cada uma
+    @Bean
+    public FilterRegistrationBean<ProfilerComandosMongo> filtroProfilerMongo() {
+        FilterRegistrationBean<ProfilerComandosMongo> registro = new FilterRegistrationBean<>(profiler);
+        registro.setOrder(ORDEM_FILTRO);
+        return registro;
+    }
+
+    // Troca a URI pelo padrão da rota assim que o handler é escolhido
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(profiler);
+    }
+}
@@ -1,15 +1,44 @@
 package com.phoebus.communityapi.controller;
 
+import com.phoebus.communityapi.event.FilaEventosCapacidade;
+import com.phoebus.communityapi.model.AmostraOcupacao;
 import com.phoebus.communityapi.model.CentroComunitario;
+import com.phoebus.communityapi.model.CentroProximo;
+import com.phoebus.communityapi.model.CursorNegociacao;
+import com.phoebus.communityapi.model.DistribuicaoRecursos;
+import com.phoebus.communityapi.model.EstatisticasCache;
+import com.phoebus.communityapi.model.EstatisticasEventos;
+import com.phoebus.communityapi.model.EstatisticasIntercambio;
+import com.phoebus.communityapi.model.HistoricoOcupacao;
+import com.phoebus.communityapi.model.IntercambioRequest;
 import com.phoebus.communityapi.model.Negociacao;
+import com.phoebus.communityapi.model.PlanoRebalanceamento;
+import com.phoebus.communityapi.model.RecursosMedia;
+import com.phoebus.communityapi.model.ResultadoIntercambio;
+import com.phoebus.communityapi.model.SugestaoIntercambio;
+import com.phoebus.communityapi.service.BufferOcupacaoService;
+import com.phoebus.communityapi.service.CacheCentros;
 import com.phoebus.communityapi.service.CentroComunitarioService;
-import com.phoebus.communityapi.service.CentroComunitarioService.RecursosMedia;
-import lombok.Data;
+import com.phoebus.communityapi.service.EstatisticasIntercambioService;
+import com.phoebus.communityapi.service.ExportacaoNegociacoesService;
+import com.phoebus.communityapi.service.HistoricoOcupacaoService;
+import com.phoebus.communityapi.service.ImportacaoCentrosService;
+import com.phoebus.communityapi.service.RebalanceamentoService;
+import com.phoebus.communityapi.service.SugestaoIntercambioService;
+import com.phoebus.communityapi.service.TransmissaoOcupacaoService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.InputStream;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -17,7 +46,19 @@ import java.util.List;
 @RequestMapping("/centers")
 @RequiredArgsConstructor
 public class CentroComunitarioController {
+    private static final String HEADER_PROXIMO_CURSOR = "X-Next-Cursor";
+
     private final CentroComunitarioService service;
+    private final ImportacaoCentrosService importacaoService;
+    private final ExportacaoNegociacoesService exportacaoService;
+    private final EstatisticasIntercambioService estatisticasIntercambioService;
+    private final BufferOcupacaoService bufferOcupacaoService;
+    private final TransmissaoOcupacaoService transmissaoOcupacaoService;
+    private final HistoricoOcupacaoService historicoOcupacaoService;
+    private final CacheCentros cacheCentros;
+    private final SugestaoIntercambioService sugestaoService;
+    private final RebalanceamentoService rebalanceamentoService;
+    private final FilaEventosCapacidade filaEventos;
 
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
@@ -25,12 +66,54 @@ public class CentroComunitarioController {
         return service.adicionarCentro(centro);
     }
 
+    @PostMapping(value = "/bulk", consumes = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE},
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> importarCentros(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType, InputStream entrada) {
+        boolean ndjson = MediaType.APPLICATION_NDJSON.isCompatibleWith(MediaType.parseMediaType(contentType));
+        StreamingResponseBody relatorio = saida -> {
+            if (ndjson) {
+                importacaoService.importarNdjson(entrada, saida);
+            } else {
+                importacaoService.importarJson(entrada, saida);
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(relatorio);
+    }
+
     @PutMapping("/{id}/occupancy")
     @ResponseStatus(HttpStatus.OK)
     public CentroComunitario atualizarOcupacao(@PathVariable String id, @RequestBody int novaOcupacao) {
         return service.atualizarOcupacao(id, novaOcupacao);
     }
 
+    @PostMapping("/occupancy/samples")
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public void registrarAmostrasOcupacao(@RequestBody List<AmostraOcupacao> amostras) {
+        bufferOcupacaoService.registrar(amostras);
+    }
+
+    @GetMapping(value = "/occupancy/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter transmitirOcupacao(
+            @RequestParam(name = "centerId", required = false) List<String> centros,
+            @RequestParam(name = "lat", required = false) Double latitude,
+            @RequestParam(name = "lon", required = false) Double longitude,
+            @RequestParam(name = "radiusKm", defaultValue = "10") double raioKm) {
+        return transmissaoOcupacaoService.assinar(centros, latitude, longitude, raioKm);
+    }
+
+    @PostMapping("/{id}/occupancy/increment")
+    @ResponseStatus(HttpStatus.OK)
+    public CentroComunitario incrementarOcupacao(@PathVariable String id, @RequestParam(defaultValue = "1") int quantidade) {
+        return service.incrementarOcupacao(id, quantidade);
+    }
+
+    @PostMapping("/{id}/occupancy/decrement")
+    @ResponseStatus(HttpStatus.OK)
+    public CentroComunitario decrementarOcupacao(@PathVariable String id, @RequestParam(defaultValue = "1") int quantidade) {
+        return service.decrementarOcupacao(id, quantidade);
+    }
+
     @PostMapping("/exchange")
     @ResponseStatus(HttpStatus.CREATED)
     public Negociacao realizarIntercambio(@RequestBody IntercambioRequest request) {
@@ -42,10 +125,46 @@ public class CentroComunitarioController {
         );
     }
 
+    @PostMapping("/exchange/batch")
+    @ResponseStatus(HttpStatus.OK)
+    public List<ResultadoIntercambio> realizarIntercambiosEmLote(@RequestBody List<IntercambioRequest> requests) {
+        return service.realizarIntercambiosEmLote(requests);
+    }
+
+    @PostMapping("/rebalance/plan")
+    @ResponseStatus(HttpStatus.OK)
+    public PlanoRebalanceamento planejarRebalanceamento(@RequestParam(required = false) Long tempoMaximoMs,
+                                                        @RequestParam(required = false) Integer maximoIntercambios,
+                                                        @RequestParam(defaultValue = "false") boolean aplicar) {
+        return rebalanceamentoService.planejar(tempoMaximoMs, maximoIntercambios, aplicar);
+    }
+
+    @GetMapping("/{id}/exchange-suggestions")
+    @ResponseStatus(HttpStatus.OK)
+    public List<SugestaoIntercambio> sugerirIntercambios(@PathVariable String id,
+                                                         @RequestParam("need") String necessidade,
+                                                         @RequestParam(required = false) Integer limite) {
+        return sugestaoService.sugerirIntercambios(id, necessidade, limite);
+    }
+
     @GetMapping("/high-occupancy")
     @ResponseStatus(HttpStatus.OK)
-    public List<CentroComunitario> listarCentrosAltaOcupacao() {
-        return service.listarCentrosAltaOcupacao();
+    public List<CentroComunitario> listarCentrosAltaOcupacao(
+            @RequestParam(defaultValue = "0.9") double taxaMinima,
+            @RequestParam(defaultValue = "desc") String ordem,
+            @RequestParam(required = false) Integer limite) {
+        return service.listarCentrosAltaOcupacao(taxaMinima, Sort.Direction.fromString(ordem), limite);
+    }
+
+    @GetMapping("/nearby")
+    @ResponseStatus(HttpStatus.OK)
+    public List<CentroProximo> listarCentrosProximos(
+            @RequestParam("lat") double latitude,
+            @RequestParam("lon") double longitude,
+            @RequestParam(name = "radiusKm", defaultValue = "10") double raioKm,
+            @RequestParam(name = "minFreeCapacity", defaultValue = "1") int vagasMinimas,
+            @RequestParam(required = false) Integer limite) {
+        return service.listarCentrosProximos(latitude, longitude, raioKm, vagasMinimas, limite);
     }
 
     @GetMapping("/resources-average")
@@ -54,19 +173,74 @@ public class CentroComunitarioController {
         return service.calcularMediaRecursos();
     }
 
-    @GetMapping("/{centroId}/exchanges")
+    @GetMapping("/resources-distribution")
     @ResponseStatus(HttpStatus.OK)
-    public List<Negociacao> listarNegociacoesPorCentro(
+    public DistribuicaoRecursos calcularDistribuicaoRecursos() {
+        return service.calcularDistribuicaoRecursos();
+    }
+
+    @GetMapping("/cache/stats")
+    @ResponseStatus(HttpStatus.OK)
+    public EstatisticasCache estatisticasCache() {
+        return cacheCentros.estatisticas();
+    }
+
+    @GetMapping("/events/stats")
+    @ResponseStatus(HttpStatus.OK)
+    public EstatisticasEventos estatisticasEventos() {
+        return filaEventos.estatisticas();
+    }
+
+    @GetMapping("/{centroId}/exchanges")
+    public ResponseEntity<List<Negociacao>> listarNegociacoesPorCentro(
             @PathVariable String centroId,
-            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime dataInicio) {
-        return service.listarNegociacoesPorCentro(centroId, dataInicio);
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime dataInicio,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer tamanhoPagina) {
+        List<Negociacao> negociacoes = service.listarNegociacoesPorCentro(centroId, dataInicio, cursor, tamanhoPagina);
+
+        // Página cheia: devolve a posição da última negociação para a próxima requisição
+        ResponseEntity.BodyBuilder resposta = ResponseEntity.ok();
+        if (tamanhoPagina != null && negociacoes.size() == tamanhoPagina) {
+            resposta.header(HEADER_PROXIMO_CURSOR, CursorNegociacao.de(negociacoes.get(negociacoes.size() - 1)).codificar());
+        }
+        return resposta.body(negociacoes);
+    }
+
+    @GetMapping("/{id}/exchange-stats")
+    @ResponseStatus(HttpStatus.OK)
+    public List<EstatisticasIntercambio> listarEstatisticasIntercambio(
+            @PathVariable String id,
+            @RequestParam(name = "granularity", defaultValue = "hour") String granularidade,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime dataInicio,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime dataFim) {
+        return estatisticasIntercambioService.listarPorCentro(id, granularidade, dataInicio, dataFim);
     }
 
-    @Data
-    static class IntercambioRequest {
-        private String centroOrigemId;
-        private String centroDestinoId;
-        private CentroComunitario.RecursosIntercambio recursosOrigem;
-        private CentroComunitario.RecursosIntercambio recursosDestino;
+    @GetMapping("/{id}/occupancy/history")
+    @ResponseStatus(HttpStatus.OK)
+    public HistoricoOcupacao listarHistoricoOcupacao(
+            @PathVariable String id,
+            @RequestParam(name = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime dataInicio,
+            @RequestParam(name = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime dataFim,
+            @RequestParam(name = "resolution", defaultValue = "auto") String resolucao) {
+        return historicoOcupacaoService.listarPorCentro(id, resolucao, dataInicio, dataFim);
+    }
+
+    @GetMapping("/{centroId}/exchanges/export")
+    public ResponseEntity<StreamingResponseBody> exportarNegociacoesPorCentro(
+            @PathVariable String centroId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime dataInicio,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime dataFim,
+            @RequestParam(defaultValue = "ambas") String direcao,
+            @RequestParam(defaultValue = "ndjson") String formato) {
+        ExportacaoNegociacoesService.Pedido pedido = exportacaoService.preparar(centroId, dataInicio, dataFim, direcao, formato);
+        StreamingResponseBody exportacao = saida -> exportacaoService.exportar(pedido, saida);
+        ExportacaoNegociacoesService.Formato formatoSaida = pedido.getFormato();
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(formatoSaida.getTipoConteudo()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("negociacoes-" + centroId + "." + formatoSaida.getExtensao()).build().toString())
+                .body(exportacao);
     }
-}
\ No newline at end of file
+}
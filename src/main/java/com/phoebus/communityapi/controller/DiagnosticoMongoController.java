@@ -0,0 +1,46 @@
+package com.phoebus.communityapi.controller;
+
+import com.phoebus.communityapi.config.PhoebusProperties;
+import com.phoebus.communityapi.config.ProfilerComandosMongo;
+import com.phoebus.communityapi.exception.AcessoRestritoException;
+import com.phoebus.communityapi.model.ComandoMongo;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.List;
+
+@RestController
+@RequestMapping("/internal/mongo")
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "phoebus.mongo.profiler", name = "ativo")
+public class DiagnosticoMongoController {
+    private final ProfilerComandosMongo profiler;
+    private final PhoebusProperties properties;
+
+    @GetMapping("/slow")
+    @ResponseStatus(HttpStatus.OK)
+    public List<ComandoMongo> comandosMaisLentos(HttpServletRequest request) {
+        if (!properties.getMongo().getProfiler().isAcessoRemoto() && !local(request.getRemoteAddr())) {
+            throw new AcessoRestritoException("Diagnóstico do MongoDB disponível só na própria máquina " +
+                    "(phoebus.mongo.profiler.acesso-remoto=false)");
+        }
+        return profiler.comandosMaisLentos();
+    }
+
+    // O endereço remoto é sempre um IP literal, então getByName não consulta o DNS
+    private static boolean local(String endereco) {
+        try {
+            return endereco != null && InetAddress.getByName(endereco).isLoopbackAddress();
+        } catch (UnknownHostException e) {
+            return false;
+        }
+    }
+}
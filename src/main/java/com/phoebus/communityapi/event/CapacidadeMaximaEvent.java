@@ -7,9 +7,22 @@ import org.springframework.context.ApplicationEvent;
 @Getter
 public class CapacidadeMaximaEvent extends ApplicationEvent {
     private final CentroComunitario centro;
+    // Executada após a entrega bem-sucedida aos listeners; o relay a usa para retirar o evento do outbox
+    private final Runnable confirmacao;
 
     public CapacidadeMaximaEvent(Object source, CentroComunitario centro) {
+        this(source, centro, null);
+    }
+
+    public CapacidadeMaximaEvent(Object source, CentroComunitario centro, Runnable confirmacao) {
         super(source);
         this.centro = centro;
+        this.confirmacao = confirmacao;
+    }
+
+    void confirmarEntrega() {
+        if (confirmacao != null) {
+            confirmacao.run();
+        }
     }
-}
\ No newline at end of file
+}
@@ -9,9 +9,12 @@ import org.springframework.stereotype.Component;
 public class CapacidadeMaximaListener {
     private static final Logger logger = LoggerFactory.getLogger(CapacidadeMaximaListener.class);
 
+    // Recebe os eventos em lotes pela FilaEventosCapacidade, fora da thread da requisição
     @EventListener
-    public void handleCapacidadeMaximaEvent(CapacidadeMaximaEvent event) {
-        logger.info("Notificação: Centro {} atingiu sua capacidade máxima de {}.",
-                event.getCentro().getNome(), event.getCentro().getCapacidadeMaxima());
+    public void handleCapacidadeMaximaEvent(LoteCapacidadeMaximaEvent lote) {
+        for (CapacidadeMaximaEvent event : lote.getEventos()) {
+            logger.info("Notificação: Centro {} atingiu sua capacidade máxima de {}.",
+                    event.getCentro().getNome(), event.getCentro().getCapacidadeMaxima());
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,186 @@
+package com.phoebus.communityapi.event;
+
+import com.phoebus.communityapi.config.PhoebusProperties;
+import com.phoebus.communityapi.model.EstatisticasEventos;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Recebe os CapacidadeMaximaEvent publicados na thread da requisição e só os enfileira: a entrega aos listeners
+// (LoteCapacidadeMaximaEvent) acontece em lotes numa thread dedicada, então uma notificação lenta não atrasa a ocupação.
+// Os mesmos contadores e atrasos de /centers/events/stats são publicados no Actuator como phoebus.eventos.capacidade
+@Component
+public class FilaEventosCapacidade implements MeterBinder {
+    private static final Logger logger = LoggerFactory.getLogger(FilaEventosCapacidade.class);
+    private static final long ESPERA_EVENTOS_MS = 100;
+    private static final long ESPERA_ENCERRAMENTO_S = 5;
+
+    private final ApplicationEventPublisher eventPublisher;
+    private final PhoebusProperties.Eventos configuracao;
+    private final BlockingQueue<CapacidadeMaximaEvent> fila;
+    private final CountDownLatch entregaEncerrada = new CountDownLatch(1);
+    private volatile boolean ativa;
+
+    private final AtomicLong recebidos = new AtomicLong();
+    private final AtomicLong entregues = new AtomicLong();
+    private final AtomicLong descartados = new AtomicLong();
+    private final AtomicLong falhas = new AtomicLong();
+    private final AtomicLong lotes = new AtomicLong();
+    private final AtomicLong atrasoUltimoLoteMs = new AtomicLong();
+    private final AtomicLong atrasoMaximoMs = new AtomicLong();
+    // Criado em bindTo: até lá os atrasos só entram nas estatísticas do endpoint
+    private volatile Timer atrasoEntrega;
+
+    public FilaEventosCapacidade(ApplicationEventPublisher eventPublisher, PhoebusProperties properties) {
+        this.eventPublisher = eventPublisher;
+        this.configuracao = properties.getEventos();
+        if (configuracao.getCapacidadeFila() <= 0 || configuracao.getTamanhoLote() <= 0) {
+            throw new IllegalArgumentException("Capacidade da fila e tamanho do lote de eventos devem ser maiores que 0");
+        }
+        this.fila = new ArrayBlockingQueue<>(configuracao.getCapacidadeFila());
+    }
+
+    @PostConstruct
+    void iniciar() {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("eventos-capacidade-");
+        executor.setDaemon(true);
+        if (configuracao.isThreadsVirtuais()) {
+            try {
+                executor.setVirtualThreads(true);
+            } catch (UnsupportedOperationException e) {
+                logger.info("Threads virtuais indisponíveis nesta JVM, entregando eventos em thread de plataforma");
+            }
+        }
+        ativa = true;
+        executor.execute(this::entregarContinuamente);
+    }
+
+    @PreDestroy
+    void encerrar() throws InterruptedException {
+        // A thread de entrega esvazia a fila antes de terminar
+        ativa = false;
+        if (!entregaEncerrada.await(ESPERA_ENCERRAMENTO_S, TimeUnit.SECONDS)) {
+            logger.warn("{} eventos de capacidade não entregues no encerramento", fila.size());
+        }
+    }
+
+    @EventListener
+    public void enfileirar(CapacidadeMaximaEvent event) {
+        recebidos.incrementAndGet();
+        if (fila.offer(event)) {
+            return;
+        }
+
+        switch (configuracao.getPoliticaTransbordo()) {
+            case DESCARTAR_NOVOS -> descartados.incrementAndGet();
+            case DESCARTAR_ANTIGOS -> {
+                // Outras threads podem ocupar a vaga liberada: repete até conseguir enfileirar
+                do {
+                    if (fila.poll() != null) {
+                        descartados.incrementAndGet();
+                    }
+                } while (!fila.offer(event));
+            }
+            case ENTREGAR_NO_CHAMADOR -> entregar(List.of(event));
+        }
+    }
+
+    private void entregarContinuamente() {
+        try {
+            while (ativa || !fila.isEmpty()) {
+                entregarLote(ESPERA_EVENTOS_MS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            entregaEncerrada.countDown();
+        }
+    }
+
+    // Aguarda até esperaMs pelo primeiro evento e entrega junto os que já estiverem na fila, até tamanhoLote
+    int entregarLote(long esperaMs) throws InterruptedException {
+        CapacidadeMaximaEvent primeiro = fila.poll(esperaMs, TimeUnit.MILLISECONDS);
+        if (primeiro == null) {
+            return 0;
+        }
+        List<CapacidadeMaximaEvent> lote = new ArrayList<>(Math.min(configuracao.getTamanhoLote(), fila.size() + 1));
+        lote.add(primeiro);
+        fila.drainTo(lote, configuracao.getTamanhoLote() - 1);
+        entregar(lote);
+        return lote.size();
+    }
+
+    private void entregar(List<CapacidadeMaximaEvent> lote) {
+        long atraso = System.currentTimeMillis() - lote.get(0).getTimestamp();
+        atrasoUltimoLoteMs.set(atraso);
+        atrasoMaximoMs.accumulateAndGet(atraso, Math::max);
+        Timer timer = atrasoEntrega;
+        if (timer != null) {
+            timer.record(atraso, TimeUnit.MILLISECONDS);
+        }
+        try {
+            eventPublisher.publishEvent(new LoteCapacidadeMaximaEvent(this, lote));
+            lote.forEach(CapacidadeMaximaEvent::confirmarEntrega);
+            entregues.addAndGet(lote.size());
+            lotes.incrementAndGet();
+        } catch (RuntimeException e) {
+            // A thread de entrega continua; eventos vindos do outbox não são confirmados e o relay os reenvia
+            falhas.addAndGet(lote.size());
+            logger.warn("Falha ao entregar lote de {} eventos de capacidade", lote.size(), e);
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        contador(registry, "recebidos", recebidos);
+        contador(registry, "entregues", entregues);
+        contador(registry, "descartados", descartados);
+        contador(registry, "falhas", falhas);
+        contador(registry, "lotes", lotes);
+        Gauge.builder("phoebus.eventos.capacidade.fila", fila, BlockingQueue::size)
+                .description("Eventos de capacidade máxima aguardando entrega")
+                .register(registry);
+        TimeGauge.builder("phoebus.eventos.capacidade.atraso.atual", this, TimeUnit.MILLISECONDS, FilaEventosCapacidade::atrasoAtualMs)
+                .description("Tempo de espera do evento de capacidade máxima mais antigo na fila")
+                .register(registry);
+        atrasoEntrega = Timer.builder("phoebus.eventos.capacidade.atraso")
+                .description("Tempo entre o disparo do evento mais antigo de cada lote e a entrega do lote")
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    private void contador(MeterRegistry registry, String situacao, AtomicLong valor) {
+        FunctionCounter.builder("phoebus.eventos.capacidade", valor, AtomicLong::get)
+                .tag("situacao", situacao)
+                .register(registry);
+    }
+
+    public EstatisticasEventos estatisticas() {
+        return new EstatisticasEventos(fila.size(), configuracao.getCapacidadeFila(), recebidos.get(), entregues.get(),
+                descartados.get(), falhas.get(), lotes.get(), atrasoAtualMs(), atrasoUltimoLoteMs.get(), atrasoMaximoMs.get());
+    }
+
+    private long atrasoAtualMs() {
+        CapacidadeMaximaEvent maisAntigo = fila.peek();
+        return maisAntigo != null ? System.currentTimeMillis() - maisAntigo.getTimestamp() : 0;
+    }
+}
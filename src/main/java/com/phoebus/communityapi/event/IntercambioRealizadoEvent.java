@@ -0,0 +1,16 @@
+package com.phoebus.communityapi.event;
+
+import com.phoebus.communityapi.model.Negociacao;
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+// Publicado pelo RelayEventos, fora da requisição, para cada negociação gravada; entrega ao menos uma vez
+@Getter
+public class IntercambioRealizadoEvent extends ApplicationEvent {
+    private final Negociacao negociacao;
+
+    public IntercambioRealizadoEvent(Object source, Negociacao negociacao) {
+        super(source);
+        this.negociacao = negociacao;
+    }
+}
@@ -0,0 +1,17 @@
+package com.phoebus.communityapi.event;
+
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+import java.util.List;
+
+// Eventos de capacidade máxima entregues juntos pela FilaEventosCapacidade, na thread de entrega
+@Getter
+public class LoteCapacidadeMaximaEvent extends ApplicationEvent {
+    private final List<CapacidadeMaximaEvent> eventos;
+
+    public LoteCapacidadeMaximaEvent(Object source, List<CapacidadeMaximaEvent> eventos) {
+        super(source);
+        this.eventos = eventos;
+    }
+}
@@ -0,0 +1,196 @@
+package com.phoebus.communityapi.event;
+
+import com.phoebus.communityapi.config.PhoebusProperties;
+import com.phoebus.communityapi.model.CentroComunitario;
+import com.phoebus.communityapi.model.EventoPendente;
+import com.phoebus.communityapi.model.Negociacao;
+import com.phoebus.communityapi.repository.CentroComunitarioRepository;
+import com.phoebus.communityapi.repository.NegociacaoRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Relay do outbox: os eventos são gravados junto com a alteração (eventosPendentes no centro, eventoPendente na negociação)
+// e entregues aqui, em lotes e fora da requisição. Só saem do outbox depois de entregues, então uma queda do processo
+// causa reentrega, nunca perda: os listeners devem tolerar eventos repetidos. Falhas e descartes são publicados no
+// Actuator como phoebus.outbox.eventos
+@Component
+@RequiredArgsConstructor
+public class RelayEventos implements MeterBinder {
+    private static final Logger logger = LoggerFactory.getLogger(RelayEventos.class);
+
+    private final CentroComunitarioRepository repository;
+    private final NegociacaoRepository negociacaoRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final PhoebusProperties properties;
+
+    // Eventos de capacidade entregues à FilaEventosCapacidade e ainda não confirmados, com o instante do envio
+    private final Map<String, Long> emEntrega = new ConcurrentHashMap<>();
+    private final Queue<Confirmacao> confirmados = new ConcurrentLinkedQueue<>();
+    private final AtomicLong descartadosCapacidade = new AtomicLong();
+    private final AtomicLong falhasIntercambio = new AtomicLong();
+    private final AtomicLong descartadosIntercambio = new AtomicLong();
+    private ScheduledExecutorService executor;
+
+    @PostConstruct
+    void iniciar() {
+        long intervalo = properties.getOutbox().getIntervaloRelay().toMillis();
+        if (intervalo <= 0) {
+            return;
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "relay-eventos");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::executarComLog, intervalo, intervalo, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void encerrar() throws InterruptedException {
+        if (executor != null) {
+            executor.shutdown();
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        }
+    }
+
+    private void executarComLog() {
+        try {
+            executar();
+        } catch (RuntimeException e) {
+            // Os eventos continuam no outbox e são tentados de novo no próximo ciclo
+            logger.error("Falha no relay de eventos", e);
+        }
+    }
+
+    // Executado sempre na thread do relay
+    void executar() {
+        gravarConfirmacoes();
+        enviarEventosCapacidade();
+        entregarEventosIntercambio();
+    }
+
+    private void gravarConfirmacoes() {
+        Map<String, List<String>> idsPorCentro = new HashMap<>();
+        for (Confirmacao confirmacao = confirmados.poll(); confirmacao != null; confirmacao = confirmados.poll()) {
+            idsPorCentro.computeIfAbsent(confirmacao.centroId(), id -> new ArrayList<>()).add(confirmacao.idEvento());
+        }
+        if (idsPorCentro.isEmpty()) {
+            return;
+        }
+
+        repository.confirmarEventosCapacidade(idsPorCentro);
+        idsPorCentro.values().forEach(ids -> ids.forEach(emEntrega::remove));
+    }
+
+    private void enviarEventosCapacidade() {
+        // A entrega passa pela FilaEventosCapacidade: um evento descartado por ela ou rejeitado pelo listener
+        // nunca é confirmado e volta a ser enviado depois de tempoReenvio
+        long agora = System.currentTimeMillis();
+        long tempoReenvio = properties.getOutbox().getTempoReenvio().toMillis();
+        // Eventos confirmados por outra instância somem do outbox sem passar por aqui
+        emEntrega.values().removeIf(enviadoEm -> agora - enviadoEm > 2 * tempoReenvio);
+        // Os eventos aguardando confirmação ficam fora da consulta; os com prazo de reenvio vencido voltam a ser lidos
+        List<String> aguardando = emEntrega.entrySet().stream()
+                .filter(entrada -> agora - entrada.getValue() < tempoReenvio)
+                .map(Map.Entry::getKey)
+                .toList();
+        for (CentroComunitario centro : repository.buscarEventosCapacidadePendentes(properties.getOutbox().getTamanhoLote(), aguardando)) {
+            registrarDescartesCapacidade(centro);
+            for (EventoPendente evento : centro.getEventosPendentes()) {
+                Long enviadoEm = emEntrega.get(evento.getIdEvento());
+                if (enviadoEm != null && agora - enviadoEm < tempoReenvio) {
+                    continue;
+                }
+                emEntrega.put(evento.getIdEvento(), agora);
+                Confirmacao confirmacao = new Confirmacao(centro.getId(), evento.getIdEvento());
+                eventPublisher.publishEvent(new CapacidadeMaximaEvent(this, centro, () -> confirmados.add(confirmacao)));
+            }
+        }
+    }
+
+    // O outbox de cada centro guarda só os eventos mais recentes: os cortados antes da entrega são contados no documento
+    private void registrarDescartesCapacidade(CentroComunitario centro) {
+        Integer descartados = centro.getEventosDescartados();
+        if (descartados == null || descartados <= 0) {
+            return;
+        }
+        repository.registrarEventosCapacidadeDescartados(centro.getId(), descartados);
+        descartadosCapacidade.addAndGet(descartados);
+        logger.warn("{} eventos de capacidade máxima do centro {} descartados do outbox cheio sem entrega", descartados, centro.getId());
+    }
+
+    private void entregarEventosIntercambio() {
+        // Entregues diretamente na thread do relay. Um evento recusado é adiado e os seguintes continuam sendo
+        // entregues, então uma negociação que o listener sempre rejeita não trava o outbox
+        List<Negociacao> negociacoes = negociacaoRepository.buscarEventosPendentes(properties.getOutbox().getTamanhoLote());
+        List<String> entregues = new ArrayList<>(negociacoes.size());
+        try {
+            for (Negociacao negociacao : negociacoes) {
+                try {
+                    eventPublisher.publishEvent(new IntercambioRealizadoEvent(this, negociacao));
+                    entregues.add(negociacao.getId());
+                } catch (RuntimeException e) {
+                    registrarFalhaIntercambio(negociacao, e);
+                }
+            }
+        } finally {
+            negociacaoRepository.confirmarEventos(entregues);
+        }
+    }
+
+    private void registrarFalhaIntercambio(Negociacao negociacao, RuntimeException erro) {
+        falhasIntercambio.incrementAndGet();
+        int tentativas = (negociacao.getTentativasEvento() != null ? negociacao.getTentativasEvento() : 0) + 1;
+        if (tentativas >= properties.getOutbox().getMaximoTentativas()) {
+            negociacaoRepository.descartarEvento(negociacao.getId());
+            descartadosIntercambio.incrementAndGet();
+            logger.error("Evento de intercâmbio da negociação {} descartado após {} tentativas", negociacao.getId(), tentativas, erro);
+            return;
+        }
+        // Espera tempoReenvio, dobrando a cada falha
+        Duration espera = properties.getOutbox().getTempoReenvio().multipliedBy(1L << Math.min(tentativas - 1, 20));
+        negociacaoRepository.adiarEvento(negociacao.getId(), LocalDateTime.now().plus(espera));
+        logger.warn("Evento de intercâmbio da negociação {} recusado (tentativa {}), nova tentativa em {}",
+                negociacao.getId(), tentativas, espera, erro);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        contador(registry, "capacidade", "descartados", descartadosCapacidade);
+        contador(registry, "intercambio", "falhas", falhasIntercambio);
+        contador(registry, "intercambio", "descartados", descartadosIntercambio);
+    }
+
+    private void contador(MeterRegistry registry, String tipo, String situacao, AtomicLong valor) {
+        FunctionCounter.builder("phoebus.outbox.eventos", valor, AtomicLong::get)
+                .description("Eventos do outbox recusados pelos listeners ou descartados sem entrega")
+                .tag("tipo", tipo)
+                .tag("situacao", situacao)
+                .register(registry);
+    }
+
+    private record Confirmacao(String centroId, String idEvento) {
+    }
+}
@@ -0,0 +1,9 @@
+package com.phoebus.communityapi.exception;
+
+// Endpoint de diagnóstico chamado de fora da máquina da API: 403 pelo GlobalExceptionHandler
+public class AcessoRestritoException extends RuntimeException {
+
+    public AcessoRestritoException(String mensagem) {
+        super(mensagem);
+    }
+}
@@ -20,4 +20,22 @@ public class GlobalExceptionHandler {
         response.put("timestamp", LocalDateTime.now().toString());
         return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
     }
-}
\ No newline at end of file
+
+    @ExceptionHandler(IndiceIndisponivelException.class)
+    public ResponseEntity<Map<String, Object>> handleIndiceIndisponivelException(IndiceIndisponivelException ex) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("error", ex.getMessage());
+        response.put("status", HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.put("timestamp", LocalDateTime.now().toString());
+        return new ResponseEntity<>(response, HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+    @ExceptionHandler(AcessoRestritoException.class)
+    public ResponseEntity<Map<String, Object>> handleAcessoRestritoException(AcessoRestritoException ex) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("error", ex.getMessage());
+        response.put("status", HttpStatus.FORBIDDEN.value());
+        response.put("timestamp", LocalDateTime.now().toString());
+        return new ResponseEntity<>(response, HttpStatus.FORBIDDEN);
+    }
+}
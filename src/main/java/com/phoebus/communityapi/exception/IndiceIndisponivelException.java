@@ -0,0 +1,9 @@
+package com.phoebus.communityapi.exception;
+
+// Relatório servido de um índice em memória que ainda não terminou a primeira carga: 503 pelo GlobalExceptionHandler
+public class IndiceIndisponivelException extends IllegalStateException {
+
+    public IndiceIndisponivelException(String mensagem) {
+        super(mensagem);
+    }
+}
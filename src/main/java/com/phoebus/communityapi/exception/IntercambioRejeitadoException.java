@@ -0,0 +1,25 @@
+package com.phoebus.communityapi.exception;
+
+import lombok.Getter;
+
+// Intercâmbio recusado por regra de negócio: continua sendo um 400 pelo GlobalExceptionHandler,
+// mas carrega o motivo para a contagem de rejeições
+@Getter
+public class IntercambioRejeitadoException extends IllegalArgumentException {
+    private final Motivo motivo;
+
+    public IntercambioRejeitadoException(Motivo motivo, String mensagem) {
+        super(mensagem);
+        this.motivo = motivo;
+    }
+
+    public enum Motivo {
+        MESMO_CENTRO,
+        CENTRO_NAO_ENCONTRADO,
+        DADOS_INVALIDOS,
+        SALDO_INSUFICIENTE,
+        PONTUACAO_DIFERENTE,
+        // Lote: os saldos mudaram entre a leitura e o bulkWrite
+        SALDO_ALTERADO
+    }
+}
@@ -0,0 +1,9 @@
+package com.phoebus.communityapi.model;
+
+import lombok.Data;
+
+@Data
+public class AmostraOcupacao {
+    private String centroId;
+    private int ocupacao;
+}
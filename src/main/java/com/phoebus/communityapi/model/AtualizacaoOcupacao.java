@@ -0,0 +1,17 @@
+package com.phoebus.communityapi.model;
+
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+@Value
+public class AtualizacaoOcupacao {
+    String centroId;
+    String nome;
+    int ocupacaoAtual;
+    int capacidadeMaxima;
+    double taxaOcupacao;
+    // Diferença para a última ocupação enviada ao assinante; null quando a anterior é desconhecida
+    Integer variacao;
+    LocalDateTime dataHora;
+}
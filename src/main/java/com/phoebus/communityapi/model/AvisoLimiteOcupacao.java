@@ -0,0 +1,16 @@
+package com.phoebus.communityapi.model;
+
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+@Value
+public class AvisoLimiteOcupacao {
+    String centroId;
+    String nome;
+    // null quando a ocupação anterior do centro é desconhecida (primeira leitura desde a inicialização)
+    NivelOcupacao nivelAnterior;
+    NivelOcupacao nivel;
+    double taxaOcupacao;
+    LocalDateTime dataHora;
+}
@@ -1,42 +1,84 @@
 package com.phoebus.communityapi.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.Setter;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
+import java.util.List;
+
 @Data
 @Document(collection = "centers")
+@CompoundIndexes({
+        @CompoundIndex(name = "posicao_vagas", def = "{'posicao': '2dsphere', 'vagasDisponiveis': 1}"),
+        // Esparso: só os centros com eventos ainda não entregues entram no índice lido pelo relay
+        @CompoundIndex(name = "eventos_pendentes", def = "{'eventosPendentes.idEvento': 1}", sparse = true),
+        // Também esparsos: só os centros com lotes de intercâmbio ainda não concluídos
+        @CompoundIndex(name = "lotes_pendentes", def = "{'lotesPendentes.lote': 1}", sparse = true),
+        @CompoundIndex(name = "lotes_pendentes_criacao", def = "{'lotesPendentes.criadoEm': 1}", sparse = true)
+})
 public class CentroComunitario {
     @Id
     private String id;
     private String nome;
     private String endereco;
     private Localizacao localizacao;
+    // Cópia GeoJSON da localização, usada pelo índice 2dsphere da busca por proximidade
+    @JsonIgnore
+    @Setter(AccessLevel.NONE)
+    private GeoJsonPoint posicao;
     private int capacidadeMaxima;
     private int ocupacaoAtual;
+    // ocupacaoAtual / capacidadeMaxima, recalculada a cada alteração para servir o relatório de alta ocupação pelo índice
+    @Indexed
+    @Setter(AccessLevel.NONE)
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private double taxaOcupacao;
+    // capacidadeMaxima - ocupacaoAtual, filtrada junto com a posição no índice composto
+    @Setter(AccessLevel.NONE)
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private int vagasDisponiveis;
     private Recursos recursos;
+    // Outbox dos eventos de capacidade máxima, esvaziado pelo RelayEventos após a entrega
+    @JsonIgnore
+    private List<EventoPendente> eventosPendentes;
+    // Eventos cortados do outbox cheio antes da entrega, ainda não registrados pelo relay
+    @JsonIgnore
+    private Integer eventosDescartados;
+    // Lotes de intercâmbio aplicados e não concluídos; os interrompidos são desfeitos ou concluídos pela recuperação de lotes
+    @JsonIgnore
+    private List<LotePendente> lotesPendentes;
 
-    @Data
-    public static class Localizacao {
-        private double latitude;
-        private double longitude;
+    public void setLocalizacao(Localizacao localizacao) {
+        this.localizacao = localizacao;
+        posicao = localizacao != null ? new GeoJsonPoint(localizacao.getLongitude(), localizacao.getLatitude()) : null;
     }
 
-    @Data
-    public static class Recursos {
-        private int medicos;
-        private int voluntarios;
-        private int kitsMedicos;
-        private int veiculos;
-        private int cestasBasicas;
+    public void setCapacidadeMaxima(int capacidadeMaxima) {
+        this.capacidadeMaxima = capacidadeMaxima;
+        atualizarOcupacaoDerivada();
+    }
+
+    public void setOcupacaoAtual(int ocupacaoAtual) {
+        this.ocupacaoAtual = ocupacaoAtual;
+        atualizarOcupacaoDerivada();
+    }
+
+    private void atualizarOcupacaoDerivada() {
+        taxaOcupacao = capacidadeMaxima > 0 ? (double) ocupacaoAtual / capacidadeMaxima : 0;
+        vagasDisponiveis = capacidadeMaxima - ocupacaoAtual;
     }
 
     @Data
-    public static class RecursosIntercambio {
-        private int medicos;
-        private int voluntarios;
-        private int kitsMedicos;
-        private int veiculos;
-        private int cestasBasicas;
+    public static class Localizacao {
+        private double latitude;
+        private double longitude;
     }
 }
@@ -0,0 +1,9 @@
+package com.phoebus.communityapi.model;
+
+import lombok.Value;
+
+@Value
+public class CentroProximo {
+    CentroComunitario centro;
+    double distanciaKm;
+}
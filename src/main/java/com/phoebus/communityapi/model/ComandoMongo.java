@@ -0,0 +1,19 @@
+package com.phoebus.communityapi.model;
+
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+@Value
+public class ComandoMongo {
+    String comando;
+    String colecao;
+    // Método e padrão da rota HTTP que disparou o comando; "-" para tarefas agendadas e respostas em streaming
+    String rota;
+    double duracaoMs;
+    int documentos;
+    // find/count sem filtro ou aggregate que não começa por $match/$geoNear: lê a coleção inteira
+    boolean varreduraCompleta;
+    String resumo;
+    LocalDateTime dataHora;
+}
@@ -0,0 +1,37 @@
+package com.phoebus.communityapi.model;
+
+import lombok.Value;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+// Posição de paginação keyset no histórico de negociações: (dataHora, id) da última negociação retornada
+@Value
+public class CursorNegociacao {
+    LocalDateTime dataHora;
+    String id;
+
+    public static CursorNegociacao de(Negociacao negociacao) {
+        return new CursorNegociacao(negociacao.getDataHora(), negociacao.getId());
+    }
+
+    public static CursorNegociacao decodificar(String cursor) {
+        try {
+            String valor = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separador = valor.indexOf('|');
+            if (separador < 0) {
+                throw new IllegalArgumentException("Cursor inválido");
+            }
+            return new CursorNegociacao(LocalDateTime.parse(valor.substring(0, separador)), valor.substring(separador + 1));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Cursor inválido");
+        }
+    }
+
+    public String codificar() {
+        String valor = dataHora + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(valor.getBytes(StandardCharsets.UTF_8));
+    }
+}
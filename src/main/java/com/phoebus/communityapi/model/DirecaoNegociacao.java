@@ -0,0 +1,17 @@
+package com.phoebus.communityapi.model;
+
+import java.util.Arrays;
+
+// Papel do centro nas negociações consultadas: cedeu recursos (origem), recebeu (destino) ou qualquer um
+public enum DirecaoNegociacao {
+    ORIGEM,
+    DESTINO,
+    AMBAS;
+
+    public static DirecaoNegociacao de(String direcao) {
+        return Arrays.stream(values())
+                .filter(valor -> valor.name().equalsIgnoreCase(direcao))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Direção inválida: " + direcao + " (use origem, destino ou ambas)"));
+    }
+}
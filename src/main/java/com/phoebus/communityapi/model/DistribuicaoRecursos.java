@@ -0,0 +1,13 @@
+package com.phoebus.communityapi.model;
+
+import lombok.Value;
+
+import java.util.Map;
+
+@Value
+public class DistribuicaoRecursos {
+    long totalCentros;
+    // Por campo de recurso (medicos, voluntarios, ...), na ordem de TipoRecurso
+    Map<String, ResumoDistribuicao> recursos;
+    ResumoDistribuicao taxaOcupacao;
+}
@@ -0,0 +1,13 @@
+package com.phoebus.communityapi.model;
+
+import lombok.Value;
+
+@Value
+public class EstatisticasCache {
+    int tamanho;
+    int tamanhoMaximo;
+    long acertos;
+    long falhas;
+    long remocoes;
+    long expiracoes;
+}
@@ -0,0 +1,18 @@
+package com.phoebus.communityapi.model;
+
+import lombok.Value;
+
+@Value
+public class EstatisticasEventos {
+    int tamanhoFila;
+    int capacidadeFila;
+    long recebidos;
+    long entregues;
+    long descartados;
+    long falhas;
+    long lotes;
+    // Idade do evento mais antigo ainda na fila
+    long atrasoAtualMs;
+    long atrasoUltimoLoteMs;
+    long atrasoMaximoMs;
+}
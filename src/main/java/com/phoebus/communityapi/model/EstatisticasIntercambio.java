@@ -0,0 +1,26 @@
+package com.phoebus.communityapi.model;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+// Intercâmbios de um centro consolidados por hora ou por dia; o centro cede o que entrega e recebe o que a
+// contraparte entrega, seja ele a origem ou o destino da negociação
+@Data
+@Document(collection = "estatisticas_intercambios")
+@CompoundIndex(name = "centro_granularidade_inicio", def = "{'centroId': 1, 'granularidade': 1, 'inicio': 1}")
+public class EstatisticasIntercambio {
+    @Id
+    private String id;
+    private String centroId;
+    private Granularidade granularidade;
+    private LocalDateTime inicio;
+    private long intercambios;
+    private long pontosCedidos;
+    private long pontosRecebidos;
+    private Recursos recursosCedidos;
+    private Recursos recursosRecebidos;
+}
@@ -0,0 +1,41 @@
+package com.phoebus.communityapi.model;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@Data
+@Document(collection = "estatisticas_recursos")
+public class EstatisticasRecursos {
+    public static final String ID_GLOBAL = "global";
+
+    @Id
+    private String id;
+    private long totalCentros;
+    // Soma de cada recurso pelo campo do TipoRecurso, gravada como o subdocumento {medicos: n, ...} dos centros
+    private Map<String, Long> recursos = new HashMap<>();
+
+    public long total(TipoRecurso tipo) {
+        return recursos.getOrDefault(tipo.getCampo(), 0L);
+    }
+
+    public void definirTotal(TipoRecurso tipo, long total) {
+        recursos.put(tipo.getCampo(), total);
+    }
+
+    public RecursosMedia calcularMedia() {
+        RecursosMedia media = new RecursosMedia();
+        if (totalCentros <= 0) {
+            return media;
+        }
+
+        double centros = totalCentros;
+        for (TipoRecurso tipo : TipoRecurso.values()) {
+            media.definir(tipo, total(tipo) / centros);
+        }
+        return media;
+    }
+}
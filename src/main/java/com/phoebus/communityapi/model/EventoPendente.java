@@ -0,0 +1,12 @@
+package com.phoebus.communityapi.model;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+// Entrada do outbox gravada no próprio documento do centro, na mesma operação que alterou a ocupação
+@Data
+public class EventoPendente {
+    private String idEvento;
+    private LocalDateTime criadoEm;
+}
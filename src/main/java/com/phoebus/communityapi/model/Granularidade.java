@@ -0,0 +1,30 @@
+package com.phoebus.communityapi.model;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+
+// Tamanho dos intervalos de EstatisticasIntercambio; parametro é o valor aceito na API e a unidade do $dateTrunc
+@Getter
+@RequiredArgsConstructor
+public enum Granularidade {
+    HORA("hour", ChronoUnit.HOURS),
+    DIA("day", ChronoUnit.DAYS);
+
+    private final String parametro;
+    private final ChronoUnit unidade;
+
+    public static Granularidade de(String granularidade) {
+        return Arrays.stream(values())
+                .filter(valor -> valor.parametro.equalsIgnoreCase(granularidade))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Granularidade inválida: " + granularidade + " (use hour ou day)"));
+    }
+
+    public LocalDateTime truncar(LocalDateTime dataHora) {
+        return dataHora.truncatedTo(unidade);
+    }
+}
@@ -0,0 +1,16 @@
+package com.phoebus.communityapi.model;
+
+import lombok.Value;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Value
+public class HistoricoOcupacao {
+    String centroId;
+    ResolucaoOcupacao resolucao;
+    LocalDateTime inicio;
+    LocalDateTime fim;
+    // Só os intervalos com leituras: nos demais a ocupação é a última do ponto anterior
+    List<PontoOcupacao> pontos;
+}
@@ -0,0 +1,11 @@
+package com.phoebus.communityapi.model;
+
+import lombok.Data;
+
+@Data
+public class IntercambioRequest {
+    private String centroOrigemId;
+    private String centroDestinoId;
+    private Recursos recursosOrigem;
+    private Recursos recursosDestino;
+}
@@ -0,0 +1,19 @@
+package com.phoebus.communityapi.model;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+// Cada ocupação gravada de um centro, na coleção de séries temporais criada por HistoricoOcupacaoRepository
+// (centroId como metaField, dataHora como timeField e retenção por expireAfterSeconds)
+@Data
+@Document(collection = "historico_ocupacao")
+public class LeituraOcupacao {
+    @Id
+    private String id;
+    private String centroId;
+    private LocalDateTime dataHora;
+    private int ocupacao;
+}
@@ -0,0 +1,20 @@
+package com.phoebus.communityapi.model;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+// Decisão de um lote de intercâmbios: gravada uma única vez, pela requisição (confirmado) ou pela recuperação
+// de lotes interrompidos (desfeito), a que chegar primeiro. Só precisa durar até as marcas do lote saírem dos centros
+@Data
+@Document(collection = "lotes_intercambio")
+public class LoteIntercambio {
+    @Id
+    private String id;
+    private boolean confirmado;
+    @Indexed(expireAfter = "1d")
+    private LocalDateTime dataHora;
+}
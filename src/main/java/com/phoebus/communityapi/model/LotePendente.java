@@ -0,0 +1,13 @@
+package com.phoebus.communityapi.model;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+// Marca de um lote de intercâmbios aplicado ao centro e ainda não concluído, com a variação para desfazê-lo
+@Data
+public class LotePendente {
+    private String lote;
+    private Recursos variacao;
+    private LocalDateTime criadoEm;
+}
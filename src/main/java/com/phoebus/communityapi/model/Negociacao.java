@@ -1,13 +1,21 @@
 package com.phoebus.communityapi.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Data;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDateTime;
 
 @Data
 @Document(collection = "negociacoes")
+@CompoundIndexes({
+        @CompoundIndex(name = "origem_dataHora", def = "{'centroOrigemId': 1, 'dataHora': 1, '_id': 1}"),
+        @CompoundIndex(name = "destino_dataHora", def = "{'centroDestinoId': 1, 'dataHora': 1, '_id': 1}")
+})
 public class Negociacao {
     @Id
     private String id;
@@ -17,14 +25,23 @@ public class Negociacao {
     private Recursos recursosDestino;
     private int pontosOrigem;
     private int pontosDestino;
+    // Consolidação das EstatisticasIntercambio: lê as negociações recentes de todos os centros
+    @Indexed
     private LocalDateTime dataHora;
-
-    @Data
-    public static class Recursos {
-        private int medicos;
-        private int voluntarios;
-        private int kitsMedicos;
-        private int veiculos;
-        private int cestasBasicas;
-    }
+    // Outbox do evento de intercâmbio: gravado junto com a negociação e removido pelo RelayEventos após a entrega
+    @JsonIgnore
+    @Indexed(sparse = true)
+    private Boolean eventoPendente;
+    // Entregas do evento recusadas pelos listeners: a próxima tentativa espera cada vez mais, e depois de
+    // phoebus.outbox.maximo-tentativas o evento sai do outbox marcado como eventoDescartado
+    @JsonIgnore
+    private Integer tentativasEvento;
+    @JsonIgnore
+    private LocalDateTime proximaTentativaEvento;
+    @JsonIgnore
+    private Boolean eventoDescartado;
+    // Lote de intercâmbios ainda não concluído: até a conclusão a negociação pode ser removida e o evento não é entregue
+    @JsonIgnore
+    @Indexed(sparse = true)
+    private String lote;
 }
\ No newline at end of file
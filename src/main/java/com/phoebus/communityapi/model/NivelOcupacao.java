@@ -0,0 +1,9 @@
+package com.phoebus.communityapi.model;
+
+// Faixas avisadas pelo stream de ocupação: ALTA acima de 90% (o limite de /centers/high-occupancy) e LOTADO
+// na capacidade máxima
+public enum NivelOcupacao {
+    NORMAL,
+    ALTA,
+    LOTADO
+}
@@ -0,0 +1,19 @@
+package com.phoebus.communityapi.model;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class PlanoRebalanceamento {
+    // Na ordem em que devem ser aplicados; cada um segue as regras de POST /centers/exchange
+    private List<IntercambioRequest> intercambios;
+    // Soma, em pontos, da distância entre os recursos de cada centro e sua parcela proporcional à ocupação
+    private double desequilibrioInicial;
+    private double desequilibrioFinal;
+    private int rodadas;
+    private boolean tempoEsgotado;
+    private long duracaoMs;
+    // Preenchido apenas quando o plano é aplicado
+    private List<ResultadoIntercambio> resultados;
+}
@@ -0,0 +1,23 @@
+package com.phoebus.communityapi.model;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+
+import java.time.LocalDateTime;
+
+// Ocupação de um centro em um intervalo do histórico; as camadas por minuto e por hora ficam em coleções
+// próprias, e uma leitura bruta vira um ponto com uma única leitura
+@Data
+public class PontoOcupacao {
+    @Id
+    private String id;
+    private String centroId;
+    private LocalDateTime inicio;
+    private int minima;
+    private int maxima;
+    // Média das leituras do intervalo, sem ponderar pelo tempo entre elas
+    private double media;
+    // Última leitura do intervalo, que vale até a próxima
+    private int ultima;
+    private long leituras;
+}
@@ -0,0 +1,194 @@
+package com.phoebus.communityapi.model;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+// Quantidade de cada TipoRecurso em um int[] indexado pelo ordinal: saldo do centro, recursos de um intercâmbio e
+// variações acumuladas usam o mesmo tipo, e as operações percorrem o array em vez de um getter por campo.
+// No JSON e no MongoDB continua um objeto {"medicos": 2, ...} com os campos de TipoRecurso; um tipo novo de recurso
+// só precisa da constante no enum
+@JsonSerialize(using = Recursos.Serializador.class)
+@JsonDeserialize(using = Recursos.Desserializador.class)
+public final class Recursos {
+    private static final TipoRecurso[] TIPOS = TipoRecurso.values();
+    private static final int[] PONTOS = Arrays.stream(TIPOS).mapToInt(TipoRecurso::getPontos).toArray();
+
+    private final int[] quantidades;
+
+    public Recursos() {
+        quantidades = new int[TIPOS.length];
+    }
+
+    private Recursos(int[] quantidades) {
+        this.quantidades = quantidades;
+    }
+
+    // quantidades é indexado por TipoRecurso.ordinal() e copiado
+    public static Recursos de(int[] quantidades) {
+        if (quantidades.length != TIPOS.length) {
+            throw new IllegalArgumentException("Esperadas " + TIPOS.length + " quantidades de recursos");
+        }
+        return new Recursos(quantidades.clone());
+    }
+
+    public static Recursos de(TipoRecurso tipo, int quantidade) {
+        Recursos recursos = new Recursos();
+        recursos.quantidades[tipo.ordinal()] = quantidade;
+        return recursos;
+    }
+
+    public int quantidade(TipoRecurso tipo) {
+        return quantidades[tipo.ordinal()];
+    }
+
+    public void definir(TipoRecurso tipo, int quantidade) {
+        quantidades[tipo.ordinal()] = quantidade;
+    }
+
+    public int[] paraArray() {
+        return quantidades.clone();
+    }
+
+    public Recursos copia() {
+        return new Recursos(quantidades.clone());
+    }
+
+    public Recursos negativo() {
+        int[] negativo = new int[quantidades.length];
+        for (int i = 0; i < quantidades.length; i++) {
+            negativo[i] = -quantidades[i];
+        }
+        return new Recursos(negativo);
+    }
+
+    public void adicionar(Recursos outros) {
+        for (int i = 0; i < quantidades.length; i++) {
+            quantidades[i] += outros.quantidades[i];
+        }
+    }
+
+    public void subtrair(Recursos outros) {
+        for (int i = 0; i < quantidades.length; i++) {
+            quantidades[i] -= outros.quantidades[i];
+        }
+    }
+
+    // Saldo depois de ceder saida e receber entrada
+    public void trocar(Recursos saida, Recursos entrada) {
+        for (int i = 0; i < quantidades.length; i++) {
+            quantidades[i] += entrada.quantidades[i] - saida.quantidades[i];
+        }
+    }
+
+    // Cada tipo em quantidade maior ou igual à de outros
+    public boolean cobre(Recursos outros) {
+        for (int i = 0; i < quantidades.length; i++) {
+            if (quantidades[i] < outros.quantidades[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public boolean possuiNegativo() {
+        for (int quantidade : quantidades) {
+            if (quantidade < 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean isVazio() {
+        for (int quantidade : quantidades) {
+            if (quantidade != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // pesos é indexado por TipoRecurso.ordinal()
+    public int ponderar(int[] pesos) {
+        int soma = 0;
+        for (int i = 0; i < quantidades.length; i++) {
+            soma += quantidades[i] * pesos[i];
+        }
+        return soma;
+    }
+
+    public int pontos() {
+        return ponderar(PONTOS);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Recursos outros && Arrays.equals(quantidades, outros.quantidades);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(quantidades);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder texto = new StringBuilder("Recursos(");
+        for (TipoRecurso tipo : TIPOS) {
+            if (tipo.ordinal() > 0) {
+                texto.append(", ");
+            }
+            texto.append(tipo.getCampo()).append('=').append(quantidades[tipo.ordinal()]);
+        }
+        return texto.append(')').toString();
+    }
+
+    static final class Serializador extends StdSerializer<Recursos> {
+        Serializador() {
+            super(Recursos.class);
+        }
+
+        @Override
+        public void serialize(Recursos recursos, JsonGenerator gerador, SerializerProvider provider) throws IOException {
+            gerador.writeStartObject();
+            for (TipoRecurso tipo : TIPOS) {
+                gerador.writeNumberField(tipo.getCampo(), recursos.quantidades[tipo.ordinal()]);
+            }
+            gerador.writeEndObject();
+        }
+    }
+
+    // Campos ausentes valem 0 e campos desconhecidos são ignorados, como no bean com um campo por tipo
+    static final class Desserializador extends StdDeserializer<Recursos> {
+        Desserializador() {
+            super(Recursos.class);
+        }
+
+        @Override
+        public Recursos deserialize(JsonParser parser, DeserializationContext contexto) throws IOException {
+            if (!parser.isExpectedStartObjectToken()) {
+                return (Recursos) contexto.handleUnexpectedToken(Recursos.class, parser);
+            }
+            Recursos recursos = new Recursos();
+            for (String campo = parser.nextFieldName(); campo != null; campo = parser.nextFieldName()) {
+                parser.nextToken();
+                TipoRecurso tipo = TipoRecurso.buscarCampo(campo);
+                if (tipo != null) {
+                    recursos.quantidades[tipo.ordinal()] = _parseIntPrimitive(parser, contexto);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            return recursos;
+        }
+    }
+}
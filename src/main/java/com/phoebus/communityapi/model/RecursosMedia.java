@@ -0,0 +1,47 @@
+package com.phoebus.communityapi.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.io.IOException;
+
+// Média por centro de cada TipoRecurso, indexada pelo ordinal como em Recursos; no JSON {"medicos": 2.5, ...}
+@JsonSerialize(using = RecursosMedia.Serializador.class)
+public final class RecursosMedia {
+    private static final TipoRecurso[] TIPOS = TipoRecurso.values();
+
+    private final double[] medias = new double[TIPOS.length];
+    // Centros agregados no cálculo, usado só nas métricas dos relatórios
+    @JsonIgnore
+    @Getter
+    @Setter
+    private long totalCentros;
+
+    public double media(TipoRecurso tipo) {
+        return medias[tipo.ordinal()];
+    }
+
+    public void definir(TipoRecurso tipo, double media) {
+        medias[tipo.ordinal()] = media;
+    }
+
+    static final class Serializador extends StdSerializer<RecursosMedia> {
+        Serializador() {
+            super(RecursosMedia.class);
+        }
+
+        @Override
+        public void serialize(RecursosMedia media, JsonGenerator gerador, SerializerProvider provider) throws IOException {
+            gerador.writeStartObject();
+            for (TipoRecurso tipo : TIPOS) {
+                gerador.writeNumberField(tipo.getCampo(), media.medias[tipo.ordinal()]);
+            }
+            gerador.writeEndObject();
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.phoebus.communityapi.model;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+
+// Camadas do histórico de ocupação: as leituras brutas, os intervalos consolidados por minuto e por hora e os
+// dias, somados das horas na consulta; parametro é o valor aceito na API e a unidade do $dateTrunc
+@Getter
+@RequiredArgsConstructor
+public enum ResolucaoOcupacao {
+    LEITURAS("raw", null),
+    MINUTO("minute", ChronoUnit.MINUTES),
+    HORA("hour", ChronoUnit.HOURS),
+    DIA("day", ChronoUnit.DAYS);
+
+    private final String parametro;
+    private final ChronoUnit unidade;
+
+    public static ResolucaoOcupacao de(String resolucao) {
+        return Arrays.stream(values())
+                .filter(valor -> valor.parametro.equalsIgnoreCase(resolucao))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Resolução inválida: " + resolucao +
+                        " (use auto, raw, minute, hour ou day)"));
+    }
+
+    public LocalDateTime truncar(LocalDateTime dataHora) {
+        return unidade != null ? dataHora.truncatedTo(unidade) : dataHora;
+    }
+}
@@ -0,0 +1,26 @@
+package com.phoebus.communityapi.model;
+
+import lombok.Data;
+
+@Data
+public class ResultadoIntercambio {
+    private int indice;
+    private boolean sucesso;
+    private Negociacao negociacao;
+    private String erro;
+
+    public static ResultadoIntercambio sucesso(int indice, Negociacao negociacao) {
+        ResultadoIntercambio resultado = new ResultadoIntercambio();
+        resultado.setIndice(indice);
+        resultado.setSucesso(true);
+        resultado.setNegociacao(negociacao);
+        return resultado;
+    }
+
+    public static ResultadoIntercambio falha(int indice, String erro) {
+        ResultadoIntercambio resultado = new ResultadoIntercambio();
+        resultado.setIndice(indice);
+        resultado.setErro(erro);
+        return resultado;
+    }
+}
@@ -0,0 +1,14 @@
+package com.phoebus.communityapi.model;
+
+import lombok.Value;
+
+// A média é exata; mínimo, máximo e percentis vêm do sketch, com até 1% de erro relativo
+@Value
+public class ResumoDistribuicao {
+    double media;
+    double minimo;
+    double maximo;
+    double p50;
+    double p90;
+    double p99;
+}
@@ -0,0 +1,18 @@
+package com.phoebus.communityapi.model;
+
+import lombok.Data;
+
+// Pronta para POST /centers/exchange: o centro consultado é a origem e o candidato é o destino
+@Data
+public class SugestaoIntercambio {
+    private String centroDestinoId;
+    private String nomeDestino;
+    private int disponivelDestino;
+    private double taxaOcupacaoDestino;
+    private Recursos recursosOrigem;
+    private Recursos recursosDestino;
+    private int pontosOrigem;
+    private int pontosDestino;
+    // Pontuações diferentes aceitas porque um dos centros tem ocupação superior a 90%
+    private boolean excecaoOcupacao;
+}
@@ -0,0 +1,39 @@
+package com.phoebus.communityapi.model;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Recursos, a pontuação, os campos gravados e as agregações de médias e totais percorrem as constantes deste enum
+@Getter
+@RequiredArgsConstructor
+public enum TipoRecurso {
+    MEDICOS("medicos", 4),
+    VOLUNTARIOS("voluntarios", 3),
+    KITS_MEDICOS("kitsMedicos", 7),
+    VEICULOS("veiculos", 5),
+    CESTAS_BASICAS("cestasBasicas", 2);
+
+    private static final Map<String, TipoRecurso> POR_CAMPO = Arrays.stream(values())
+            .collect(Collectors.toMap(TipoRecurso::getCampo, Function.identity()));
+
+    // Nome do campo em Recursos (JSON e MongoDB), usado também nos parâmetros da API
+    private final String campo;
+    private final int pontos;
+
+    public static TipoRecurso doCampo(String campo) {
+        return Arrays.stream(values())
+                .filter(tipo -> tipo.campo.equalsIgnoreCase(campo))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Recurso desconhecido: " + campo));
+    }
+
+    // Nome exato do campo; null quando não é um recurso
+    static TipoRecurso buscarCampo(String campo) {
+        return POR_CAMPO.get(campo);
+    }
+}
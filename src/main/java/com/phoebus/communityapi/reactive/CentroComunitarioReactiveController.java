@@ -0,0 +1,102 @@
+package com.phoebus.communityapi.reactive;
+
+import com.phoebus.communityapi.model.CentroComunitario;
+import com.phoebus.communityapi.model.CursorNegociacao;
+import com.phoebus.communityapi.model.IntercambioRequest;
+import com.phoebus.communityapi.model.Negociacao;
+import com.phoebus.communityapi.model.RecursosMedia;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Sort;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+
+// Mesmos caminhos e parâmetros do CentroComunitarioController, para que clientes e testes de carga alternem entre as pilhas
+// só trocando a URL base. Os relatórios são Flux: com Accept application/x-ndjson cada item é enviado assim que lido
+@RestController
+@RequestMapping("/centers")
+@Profile(PhoebusReactiveApplication.PERFIL)
+@RequiredArgsConstructor
+public class CentroComunitarioReactiveController {
+    private static final String HEADER_PROXIMO_CURSOR = "X-Next-Cursor";
+
+    private final CentroComunitarioReactiveService service;
+
+    @PostMapping
+    @ResponseStatus(HttpStatus.CREATED)
+    public Mono<CentroComunitario> adicionarCentro(@RequestBody CentroComunitario centro) {
+        return service.adicionarCentro(centro);
+    }
+
+    @PutMapping("/{id}/occupancy")
+    @ResponseStatus(HttpStatus.OK)
+    public Mono<CentroComunitario> atualizarOcupacao(@PathVariable String id, @RequestBody Integer novaOcupacao) {
+        return service.atualizarOcupacao(id, novaOcupacao);
+    }
+
+    @PostMapping("/{id}/occupancy/increment")
+    @ResponseStatus(HttpStatus.OK)
+    public Mono<CentroComunitario> incrementarOcupacao(@PathVariable String id, @RequestParam(defaultValue = "1") int quantidade) {
+        return service.incrementarOcupacao(id, quantidade);
+    }
+
+    @PostMapping("/{id}/occupancy/decrement")
+    @ResponseStatus(HttpStatus.OK)
+    public Mono<CentroComunitario> decrementarOcupacao(@PathVariable String id, @RequestParam(defaultValue = "1") int quantidade) {
+        return service.decrementarOcupacao(id, quantidade);
+    }
+
+    @PostMapping("/exchange")
+    @ResponseStatus(HttpStatus.CREATED)
+    public Mono<Negociacao> realizarIntercambio(@RequestBody IntercambioRequest request) {
+        return service.realizarIntercambio(
+                request.getCentroOrigemId(),
+                request.getCentroDestinoId(),
+                request.getRecursosOrigem(),
+                request.getRecursosDestino()
+        );
+    }
+
+    @GetMapping(value = "/high-occupancy", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    @ResponseStatus(HttpStatus.OK)
+    public Flux<CentroComunitario> listarCentrosAltaOcupacao(
+            @RequestParam(defaultValue = "0.9") double taxaMinima,
+            @RequestParam(defaultValue = "desc") String ordem,
+            @RequestParam(required = false) Integer limite) {
+        return service.listarCentrosAltaOcupacao(taxaMinima, Sort.Direction.fromString(ordem), limite);
+    }
+
+    @GetMapping("/resources-average")
+    @ResponseStatus(HttpStatus.OK)
+    public Mono<RecursosMedia> calcularMediaRecursos() {
+        return service.calcularMediaRecursos();
+    }
+
+    @GetMapping(value = "/{centroId}/exchanges", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Mono<ResponseEntity<Flux<Negociacao>>> listarNegociacoesPorCentro(
+            @PathVariable String centroId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime dataInicio,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer tamanhoPagina) {
+        Flux<Negociacao> negociacoes = service.listarNegociacoesPorCentro(centroId, dataInicio, cursor, tamanhoPagina);
+        if (tamanhoPagina == null) {
+            return Mono.just(ResponseEntity.ok(negociacoes));
+        }
+
+        // Paginado: o cabeçalho do cursor precisa da última negociação, então a página (limitada) é reunida antes da resposta
+        return negociacoes.collectList().map(pagina -> {
+            ResponseEntity.BodyBuilder resposta = ResponseEntity.ok();
+            if (pagina.size() == tamanhoPagina) {
+                resposta.header(HEADER_PROXIMO_CURSOR, CursorNegociacao.de(pagina.get(pagina.size() - 1)).codificar());
+            }
+            return resposta.body(Flux.fromIterable(pagina));
+        });
+    }
+}
@@ -0,0 +1,11 @@
+package com.phoebus.communityapi.reactive;
+
+import com.phoebus.communityapi.model.CentroComunitario;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import reactor.core.publisher.Flux;
+
+public interface CentroComunitarioReactiveRepository extends ReactiveMongoRepository<CentroComunitario, String> {
+
+    Flux<CentroComunitario> findByTaxaOcupacaoGreaterThan(double taxaMinima, Pageable pageable);
+}
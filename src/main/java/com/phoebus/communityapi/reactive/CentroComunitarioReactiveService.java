@@ -0,0 +1,225 @@
+package com.phoebus.communityapi.reactive;
+
+import com.phoebus.communityapi.config.PhoebusProperties;
+import com.phoebus.communityapi.model.CentroComunitario;
+import com.phoebus.communityapi.model.CursorNegociacao;
+import com.phoebus.communityapi.model.EstatisticasRecursos;
+import com.phoebus.communityapi.model.Negociacao;
+import com.phoebus.communityapi.model.Recursos;
+import com.phoebus.communityapi.model.RecursosMedia;
+import com.phoebus.communityapi.repository.OperacoesMongo;
+import com.phoebus.communityapi.service.RegrasCentro;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+// Mesmas regras (RegrasCentro) e mesmas operações atômicas (OperacoesMongo) do CentroComunitarioService,
+// encadeadas sem bloquear: nenhuma thread fica parada esperando o MongoDB
+@Service
+@Profile(PhoebusReactiveApplication.PERFIL)
+@RequiredArgsConstructor
+public class CentroComunitarioReactiveService {
+    private final CentroComunitarioReactiveRepository repository;
+    private final NegociacaoReactiveRepository negociacaoRepository;
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final PhoebusProperties properties;
+
+    private static final int TAMANHO_MAXIMO_PAGINA = 1000;
+
+    public Mono<CentroComunitario> adicionarCentro(CentroComunitario centro) {
+        return Mono.defer(() -> {
+            RegrasCentro.validarCentro(centro);
+            if (!usarTotaisAcumulados()) {
+                return substituir(centro).thenReturn(centro);
+            }
+
+            // Um POST com ID existente substitui o centro: um único $inc com a diferença para o documento anterior,
+            // lido na própria gravação
+            return substituir(centro).flatMap(anterior -> {
+                Recursos variacao = centro.getRecursos() != null ? centro.getRecursos().copia() : new Recursos();
+                anterior.map(CentroComunitario::getRecursos).ifPresent(variacao::subtrair);
+                return incrementarEstatisticas(anterior.isPresent() ? 0 : 1, variacao);
+            }).thenReturn(centro);
+        });
+    }
+
+    // Mesma gravação de CentroComunitarioRepository.substituir: preserva o outbox e devolve o documento anterior
+    private Mono<Optional<CentroComunitario>> substituir(CentroComunitario centro) {
+        if (centro.getId() == null) {
+            return mongoTemplate.insert(centro).thenReturn(Optional.empty());
+        }
+        return mongoTemplate.findAndModify(Query.query(Criteria.where("id").is(centro.getId())),
+                        OperacoesMongo.substituicaoCentro(mongoTemplate.getConverter(), centro),
+                        FindAndModifyOptions.options().upsert(true).returnNew(false), CentroComunitario.class)
+                .map(Optional::of)
+                .defaultIfEmpty(Optional.empty());
+    }
+
+    private Mono<Void> incrementarEstatisticas(int centros, Recursos recursos) {
+        return mongoTemplate.upsert(OperacoesMongo.filtroEstatisticasGlobais(),
+                OperacoesMongo.incrementoEstatisticas(centros, recursos), EstatisticasRecursos.class).then();
+    }
+
+    public Mono<CentroComunitario> atualizarOcupacao(String id, int novaOcupacao) {
+        if (novaOcupacao < 0) {
+            return Mono.error(new IllegalArgumentException("Ocupação atual não pode ser negativa"));
+        }
+
+        return mongoTemplate.findAndModify(OperacoesMongo.filtroDefinicaoOcupacao(id, novaOcupacao),
+                        OperacoesMongo.definicaoOcupacao(novaOcupacao), FindAndModifyOptions.options().returnNew(true), CentroComunitario.class)
+                .switchIfEmpty(Mono.defer(() -> falhaAtualizacaoOcupacao(id, true)));
+    }
+
+    public Mono<CentroComunitario> incrementarOcupacao(String id, int quantidade) {
+        if (quantidade <= 0) {
+            return Mono.error(new IllegalArgumentException("Quantidade deve ser maior que 0"));
+        }
+
+        return ajustarOcupacao(id, quantidade)
+                .switchIfEmpty(Mono.defer(() -> falhaAtualizacaoOcupacao(id, true)));
+    }
+
+    public Mono<CentroComunitario> decrementarOcupacao(String id, int quantidade) {
+        if (quantidade <= 0) {
+            return Mono.error(new IllegalArgumentException("Quantidade deve ser maior que 0"));
+        }
+
+        return ajustarOcupacao(id, -quantidade)
+                .switchIfEmpty(Mono.defer(() -> falhaAtualizacaoOcupacao(id, false)));
+    }
+
+    private Mono<CentroComunitario> ajustarOcupacao(String id, int delta) {
+        return mongoTemplate.findAndModify(OperacoesMongo.filtroAjusteOcupacao(id, delta), OperacoesMongo.ajusteOcupacao(delta),
+                FindAndModifyOptions.options().returnNew(true), CentroComunitario.class);
+    }
+
+    private Mono<CentroComunitario> falhaAtualizacaoOcupacao(String id, boolean excedeuCapacidade) {
+        // Só executado quando a atualização condicional não encontrou documento: distingue centro inexistente de limite violado
+        return repository.findById(id)
+                .flatMap(centro -> Mono.<CentroComunitario>error(new IllegalArgumentException(excedeuCapacidade
+                        ? "Ocupação atual não pode exceder a capacidade máxima de " + centro.getCapacidadeMaxima()
+                        : "Ocupação atual não pode ser negativa")))
+                .switchIfEmpty(Mono.error(new IllegalArgumentException("Centro comunitário com ID " + id + " não encontrado")));
+    }
+
+    public Mono<Negociacao> realizarIntercambio(String centroOrigemId, String centroDestinoId,
+                                                Recursos recursosOrigem, Recursos recursosDestino) {
+        if (centroOrigemId.equals(centroDestinoId)) {
+            return Mono.error(new IllegalArgumentException("Os centros origem e destino devem ser diferentes"));
+        }
+
+        // Uma única leitura para os dois centros; o saldo é conferido de novo pelo $inc condicionado
+        return repository.findAllById(List.of(centroOrigemId, centroDestinoId))
+                .collectMap(CentroComunitario::getId)
+                .flatMap(centros -> {
+                    CentroComunitario origem = centros.get(centroOrigemId);
+                    CentroComunitario destino = centros.get(centroDestinoId);
+                    if (origem == null) {
+                        return Mono.<Negociacao>error(new IllegalArgumentException("Centro origem com ID " + centroOrigemId + " não encontrado"));
+                    }
+                    if (destino == null) {
+                        return Mono.<Negociacao>error(new IllegalArgumentException("Centro destino com ID " + centroDestinoId + " não encontrado"));
+                    }
+                    RegrasCentro.validarIntercambio(origem, destino, recursosOrigem, recursosDestino);
+                    return aplicarIntercambio(centroOrigemId, centroDestinoId, recursosOrigem, recursosDestino);
+                });
+    }
+
+    private Mono<Negociacao> aplicarIntercambio(String centroOrigemId, String centroDestinoId,
+                                                Recursos recursosOrigem, Recursos recursosDestino) {
+        // Mesma sequência da pilha MVC: origem, destino e histórico, com o $inc inverso compensando o passo que falhar
+        return aplicarSaldo(centroOrigemId, recursosOrigem, recursosDestino).flatMap(origemAplicada -> {
+            if (!origemAplicada) {
+                return Mono.<Negociacao>error(new IllegalArgumentException("Centro origem não possui recursos suficientes"));
+            }
+            return aplicarSaldo(centroDestinoId, recursosDestino, recursosOrigem).flatMap(destinoAplicado -> {
+                if (!destinoAplicado) {
+                    return desfazerSaldo(centroOrigemId, recursosOrigem, recursosDestino)
+                            .then(Mono.<Negociacao>error(new IllegalArgumentException("Centro destino não possui recursos suficientes")));
+                }
+                Negociacao negociacao = RegrasCentro.criarNegociacao(centroOrigemId, centroDestinoId, recursosOrigem, recursosDestino);
+                return negociacaoRepository.save(negociacao)
+                        .onErrorResume(e -> desfazerSaldo(centroOrigemId, recursosOrigem, recursosDestino)
+                                .then(desfazerSaldo(centroDestinoId, recursosDestino, recursosOrigem))
+                                .then(Mono.<Negociacao>error(e)));
+            });
+        });
+    }
+
+    private Mono<Boolean> aplicarSaldo(String id, Recursos saida, Recursos entrada) {
+        return mongoTemplate.updateFirst(OperacoesMongo.filtroSaldo(id, saida), OperacoesMongo.variacaoRecursos(saida, entrada, 1),
+                        CentroComunitario.class)
+                .map(resultado -> resultado.getMatchedCount() > 0);
+    }
+
+    private Mono<Void> desfazerSaldo(String id, Recursos saida, Recursos entrada) {
+        return mongoTemplate.updateFirst(Query.query(Criteria.where("id").is(id)), OperacoesMongo.variacaoRecursos(saida, entrada, -1),
+                CentroComunitario.class).then();
+    }
+
+    public Flux<CentroComunitario> listarCentrosAltaOcupacao(double taxaMinima, Sort.Direction ordem, Integer limite) {
+        if (taxaMinima < 0 || taxaMinima > 1) {
+            return Flux.error(new IllegalArgumentException("Taxa mínima de ocupação deve estar entre 0 e 1"));
+        }
+        if (limite != null && limite <= 0) {
+            return Flux.error(new IllegalArgumentException("Limite deve ser maior que 0"));
+        }
+
+        Sort sort = Sort.by(ordem, "taxaOcupacao");
+        Pageable pageable = limite != null ? PageRequest.of(0, limite, sort) : Pageable.unpaged(sort);
+        return repository.findByTaxaOcupacaoGreaterThan(taxaMinima, pageable);
+    }
+
+    public Mono<RecursosMedia> calcularMediaRecursos() {
+        if (usarTotaisAcumulados()) {
+            return mongoTemplate.findById(EstatisticasRecursos.ID_GLOBAL, EstatisticasRecursos.class)
+                    .map(EstatisticasRecursos::calcularMedia)
+                    .defaultIfEmpty(new RecursosMedia());
+        }
+        return mongoTemplate.aggregate(OperacoesMongo.agregacaoRecursos("$avg"), CentroComunitario.class, Document.class)
+                .next()
+                .map(OperacoesMongo::lerMediaRecursos)
+                .defaultIfEmpty(new RecursosMedia());
+    }
+
+    public Flux<Negociacao> listarNegociacoesPorCentro(String centroId, LocalDateTime dataInicio,
+                                                       String cursor, Integer tamanhoPagina) {
+        if (centroId == null || centroId.isBlank()) {
+            return Flux.error(new IllegalArgumentException("ID do centro é obrigatório"));
+        }
+
+        return repository.existsById(centroId).flatMapMany(existe -> {
+            if (!existe) {
+                return Flux.<Negociacao>error(new IllegalArgumentException("Centro comunitário com ID " + centroId + " não encontrado"));
+            }
+            if (dataInicio != null && dataInicio.isAfter(LocalDateTime.now())) {
+                return Flux.<Negociacao>error(new IllegalArgumentException("Data de início não pode ser no futuro"));
+            }
+            if (tamanhoPagina != null && (tamanhoPagina <= 0 || tamanhoPagina > TAMANHO_MAXIMO_PAGINA)) {
+                return Flux.<Negociacao>error(new IllegalArgumentException("Tamanho da página deve estar entre 1 e " + TAMANHO_MAXIMO_PAGINA));
+            }
+
+            CursorNegociacao posicao = cursor != null ? CursorNegociacao.decodificar(cursor) : null;
+            return mongoTemplate.find(OperacoesMongo.consultaNegociacoesPorCentro(centroId, dataInicio, posicao, tamanhoPagina),
+                    Negociacao.class);
+        });
+    }
+
+    private boolean usarTotaisAcumulados() {
+        return properties.getRelatorios().getMediaRecursos() == PhoebusProperties.ModoMediaRecursos.TOTAIS_ACUMULADOS;
+    }
+}
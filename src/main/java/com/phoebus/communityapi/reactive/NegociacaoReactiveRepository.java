@@ -0,0 +1,7 @@
+package com.phoebus.communityapi.reactive;
+
+import com.phoebus.communityapi.model.Negociacao;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+
+public interface NegociacaoReactiveRepository extends ReactiveMongoRepository<Negociacao, String> {
+}
@@ -0,0 +1,36 @@
+package com.phoebus.communityapi.reactive;
+
+import com.phoebus.communityapi.config.MongoConfig;
+import com.phoebus.communityapi.config.PhoebusProperties;
+import com.phoebus.communityapi.event.CapacidadeMaximaListener;
+import com.phoebus.communityapi.event.FilaEventosCapacidade;
+import com.phoebus.communityapi.event.RelayEventos;
+import com.phoebus.communityapi.exception.GlobalExceptionHandler;
+import com.phoebus.communityapi.repository.CentroComunitarioRepository;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.mongodb.repository.config.EnableMongoRepositories;
+
+// Variante WebFlux + driver reativo do MongoDB (perfil Maven "reactive"). Varre só este pacote: os serviços MVC,
+// cache e índices em memória não são carregados. O @Profile impede que a varredura da aplicação MVC a importe.
+// Os repositórios bloqueantes servem só ao relay do outbox, que roda na própria thread
+@SpringBootApplication
+@Profile(PhoebusReactiveApplication.PERFIL)
+@EnableConfigurationProperties(PhoebusProperties.class)
+@EnableMongoRepositories(basePackageClasses = CentroComunitarioRepository.class)
+@Import({MongoConfig.class, RelayEventos.class, FilaEventosCapacidade.class, CapacidadeMaximaListener.class, GlobalExceptionHandler.class})
+public class PhoebusReactiveApplication {
+	static final String PERFIL = "reactive";
+
+	public static void main(String[] args) {
+		SpringApplication application = new SpringApplication(PhoebusReactiveApplication.class);
+		application.setWebApplicationType(WebApplicationType.REACTIVE);
+		application.setAdditionalProfiles(PERFIL);
+		application.run(args);
+	}
+
+}
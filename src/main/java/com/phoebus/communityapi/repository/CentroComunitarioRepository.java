@@ -1,7 +1,13 @@
 package com.phoebus.communityapi.repository;
 
 import com.phoebus.communityapi.model.CentroComunitario;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.repository.MongoRepository;
 
-public interface CentroComunitarioRepository extends MongoRepository<CentroComunitario, String> {
-}
\ No newline at end of file
+import java.util.List;
+
+public interface CentroComunitarioRepository extends MongoRepository<CentroComunitario, String>,
+        CentroComunitarioRepositoryCustom {
+
+    List<CentroComunitario> findByTaxaOcupacaoGreaterThan(double taxaMinima, Pageable pageable);
+}
@@ -0,0 +1,77 @@
+package com.phoebus.communityapi.repository;
+
+import com.phoebus.communityapi.model.CentroComunitario;
+import com.phoebus.communityapi.model.Recursos;
+import com.phoebus.communityapi.model.RecursosMedia;
+import org.springframework.data.geo.GeoResults;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+public interface CentroComunitarioRepositoryCustom {
+
+    long preencherCamposDerivados();
+
+    // Média de cada TipoRecurso entre todos os centros; vazio sem centros
+    Optional<RecursosMedia> calcularMediaRecursos();
+
+    // Cadastro pelo POST: insere, ou grava os campos do centro existente sem apagar o outbox e os marcadores de lote.
+    // Retorna o documento anterior, lido na mesma operação; vazio quando o centro é novo
+    Optional<CentroComunitario> substituir(CentroComunitario centro);
+
+    // Cursor com só os campos do índice de excedentes (nome, capacidade, ocupação e recursos), lido em lotes;
+    // o Stream deve ser fechado para liberar o cursor no servidor
+    Stream<CentroComunitario> percorrerRecursos();
+
+    // Centros com pelo menos vagasMinimas vagas dentro do raio, do mais próximo ao mais distante (distâncias em km)
+    GeoResults<CentroComunitario> buscarProximos(double latitude, double longitude, double raioKm, int vagasMinimas, int limite);
+
+    // Vazio quando o centro não existe ou a nova ocupação sairia de [0, capacidadeMaxima]
+    Optional<CentroComunitario> definirOcupacao(String id, int novaOcupacao);
+
+    Optional<CentroComunitario> ajustarOcupacao(String id, int delta);
+
+    // Um único bulkWrite não ordenado; retorna quantos centros foram atualizados. maioresOcupacoes (por centro)
+    // registra o evento de capacidade máxima quando alguma leitura do intervalo atingiu a capacidade
+    int atualizarOcupacoesEmLote(Map<String, Integer> ocupacoes, Map<String, Integer> maioresOcupacoes);
+
+    // Outbox: centros com algum evento de capacidade máxima ainda não confirmado fora de ignorar (os já em entrega)
+    List<CentroComunitario> buscarEventosCapacidadePendentes(int limite, Collection<String> ignorar);
+
+    void confirmarEventosCapacidade(Map<String, List<String>> idsEventosPorCentro);
+
+    // Desconta de eventosDescartados os descartes já registrados pelo relay
+    void registrarEventosCapacidadeDescartados(String id, int quantidade);
+
+    // Falso quando o centro não existe ou não possui os recursos de saída
+    boolean aplicarIntercambio(String id, Recursos saida, Recursos entrada);
+
+    // Também falso se a taxa de ocupação do centro não for mais maior que taxaOcupacaoMinima
+    boolean aplicarIntercambio(String id, Recursos saida, Recursos entrada, double taxaOcupacaoMinima);
+
+    void desfazerIntercambio(String id, Recursos saida, Recursos entrada);
+
+    // Aplica a variação líquida de cada centro em um único bulkWrite, marcando os documentos com o lote, a variação
+    // e o horário. Retorna quantos centros foram atualizados; menos que variacoes.size() indica saldo alterado por outra operação
+    int aplicarVariacoesEmLote(String lote, Map<String, Recursos> variacoes);
+
+    void concluirLote(String lote, Collection<String> ids);
+
+    // Reverte apenas os centros que ainda carregam a marca do lote, com a variação gravada nela.
+    // Retorna a variação desfeita de cada centro
+    Map<String, Recursos> desfazerLote(String lote);
+
+    // Grava a decisão do lote se ainda não houver uma e retorna a que vale (verdadeiro quando confirmado):
+    // a requisição e a recuperação de lotes nunca tomam decisões diferentes para o mesmo lote
+    boolean decidirLote(String lote, boolean confirmar);
+
+    // Lotes com marcas gravadas antes do limite, com os centros que ainda as carregam
+    Map<String, List<String>> buscarLotesPendentes(LocalDateTime limite);
+
+    // insertMany não ordenado: um documento rejeitado não impede os demais. Retorna o erro por posição na lista
+    Map<Integer, String> inserirEmLote(List<CentroComunitario> centros);
+}
@@ -0,0 +1,245 @@
+package com.phoebus.communityapi.repository;
+
+import com.phoebus.communityapi.model.CentroComunitario;
+import com.phoebus.communityapi.model.LoteIntercambio;
+import com.phoebus.communityapi.model.LotePendente;
+import com.phoebus.communityapi.model.Recursos;
+import com.phoebus.communityapi.model.RecursosMedia;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.springframework.data.geo.Distance;
+import org.springframework.data.geo.GeoResults;
+import org.springframework.data.geo.Metrics;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.aggregation.ConditionalOperators;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.NearQuery;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+@RequiredArgsConstructor
+public class CentroComunitarioRepositoryImpl implements CentroComunitarioRepositoryCustom {
+    private static final String CAMPO_LOTES_PENDENTES = "lotesPendentes";
+    private static final int TAMANHO_LOTE_CURSOR = 1000;
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public long preencherCamposDerivados() {
+        // Documentos gravados antes da taxa, das vagas ou da posição existirem não apareceriam nas consultas indexadas
+        Query ocupacao = Query.query(new Criteria().orOperator(
+                Criteria.where("taxaOcupacao").exists(false), Criteria.where("vagasDisponiveis").exists(false))
+                .and("capacidadeMaxima").gt(0));
+        long atualizados = mongoTemplate.updateMulti(ocupacao, OperacoesMongo.atualizacaoOcupacao(ConditionalOperators.ifNull("ocupacaoAtual").then(0)),
+                CentroComunitario.class).getModifiedCount();
+
+        Query posicao = Query.query(Criteria.where("posicao").exists(false).and("localizacao").exists(true));
+        AggregationUpdate update = AggregationUpdate.from(List.of(contexto -> new Document("$set", new Document("posicao",
+                new Document("type", "Point").append("coordinates", List.of("$localizacao.longitude", "$localizacao.latitude"))))));
+        return atualizados + mongoTemplate.updateMulti(posicao, update, CentroComunitario.class).getModifiedCount();
+    }
+
+    @Override
+    public Optional<RecursosMedia> calcularMediaRecursos() {
+        return Optional.ofNullable(mongoTemplate.aggregate(OperacoesMongo.agregacaoRecursos("$avg"), CentroComunitario.class,
+                Document.class).getUniqueMappedResult()).map(OperacoesMongo::lerMediaRecursos);
+    }
+
+    @Override
+    public Optional<CentroComunitario> substituir(CentroComunitario centro) {
+        if (centro.getId() == null) {
+            mongoTemplate.insert(centro);
+            return Optional.empty();
+        }
+        return Optional.ofNullable(mongoTemplate.findAndModify(Query.query(Criteria.where("id").is(centro.getId())),
+                OperacoesMongo.substituicaoCentro(mongoTemplate.getConverter(), centro),
+                FindAndModifyOptions.options().upsert(true).returnNew(false), CentroComunitario.class));
+    }
+
+    @Override
+    public Stream<CentroComunitario> percorrerRecursos() {
+        Query query = new Query().cursorBatchSize(TAMANHO_LOTE_CURSOR);
+        query.fields().include("nome", "capacidadeMaxima", "ocupacaoAtual", "recursos");
+        return mongoTemplate.stream(query, CentroComunitario.class);
+    }
+
+    @Override
+    public GeoResults<CentroComunitario> buscarProximos(double latitude, double longitude, double raioKm,
+                                                        int vagasMinimas, int limite) {
+        // $geoNear sobre o índice composto posicao/vagasDisponiveis: raio, vagas, ordenação por distância e limite no banco
+        NearQuery nearQuery = NearQuery.near(new GeoJsonPoint(longitude, latitude))
+                .spherical(true)
+                .maxDistance(new Distance(raioKm, Metrics.KILOMETERS))
+                .query(Query.query(Criteria.where("vagasDisponiveis").gte(vagasMinimas)))
+                .limit(limite);
+        return mongoTemplate.geoNear(nearQuery, CentroComunitario.class);
+    }
+
+    @Override
+    public Optional<CentroComunitario> definirOcupacao(String id, int novaOcupacao) {
+        return Optional.ofNullable(mongoTemplate.findAndModify(OperacoesMongo.filtroDefinicaoOcupacao(id, novaOcupacao),
+                OperacoesMongo.definicaoOcupacao(novaOcupacao), FindAndModifyOptions.options().returnNew(true), CentroComunitario.class));
+    }
+
+    @Override
+    public Optional<CentroComunitario> ajustarOcupacao(String id, int delta) {
+        return Optional.ofNullable(mongoTemplate.findAndModify(OperacoesMongo.filtroAjusteOcupacao(id, delta),
+                OperacoesMongo.ajusteOcupacao(delta), FindAndModifyOptions.options().returnNew(true), CentroComunitario.class));
+    }
+
+    @Override
+    public int atualizarOcupacoesEmLote(Map<String, Integer> ocupacoes, Map<String, Integer> maioresOcupacoes) {
+        if (ocupacoes.isEmpty()) {
+            return 0;
+        }
+
+        BulkOperations operacoes = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, CentroComunitario.class);
+        ocupacoes.forEach((id, ocupacao) -> operacoes.updateOne(OperacoesMongo.filtroDefinicaoOcupacao(id, ocupacao),
+                OperacoesMongo.definicaoOcupacao(ocupacao, maioresOcupacoes.getOrDefault(id, ocupacao))));
+        return operacoes.execute().getMatchedCount();
+    }
+
+    @Override
+    public List<CentroComunitario> buscarEventosCapacidadePendentes(int limite, Collection<String> ignorar) {
+        return mongoTemplate.find(OperacoesMongo.filtroEventosCapacidadePendentes(ignorar).limit(limite), CentroComunitario.class);
+    }
+
+    @Override
+    public void confirmarEventosCapacidade(Map<String, List<String>> idsEventosPorCentro) {
+        if (idsEventosPorCentro.isEmpty()) {
+            return;
+        }
+
+        BulkOperations operacoes = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, CentroComunitario.class);
+        idsEventosPorCentro.forEach((id, idsEventos) -> operacoes.updateOne(Query.query(Criteria.where("id").is(id)),
+                OperacoesMongo.confirmacaoEventosCapacidade(idsEventos)));
+        operacoes.execute();
+    }
+
+    @Override
+    public void registrarEventosCapacidadeDescartados(String id, int quantidade) {
+        mongoTemplate.updateFirst(Query.query(Criteria.where("id").is(id)), OperacoesMongo.registroEventosDescartados(quantidade),
+                CentroComunitario.class);
+    }
+
+    @Override
+    public boolean aplicarIntercambio(String id, Recursos saida, Recursos entrada) {
+        return mongoTemplate.updateFirst(OperacoesMongo.filtroSaldo(id, saida), OperacoesMongo.variacaoRecursos(saida, entrada, 1),
+                CentroComunitario.class).getMatchedCount() > 0;
+    }
+
+    @Override
+    public boolean aplicarIntercambio(String id, Recursos saida, Recursos entrada, double taxaOcupacaoMinima) {
+        return mongoTemplate.updateFirst(OperacoesMongo.filtroSaldo(id, saida, taxaOcupacaoMinima),
+                OperacoesMongo.variacaoRecursos(saida, entrada, 1), CentroComunitario.class).getMatchedCount() > 0;
+    }
+
+    @Override
+    public void desfazerIntercambio(String id, Recursos saida, Recursos entrada) {
+        mongoTemplate.updateFirst(Query.query(Criteria.where("id").is(id)), OperacoesMongo.variacaoRecursos(saida, entrada, -1),
+                CentroComunitario.class);
+    }
+
+    @Override
+    public int aplicarVariacoesEmLote(String lote, Map<String, Recursos> variacoes) {
+        if (variacoes.isEmpty()) {
+            return 0;
+        }
+
+        LocalDateTime criadoEm = LocalDateTime.now();
+        BulkOperations operacoes = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, CentroComunitario.class);
+        variacoes.forEach((id, variacao) -> {
+            // Variação negativa é saída: o documento precisa ter o saldo
+            Criteria criteria = OperacoesMongo.exigirSaldo(Criteria.where("id").is(id), variacao.negativo());
+            LotePendente marca = new LotePendente();
+            marca.setLote(lote);
+            marca.setVariacao(variacao);
+            marca.setCriadoEm(criadoEm);
+            operacoes.updateOne(Query.query(criteria),
+                    OperacoesMongo.incrementoRecursos(variacao, 1).push(CAMPO_LOTES_PENDENTES, marca));
+        });
+        return operacoes.execute().getMatchedCount();
+    }
+
+    @Override
+    public void concluirLote(String lote, Collection<String> ids) {
+        mongoTemplate.updateMulti(Query.query(Criteria.where("id").in(ids)),
+                new Update().pull(CAMPO_LOTES_PENDENTES, new Document("lote", lote)), CentroComunitario.class);
+    }
+
+    @Override
+    public Map<String, Recursos> desfazerLote(String lote) {
+        Query query = Query.query(Criteria.where(CAMPO_LOTES_PENDENTES + ".lote").is(lote));
+        query.fields().include("id").elemMatch(CAMPO_LOTES_PENDENTES, Criteria.where("lote").is(lote));
+        Map<String, Recursos> desfeitos = new HashMap<>();
+        for (CentroComunitario centro : mongoTemplate.find(query, CentroComunitario.class)) {
+            desfeitos.put(centro.getId(), centro.getLotesPendentes().get(0).getVariacao());
+        }
+        if (desfeitos.isEmpty()) {
+            return desfeitos;
+        }
+
+        // O filtro pela marca impede que duas reversões simultâneas descontem a variação duas vezes
+        BulkOperations operacoes = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, CentroComunitario.class);
+        desfeitos.forEach((id, variacao) -> operacoes.updateOne(
+                Query.query(Criteria.where("id").is(id).and(CAMPO_LOTES_PENDENTES + ".lote").is(lote)),
+                OperacoesMongo.incrementoRecursos(variacao, -1).pull(CAMPO_LOTES_PENDENTES, new Document("lote", lote))));
+        operacoes.execute();
+        return desfeitos;
+    }
+
+    @Override
+    public boolean decidirLote(String lote, boolean confirmar) {
+        // Upsert pelo _id com $setOnInsert: só a primeira decisão é gravada, as seguintes leem a existente
+        LoteIntercambio decisao = mongoTemplate.findAndModify(Query.query(Criteria.where("id").is(lote)),
+                new Update().setOnInsert("confirmado", confirmar).setOnInsert("dataHora", LocalDateTime.now()),
+                FindAndModifyOptions.options().upsert(true).returnNew(true), LoteIntercambio.class);
+        return decisao.isConfirmado();
+    }
+
+    @Override
+    public Map<String, List<String>> buscarLotesPendentes(LocalDateTime limite) {
+        Query query = Query.query(Criteria.where(CAMPO_LOTES_PENDENTES + ".criadoEm").lt(limite));
+        query.fields().include("id", CAMPO_LOTES_PENDENTES);
+        Map<String, List<String>> lotes = new HashMap<>();
+        for (CentroComunitario centro : mongoTemplate.find(query, CentroComunitario.class)) {
+            for (LotePendente marca : centro.getLotesPendentes()) {
+                if (marca.getCriadoEm().isBefore(limite)) {
+                    lotes.computeIfAbsent(marca.getLote(), lote -> new ArrayList<>()).add(centro.getId());
+                }
+            }
+        }
+        return lotes;
+    }
+
+    @Override
+    public Map<Integer, String> inserirEmLote(List<CentroComunitario> centros) {
+        Map<Integer, String> erros = new HashMap<>();
+        if (centros.isEmpty()) {
+            return erros;
+        }
+
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, CentroComunitario.class)
+                    .insert(centros)
+                    .execute();
+        } catch (BulkOperationException e) {
+            e.getErrors().forEach(erro -> erros.put(erro.getIndex(), erro.getMessage()));
+        }
+        return erros;
+    }
+}
@@ -0,0 +1,34 @@
+package com.phoebus.communityapi.repository;
+
+import org.bson.Document;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.Optional;
+
+// Início da última execução concluída de cada consolidação em segundo plano, um documento por consolidação
+final class ControleConsolidacoes {
+    private static final String COLECAO = "controle_consolidacoes";
+    private static final String CAMPO_INICIADA_EM = "iniciadaEm";
+
+    private ControleConsolidacoes() {
+    }
+
+    static Optional<LocalDateTime> buscarUltima(MongoTemplate mongoTemplate, String consolidacao) {
+        Document controle = mongoTemplate.findById(consolidacao, Document.class, COLECAO);
+        return Optional.ofNullable(controle)
+                .map(documento -> documento.getDate(CAMPO_INICIADA_EM))
+                .map(data -> LocalDateTime.ofInstant(data.toInstant(), ZoneId.systemDefault()));
+    }
+
+    static void registrar(MongoTemplate mongoTemplate, String consolidacao, LocalDateTime inicio) {
+        mongoTemplate.upsert(Query.query(Criteria.where("_id").is(consolidacao)),
+                new Update().set(CAMPO_INICIADA_EM, Date.from(inicio.atZone(ZoneId.systemDefault()).toInstant())),
+                COLECAO);
+    }
+}
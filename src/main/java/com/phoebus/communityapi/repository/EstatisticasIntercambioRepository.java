@@ -0,0 +1,18 @@
+package com.phoebus.communityapi.repository;
+
+import com.phoebus.communityapi.model.EstatisticasIntercambio;
+import com.phoebus.communityapi.model.Granularidade;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface EstatisticasIntercambioRepository extends MongoRepository<EstatisticasIntercambio, String>,
+        EstatisticasIntercambioRepositoryCustom {
+
+    // inicio inclusivo e fim exclusivo, em ordem cronológica
+    @Query(value = "{ centroId: ?0, granularidade: ?1, inicio: { $gte: ?2, $lt: ?3 } }", sort = "{ inicio: 1 }")
+    List<EstatisticasIntercambio> buscarPorCentro(String centroId, Granularidade granularidade,
+                                                  LocalDateTime inicio, LocalDateTime fim);
+}
@@ -0,0 +1,15 @@
+package com.phoebus.communityapi.repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+public interface EstatisticasIntercambioRepositoryCustom {
+
+    // Recalcula as horas com negociações a partir de desde (todas quando null) e os dias que as contêm
+    void consolidar(LocalDateTime desde);
+
+    // Início da última consolidação concluída
+    Optional<LocalDateTime> buscarUltimaConsolidacao();
+
+    void registrarConsolidacao(LocalDateTime inicio);
+}
@@ -0,0 +1,138 @@
+package com.phoebus.communityapi.repository;
+
+import com.phoebus.communityapi.model.EstatisticasIntercambio;
+import com.phoebus.communityapi.model.Granularidade;
+import com.phoebus.communityapi.model.Negociacao;
+import com.phoebus.communityapi.model.TipoRecurso;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.query.Criteria;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+// Os intervalos são recalculados inteiros a partir da origem e gravados com $merge/replace: repetir a consolidação
+// (queda no meio, duas instâncias ao mesmo tempo, margem sobreposta) chega sempre ao mesmo resultado
+@RequiredArgsConstructor
+public class EstatisticasIntercambioRepositoryImpl implements EstatisticasIntercambioRepositoryCustom {
+    private static final String CONSOLIDACAO = "estatisticas_intercambios";
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public void consolidar(LocalDateTime desde) {
+        // Dias e horas no fuso da aplicação, o mesmo usado na conversão de LocalDateTime
+        String fuso = ZoneId.systemDefault().getId();
+        String colecao = mongoTemplate.getCollectionName(EstatisticasIntercambio.class);
+        AggregationOptions opcoes = AggregationOptions.builder().allowDiskUse(true).build();
+
+        // Horas: cada negociação conta uma vez para a origem e uma vez para o destino, com os lados invertidos
+        // Negociações de lotes não concluídos ficam de fora: a recuperação de lotes pode removê-las, e um intervalo que
+        // perdesse todas elas não sairia no $group, então o $merge nunca corrigiria a contagem. Concluído o lote, elas
+        // entram num ciclo seguinte, porque a margem (5m) cobre o prazo da recuperação (tempoLimiteLote + intervalo)
+        Criteria filtroNegociacoes = Criteria.where("lote").exists(false);
+        if (desde != null) {
+            filtroNegociacoes.and("dataHora").gte(Granularidade.HORA.truncar(desde));
+        }
+        List<AggregationOperation> horas = new ArrayList<>();
+        horas.add(Aggregation.match(filtroNegociacoes));
+        horas.add(contexto -> new Document("$project", new Document("_id", 0)
+                .append("inicio", truncar("$dataHora", Granularidade.HORA, fuso))
+                .append("lados", List.of(
+                        lado("$centroOrigemId", "$pontosOrigem", "$pontosDestino", "$recursosOrigem", "$recursosDestino"),
+                        lado("$centroDestinoId", "$pontosDestino", "$pontosOrigem", "$recursosDestino", "$recursosOrigem")))));
+        horas.add(contexto -> new Document("$unwind", "$lados"));
+        horas.add(contexto -> agrupar("$lados.centroId", "$inicio", 1, "$lados."));
+        horas.add(contexto -> projetar(Granularidade.HORA, fuso));
+        horas.add(contexto -> mesclar(colecao));
+        mongoTemplate.aggregate(Aggregation.newAggregation(horas).withOptions(opcoes), Negociacao.class, Document.class);
+
+        // Dias: somados a partir das horas já consolidadas, sem voltar às negociações
+        Criteria filtroHoras = Criteria.where("granularidade").is(Granularidade.HORA.name());
+        if (desde != null) {
+            filtroHoras.and("inicio").gte(Granularidade.DIA.truncar(desde));
+        }
+        Aggregation dias = Aggregation.newAggregation(
+                Aggregation.match(filtroHoras),
+                contexto -> agrupar("$centroId", truncar("$inicio", Granularidade.DIA, fuso), "$intercambios", "$"),
+                contexto -> projetar(Granularidade.DIA, fuso),
+                contexto -> mesclar(colecao)
+        ).withOptions(opcoes);
+        mongoTemplate.aggregate(dias, colecao, Document.class);
+    }
+
+    @Override
+    public Optional<LocalDateTime> buscarUltimaConsolidacao() {
+        return ControleConsolidacoes.buscarUltima(mongoTemplate, CONSOLIDACAO);
+    }
+
+    @Override
+    public void registrarConsolidacao(LocalDateTime inicio) {
+        ControleConsolidacoes.registrar(mongoTemplate, CONSOLIDACAO, inicio);
+    }
+
+    private static Document truncar(Object data, Granularidade granularidade, String fuso) {
+        return new Document("$dateTrunc", new Document("date", data)
+                .append("unit", granularidade.getParametro())
+                .append("timezone", fuso));
+    }
+
+    private static Document lado(String centroId, String pontosCedidos, String pontosRecebidos,
+                                 String recursosCedidos, String recursosRecebidos) {
+        return new Document("centroId", centroId)
+                .append("pontosCedidos", pontosCedidos)
+                .append("pontosRecebidos", pontosRecebidos)
+                .append("recursosCedidos", recursosCedidos)
+                .append("recursosRecebidos", recursosRecebidos);
+    }
+
+    // Mesmos campos de EstatisticasIntercambio, com os recursos achatados (o $group não gera subdocumentos)
+    private static Document agrupar(String centroId, Object inicio, Object intercambios, String prefixo) {
+        Document grupo = new Document("_id", new Document("centroId", centroId).append("inicio", inicio))
+                .append("intercambios", new Document("$sum", intercambios))
+                .append("pontosCedidos", new Document("$sum", prefixo + "pontosCedidos"))
+                .append("pontosRecebidos", new Document("$sum", prefixo + "pontosRecebidos"));
+        for (TipoRecurso tipo : TipoRecurso.values()) {
+            grupo.append("cedidos_" + tipo.getCampo(), new Document("$sum", prefixo + "recursosCedidos." + tipo.getCampo()));
+            grupo.append("recebidos_" + tipo.getCampo(), new Document("$sum", prefixo + "recursosRecebidos." + tipo.getCampo()));
+        }
+        return new Document("$group", grupo);
+    }
+
+    private static Document projetar(Granularidade granularidade, String fuso) {
+        Document cedidos = new Document();
+        Document recebidos = new Document();
+        for (TipoRecurso tipo : TipoRecurso.values()) {
+            cedidos.append(tipo.getCampo(), "$cedidos_" + tipo.getCampo());
+            recebidos.append(tipo.getCampo(), "$recebidos_" + tipo.getCampo());
+        }
+        // _id determinístico por centro e intervalo: o $merge substitui o intervalo recalculado
+        Document id = new Document("$concat", List.of("$_id.centroId", "|" + granularidade.getParametro() + "|",
+                new Document("$dateToString", new Document("date", "$_id.inicio")
+                        .append("format", "%Y-%m-%dT%H:%M")
+                        .append("timezone", fuso))));
+        return new Document("$project", new Document("_id", id)
+                .append("centroId", "$_id.centroId")
+                .append("granularidade", granularidade.name())
+                .append("inicio", "$_id.inicio")
+                .append("intercambios", 1)
+                .append("pontosCedidos", 1)
+                .append("pontosRecebidos", 1)
+                .append("recursosCedidos", cedidos)
+                .append("recursosRecebidos", recebidos));
+    }
+
+    private static Document mesclar(String colecao) {
+        return new Document("$merge", new Document("into", colecao)
+                .append("on", "_id")
+                .append("whenMatched", "replace")
+                .append("whenNotMatched", "insert"));
+    }
+}
@@ -0,0 +1,8 @@
+package com.phoebus.communityapi.repository;
+
+import com.phoebus.communityapi.model.EstatisticasRecursos;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+public interface EstatisticasRecursosRepository extends MongoRepository<EstatisticasRecursos, String>,
+        EstatisticasRecursosRepositoryCustom {
+}
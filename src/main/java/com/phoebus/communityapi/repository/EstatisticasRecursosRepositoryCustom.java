@@ -0,0 +1,11 @@
+package com.phoebus.communityapi.repository;
+
+import com.phoebus.communityapi.model.EstatisticasRecursos;
+import com.phoebus.communityapi.model.Recursos;
+
+public interface EstatisticasRecursosRepositoryCustom {
+
+    void incrementar(int centros, Recursos recursos);
+
+    EstatisticasRecursos recalcular();
+}
@@ -0,0 +1,36 @@
+package com.phoebus.communityapi.repository;
+
+import com.phoebus.communityapi.model.CentroComunitario;
+import com.phoebus.communityapi.model.EstatisticasRecursos;
+import com.phoebus.communityapi.model.Recursos;
+import com.phoebus.communityapi.model.TipoRecurso;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+@RequiredArgsConstructor
+public class EstatisticasRecursosRepositoryImpl implements EstatisticasRecursosRepositoryCustom {
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public void incrementar(int centros, Recursos recursos) {
+        mongoTemplate.upsert(OperacoesMongo.filtroEstatisticasGlobais(), OperacoesMongo.incrementoEstatisticas(centros, recursos),
+                EstatisticasRecursos.class);
+    }
+
+    @Override
+    public EstatisticasRecursos recalcular() {
+        Document soma = mongoTemplate.aggregate(OperacoesMongo.agregacaoRecursos("$sum"), CentroComunitario.class, Document.class)
+                .getUniqueMappedResult();
+        EstatisticasRecursos estatisticas = new EstatisticasRecursos();
+        if (soma != null) {
+            estatisticas.setTotalCentros(((Number) soma.get("totalCentros")).longValue());
+            for (TipoRecurso tipo : TipoRecurso.values()) {
+                estatisticas.definirTotal(tipo, ((Number) soma.get(tipo.getCampo())).longValue());
+            }
+        }
+
+        estatisticas.setId(EstatisticasRecursos.ID_GLOBAL);
+        return mongoTemplate.save(estatisticas);
+    }
+}
@@ -0,0 +1,8 @@
+package com.phoebus.communityapi.repository;
+
+import com.phoebus.communityapi.model.LeituraOcupacao;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+public interface HistoricoOcupacaoRepository extends MongoRepository<LeituraOcupacao, String>,
+        HistoricoOcupacaoRepositoryCustom {
+}
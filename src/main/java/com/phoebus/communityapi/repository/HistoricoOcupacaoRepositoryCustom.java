@@ -0,0 +1,27 @@
+package com.phoebus.communityapi.repository;
+
+import com.phoebus.communityapi.model.PontoOcupacao;
+import com.phoebus.communityapi.model.ResolucaoOcupacao;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+public interface HistoricoOcupacaoRepositoryCustom {
+
+    // Cria a coleção de séries temporais das leituras e os índices das camadas; nas existentes só ajusta a retenção
+    void garantirColecoes(Duration retencaoLeituras, Duration retencaoMinutos, Duration retencaoHoras);
+
+    // Recalcula os minutos com leituras a partir de desde (todos quando null) e as horas que os contêm
+    void consolidar(LocalDateTime desde);
+
+    // Início da última consolidação concluída
+    Optional<LocalDateTime> buscarUltimaConsolidacao();
+
+    void registrarConsolidacao(LocalDateTime inicio);
+
+    // inicio inclusivo e fim exclusivo, em ordem cronológica
+    List<PontoOcupacao> buscarPontos(String centroId, ResolucaoOcupacao resolucao, LocalDateTime inicio,
+                                     LocalDateTime fim, int limite);
+}
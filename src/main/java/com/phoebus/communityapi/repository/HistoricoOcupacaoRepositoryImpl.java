@@ -0,0 +1,218 @@
+package com.phoebus.communityapi.repository;
+
+import com.phoebus.communityapi.model.LeituraOcupacao;
+import com.phoebus.communityapi.model.PontoOcupacao;
+import com.phoebus.communityapi.model.ResolucaoOcupacao;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.CollectionOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.IndexOptions;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.timeseries.Granularity;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+// Leituras brutas em uma coleção de séries temporais e duas camadas consolidadas (minutos a partir das leituras,
+// horas a partir dos minutos) gravadas com $merge/replace, então repetir a consolidação chega ao mesmo resultado.
+// Cada camada tem a própria retenção; os dias são somados das horas na consulta
+@RequiredArgsConstructor
+public class HistoricoOcupacaoRepositoryImpl implements HistoricoOcupacaoRepositoryCustom {
+    private static final Logger logger = LoggerFactory.getLogger(HistoricoOcupacaoRepositoryImpl.class);
+    private static final String CONSOLIDACAO = "historico_ocupacao";
+    private static final String COLECAO_MINUTOS = "historico_ocupacao_minutos";
+    private static final String COLECAO_HORAS = "historico_ocupacao_horas";
+    private static final String INDICE_RETENCAO = "retencao";
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public void garantirColecoes(Duration retencaoLeituras, Duration retencaoMinutos, Duration retencaoHoras) {
+        String leituras = mongoTemplate.getCollectionName(LeituraOcupacao.class);
+        if (!mongoTemplate.collectionExists(leituras)) {
+            try {
+                mongoTemplate.createCollection(LeituraOcupacao.class, CollectionOptions.timeSeries("dataHora",
+                        opcoes -> opcoes.metaField("centroId").granularity(Granularity.SECONDS).expireAfter(retencaoLeituras)));
+            } catch (DataAccessException e) {
+                // Outra instância pode ter criado a coleção ao mesmo tempo
+                if (!mongoTemplate.collectionExists(leituras)) {
+                    throw e;
+                }
+            }
+        } else {
+            try {
+                mongoTemplate.executeCommand(new Document("collMod", leituras)
+                        .append("expireAfterSeconds", retencaoLeituras.toSeconds()));
+            } catch (DataAccessException e) {
+                // Ex.: coleção comum criada antes desta versão; as leituras continuam gravadas, sem expirar
+                logger.warn("Retenção das leituras de ocupação não ajustada: {}", e.getMessage());
+            }
+        }
+
+        garantirCamada(COLECAO_MINUTOS, retencaoMinutos);
+        garantirCamada(COLECAO_HORAS, retencaoHoras);
+    }
+
+    private void garantirCamada(String colecao, Duration retencao) {
+        IndexOperations indices = mongoTemplate.indexOps(colecao);
+        indices.createIndex(new Index().on("centroId", Sort.Direction.ASC).on("inicio", Sort.Direction.ASC)
+                .named("centro_inicio"));
+        boolean existeRetencao = indices.getIndexInfo().stream()
+                .anyMatch(indice -> INDICE_RETENCAO.equals(indice.getName()));
+        if (existeRetencao) {
+            indices.alterIndex(INDICE_RETENCAO, IndexOptions.expireAfter(retencao));
+        } else {
+            indices.createIndex(new Index().on("inicio", Sort.Direction.ASC).expire(retencao).named(INDICE_RETENCAO));
+        }
+    }
+
+    @Override
+    public void consolidar(LocalDateTime desde) {
+        // Minutos e horas no fuso da aplicação, o mesmo usado na conversão de LocalDateTime
+        String fuso = ZoneId.systemDefault().getId();
+        AggregationOptions opcoes = AggregationOptions.builder().allowDiskUse(true).build();
+
+        // Minutos: ordenados por dataHora para que a última leitura de cada intervalo seja a mais recente
+        List<AggregationOperation> minutos = new ArrayList<>();
+        if (desde != null) {
+            minutos.add(Aggregation.match(Criteria.where("dataHora").gte(ResolucaoOcupacao.MINUTO.truncar(desde))));
+        }
+        minutos.add(Aggregation.sort(Sort.Direction.ASC, "dataHora"));
+        minutos.add(contexto -> agruparLeituras(ResolucaoOcupacao.MINUTO, fuso));
+        minutos.add(contexto -> projetar(ResolucaoOcupacao.MINUTO, fuso));
+        minutos.add(contexto -> mesclar(COLECAO_MINUTOS));
+        mongoTemplate.aggregate(Aggregation.newAggregation(minutos).withOptions(opcoes), LeituraOcupacao.class, Document.class);
+
+        // Horas: combinadas a partir dos minutos já consolidados, sem voltar às leituras
+        List<AggregationOperation> horas = new ArrayList<>();
+        if (desde != null) {
+            horas.add(Aggregation.match(Criteria.where("inicio").gte(ResolucaoOcupacao.HORA.truncar(desde))));
+        }
+        horas.add(Aggregation.sort(Sort.Direction.ASC, "inicio"));
+        horas.add(contexto -> agruparPontos(ResolucaoOcupacao.HORA, fuso));
+        horas.add(contexto -> projetar(ResolucaoOcupacao.HORA, fuso));
+        horas.add(contexto -> mesclar(COLECAO_HORAS));
+        mongoTemplate.aggregate(Aggregation.newAggregation(horas).withOptions(opcoes), COLECAO_MINUTOS, Document.class);
+    }
+
+    @Override
+    public Optional<LocalDateTime> buscarUltimaConsolidacao() {
+        return ControleConsolidacoes.buscarUltima(mongoTemplate, CONSOLIDACAO);
+    }
+
+    @Override
+    public void registrarConsolidacao(LocalDateTime inicio) {
+        ControleConsolidacoes.registrar(mongoTemplate, CONSOLIDACAO, inicio);
+    }
+
+    @Override
+    public List<PontoOcupacao> buscarPontos(String centroId, ResolucaoOcupacao resolucao, LocalDateTime inicio,
+                                            LocalDateTime fim, int limite) {
+        return switch (resolucao) {
+            case LEITURAS -> {
+                Query consulta = Query.query(Criteria.where("centroId").is(centroId).and("dataHora").gte(inicio).lt(fim))
+                        .with(Sort.by(Sort.Direction.ASC, "dataHora"))
+                        .limit(limite);
+                yield mongoTemplate.find(consulta, LeituraOcupacao.class).stream()
+                        .map(HistoricoOcupacaoRepositoryImpl::ponto)
+                        .toList();
+            }
+            case MINUTO, HORA -> {
+                Query consulta = Query.query(Criteria.where("centroId").is(centroId).and("inicio").gte(inicio).lt(fim))
+                        .with(Sort.by(Sort.Direction.ASC, "inicio"))
+                        .limit(limite);
+                yield mongoTemplate.find(consulta, PontoOcupacao.class,
+                        resolucao == ResolucaoOcupacao.MINUTO ? COLECAO_MINUTOS : COLECAO_HORAS);
+            }
+            case DIA -> {
+                String fuso = ZoneId.systemDefault().getId();
+                Aggregation dias = Aggregation.newAggregation(
+                        Aggregation.match(Criteria.where("centroId").is(centroId).and("inicio").gte(inicio).lt(fim)),
+                        Aggregation.sort(Sort.Direction.ASC, "inicio"),
+                        contexto -> agruparPontos(ResolucaoOcupacao.DIA, fuso),
+                        contexto -> projetar(ResolucaoOcupacao.DIA, fuso),
+                        Aggregation.sort(Sort.Direction.ASC, "inicio"),
+                        Aggregation.limit(limite));
+                yield mongoTemplate.aggregate(dias, COLECAO_HORAS, PontoOcupacao.class).getMappedResults();
+            }
+        };
+    }
+
+    private static PontoOcupacao ponto(LeituraOcupacao leitura) {
+        PontoOcupacao ponto = new PontoOcupacao();
+        ponto.setId(leitura.getId());
+        ponto.setCentroId(leitura.getCentroId());
+        ponto.setInicio(leitura.getDataHora());
+        ponto.setMinima(leitura.getOcupacao());
+        ponto.setMaxima(leitura.getOcupacao());
+        ponto.setMedia(leitura.getOcupacao());
+        ponto.setUltima(leitura.getOcupacao());
+        ponto.setLeituras(1);
+        return ponto;
+    }
+
+    private static Document truncar(Object data, ResolucaoOcupacao resolucao, String fuso) {
+        return new Document("$dateTrunc", new Document("date", data)
+                .append("unit", resolucao.getParametro())
+                .append("timezone", fuso));
+    }
+
+    private static Document agruparLeituras(ResolucaoOcupacao resolucao, String fuso) {
+        return new Document("$group", new Document("_id", new Document("centroId", "$centroId")
+                .append("inicio", truncar("$dataHora", resolucao, fuso)))
+                .append("minima", new Document("$min", "$ocupacao"))
+                .append("maxima", new Document("$max", "$ocupacao"))
+                .append("soma", new Document("$sum", "$ocupacao"))
+                .append("leituras", new Document("$sum", 1))
+                .append("ultima", new Document("$last", "$ocupacao")));
+    }
+
+    // A média do intervalo maior pondera a de cada intervalo menor pelo número de leituras
+    private static Document agruparPontos(ResolucaoOcupacao resolucao, String fuso) {
+        return new Document("$group", new Document("_id", new Document("centroId", "$centroId")
+                .append("inicio", truncar("$inicio", resolucao, fuso)))
+                .append("minima", new Document("$min", "$minima"))
+                .append("maxima", new Document("$max", "$maxima"))
+                .append("soma", new Document("$sum", new Document("$multiply", List.of("$media", "$leituras"))))
+                .append("leituras", new Document("$sum", "$leituras"))
+                .append("ultima", new Document("$last", "$ultima")));
+    }
+
+    private static Document projetar(ResolucaoOcupacao resolucao, String fuso) {
+        // _id determinístico por centro e intervalo: o $merge substitui o intervalo recalculado
+        Document id = new Document("$concat", List.of("$_id.centroId", "|" + resolucao.getParametro() + "|",
+                new Document("$dateToString", new Document("date", "$_id.inicio")
+                        .append("format", "%Y-%m-%dT%H:%M")
+                        .append("timezone", fuso))));
+        return new Document("$project", new Document("_id", id)
+                .append("centroId", "$_id.centroId")
+                .append("inicio", "$_id.inicio")
+                .append("minima", 1)
+                .append("maxima", 1)
+                .append("media", new Document("$divide", List.of("$soma", "$leituras")))
+                .append("ultima", 1)
+                .append("leituras", 1));
+    }
+
+    private static Document mesclar(String colecao) {
+        return new Document("$merge", new Document("into", colecao)
+                .append("on", "_id")
+                .append("whenMatched", "replace")
+                .append("whenNotMatched", "insert"));
+    }
+}
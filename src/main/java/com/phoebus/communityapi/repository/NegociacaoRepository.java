@@ -3,5 +3,5 @@ package com.phoebus.communityapi.repository;
 import com.phoebus.communityapi.model.Negociacao;
 import org.springframework.data.mongodb.repository.MongoRepository;
 
-public interface NegociacaoRepository extends MongoRepository<Negociacao, String> {
-}
\ No newline at end of file
+public interface NegociacaoRepository extends MongoRepository<Negociacao, String>, NegociacaoRepositoryCustom {
+}
@@ -0,0 +1,36 @@
+package com.phoebus.communityapi.repository;
+
+import com.phoebus.communityapi.model.CursorNegociacao;
+import com.phoebus.communityapi.model.DirecaoNegociacao;
+import com.phoebus.communityapi.model.Negociacao;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+public interface NegociacaoRepositoryCustom {
+
+    List<Negociacao> buscarPorCentro(String centroId, LocalDateTime dataInicio, CursorNegociacao cursor, Integer limite);
+
+    // Cursor do MongoDB lido em lotes de tamanhoLote; o Stream deve ser fechado para liberar o cursor no servidor
+    Stream<Negociacao> exportarPorCentro(String centroId, LocalDateTime dataInicio, LocalDateTime dataFim,
+                                         DirecaoNegociacao direcao, int tamanhoLote);
+
+    // Outbox: negociações cujo evento de intercâmbio ainda não foi entregue
+    List<Negociacao> buscarEventosPendentes(int limite);
+
+    void confirmarEventos(Collection<String> ids);
+
+    // Registra uma entrega recusada: o evento só volta a ser lido a partir de proximaTentativa
+    void adiarEvento(String id, LocalDateTime proximaTentativa);
+
+    // Tira o evento do outbox e marca a negociação com eventoDescartado
+    void descartarEvento(String id);
+
+    // Lote de intercâmbios confirmado: as negociações passam a valer e os eventos a ser entregues
+    void concluirLote(String lote);
+
+    // Lote desfeito: remove as negociações já gravadas
+    void removerLote(String lote);
+}
@@ -0,0 +1,76 @@
+package com.phoebus.communityapi.repository;
+
+import com.phoebus.communityapi.model.CursorNegociacao;
+import com.phoebus.communityapi.model.DirecaoNegociacao;
+import com.phoebus.communityapi.model.Negociacao;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+@RequiredArgsConstructor
+public class NegociacaoRepositoryImpl implements NegociacaoRepositoryCustom {
+    private static final String CAMPO_EVENTO_PENDENTE = "eventoPendente";
+    private static final String CAMPO_LOTE = "lote";
+    private static final String CAMPO_PROXIMA_TENTATIVA = "proximaTentativaEvento";
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public List<Negociacao> buscarPorCentro(String centroId, LocalDateTime dataInicio, CursorNegociacao cursor, Integer limite) {
+        return mongoTemplate.find(OperacoesMongo.consultaNegociacoesPorCentro(centroId, dataInicio, cursor, limite), Negociacao.class);
+    }
+
+    @Override
+    public Stream<Negociacao> exportarPorCentro(String centroId, LocalDateTime dataInicio, LocalDateTime dataFim,
+                                                DirecaoNegociacao direcao, int tamanhoLote) {
+        Query query = OperacoesMongo.consultaExportacaoNegociacoes(centroId, dataInicio, dataFim, direcao)
+                .cursorBatchSize(tamanhoLote);
+        return mongoTemplate.stream(query, Negociacao.class);
+    }
+
+    @Override
+    public List<Negociacao> buscarEventosPendentes(int limite) {
+        // Negociações de lotes ainda não concluídos podem ser removidas: o evento só sai depois da conclusão.
+        // Eventos adiados por uma entrega recusada ficam de fora até a próxima tentativa, sem bloquear os seguintes
+        return mongoTemplate.find(Query.query(Criteria.where(CAMPO_EVENTO_PENDENTE).is(true).and(CAMPO_LOTE).exists(false)
+                        .and(CAMPO_PROXIMA_TENTATIVA).not().gt(LocalDateTime.now()))
+                .limit(limite), Negociacao.class);
+    }
+
+    @Override
+    public void confirmarEventos(Collection<String> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        mongoTemplate.updateMulti(Query.query(Criteria.where("id").in(ids)), new Update().unset(CAMPO_EVENTO_PENDENTE).unset(CAMPO_PROXIMA_TENTATIVA), Negociacao.class);
+    }
+
+    @Override
+    public void adiarEvento(String id, LocalDateTime proximaTentativa) {
+        mongoTemplate.updateFirst(Query.query(Criteria.where("id").is(id)),
+                new Update().inc("tentativasEvento", 1).set(CAMPO_PROXIMA_TENTATIVA, proximaTentativa), Negociacao.class);
+    }
+
+    @Override
+    public void descartarEvento(String id) {
+        mongoTemplate.updateFirst(Query.query(Criteria.where("id").is(id)),
+                new Update().unset(CAMPO_EVENTO_PENDENTE).unset(CAMPO_PROXIMA_TENTATIVA).set("eventoDescartado", true), Negociacao.class);
+    }
+
+    @Override
+    public void concluirLote(String lote) {
+        mongoTemplate.updateMulti(Query.query(Criteria.where(CAMPO_LOTE).is(lote)), new Update().unset(CAMPO_LOTE), Negociacao.class);
+    }
+
+    @Override
+    public void removerLote(String lote) {
+        mongoTemplate.remove(Query.query(Criteria.where(CAMPO_LOTE).is(lote)), Negociacao.class);
+    }
+}
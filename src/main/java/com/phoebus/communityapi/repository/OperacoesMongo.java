@@ -0,0 +1,301 @@
+package com.phoebus.communityapi.repository;
+
+import com.phoebus.communityapi.model.CentroComunitario;
+import com.phoebus.communityapi.model.CursorNegociacao;
+import com.phoebus.communityapi.model.DirecaoNegociacao;
+import com.phoebus.communityapi.model.EstatisticasRecursos;
+import com.phoebus.communityapi.model.Recursos;
+import com.phoebus.communityapi.model.RecursosMedia;
+import com.phoebus.communityapi.model.TipoRecurso;
+import org.bson.Document;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationExpression;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperationContext;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.aggregation.ArithmeticOperators;
+import org.springframework.data.mongodb.core.aggregation.ComparisonOperators;
+import org.springframework.data.mongodb.core.aggregation.LiteralOperators;
+import org.springframework.data.mongodb.core.aggregation.SetOperation;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentProperty;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+// Filtros e atualizações compartilhados pelos repositórios bloqueantes e pela variante reativa:
+// as duas pilhas aplicam exatamente as mesmas operações atômicas sobre os documentos
+public final class OperacoesMongo {
+    private static final String CAMPO_EVENTOS_PENDENTES = "eventosPendentes";
+    private static final String CAMPO_EVENTOS_DESCARTADOS = "eventosDescartados";
+    private static final String CAMPO_LOTES_PENDENTES = "lotesPendentes";
+    private static final String CAMPO_RECURSOS = "recursos.";
+    private static final int MAXIMO_EVENTOS_PENDENTES = 100;
+
+    private OperacoesMongo() {
+    }
+
+    // POST de um centro existente: $set dos campos do modelo em vez de substituir o documento, então o outbox
+    // (eventosPendentes, eventosDescartados) e os marcadores de lote (lotesPendentes), nunca recebidos pela API, continuam no documento.
+    // Campos do modelo ausentes no centro novo são removidos, como numa substituição
+    public static Update substituicaoCentro(MongoConverter conversor, CentroComunitario centro) {
+        Document documento = new Document();
+        conversor.write(centro, documento);
+        Update update = new Update();
+        documento.forEach((campo, valor) -> {
+            if (!campo.equals("_id") && !internoCentro(campo)) {
+                update.set(campo, valor);
+            }
+        });
+        for (MongoPersistentProperty propriedade : conversor.getMappingContext().getRequiredPersistentEntity(CentroComunitario.class)) {
+            String campo = propriedade.getFieldName();
+            if (!propriedade.isIdProperty() && !internoCentro(campo) && !documento.containsKey(campo)) {
+                update.unset(campo);
+            }
+        }
+        return update;
+    }
+
+    private static boolean internoCentro(String campo) {
+        return campo.equals(CAMPO_EVENTOS_PENDENTES) || campo.equals(CAMPO_EVENTOS_DESCARTADOS) || campo.equals(CAMPO_LOTES_PENDENTES);
+    }
+
+    // O limite da capacidade é verificado no próprio filtro: busca, validação e escrita em uma única operação atômica
+    public static Query filtroDefinicaoOcupacao(String id, int novaOcupacao) {
+        return Query.query(Criteria.where("id").is(id).and("capacidadeMaxima").gte(novaOcupacao).gt(0));
+    }
+
+    public static AggregationUpdate definicaoOcupacao(int novaOcupacao) {
+        AggregationExpression ocupacao = LiteralOperators.valueOf(novaOcupacao).asLiteral();
+        return atualizacaoOcupacao(ocupacao, ocupacao);
+    }
+
+    // Leituras agregadas do buffer: grava a última, mas registra o evento se a maior leitura do intervalo atingiu a capacidade
+    public static AggregationUpdate definicaoOcupacao(int novaOcupacao, int maiorOcupacao) {
+        return atualizacaoOcupacao(LiteralOperators.valueOf(novaOcupacao).asLiteral(),
+                LiteralOperators.valueOf(maiorOcupacao).asLiteral());
+    }
+
+    public static Query filtroAjusteOcupacao(String id, int delta) {
+        Criteria criteria = Criteria.where("id").is(id).and("capacidadeMaxima").gt(0);
+        if (delta >= 0) {
+            criteria.andOperator(Criteria.expr(ComparisonOperators.valueOf(ocupacaoAjustada(delta)).lessThanEqualTo("capacidadeMaxima")));
+        } else {
+            criteria.and("ocupacaoAtual").gte(-delta);
+        }
+        return Query.query(criteria);
+    }
+
+    public static AggregationUpdate ajusteOcupacao(int delta) {
+        AggregationExpression ocupacao = ocupacaoAjustada(delta);
+        return atualizacaoOcupacao(ocupacao, ocupacao);
+    }
+
+    private static AggregationExpression ocupacaoAjustada(int delta) {
+        return ArithmeticOperators.valueOf("ocupacaoAtual").add(delta);
+    }
+
+    static AggregationUpdate atualizacaoOcupacao(AggregationExpression ocupacao) {
+        return AggregationUpdate.update().set(camposOcupacao(ocupacao));
+    }
+
+    // Atualização com outbox: o evento de capacidade máxima é anexado a eventosPendentes no mesmo $set que muda
+    // a ocupação, então não se perde se o processo cair antes da entrega (o RelayEventos o entrega depois)
+    private static AggregationUpdate atualizacaoOcupacao(AggregationExpression ocupacao, AggregationExpression maiorOcupacao) {
+        String idEvento = UUID.randomUUID().toString();
+        return AggregationUpdate.update().set(camposOcupacao(ocupacao)
+                .and().set(CAMPO_EVENTOS_PENDENTES).toValue(registroCapacidadeMaxima(idEvento, ocupacao, maiorOcupacao))
+                .and().set(CAMPO_EVENTOS_DESCARTADOS).toValue(contagemEventosDescartados(ocupacao, maiorOcupacao)));
+    }
+
+    private static SetOperation camposOcupacao(AggregationExpression ocupacao) {
+        // Pipeline de atualização em um único estágio $set: taxa e vagas são derivadas da capacidade gravada no documento
+        // e os campos são calculados sobre a ocupação anterior
+        return SetOperation.builder()
+                .set("ocupacaoAtual").toValue(ocupacao)
+                .and().set("taxaOcupacao").toValue(ArithmeticOperators.valueOf(ocupacao).divideBy("capacidadeMaxima"))
+                .and().set("vagasDisponiveis").toValue(ArithmeticOperators.valueOf("capacidadeMaxima").subtract(ocupacao));
+    }
+
+    // Só a entrada na capacidade gera evento: no mesmo $set, $ocupacaoAtual ainda é o valor anterior, então um sensor
+    // repetindo a lotação não acumula eventos. Com o relay parado, o outbox guarda no máximo MAXIMO_EVENTOS_PENDENTES por centro
+    private static AggregationExpression registroCapacidadeMaxima(String idEvento, AggregationExpression ocupacao,
+                                                                  AggregationExpression maiorOcupacao) {
+        return contexto -> {
+            Document evento = new Document("idEvento", idEvento).append("criadoEm", "$$NOW");
+            Document eventos = new Document("$concatArrays", List.of(eventosAtuais(), List.of(evento)));
+            return new Document("$cond", List.of(atingiuCapacidade(ocupacao, maiorOcupacao, contexto),
+                    new Document("$slice", List.of(eventos, -MAXIMO_EVENTOS_PENDENTES)), "$" + CAMPO_EVENTOS_PENDENTES));
+        };
+    }
+
+    // Eventos mais antigos cortados pelo $slice acima, ainda sem entrega: somados em eventosDescartados para o relay
+    // registrar em log e métrica. Sem descarte o campo fica como está (ausente na maioria dos centros)
+    private static AggregationExpression contagemEventosDescartados(AggregationExpression ocupacao, AggregationExpression maiorOcupacao) {
+        return contexto -> {
+            Document tamanho = new Document("$size", eventosAtuais());
+            Document descarte = new Document("$and", List.of(atingiuCapacidade(ocupacao, maiorOcupacao, contexto),
+                    new Document("$gte", List.of(tamanho, MAXIMO_EVENTOS_PENDENTES))));
+            Document total = new Document("$add", List.of(
+                    new Document("$ifNull", List.of("$" + CAMPO_EVENTOS_DESCARTADOS, 0)),
+                    new Document("$subtract", List.of(tamanho, MAXIMO_EVENTOS_PENDENTES - 1))));
+            return new Document("$cond", List.of(descarte, total, "$" + CAMPO_EVENTOS_DESCARTADOS));
+        };
+    }
+
+    private static Document atingiuCapacidade(AggregationExpression ocupacao, AggregationExpression maiorOcupacao,
+                                              AggregationOperationContext contexto) {
+        return new Document("$and", List.of(
+                new Document("$lt", List.of(new Document("$ifNull", List.of("$ocupacaoAtual", 0)), "$capacidadeMaxima")),
+                new Document("$or", List.of(
+                        new Document("$eq", List.of(ocupacao.toDocument(contexto), "$capacidadeMaxima")),
+                        new Document("$eq", List.of(maiorOcupacao.toDocument(contexto), "$capacidadeMaxima"))))));
+    }
+
+    private static Document eventosAtuais() {
+        return new Document("$ifNull", List.of("$" + CAMPO_EVENTOS_PENDENTES, List.of()));
+    }
+
+    public static Query filtroEventosCapacidadePendentes(Collection<String> ignorar) {
+        return Query.query(Criteria.where(CAMPO_EVENTOS_PENDENTES).elemMatch(Criteria.where("idEvento").nin(ignorar)));
+    }
+
+    // Decrementa só o que o relay já registrou: descartes gravados depois da leitura continuam no campo
+    public static Update registroEventosDescartados(int quantidade) {
+        return new Update().inc(CAMPO_EVENTOS_DESCARTADOS, -quantidade);
+    }
+
+    public static Update confirmacaoEventosCapacidade(Collection<String> idsEventos) {
+        return new Update().pull(CAMPO_EVENTOS_PENDENTES, new Document("idEvento", new Document("$in", idsEventos)));
+    }
+
+    // $inc condicionado ao saldo: só encontra o documento se o centro ainda possui os recursos que vai ceder
+    public static Query filtroSaldo(String id, Recursos saida) {
+        return Query.query(exigirSaldo(Criteria.where("id").is(id), saida));
+    }
+
+    // Intercâmbio liberado pela exceção de ocupação: a taxa que a permitiu é conferida no mesmo filtro do saldo
+    public static Query filtroSaldo(String id, Recursos saida, double taxaOcupacaoMinima) {
+        return Query.query(exigirSaldo(Criteria.where("id").is(id), saida).and("taxaOcupacao").gt(taxaOcupacaoMinima));
+    }
+
+    static Criteria exigirSaldo(Criteria criteria, Recursos saida) {
+        for (TipoRecurso tipo : TipoRecurso.values()) {
+            if (saida.quantidade(tipo) > 0) {
+                criteria.and(CAMPO_RECURSOS + tipo.getCampo()).gte(saida.quantidade(tipo));
+            }
+        }
+        return criteria;
+    }
+
+    public static Update variacaoRecursos(Recursos saida, Recursos entrada, int sinal) {
+        Update update = new Update();
+        for (TipoRecurso tipo : TipoRecurso.values()) {
+            update.inc(CAMPO_RECURSOS + tipo.getCampo(), sinal * (entrada.quantidade(tipo) - saida.quantidade(tipo)));
+        }
+        return update;
+    }
+
+    static Update incrementoRecursos(Recursos variacao, int sinal) {
+        Update update = new Update();
+        for (TipoRecurso tipo : TipoRecurso.values()) {
+            update.inc(CAMPO_RECURSOS + tipo.getCampo(), sinal * variacao.quantidade(tipo));
+        }
+        return update;
+    }
+
+    public static Query consultaNegociacoesPorCentro(String centroId, LocalDateTime dataInicio,
+                                                     CursorNegociacao cursor, Integer limite) {
+        return consultaNegociacoesPorCentro(centroId, dataInicio, null, DirecaoNegociacao.AMBAS, cursor, limite);
+    }
+
+    // dataInicio inclusiva e dataFim exclusiva
+    public static Query consultaNegociacoesPorCentro(String centroId, LocalDateTime dataInicio, LocalDateTime dataFim,
+                                                     DirecaoNegociacao direcao, CursorNegociacao cursor, Integer limite) {
+        Criteria filtro = switch (direcao) {
+            case ORIGEM -> filtroPorDirecao("centroOrigemId", centroId, dataInicio, dataFim, cursor);
+            case DESTINO -> filtroPorDirecao("centroDestinoId", centroId, dataInicio, dataFim, cursor);
+            // Um ramo por direção: cada um percorre seu índice (centro, dataHora, _id) e o MongoDB intercala os resultados já ordenados
+            case AMBAS -> new Criteria().orOperator(
+                    filtroPorDirecao("centroOrigemId", centroId, dataInicio, dataFim, cursor),
+                    filtroPorDirecao("centroDestinoId", centroId, dataInicio, dataFim, cursor)
+            );
+        };
+        Query query = Query.query(filtro).with(Sort.by("dataHora", "id"));
+        if (limite != null) {
+            query.limit(limite);
+        }
+        return query;
+    }
+
+    // Negociações de lotes não concluídos ficam de fora: a recuperação de lotes ainda pode removê-las
+    public static Query consultaExportacaoNegociacoes(String centroId, LocalDateTime dataInicio, LocalDateTime dataFim,
+                                                      DirecaoNegociacao direcao) {
+        return consultaNegociacoesPorCentro(centroId, dataInicio, dataFim, direcao, null, null)
+                .addCriteria(Criteria.where("lote").exists(false));
+    }
+
+    private static Criteria filtroPorDirecao(String campoCentro, String centroId, LocalDateTime dataInicio,
+                                             LocalDateTime dataFim, CursorNegociacao cursor) {
+        Criteria criteria = Criteria.where(campoCentro).is(centroId);
+        LocalDateTime desde = dataInicio;
+        if (cursor != null && (desde == null || cursor.getDataHora().isAfter(desde))) {
+            desde = cursor.getDataHora();
+        }
+        if (desde != null || dataFim != null) {
+            Criteria dataHora = criteria.and("dataHora");
+            if (desde != null) {
+                dataHora.gte(desde);
+            }
+            if (dataFim != null) {
+                dataHora.lt(dataFim);
+            }
+        }
+        if (cursor != null) {
+            // Empates em dataHora são desfeitos pelo id
+            criteria.orOperator(
+                    Criteria.where("dataHora").gt(cursor.getDataHora()),
+                    Criteria.where("id").gt(cursor.getId())
+            );
+        }
+        return criteria;
+    }
+
+    public static Query filtroEstatisticasGlobais() {
+        return Query.query(Criteria.where("_id").is(EstatisticasRecursos.ID_GLOBAL));
+    }
+
+    public static Update incrementoEstatisticas(int centros, Recursos recursos) {
+        Update update = new Update().inc("totalCentros", centros);
+        for (TipoRecurso tipo : TipoRecurso.values()) {
+            update.inc(CAMPO_RECURSOS + tipo.getCampo(), recursos.quantidade(tipo));
+        }
+        return update;
+    }
+
+    // Um único $group sobre todos os centros com o acumulador de cada TipoRecurso ($avg na média, $sum nos totais)
+    public static Aggregation agregacaoRecursos(String acumulador) {
+        Document grupo = new Document("_id", null).append("totalCentros", new Document("$sum", 1));
+        for (TipoRecurso tipo : TipoRecurso.values()) {
+            grupo.append(tipo.getCampo(), new Document(acumulador, "$" + CAMPO_RECURSOS + tipo.getCampo()));
+        }
+        return Aggregation.newAggregation(contexto -> new Document("$group", grupo));
+    }
+
+    public static RecursosMedia lerMediaRecursos(Document resultado) {
+        RecursosMedia media = new RecursosMedia();
+        media.setTotalCentros(((Number) resultado.get("totalCentros")).longValue());
+        for (TipoRecurso tipo : TipoRecurso.values()) {
+            // $avg é null quando nenhum centro tem o campo
+            if (resultado.get(tipo.getCampo()) instanceof Number valor) {
+                media.definir(tipo, valor.doubleValue());
+            }
+        }
+        return media;
+    }
+}
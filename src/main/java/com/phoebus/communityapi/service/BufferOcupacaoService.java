@@ -0,0 +1,133 @@
+package com.phoebus.communityapi.service;
+
+import com.phoebus.communityapi.config.PhoebusProperties;
+import com.phoebus.communityapi.model.AmostraOcupacao;
+import com.phoebus.communityapi.model.CentroComunitario;
+import com.phoebus.communityapi.repository.CentroComunitarioRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Write-behind das leituras de sensores: guarda só a última ocupação de cada centro e grava tudo em um único bulkWrite
+@Service
+@RequiredArgsConstructor
+public class BufferOcupacaoService {
+    private static final Logger logger = LoggerFactory.getLogger(BufferOcupacaoService.class);
+
+    private final CentroComunitarioRepository repository;
+    private final CacheCentros cache;
+    private final IndiceExcedentes indiceExcedentes;
+    private final TransmissaoOcupacaoService transmissaoOcupacao;
+    private final HistoricoOcupacaoService historicoOcupacao;
+    private final PhoebusProperties properties;
+
+    private final Map<String, Leitura> pendentes = new ConcurrentHashMap<>();
+    private ScheduledExecutorService executor;
+
+    @PostConstruct
+    public void iniciar() {
+        executor = Executors.newSingleThreadScheduledExecutor(r -> new Thread(r, "buffer-ocupacao"));
+        long intervalo = properties.getOcupacao().getIntervaloDescargaMs();
+        executor.scheduleWithFixedDelay(this::descarregarComLog, intervalo, intervalo, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void encerrar() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(5, TimeUnit.SECONDS);
+        descarregarComLog();
+    }
+
+    public void registrar(List<AmostraOcupacao> amostras) {
+        for (AmostraOcupacao amostra : amostras) {
+            if (amostra.getCentroId() == null || amostra.getCentroId().isBlank()) {
+                throw new IllegalArgumentException("ID do centro é obrigatório");
+            }
+            if (amostra.getOcupacao() < 0) {
+                throw new IllegalArgumentException("Ocupação atual não pode ser negativa");
+            }
+        }
+
+        for (AmostraOcupacao amostra : amostras) {
+            pendentes.merge(amostra.getCentroId(), new Leitura(amostra.getOcupacao(), amostra.getOcupacao()),
+                    (anterior, nova) -> new Leitura(nova.ultima(), Math.max(anterior.maxima(), nova.ultima())));
+        }
+        if (pendentes.size() >= properties.getOcupacao().getTamanhoLote()) {
+            try {
+                executor.execute(this::descarregarComLog);
+            } catch (RejectedExecutionException e) {
+                // Aplicação encerrando: as amostras ficam para a descarga final de encerrar()
+                logger.debug("Descarga antecipada ignorada durante o encerramento");
+            }
+        }
+    }
+
+    // Executado sempre na thread do buffer, então duas descargas nunca se sobrepõem
+    void descarregar() {
+        if (pendentes.isEmpty()) {
+            return;
+        }
+
+        // remove() entrega a última leitura; amostras que chegarem depois ficam para a próxima descarga
+        Map<String, Leitura> lote = new HashMap<>();
+        for (String id : pendentes.keySet()) {
+            Leitura leitura = pendentes.remove(id);
+            if (leitura != null) {
+                lote.put(id, leitura);
+            }
+        }
+
+        Map<String, Integer> ocupacoes = new HashMap<>();
+        Map<String, Integer> maioresOcupacoes = new HashMap<>();
+        for (Map.Entry<String, Leitura> entrada : lote.entrySet()) {
+            ocupacoes.put(entrada.getKey(), entrada.getValue().ultima());
+            maioresOcupacoes.put(entrada.getKey(), entrada.getValue().maxima());
+        }
+        // O evento de capacidade máxima de uma leitura do intervalo vai para o outbox no próprio bulkWrite
+        int gravados;
+        try {
+            gravados = repository.atualizarOcupacoesEmLote(ocupacoes, maioresOcupacoes);
+        } finally {
+            cache.invalidar(ocupacoes.keySet());
+        }
+        Map<String, Integer> confirmadas = ocupacoes;
+        if (gravados < ocupacoes.size()) {
+            logger.warn("{} leituras de ocupação descartadas (centro inexistente ou acima da capacidade)", ocupacoes.size() - gravados);
+            // O bulkWrite não informa quais foram rejeitadas: relidas do banco, só as confirmadas seguem adiante
+            confirmadas = new HashMap<>();
+            for (CentroComunitario centro : cache.buscarTodos(ocupacoes.keySet())) {
+                if (centro.getOcupacaoAtual() == ocupacoes.get(centro.getId())) {
+                    confirmadas.put(centro.getId(), centro.getOcupacaoAtual());
+                }
+            }
+        }
+        // Índice, painéis e histórico recebem só valores gravados
+        confirmadas.forEach(indiceExcedentes::atualizarOcupacao);
+        transmissaoOcupacao.publicar(confirmadas.keySet());
+        confirmadas.forEach(historicoOcupacao::registrar);
+    }
+
+    private void descarregarComLog() {
+        try {
+            descarregar();
+        } catch (RuntimeException e) {
+            // As leituras do lote com falha se perdem; as próximas amostras dos sensores repõem o valor atual
+            logger.error("Falha ao gravar leituras de ocupação", e);
+        }
+    }
+
+    private record Leitura(int ultima, int maxima) {
+    }
+}
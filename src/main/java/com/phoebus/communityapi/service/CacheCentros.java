@@ -0,0 +1,129 @@
+package com.phoebus.communityapi.service;
+
+import com.phoebus.communityapi.config.PhoebusProperties;
+import com.phoebus.communityapi.model.CentroComunitario;
+import com.phoebus.communityapi.model.EstatisticasCache;
+import com.phoebus.communityapi.repository.CentroComunitarioRepository;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+// Cache read-through dos centros, em memória, com limite de tamanho (LRU) e TTL.
+// Os objetos devolvidos são compartilhados: quem lê do cache não deve alterá-los
+@Component
+public class CacheCentros {
+    private final CentroComunitarioRepository repository;
+    private final int tamanhoMaximo;
+    private final long ttlNanos;
+
+    private final LinkedHashMap<String, Entrada> entradas;
+    // Incrementada a cada invalidação: uma leitura do banco iniciada antes dela não repovoa o cache com dado antigo
+    private long geracao;
+    private long acertos;
+    private long falhas;
+    private long remocoes;
+    private long expiracoes;
+
+    public CacheCentros(CentroComunitarioRepository repository, PhoebusProperties properties) {
+        this.repository = repository;
+        this.tamanhoMaximo = properties.getCache().getTamanhoMaximo();
+        this.ttlNanos = properties.getCache().getTtl().toNanos();
+        this.entradas = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entrada> maisAntiga) {
+                if (size() > tamanhoMaximo) {
+                    remocoes++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public Optional<CentroComunitario> buscar(String id) {
+        List<CentroComunitario> centros = buscarTodos(List.of(id));
+        return centros.isEmpty() ? Optional.empty() : Optional.of(centros.get(0));
+    }
+
+    public boolean existe(String id) {
+        return buscar(id).isPresent();
+    }
+
+    // Os ausentes do cache são lidos com um único findAllById
+    public List<CentroComunitario> buscarTodos(Collection<String> ids) {
+        List<CentroComunitario> encontrados = new ArrayList<>(ids.size());
+        Set<String> ausentes = new LinkedHashSet<>();
+        long geracaoLeitura;
+        synchronized (this) {
+            long agora = System.nanoTime();
+            for (String id : ids) {
+                Entrada entrada = entradas.get(id);
+                if (entrada != null && entrada.expiraEm() - agora > 0) {
+                    acertos++;
+                    encontrados.add(entrada.centro());
+                    continue;
+                }
+                if (entrada != null) {
+                    entradas.remove(id);
+                    expiracoes++;
+                }
+                falhas++;
+                ausentes.add(id);
+            }
+            geracaoLeitura = geracao;
+        }
+        if (ausentes.isEmpty()) {
+            return encontrados;
+        }
+
+        for (CentroComunitario centro : repository.findAllById(ausentes)) {
+            encontrados.add(centro);
+            guardar(centro, geracaoLeitura);
+        }
+        return encontrados;
+    }
+
+    // Para documentos recém-devolvidos por uma escrita (findAndModify com returnNew)
+    public void atualizar(CentroComunitario centro) {
+        long geracaoEscrita;
+        synchronized (this) {
+            geracaoEscrita = ++geracao;
+        }
+        guardar(centro, geracaoEscrita);
+    }
+
+    public synchronized void invalidar(Collection<String> ids) {
+        geracao++;
+        ids.forEach(entradas::remove);
+    }
+
+    public void invalidar(String id) {
+        invalidar(List.of(id));
+    }
+
+    public synchronized void limpar() {
+        geracao++;
+        entradas.clear();
+    }
+
+    public synchronized EstatisticasCache estatisticas() {
+        return new EstatisticasCache(entradas.size(), tamanhoMaximo, acertos, falhas, remocoes, expiracoes);
+    }
+
+    private synchronized void guardar(CentroComunitario centro, long geracaoLeitura) {
+        if (tamanhoMaximo <= 0 || geracaoLeitura != geracao || centro.getId() == null) {
+            return;
+        }
+        entradas.put(centro.getId(), new Entrada(centro, System.nanoTime() + ttlNanos));
+    }
+
+    private record Entrada(CentroComunitario centro, long expiraEm) {
+    }
+}
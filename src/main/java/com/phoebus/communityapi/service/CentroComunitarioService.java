@@ -1,268 +1,491 @@
 package com.phoebus.communityapi.service;
 
-import com.phoebus.communityapi.event.CapacidadeMaximaEvent;
+import com.phoebus.communityapi.config.PhoebusProperties;
+import com.phoebus.communityapi.exception.IndiceIndisponivelException;
+import com.phoebus.communityapi.exception.IntercambioRejeitadoException;
 import com.phoebus.communityapi.model.CentroComunitario;
+import com.phoebus.communityapi.model.CentroProximo;
+import com.phoebus.communityapi.model.CursorNegociacao;
+import com.phoebus.communityapi.model.DistribuicaoRecursos;
+import com.phoebus.communityapi.model.EstatisticasRecursos;
+import com.phoebus.communityapi.model.IntercambioRequest;
 import com.phoebus.communityapi.model.Negociacao;
+import com.phoebus.communityapi.model.Recursos;
+import com.phoebus.communityapi.model.RecursosMedia;
+import com.phoebus.communityapi.model.ResultadoIntercambio;
 import com.phoebus.communityapi.repository.CentroComunitarioRepository;
+import com.phoebus.communityapi.repository.EstatisticasRecursosRepository;
 import com.phoebus.communityapi.repository.NegociacaoRepository;
-import lombok.Data;
+import com.phoebus.communityapi.service.MetricasServico.EtapaIntercambio;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
-import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
+// Tempo de cada método público em phoebus.servico (tags class e method); as etapas do intercâmbio ficam em MetricasServico
 @Service
 @RequiredArgsConstructor
+@Timed(value = "phoebus.servico", histogram = true)
 public class CentroComunitarioService {
     private final CentroComunitarioRepository repository;
+    private final CacheCentros cache;
+    private final IndiceExcedentes indiceExcedentes;
+    private final TransmissaoOcupacaoService transmissaoOcupacao;
+    private final HistoricoOcupacaoService historicoOcupacao;
     private final NegociacaoRepository negociacaoRepository;
-    private final ApplicationEventPublisher eventPublisher;
+    private final EstatisticasRecursosRepository estatisticasRepository;
+    private final PhoebusProperties properties;
+    private final MetricasServico metricas;
 
-    private static final int PONTOS_MEDICO = 4;
-    private static final int PONTOS_VOLUNTARIO = 3;
-    private static final int PONTOS_KIT_MEDICO = 7;
-    private static final int PONTOS_VEICULO = 5;
-    private static final int PONTOS_CESTA_BASICA = 2;
-    private static final double LIMITE_OCUPACAO_ALTA = 0.9;
+    private static final int TAMANHO_MAXIMO_PAGINA = 1000;
+    private static final int LIMITE_PADRAO_PROXIMOS = 20;
 
     public CentroComunitario adicionarCentro(CentroComunitario centro) {
-        if (centro.getNome() == null || centro.getNome().isBlank()) {
-            throw new IllegalArgumentException("Nome do centro é obrigatório");
+        validarCentro(centro);
+
+        Optional<CentroComunitario> anterior = salvar(centro);
+        if (usarTotaisAcumulados()) {
+            // Um POST com ID existente substitui o centro: um único $inc com a diferença para o documento anterior,
+            // lido na própria gravação, então dois POSTs simultâneos não descontam o mesmo centro duas vezes
+            Recursos variacao = centro.getRecursos() != null ? centro.getRecursos().copia() : new Recursos();
+            anterior.map(CentroComunitario::getRecursos).ifPresent(variacao::subtrair);
+            estatisticasRepository.incrementar(anterior.isPresent() ? 0 : 1, variacao);
         }
-        if (centro.getEndereco() == null || centro.getEndereco().isBlank()) {
-            throw new IllegalArgumentException("Endereço é obrigatório");
-        }
-        if (centro.getLocalizacao() == null ||
-                centro.getLocalizacao().getLatitude() < -90 || centro.getLocalizacao().getLatitude() > 90 ||
-                centro.getLocalizacao().getLongitude() < -180 || centro.getLocalizacao().getLongitude() > 180) {
-            throw new IllegalArgumentException("Localização inválida");
+        return centro;
+    }
+
+    // Retorna o documento substituído; vazio quando o centro é novo
+    private Optional<CentroComunitario> salvar(CentroComunitario centro) {
+        // Sem save(): a substituição do documento inteiro apagaria os eventos de capacidade ainda não entregues
+        Optional<CentroComunitario> anterior = repository.substituir(centro);
+        cache.invalidar(centro.getId());
+        indiceExcedentes.atualizar(centro);
+        historicoOcupacao.registrar(centro.getId(), centro.getOcupacaoAtual());
+        return anterior;
+    }
+
+    // Mesmas regras de adicionarCentro, usadas também pela importação em massa
+    void validarCentro(CentroComunitario centro) {
+        RegrasCentro.validarCentro(centro);
+    }
+
+    // Insere centros já validados; retorna o erro de cada posição rejeitada pelo MongoDB (ex.: ID duplicado)
+    Map<Integer, String> inserirCentros(List<CentroComunitario> centros) {
+        Map<Integer, String> erros = repository.inserirEmLote(centros);
+        for (int i = 0; i < centros.size(); i++) {
+            if (!erros.containsKey(i)) {
+                indiceExcedentes.atualizar(centros.get(i));
+                historicoOcupacao.registrar(centros.get(i).getId(), centros.get(i).getOcupacaoAtual());
+            }
         }
-        if (centro.getCapacidadeMaxima() <= 0) {
-            throw new IllegalArgumentException("Capacidade máxima deve ser maior que 0");
+        if (usarTotaisAcumulados()) {
+            Recursos soma = new Recursos();
+            int inseridos = 0;
+            for (int i = 0; i < centros.size(); i++) {
+                if (!erros.containsKey(i)) {
+                    soma.adicionar(centros.get(i).getRecursos());
+                    inseridos++;
+                }
+            }
+            estatisticasRepository.incrementar(inseridos, soma);
         }
-        if (centro.getOcupacaoAtual() < 0) {
+        return erros;
+    }
+
+    public CentroComunitario atualizarOcupacao(String id, int novaOcupacao) {
+        if (novaOcupacao < 0) {
             throw new IllegalArgumentException("Ocupação atual não pode ser negativa");
         }
-        if (centro.getOcupacaoAtual() > centro.getCapacidadeMaxima()) {
-            throw new IllegalArgumentException("Ocupação atual não pode exceder a capacidade máxima");
+
+        CentroComunitario centroAtualizado = repository.definirOcupacao(id, novaOcupacao)
+                .orElseThrow(() -> falhaAtualizacaoOcupacao(id, true));
+        cache.atualizar(centroAtualizado);
+        indiceExcedentes.atualizar(centroAtualizado);
+        transmissaoOcupacao.publicar(centroAtualizado, null);
+        historicoOcupacao.registrar(centroAtualizado.getId(), centroAtualizado.getOcupacaoAtual());
+        return centroAtualizado;
+    }
+
+    public CentroComunitario incrementarOcupacao(String id, int quantidade) {
+        validarQuantidade(quantidade);
+        CentroComunitario centroAtualizado = repository.ajustarOcupacao(id, quantidade)
+                .orElseThrow(() -> falhaAtualizacaoOcupacao(id, true));
+        cache.atualizar(centroAtualizado);
+        indiceExcedentes.atualizar(centroAtualizado);
+        transmissaoOcupacao.publicar(centroAtualizado, centroAtualizado.getOcupacaoAtual() - quantidade);
+        historicoOcupacao.registrar(centroAtualizado.getId(), centroAtualizado.getOcupacaoAtual());
+        return centroAtualizado;
+    }
+
+    public CentroComunitario decrementarOcupacao(String id, int quantidade) {
+        validarQuantidade(quantidade);
+        CentroComunitario centroAtualizado = repository.ajustarOcupacao(id, -quantidade)
+                .orElseThrow(() -> falhaAtualizacaoOcupacao(id, false));
+        cache.atualizar(centroAtualizado);
+        indiceExcedentes.atualizar(centroAtualizado);
+        transmissaoOcupacao.publicar(centroAtualizado, centroAtualizado.getOcupacaoAtual() + quantidade);
+        historicoOcupacao.registrar(centroAtualizado.getId(), centroAtualizado.getOcupacaoAtual());
+        return centroAtualizado;
+    }
+
+    private void validarQuantidade(int quantidade) {
+        if (quantidade <= 0) {
+            throw new IllegalArgumentException("Quantidade deve ser maior que 0");
         }
-        if (centro.getRecursos() == null) {
-            centro.setRecursos(new CentroComunitario.Recursos());
+    }
+
+    private IllegalArgumentException falhaAtualizacaoOcupacao(String id, boolean excedeuCapacidade) {
+        // Só executado quando a atualização condicional não encontrou documento: distingue centro inexistente de limite violado.
+        // A entrada em cache pode estar desatualizada, então é descartada antes da leitura
+        cache.invalidar(id);
+        Optional<CentroComunitario> centro = cache.buscar(id);
+        if (centro.isEmpty()) {
+            return new IllegalArgumentException("Centro comunitário com ID " + id + " não encontrado");
         }
-        if (centro.getRecursos().getMedicos() < 0 ||
-                centro.getRecursos().getVoluntarios() < 0 ||
-                centro.getRecursos().getKitsMedicos() < 0 ||
-                centro.getRecursos().getVeiculos() < 0 ||
-                centro.getRecursos().getCestasBasicas() < 0) {
-            throw new IllegalArgumentException("Recursos não podem ser negativos");
+        if (!excedeuCapacidade) {
+            return new IllegalArgumentException("Ocupação atual não pode ser negativa");
         }
+        return new IllegalArgumentException("Ocupação atual não pode exceder a capacidade máxima de " + centro.get().getCapacidadeMaxima());
+    }
 
-        return repository.save(centro);
+    public Negociacao realizarIntercambio(String centroOrigemId, String centroDestinoId,
+                                          Recursos recursosOrigem, Recursos recursosDestino) {
+        try {
+            return executarIntercambio(centroOrigemId, centroDestinoId, recursosOrigem, recursosDestino);
+        } catch (IllegalArgumentException e) {
+            metricas.registrarRejeicao(e);
+            throw e;
+        }
     }
 
-    public CentroComunitario atualizarOcupacao(String id, int novaOcupacao) {
-        Optional<CentroComunitario> centroOptional = repository.findById(id);
-        if (!centroOptional.isPresent()) {
-            throw new IllegalArgumentException("Centro comunitário com ID " + id + " não encontrado");
+    private Negociacao executarIntercambio(String centroOrigemId, String centroDestinoId,
+                                           Recursos recursosOrigem, Recursos recursosDestino) {
+        if (centroOrigemId.equals(centroDestinoId)) {
+            throw new IntercambioRejeitadoException(IntercambioRejeitadoException.Motivo.MESMO_CENTRO,
+                    "Os centros origem e destino devem ser diferentes");
         }
 
-        CentroComunitario centro = centroOptional.get();
-        if (novaOcupacao < 0) {
-            throw new IllegalArgumentException("Ocupação atual não pode ser negativa");
+        // Uma única leitura para os dois centros, servida pelo cache quando possível. Um saldo ou uma ocupação
+        // desatualizados não permitem intercâmbio indevido: o $inc abaixo confere o saldo e, quando a diferença de pontos
+        // depende da exceção de ocupação, também a taxa de ocupação no próprio documento
+        Map<String, CentroComunitario> centros = metricas.medir(EtapaIntercambio.LEITURA, () ->
+                cache.buscarTodos(List.of(centroOrigemId, centroDestinoId)).stream()
+                        .collect(Collectors.toMap(CentroComunitario::getId, Function.identity())));
+        CentroComunitario origem = centros.get(centroOrigemId);
+        CentroComunitario destino = centros.get(centroDestinoId);
+        if (origem == null) {
+            throw new IntercambioRejeitadoException(IntercambioRejeitadoException.Motivo.CENTRO_NAO_ENCONTRADO,
+                    "Centro origem com ID " + centroOrigemId + " não encontrado");
         }
-        if (novaOcupacao > centro.getCapacidadeMaxima()) {
-            throw new IllegalArgumentException("Ocupação atual não pode exceder a capacidade máxima de " + centro.getCapacidadeMaxima());
+        if (destino == null) {
+            throw new IntercambioRejeitadoException(IntercambioRejeitadoException.Motivo.CENTRO_NAO_ENCONTRADO,
+                    "Centro destino com ID " + centroDestinoId + " não encontrado");
         }
 
-        centro.setOcupacaoAtual(novaOcupacao);
-        CentroComunitario centroAtualizado = repository.save(centro);
+        metricas.medir(EtapaIntercambio.VALIDACAO, () ->
+                RegrasCentro.validarIntercambio(origem, destino, recursosOrigem, recursosDestino));
+        String centroExcecao = RegrasCentro.centroExcecaoOcupacao(origem, destino, recursosOrigem, recursosDestino);
+
+        // $inc condicionado ao saldo: intercâmbios concorrentes com o mesmo centro não perdem nem duplicam recursos.
+        // Sem transação (o MongoDB pode ser standalone), a falha de um passo posterior é compensada com o $inc inverso.
+        // A troca conserva os totais da rede, então as estatísticas de recursos não mudam
+        try {
+            metricas.medir(EtapaIntercambio.APLICACAO, () ->
+                    aplicarIntercambio(centroOrigemId, centroDestinoId, recursosOrigem, recursosDestino, centroExcecao));
+
+            // Salvar histórico da negociação
+            Negociacao negociacao = RegrasCentro.criarNegociacao(centroOrigemId, centroDestinoId, recursosOrigem, recursosDestino);
+            Negociacao negociacaoSalva = metricas.medir(EtapaIntercambio.GRAVACAO, () ->
+                    salvarNegociacao(negociacao, centroOrigemId, centroDestinoId, recursosOrigem, recursosDestino));
+            metricas.medir(EtapaIntercambio.INDICE, () -> {
+                indiceExcedentes.registrarIntercambio(centroOrigemId, recursosOrigem, recursosDestino);
+                indiceExcedentes.registrarIntercambio(centroDestinoId, recursosDestino, recursosOrigem);
+            });
+            return negociacaoSalva;
+        } finally {
+            cache.invalidar(List.of(centroOrigemId, centroDestinoId));
+        }
+    }
 
-        if (centroAtualizado.getOcupacaoAtual() == centroAtualizado.getCapacidadeMaxima()) {
-            eventPublisher.publishEvent(new CapacidadeMaximaEvent(this, centroAtualizado));
+    private void aplicarIntercambio(String centroOrigemId, String centroDestinoId,
+                                    Recursos recursosOrigem, Recursos recursosDestino, String centroExcecao) {
+        if (!aplicarNoCentro(centroOrigemId, recursosOrigem, recursosDestino, centroExcecao)) {
+            throw falhaAplicacao(centroOrigemId, "origem", centroExcecao);
         }
+        if (!aplicarNoCentro(centroDestinoId, recursosDestino, recursosOrigem, centroExcecao)) {
+            repository.desfazerIntercambio(centroOrigemId, recursosOrigem, recursosDestino);
+            throw falhaAplicacao(centroDestinoId, "destino", centroExcecao);
+        }
+    }
 
-        return centroAtualizado;
+    private boolean aplicarNoCentro(String id, Recursos saida, Recursos entrada, String centroExcecao) {
+        return id.equals(centroExcecao)
+                ? repository.aplicarIntercambio(id, saida, entrada, RegrasCentro.LIMITE_OCUPACAO_ALTA)
+                : repository.aplicarIntercambio(id, saida, entrada);
     }
 
-    public Negociacao realizarIntercambio(String centroOrigemId, String centroDestinoId,
-                                          CentroComunitario.RecursosIntercambio recursosOrigem,
-                                          CentroComunitario.RecursosIntercambio recursosDestino) {
-        if (centroOrigemId.equals(centroDestinoId)) {
-            throw new IllegalArgumentException("Os centros origem e destino devem ser diferentes");
-        }
-
-        Optional<CentroComunitario> origemOptional = repository.findById(centroOrigemId);
-        Optional<CentroComunitario> destinoOptional = repository.findById(centroDestinoId);
-        if (!origemOptional.isPresent()) {
-            throw new IllegalArgumentException("Centro origem com ID " + centroOrigemId + " não encontrado");
-        }
-        if (!destinoOptional.isPresent()) {
-            throw new IllegalArgumentException("Centro destino com ID " + centroDestinoId + " não encontrado");
-        }
-
-        CentroComunitario origem = origemOptional.get();
-        CentroComunitario destino = destinoOptional.get();
-
-        // Validar recursos não negativos
-        if (recursosOrigem.getMedicos() < 0 || recursosOrigem.getVoluntarios() < 0 ||
-                recursosOrigem.getKitsMedicos() < 0 || recursosOrigem.getVeiculos() < 0 ||
-                recursosOrigem.getCestasBasicas() < 0 ||
-                recursosDestino.getMedicos() < 0 || recursosDestino.getVoluntarios() < 0 ||
-                recursosDestino.getKitsMedicos() < 0 || recursosDestino.getVeiculos() < 0 ||
-                recursosDestino.getCestasBasicas() < 0) {
-            throw new IllegalArgumentException("Recursos não podem ser negativos");
-        }
-
-        // Validar recursos disponíveis
-        if (recursosOrigem.getMedicos() > origem.getRecursos().getMedicos() ||
-                recursosOrigem.getVoluntarios() > origem.getRecursos().getVoluntarios() ||
-                recursosOrigem.getKitsMedicos() > origem.getRecursos().getKitsMedicos() ||
-                recursosOrigem.getVeiculos() > origem.getRecursos().getVeiculos() ||
-                recursosOrigem.getCestasBasicas() > origem.getRecursos().getCestasBasicas()) {
-            throw new IllegalArgumentException("Centro origem não possui recursos suficientes");
-        }
-        if (recursosDestino.getMedicos() > destino.getRecursos().getMedicos() ||
-                recursosDestino.getVoluntarios() > destino.getRecursos().getVoluntarios() ||
-                recursosDestino.getKitsMedicos() > destino.getRecursos().getKitsMedicos() ||
-                recursosDestino.getVeiculos() > destino.getRecursos().getVeiculos() ||
-                recursosDestino.getCestasBasicas() > destino.getRecursos().getCestasBasicas()) {
-            throw new IllegalArgumentException("Centro destino não possui recursos suficientes");
-        }
-
-        // Calcular pontos
-        int pontosOrigem = calcularPontos(recursosOrigem);
-        int pontosDestino = calcularPontos(recursosDestino);
-
-        // Verificar ocupação > 90%
-        boolean origemAltaOcupacao = (double) origem.getOcupacaoAtual() / origem.getCapacidadeMaxima() > LIMITE_OCUPACAO_ALTA;
-        boolean destinoAltaOcupacao = (double) destino.getOcupacaoAtual() / destino.getCapacidadeMaxima() > LIMITE_OCUPACAO_ALTA;
-
-        if (!origemAltaOcupacao && !destinoAltaOcupacao && pontosOrigem != pontosDestino) {
-            throw new IllegalArgumentException("Pontuação dos recursos deve ser igual, a menos que um centro tenha ocupação superior a 90%");
-        }
-
-        // Atualizar recursos
-        atualizarRecursos(origem, recursosOrigem, recursosDestino);
-        atualizarRecursos(destino, recursosDestino, recursosOrigem);
-
-        // Salvar centros atualizados
-        repository.save(origem);
-        repository.save(destino);
-
-        // Salvar histórico da negociação
-        Negociacao negociacao = new Negociacao();
-        negociacao.setCentroOrigemId(centroOrigemId);
-        negociacao.setCentroDestinoId(centroDestinoId);
-        Negociacao.Recursos recursosOrigemNegociacao = new Negociacao.Recursos();
-        recursosOrigemNegociacao.setMedicos(recursosOrigem.getMedicos());
-        recursosOrigemNegociacao.setVoluntarios(recursosOrigem.getVoluntarios());
-        recursosOrigemNegociacao.setKitsMedicos(recursosOrigem.getKitsMedicos());
-        recursosOrigemNegociacao.setVeiculos(recursosOrigem.getVeiculos());
-        recursosOrigemNegociacao.setCestasBasicas(recursosOrigem.getCestasBasicas());
-        Negociacao.Recursos recursosDestinoNegociacao = new Negociacao.Recursos();
-        recursosDestinoNegociacao.setMedicos(recursosDestino.getMedicos());
-        recursosDestinoNegociacao.setVoluntarios(recursosDestino.getVoluntarios());
-        recursosDestinoNegociacao.setKitsMedicos(recursosDestino.getKitsMedicos());
-        recursosDestinoNegociacao.setVeiculos(recursosDestino.getVeiculos());
-        recursosDestinoNegociacao.setCestasBasicas(recursosDestino.getCestasBasicas());
-        negociacao.setRecursosOrigem(recursosOrigemNegociacao);
-        negociacao.setRecursosDestino(recursosDestinoNegociacao);
-        negociacao.setPontosOrigem(pontosOrigem);
-        negociacao.setPontosDestino(pontosDestino);
-        negociacao.setDataHora(LocalDateTime.now());
-
-        return negociacaoRepository.save(negociacao);
+    private IntercambioRejeitadoException falhaAplicacao(String id, String papel, String centroExcecao) {
+        // Só executado quando o $inc condicionado não encontrou documento: no centro da exceção de ocupação, uma
+        // releitura do banco distingue a ocupação que caiu abaixo de 90% do saldo insuficiente
+        if (id.equals(centroExcecao) && repository.findById(id)
+                .filter(centro -> centro.getTaxaOcupacao() > RegrasCentro.LIMITE_OCUPACAO_ALTA).isEmpty()) {
+            return RegrasCentro.pontuacaoDiferente();
+        }
+        return new IntercambioRejeitadoException(IntercambioRejeitadoException.Motivo.SALDO_INSUFICIENTE,
+                "Centro " + papel + " não possui recursos suficientes");
     }
 
-    private int calcularPontos(CentroComunitario.RecursosIntercambio recursos) {
-        return recursos.getMedicos() * PONTOS_MEDICO +
-                recursos.getVoluntarios() * PONTOS_VOLUNTARIO +
-                recursos.getKitsMedicos() * PONTOS_KIT_MEDICO +
-                recursos.getVeiculos() * PONTOS_VEICULO +
-                recursos.getCestasBasicas() * PONTOS_CESTA_BASICA;
+    private Negociacao salvarNegociacao(Negociacao negociacao, String centroOrigemId, String centroDestinoId,
+                                        Recursos recursosOrigem, Recursos recursosDestino) {
+        try {
+            return negociacaoRepository.save(negociacao);
+        } catch (RuntimeException e) {
+            repository.desfazerIntercambio(centroOrigemId, recursosOrigem, recursosDestino);
+            repository.desfazerIntercambio(centroDestinoId, recursosDestino, recursosOrigem);
+            throw e;
+        }
     }
 
-    private void atualizarRecursos(CentroComunitario centro, CentroComunitario.RecursosIntercambio recursosSaida,
-                                   CentroComunitario.RecursosIntercambio recursosEntrada) {
-        CentroComunitario.Recursos recursos = centro.getRecursos();
-        recursos.setMedicos(recursos.getMedicos() - recursosSaida.getMedicos() + recursosEntrada.getMedicos());
-        recursos.setVoluntarios(recursos.getVoluntarios() - recursosSaida.getVoluntarios() + recursosEntrada.getVoluntarios());
-        recursos.setKitsMedicos(recursos.getKitsMedicos() - recursosSaida.getKitsMedicos() + recursosEntrada.getKitsMedicos());
-        recursos.setVeiculos(recursos.getVeiculos() - recursosSaida.getVeiculos() + recursosEntrada.getVeiculos());
-        recursos.setCestasBasicas(recursos.getCestasBasicas() - recursosSaida.getCestasBasicas() + recursosEntrada.getCestasBasicas());
+    public List<ResultadoIntercambio> realizarIntercambiosEmLote(List<IntercambioRequest> requests) {
+        if (requests == null || requests.isEmpty()) {
+            throw new IllegalArgumentException("Lote de intercâmbios não pode ser vazio");
+        }
+        if (requests.size() > properties.getIntercambio().getTamanhoMaximoLote()) {
+            throw new IllegalArgumentException("Lote excede o máximo de " + properties.getIntercambio().getTamanhoMaximoLote() + " intercâmbios");
+        }
+
+        // Uma única leitura para todos os centros envolvidos no lote
+        Set<String> ids = new HashSet<>();
+        for (IntercambioRequest request : requests) {
+            if (request != null && request.getCentroOrigemId() != null && request.getCentroDestinoId() != null) {
+                ids.add(request.getCentroOrigemId());
+                ids.add(request.getCentroDestinoId());
+            }
+        }
+        // Lidos do banco e não do cache: os intercâmbios são aplicados sobre esses objetos
+        Map<String, CentroComunitario> centros = repository.findAllById(ids).stream()
+                .collect(Collectors.toMap(CentroComunitario::getId, Function.identity()));
+
+        // Aplicados em ordem sobre as cópias em memória: cada intercâmbio enxerga os saldos deixados pelos anteriores
+        List<ResultadoIntercambio> resultados = new ArrayList<>(requests.size());
+        List<Negociacao> negociacoes = new ArrayList<>();
+        Map<String, Recursos> variacoes = new HashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            try {
+                Negociacao negociacao = aplicarIntercambioEmMemoria(requests.get(i), centros, variacoes);
+                negociacoes.add(negociacao);
+                resultados.add(ResultadoIntercambio.sucesso(i, negociacao));
+            } catch (IllegalArgumentException e) {
+                metricas.registrarRejeicao(e);
+                resultados.add(ResultadoIntercambio.falha(i, e.getMessage()));
+            }
+        }
+        if (negociacoes.isEmpty()) {
+            return resultados;
+        }
+
+        variacoes.values().removeIf(Recursos::isVazio);
+        String lote = UUID.randomUUID().toString();
+        negociacoes.forEach(negociacao -> negociacao.setLote(lote));
+        try {
+            if (repository.aplicarVariacoesEmLote(lote, variacoes) < variacoes.size()) {
+                // Algum saldo mudou entre a leitura e o bulkWrite: desfaz o que foi aplicado e rejeita os intercâmbios válidos
+                repository.desfazerLote(lote);
+                negociacoes.forEach(n -> metricas.registrarRejeicao(IntercambioRejeitadoException.Motivo.SALDO_ALTERADO));
+                return rejeitarValidos(resultados, "Recursos dos centros foram alterados durante o lote, reenvie os intercâmbios");
+            }
+
+            try {
+                negociacaoRepository.saveAll(negociacoes);
+            } catch (RuntimeException e) {
+                desfazerLote(lote);
+                throw e;
+            }
+            // Uma queda até aqui deixa as marcas no banco; a recuperação de lotes desfaz o lote se decidir antes desta linha
+            if (!repository.decidirLote(lote, true)) {
+                desfazerLote(lote);
+                return rejeitarValidos(resultados, "Lote excedeu o tempo limite e foi desfeito, reenvie os intercâmbios");
+            }
+            // Negociações antes das marcas: um lote interrompido entre as duas ainda tem marcas e é concluído pela recuperação
+            negociacaoRepository.concluirLote(lote);
+            repository.concluirLote(lote, variacoes.keySet());
+            negociacoes.forEach(negociacao -> negociacao.setLote(null));
+            // Só as variações do lote: as cópias lidas no início podem não refletir escritas concorrentes
+            variacoes.forEach((id, variacao) -> indiceExcedentes.registrarIntercambio(id, new Recursos(), variacao));
+            return resultados;
+        } finally {
+            cache.invalidar(variacoes.keySet());
+        }
     }
 
-    public List<CentroComunitario> listarCentrosAltaOcupacao() {
-        return repository.findAll().stream()
-                .filter(centro -> (double) centro.getOcupacaoAtual() / centro.getCapacidadeMaxima() > LIMITE_OCUPACAO_ALTA)
+    // Negociações primeiro: enquanto um centro tiver a marca, a recuperação de lotes ainda encontra o lote
+    private void desfazerLote(String lote) {
+        negociacaoRepository.removerLote(lote);
+        repository.desfazerLote(lote);
+    }
+
+    private static List<ResultadoIntercambio> rejeitarValidos(List<ResultadoIntercambio> resultados, String mensagem) {
+        return resultados.stream()
+                .map(resultado -> resultado.isSucesso() ? ResultadoIntercambio.falha(resultado.getIndice(), mensagem) : resultado)
                 .collect(Collectors.toList());
     }
 
-    @Data
-    public static class RecursosMedia {
-        private double medicos;
-        private double voluntarios;
-        private double kitsMedicos;
-        private double veiculos;
-        private double cestasBasicas;
+    private Negociacao aplicarIntercambioEmMemoria(IntercambioRequest request, Map<String, CentroComunitario> centros,
+                                                   Map<String, Recursos> variacoes) {
+        if (request == null || request.getCentroOrigemId() == null || request.getCentroDestinoId() == null) {
+            throw new IntercambioRejeitadoException(IntercambioRejeitadoException.Motivo.DADOS_INVALIDOS,
+                    "Centros origem e destino são obrigatórios");
+        }
+        if (request.getCentroOrigemId().equals(request.getCentroDestinoId())) {
+            throw new IntercambioRejeitadoException(IntercambioRejeitadoException.Motivo.MESMO_CENTRO,
+                    "Os centros origem e destino devem ser diferentes");
+        }
+        CentroComunitario origem = centros.get(request.getCentroOrigemId());
+        CentroComunitario destino = centros.get(request.getCentroDestinoId());
+        if (origem == null) {
+            throw new IntercambioRejeitadoException(IntercambioRejeitadoException.Motivo.CENTRO_NAO_ENCONTRADO,
+                    "Centro origem com ID " + request.getCentroOrigemId() + " não encontrado");
+        }
+        if (destino == null) {
+            throw new IntercambioRejeitadoException(IntercambioRejeitadoException.Motivo.CENTRO_NAO_ENCONTRADO,
+                    "Centro destino com ID " + request.getCentroDestinoId() + " não encontrado");
+        }
+
+        RegrasCentro.validarIntercambio(origem, destino, request.getRecursosOrigem(), request.getRecursosDestino());
+
+        origem.getRecursos().trocar(request.getRecursosOrigem(), request.getRecursosDestino());
+        destino.getRecursos().trocar(request.getRecursosDestino(), request.getRecursosOrigem());
+        variacoes.computeIfAbsent(origem.getId(), id -> new Recursos())
+                .trocar(request.getRecursosOrigem(), request.getRecursosDestino());
+        variacoes.computeIfAbsent(destino.getId(), id -> new Recursos())
+                .trocar(request.getRecursosDestino(), request.getRecursosOrigem());
+
+        return RegrasCentro.criarNegociacao(origem.getId(), destino.getId(), request.getRecursosOrigem(), request.getRecursosDestino());
+    }
+
+    public List<CentroComunitario> listarCentrosAltaOcupacao() {
+        return listarCentrosAltaOcupacao(RegrasCentro.LIMITE_OCUPACAO_ALTA, Sort.Direction.DESC, null);
     }
 
-    public RecursosMedia calcularMediaRecursos() {
-        List<CentroComunitario> centros = repository.findAll();
-        if (centros.isEmpty()) {
-            return new RecursosMedia();
+    public List<CentroComunitario> listarCentrosAltaOcupacao(double taxaMinima, Sort.Direction ordem, Integer limite) {
+        if (taxaMinima < 0 || taxaMinima > 1) {
+            throw new IllegalArgumentException("Taxa mínima de ocupação deve estar entre 0 e 1");
+        }
+        if (limite != null && limite <= 0) {
+            throw new IllegalArgumentException("Limite deve ser maior que 0");
         }
 
-        double totalCentros = centros.size();
-        double somaMedicos = 0, somaVoluntarios = 0, somaKitsMedicos = 0, somaVeiculos = 0, somaCestasBasicas = 0;
+        Sort sort = Sort.by(ordem, "taxaOcupacao");
+        Pageable pageable = limite != null ? PageRequest.of(0, limite, sort) : Pageable.unpaged(sort);
+        List<CentroComunitario> centros = repository.findByTaxaOcupacaoGreaterThan(taxaMinima, pageable);
+        metricas.registrarDocumentos(MetricasServico.Relatorio.ALTA_OCUPACAO, centros.size());
+        return centros;
+    }
 
-        for (CentroComunitario centro : centros) {
-            CentroComunitario.Recursos recursos = centro.getRecursos();
-            somaMedicos += recursos.getMedicos();
-            somaVoluntarios += recursos.getVoluntarios();
-            somaKitsMedicos += recursos.getKitsMedicos();
-            somaVeiculos += recursos.getVeiculos();
-            somaCestasBasicas += recursos.getCestasBasicas();
+    public List<CentroProximo> listarCentrosProximos(double latitude, double longitude, double raioKm,
+                                                     int vagasMinimas, Integer limite) {
+        if (latitude < -90 || latitude > 90 || longitude < -180 || longitude > 180) {
+            throw new IllegalArgumentException("Localização inválida");
+        }
+        if (raioKm <= 0) {
+            throw new IllegalArgumentException("Raio deve ser maior que 0");
+        }
+        if (vagasMinimas <= 0) {
+            throw new IllegalArgumentException("Vagas mínimas devem ser maiores que 0");
+        }
+        if (limite != null && (limite <= 0 || limite > TAMANHO_MAXIMO_PAGINA)) {
+            throw new IllegalArgumentException("Limite deve estar entre 1 e " + TAMANHO_MAXIMO_PAGINA);
         }
 
-        RecursosMedia media = new RecursosMedia();
-        media.setMedicos(somaMedicos / totalCentros);
-        media.setVoluntarios(somaVoluntarios / totalCentros);
-        media.setKitsMedicos(somaKitsMedicos / totalCentros);
-        media.setVeiculos(somaVeiculos / totalCentros);
-        media.setCestasBasicas(somaCestasBasicas / totalCentros);
+        List<CentroProximo> proximos = repository.buscarProximos(latitude, longitude, raioKm, vagasMinimas,
+                        limite != null ? limite : LIMITE_PADRAO_PROXIMOS)
+                .getContent().stream()
+                .map(resultado -> new CentroProximo(resultado.getContent(), resultado.getDistance().getValue()))
+                .collect(Collectors.toList());
+        metricas.registrarDocumentos(MetricasServico.Relatorio.PROXIMOS, proximos.size());
+        return proximos;
+    }
 
+    public RecursosMedia calcularMediaRecursos() {
+        if (usarTotaisAcumulados()) {
+            // Um único documento de somas, independente do número de centros
+            metricas.registrarDocumentos(MetricasServico.Relatorio.MEDIA_RECURSOS, 1);
+            return estatisticasRepository.findById(EstatisticasRecursos.ID_GLOBAL)
+                    .map(EstatisticasRecursos::calcularMedia)
+                    .orElseGet(RecursosMedia::new);
+        }
+        RecursosMedia media = repository.calcularMediaRecursos().orElseGet(RecursosMedia::new);
+        metricas.registrarDocumentos(MetricasServico.Relatorio.MEDIA_RECURSOS, media.getTotalCentros());
         return media;
     }
 
+    // Lida do índice em memória, sem consulta ao banco. A carga é feita ao iniciar, nunca na requisição
+    public DistribuicaoRecursos calcularDistribuicaoRecursos() {
+        if (!indiceExcedentes.isCarregado()) {
+            throw new IndiceIndisponivelException("Índice de recursos ainda em carregamento, tente novamente em instantes");
+        }
+        DistribuicaoRecursos distribuicao = indiceExcedentes.resumirDistribuicao();
+        metricas.registrarDocumentos(MetricasServico.Relatorio.DISTRIBUICAO_RECURSOS, 0);
+        return distribuicao;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void executarManutencaoInicializacao() {
+        if (!properties.getMongo().isManutencaoNaInicializacao()) {
+            return;
+        }
+
+        repository.preencherCamposDerivados();
+        cache.limpar();
+        // Os totais acumulados só são mantidos com o modo ativo; reconstrói a partir da coleção ao iniciar
+        if (usarTotaisAcumulados()) {
+            estatisticasRepository.recalcular();
+        }
+    }
+
+    private boolean usarTotaisAcumulados() {
+        return properties.getRelatorios().getMediaRecursos() == PhoebusProperties.ModoMediaRecursos.TOTAIS_ACUMULADOS;
+    }
+
     public List<Negociacao> listarNegociacoesPorCentro(String centroId, LocalDateTime dataInicio) {
+        return listarNegociacoesPorCentro(centroId, dataInicio, null, null);
+    }
+
+    public List<Negociacao> listarNegociacoesPorCentro(String centroId, LocalDateTime dataInicio,
+                                                       String cursor, Integer tamanhoPagina) {
         if (centroId == null || centroId.isBlank()) {
             throw new IllegalArgumentException("ID do centro é obrigatório");
         }
-        Optional<CentroComunitario> centroOptional = repository.findById(centroId);
-        if (!centroOptional.isPresent()) {
+        if (!cache.existe(centroId)) {
             throw new IllegalArgumentException("Centro comunitário com ID " + centroId + " não encontrado");
         }
 
         if (dataInicio != null && dataInicio.isAfter(LocalDateTime.now())) {
             throw new IllegalArgumentException("Data de início não pode ser no futuro");
         }
-
-        List<Negociacao> negociacoes = negociacaoRepository.findAll().stream()
-                .filter(negociacao -> negociacao.getCentroOrigemId().equals(centroId) ||
-                        negociacao.getCentroDestinoId().equals(centroId))
-                .collect(Collectors.toList());
-
-        if (dataInicio != null) {
-            negociacoes = negociacoes.stream()
-                    .filter(negociacao -> !negociacao.getDataHora().isBefore(dataInicio))
-                    .collect(Collectors.toList());
+        if (tamanhoPagina != null && (tamanhoPagina <= 0 || tamanhoPagina > TAMANHO_MAXIMO_PAGINA)) {
+            throw new IllegalArgumentException("Tamanho da página deve estar entre 1 e " + TAMANHO_MAXIMO_PAGINA);
         }
 
+        CursorNegociacao posicao = cursor != null ? CursorNegociacao.decodificar(cursor) : null;
+        List<Negociacao> negociacoes = negociacaoRepository.buscarPorCentro(centroId, dataInicio, posicao, tamanhoPagina);
+        metricas.registrarDocumentos(MetricasServico.Relatorio.NEGOCIACOES, negociacoes.size());
         return negociacoes;
     }
 }
\ No newline at end of file
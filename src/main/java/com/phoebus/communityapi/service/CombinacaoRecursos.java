@@ -0,0 +1,75 @@
+package com.phoebus.communityapi.service;
+
+import com.phoebus.communityapi.model.Recursos;
+import com.phoebus.communityapi.model.TipoRecurso;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Combinações com o menor número de itens, entre os tipos diferentes de excluido, que somam exatamente uma pontuação.
+// Mochila limitada com as quantidades divididas em potências de 2: O(pontosMaximos * log(quantidade)) por tipo.
+// Uma única tabela responde a qualquer pontuação até pontosMaximos
+final class CombinacaoRecursos {
+    private final List<TipoRecurso> tiposItens = new ArrayList<>();
+    private final List<Integer> quantidadesItens = new ArrayList<>();
+    private final int[] minimoItens;
+    private final boolean[][] usado;
+
+    // disponivel é indexado por TipoRecurso.ordinal()
+    CombinacaoRecursos(int[] disponivel, TipoRecurso excluido, int pontosMaximos) {
+        for (TipoRecurso tipo : TipoRecurso.values()) {
+            if (tipo == excluido) {
+                continue;
+            }
+            int restante = Math.min(disponivel[tipo.ordinal()], pontosMaximos / tipo.getPontos());
+            for (int parte = 1; restante > 0; parte *= 2) {
+                int quantidade = Math.min(parte, restante);
+                tiposItens.add(tipo);
+                quantidadesItens.add(quantidade);
+                restante -= quantidade;
+            }
+        }
+
+        minimoItens = new int[pontosMaximos + 1];
+        Arrays.fill(minimoItens, Integer.MAX_VALUE);
+        minimoItens[0] = 0;
+        usado = new boolean[tiposItens.size()][pontosMaximos + 1];
+        for (int i = 0; i < tiposItens.size(); i++) {
+            int quantidade = quantidadesItens.get(i);
+            int peso = quantidade * tiposItens.get(i).getPontos();
+            for (int valor = pontosMaximos; valor >= peso; valor--) {
+                if (minimoItens[valor - peso] != Integer.MAX_VALUE && minimoItens[valor - peso] + quantidade < minimoItens[valor]) {
+                    minimoItens[valor] = minimoItens[valor - peso] + quantidade;
+                    usado[i][valor] = true;
+                }
+            }
+        }
+    }
+
+    static Recursos menorCombinacao(int[] disponivel, TipoRecurso excluido, int pontos) {
+        return new CombinacaoRecursos(disponivel, excluido, pontos).montar(pontos);
+    }
+
+    boolean alcanca(int pontos) {
+        return pontos < minimoItens.length && minimoItens[pontos] != Integer.MAX_VALUE;
+    }
+
+    // Null quando não há combinação
+    Recursos montar(int pontos) {
+        if (!alcanca(pontos)) {
+            return null;
+        }
+
+        Recursos combinacao = new Recursos();
+        int valor = pontos;
+        for (int i = tiposItens.size() - 1; i >= 0 && valor > 0; i--) {
+            if (usado[i][valor]) {
+                TipoRecurso tipo = tiposItens.get(i);
+                combinacao.definir(tipo, combinacao.quantidade(tipo) + quantidadesItens.get(i));
+                valor -= quantidadesItens.get(i) * tipo.getPontos();
+            }
+        }
+        return combinacao;
+    }
+}
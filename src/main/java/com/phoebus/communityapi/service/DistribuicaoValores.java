@@ -0,0 +1,106 @@
+package com.phoebus.communityapi.service;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+// Sketch de quantis com erro relativo fixo (no estilo do DDSketch): cada valor positivo conta no intervalo logarítmico
+// ceil(log_gama(valor)) e os quantis saem das contagens acumuladas. Como só guarda contagens, aceita a remoção do valor
+// anterior de um centro alterado, e duas distribuições com o mesmo erro se combinam somando as contagens.
+// Não é thread-safe: o IndiceExcedentes só o altera sob o próprio lock
+final class DistribuicaoValores {
+    private final double erroRelativo;
+    private final double gama;
+    private final double logGama;
+    private final TreeMap<Integer, Long> intervalos = new TreeMap<>();
+    // Valores menores ou iguais a zero, que não têm intervalo logarítmico
+    private long zeros;
+    private long total;
+    private double soma;
+
+    DistribuicaoValores(double erroRelativo) {
+        if (!(erroRelativo > 0 && erroRelativo < 1)) {
+            throw new IllegalArgumentException("Erro relativo da distribuição deve estar entre 0 e 1");
+        }
+        this.erroRelativo = erroRelativo;
+        gama = (1 + erroRelativo) / (1 - erroRelativo);
+        logGama = Math.log(gama);
+    }
+
+    void adicionar(double valor) {
+        ajustar(valor, 1);
+    }
+
+    void remover(double valor) {
+        ajustar(valor, -1);
+    }
+
+    private void ajustar(double valor, long quantidade) {
+        total += quantidade;
+        if (valor <= 0) {
+            zeros += quantidade;
+            return;
+        }
+        soma += valor * quantidade;
+        intervalos.merge(indice(valor), quantidade, DistribuicaoValores::somarContagens);
+    }
+
+    void combinar(DistribuicaoValores outra) {
+        if (outra.erroRelativo != erroRelativo) {
+            throw new IllegalArgumentException("Só é possível combinar distribuições com o mesmo erro relativo");
+        }
+        total += outra.total;
+        zeros += outra.zeros;
+        soma += outra.soma;
+        outra.intervalos.forEach((indice, contagem) -> intervalos.merge(indice, contagem, DistribuicaoValores::somarContagens));
+    }
+
+    // Intervalo sem valores sai do mapa, então o primeiro e o último sempre são o mínimo e o máximo
+    private static Long somarContagens(Long atual, Long variacao) {
+        long resultado = atual + variacao;
+        return resultado != 0 ? resultado : null;
+    }
+
+    long getTotal() {
+        return total;
+    }
+
+    double media() {
+        return total > 0 ? soma / total : 0;
+    }
+
+    double minimo() {
+        return zeros > 0 || intervalos.isEmpty() ? 0 : valor(intervalos.firstKey());
+    }
+
+    double maximo() {
+        return intervalos.isEmpty() ? 0 : valor(intervalos.lastKey());
+    }
+
+    // Valor na posição floor(q * (total - 1)) da ordenação, com até erroRelativo de diferença; 0 sem valores
+    double quantil(double q) {
+        if (total <= 0) {
+            return 0;
+        }
+        long posicao = (long) Math.floor(q * (total - 1));
+        long acumulado = zeros;
+        if (posicao < acumulado) {
+            return 0;
+        }
+        for (Map.Entry<Integer, Long> intervalo : intervalos.entrySet()) {
+            acumulado += intervalo.getValue();
+            if (posicao < acumulado) {
+                return valor(intervalo.getKey());
+            }
+        }
+        return maximo();
+    }
+
+    private int indice(double valor) {
+        return (int) Math.ceil(Math.log(valor) / logGama);
+    }
+
+    // Ponto do intervalo (gama^(i-1), gama^i] com o mesmo erro relativo para as duas extremidades
+    private double valor(int indice) {
+        return 2 * Math.pow(gama, indice) / (gama + 1);
+    }
+}
@@ -0,0 +1,105 @@
+package com.phoebus.communityapi.service;
+
+import com.phoebus.communityapi.config.PhoebusProperties;
+import com.phoebus.communityapi.model.EstatisticasIntercambio;
+import com.phoebus.communityapi.model.Granularidade;
+import com.phoebus.communityapi.repository.EstatisticasIntercambioRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Intercâmbios por centro consolidados por hora e por dia. A consolidação roda em segundo plano a partir das
+// negociações gravadas, então cobre o intercâmbio unitário, os lotes e a pilha reativa sem tocar no caminho
+// da requisição; os painéis leem poucos intervalos em vez de percorrer o histórico
+@Service
+@RequiredArgsConstructor
+public class EstatisticasIntercambioService {
+    private static final Logger logger = LoggerFactory.getLogger(EstatisticasIntercambioService.class);
+    private static final int MAXIMO_INTERVALOS = 1000;
+    private static final Duration PERIODO_PADRAO_HORAS = Duration.ofHours(24);
+    private static final Duration PERIODO_PADRAO_DIAS = Duration.ofDays(30);
+
+    private final EstatisticasIntercambioRepository repository;
+    private final CacheCentros cache;
+    private final PhoebusProperties properties;
+    private final MetricasServico metricas;
+
+    private ScheduledExecutorService executor;
+
+    @PostConstruct
+    void iniciar() {
+        long intervalo = properties.getEstatisticasIntercambio().getIntervalo().toMillis();
+        if (intervalo <= 0) {
+            return;
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "consolidacao-intercambios");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Primeira consolidação logo após iniciar: sem registro anterior, reconstrói o histórico inteiro
+        executor.scheduleWithFixedDelay(this::consolidarComLog, 0, intervalo, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void encerrar() throws InterruptedException {
+        if (executor != null) {
+            executor.shutdown();
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        }
+    }
+
+    private void consolidarComLog() {
+        try {
+            consolidar();
+        } catch (RuntimeException e) {
+            // O registro não avança, então o próximo ciclo recalcula o mesmo período
+            logger.error("Falha na consolidação das estatísticas de intercâmbio", e);
+        }
+    }
+
+    void consolidar() {
+        LocalDateTime inicio = LocalDateTime.now();
+        Duration margem = properties.getEstatisticasIntercambio().getMargem();
+        LocalDateTime desde = repository.buscarUltimaConsolidacao()
+                .map(ultima -> ultima.minus(margem))
+                .orElse(null);
+        repository.consolidar(desde);
+        repository.registrarConsolidacao(inicio);
+    }
+
+    // Só os intervalos com intercâmbios; o intervalo em andamento reflete a última consolidação
+    public List<EstatisticasIntercambio> listarPorCentro(String centroId, String granularidade,
+                                                         LocalDateTime dataInicio, LocalDateTime dataFim) {
+        if (centroId == null || centroId.isBlank()) {
+            throw new IllegalArgumentException("ID do centro é obrigatório");
+        }
+        Granularidade tamanho = Granularidade.de(granularidade);
+        LocalDateTime fim = dataFim != null ? dataFim : LocalDateTime.now();
+        LocalDateTime inicio = tamanho.truncar(dataInicio != null ? dataInicio
+                : fim.minus(tamanho == Granularidade.HORA ? PERIODO_PADRAO_HORAS : PERIODO_PADRAO_DIAS));
+        if (!inicio.isBefore(fim)) {
+            throw new IllegalArgumentException("Data de início deve ser anterior à data de fim");
+        }
+        if (tamanho.getUnidade().between(inicio, fim) >= MAXIMO_INTERVALOS) {
+            throw new IllegalArgumentException("Período excede o máximo de " + MAXIMO_INTERVALOS + " intervalos");
+        }
+        if (!cache.existe(centroId)) {
+            throw new IllegalArgumentException("Centro comunitário com ID " + centroId + " não encontrado");
+        }
+
+        List<EstatisticasIntercambio> estatisticas = repository.buscarPorCentro(centroId, tamanho, inicio, fim);
+        metricas.registrarDocumentos(MetricasServico.Relatorio.ESTATISTICAS_INTERCAMBIO, estatisticas.size());
+        return estatisticas;
+    }
+}
@@ -0,0 +1,196 @@
+package com.phoebus.communityapi.service;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.phoebus.communityapi.config.PhoebusProperties;
+import com.phoebus.communityapi.model.DirecaoNegociacao;
+import com.phoebus.communityapi.model.Negociacao;
+import com.phoebus.communityapi.model.Recursos;
+import com.phoebus.communityapi.model.TipoRecurso;
+import com.phoebus.communityapi.repository.NegociacaoRepository;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+// Histórico completo de negociações de um centro escrito direto na resposta a partir de um cursor do MongoDB:
+// só o lote atual do cursor fica em memória, qualquer que seja o período exportado
+@Service
+@RequiredArgsConstructor
+public class ExportacaoNegociacoesService {
+    private static final String SEPARADOR_CSV = ",";
+
+    private final NegociacaoRepository negociacaoRepository;
+    private final CacheCentros cache;
+    private final ObjectMapper objectMapper;
+    private final PhoebusProperties properties;
+    private final MetricasServico metricas;
+
+    // Validado antes de a resposta começar, enquanto um erro ainda pode voltar como 400
+    public Pedido preparar(String centroId, LocalDateTime dataInicio, LocalDateTime dataFim, String direcao, String formato) {
+        if (centroId == null || centroId.isBlank()) {
+            throw new IllegalArgumentException("ID do centro é obrigatório");
+        }
+        if (dataInicio != null && dataFim != null && !dataInicio.isBefore(dataFim)) {
+            throw new IllegalArgumentException("Data de início deve ser anterior à data de fim");
+        }
+        Pedido pedido = new Pedido(centroId, dataInicio, dataFim, DirecaoNegociacao.de(direcao), Formato.de(formato));
+        if (!cache.existe(centroId)) {
+            throw new IllegalArgumentException("Centro comunitário com ID " + centroId + " não encontrado");
+        }
+        return pedido;
+    }
+
+    public void exportar(Pedido pedido, OutputStream saida) throws IOException {
+        int tamanhoLote = properties.getExportacao().getTamanhoLote();
+        long exportadas = 0;
+        try (Stream<Negociacao> negociacoes = negociacaoRepository.exportarPorCentro(pedido.getCentroId(),
+                pedido.getDataInicio(), pedido.getDataFim(), pedido.getDirecao(), tamanhoLote);
+             Escritor escritor = pedido.getFormato() == Formato.CSV ? new EscritorCsv(saida) : new EscritorNdjson(saida)) {
+            Iterator<Negociacao> iterador = negociacoes.iterator();
+            while (iterador.hasNext()) {
+                escritor.escrever(iterador.next());
+                // A primeira linha sai logo, e depois um lote do cursor por descarga, antes do próximo getMore
+                if (++exportadas == 1 || exportadas % tamanhoLote == 0) {
+                    escritor.descarregar();
+                }
+            }
+        } finally {
+            metricas.registrarDocumentos(MetricasServico.Relatorio.EXPORTACAO_NEGOCIACOES, exportadas);
+        }
+    }
+
+    @Value
+    public static class Pedido {
+        String centroId;
+        LocalDateTime dataInicio;
+        LocalDateTime dataFim;
+        DirecaoNegociacao direcao;
+        Formato formato;
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    public enum Formato {
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv;charset=UTF-8", "csv");
+
+        private final String tipoConteudo;
+        private final String extensao;
+
+        public static Formato de(String formato) {
+            return Arrays.stream(values())
+                    .filter(valor -> valor.name().equalsIgnoreCase(formato))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalArgumentException("Formato inválido: " + formato + " (use ndjson ou csv)"));
+        }
+    }
+
+    private interface Escritor extends Closeable {
+        void escrever(Negociacao negociacao) throws IOException;
+
+        void descarregar() throws IOException;
+    }
+
+    // Uma negociação por linha, no mesmo JSON de GET /centers/(id)/exchanges
+    private class EscritorNdjson implements Escritor {
+        private final JsonGenerator gerador;
+        // Sem descarga nem separador a cada valor: a descarga é por lote e o separador é a quebra de linha
+        private final ObjectWriter writer = objectMapper.writerFor(Negociacao.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .withRootValueSeparator((String) null);
+
+        EscritorNdjson(OutputStream saida) throws IOException {
+            gerador = objectMapper.getFactory().createGenerator(saida, JsonEncoding.UTF8);
+            gerador.configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+        }
+
+        @Override
+        public void escrever(Negociacao negociacao) throws IOException {
+            writer.writeValue(gerador, negociacao);
+            gerador.writeRaw('\n');
+        }
+
+        @Override
+        public void descarregar() throws IOException {
+            gerador.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            gerador.close();
+        }
+    }
+
+    // Cabeçalho e uma coluna por tipo de recurso em cada lado da negociação, derivadas de TipoRecurso
+    private static class EscritorCsv implements Escritor {
+        private final Writer writer;
+
+        EscritorCsv(OutputStream saida) throws IOException {
+            writer = new BufferedWriter(new OutputStreamWriter(saida, StandardCharsets.UTF_8));
+            writer.write(String.join(SEPARADOR_CSV, "id", "dataHora", "centroOrigemId", "centroDestinoId",
+                    "pontosOrigem", "pontosDestino"));
+            for (String lado : new String[]{"recursosOrigem.", "recursosDestino."}) {
+                for (TipoRecurso tipo : TipoRecurso.values()) {
+                    writer.write(SEPARADOR_CSV + lado + tipo.getCampo());
+                }
+            }
+            writer.write('\n');
+        }
+
+        @Override
+        public void escrever(Negociacao negociacao) throws IOException {
+            writer.write(campo(negociacao.getId()));
+            writer.write(SEPARADOR_CSV + (negociacao.getDataHora() != null ? negociacao.getDataHora() : ""));
+            writer.write(SEPARADOR_CSV + campo(negociacao.getCentroOrigemId()));
+            writer.write(SEPARADOR_CSV + campo(negociacao.getCentroDestinoId()));
+            writer.write(SEPARADOR_CSV + negociacao.getPontosOrigem());
+            writer.write(SEPARADOR_CSV + negociacao.getPontosDestino());
+            escreverRecursos(negociacao.getRecursosOrigem());
+            escreverRecursos(negociacao.getRecursosDestino());
+            writer.write('\n');
+        }
+
+        private void escreverRecursos(Recursos recursos) throws IOException {
+            for (TipoRecurso tipo : TipoRecurso.values()) {
+                writer.write(SEPARADOR_CSV + (recursos != null ? recursos.quantidade(tipo) : 0));
+            }
+        }
+
+        // Aspas só quando o valor tem separador, aspas ou quebra de linha (RFC 4180)
+        private static String campo(String valor) {
+            if (valor == null) {
+                return "";
+            }
+            if (valor.contains(SEPARADOR_CSV) || valor.contains("\"") || valor.contains("\n") || valor.contains("\r")) {
+                return '"' + valor.replace("\"", "\"\"") + '"';
+            }
+            return valor;
+        }
+
+        @Override
+        public void descarregar() throws IOException {
+            writer.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            writer.flush();
+        }
+    }
+}
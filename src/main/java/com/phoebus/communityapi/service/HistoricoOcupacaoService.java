@@ -0,0 +1,212 @@
+package com.phoebus.communityapi.service;
+
+import com.phoebus.communityapi.config.PhoebusProperties;
+import com.phoebus.communityapi.model.HistoricoOcupacao;
+import com.phoebus.communityapi.model.LeituraOcupacao;
+import com.phoebus.communityapi.model.PontoOcupacao;
+import com.phoebus.communityapi.model.ResolucaoOcupacao;
+import com.phoebus.communityapi.repository.HistoricoOcupacaoRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Histórico das ocupações gravadas: cada alteração entra numa fila gravada em lote fora da requisição, e uma
+// consolidação em segundo plano resume as leituras por minuto e por hora. A consulta escolhe a camada pelo período,
+// então um gráfico de meses lê no máximo MAXIMO_PONTOS documentos
+@Service
+@RequiredArgsConstructor
+public class HistoricoOcupacaoService implements MeterBinder {
+    private static final Logger logger = LoggerFactory.getLogger(HistoricoOcupacaoService.class);
+    private static final int MAXIMO_PONTOS = 1000;
+    private static final Duration PERIODO_PADRAO = Duration.ofHours(24);
+    private static final String RESOLUCAO_AUTOMATICA = "auto";
+
+    private final HistoricoOcupacaoRepository repository;
+    private final CacheCentros cache;
+    private final PhoebusProperties properties;
+    private final MetricasServico metricas;
+
+    private final AtomicLong descartadas = new AtomicLong();
+    // null enquanto o registro não está ativo (intervalo de gravação 0 ou antes de iniciar)
+    private volatile BlockingQueue<LeituraOcupacao> fila;
+    private boolean colecoesProntas;
+    private ScheduledExecutorService executor;
+
+    @PostConstruct
+    void iniciar() {
+        PhoebusProperties.HistoricoOcupacao configuracao = properties.getHistoricoOcupacao();
+        long gravacao = configuracao.getIntervaloGravacao().toMillis();
+        long consolidacao = configuracao.getIntervaloConsolidacao().toMillis();
+        if (gravacao <= 0 && consolidacao <= 0) {
+            return;
+        }
+        if (configuracao.getCapacidadeFila() <= 0 || configuracao.getTamanhoLote() <= 0) {
+            throw new IllegalArgumentException("Capacidade da fila e tamanho do lote do histórico devem ser maiores que 0");
+        }
+        // Uma thread para a gravação e outra para a consolidação, que pode demorar sem segurar a fila
+        executor = Executors.newScheduledThreadPool(2, r -> {
+            Thread thread = new Thread(r, "historico-ocupacao");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (gravacao > 0) {
+            fila = new ArrayBlockingQueue<>(configuracao.getCapacidadeFila());
+            executor.scheduleWithFixedDelay(this::gravarComLog, gravacao, gravacao, TimeUnit.MILLISECONDS);
+        }
+        if (consolidacao > 0) {
+            executor.scheduleWithFixedDelay(this::consolidarComLog, 0, consolidacao, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    void encerrar() throws InterruptedException {
+        if (executor == null) {
+            return;
+        }
+        executor.shutdown();
+        executor.awaitTermination(5, TimeUnit.SECONDS);
+        if (fila != null) {
+            gravarComLog();
+        }
+    }
+
+    // Chamado depois de cada ocupação gravada; não bloqueia nem acessa o banco
+    public void registrar(String centroId, int ocupacao) {
+        BlockingQueue<LeituraOcupacao> atual = fila;
+        if (atual == null) {
+            return;
+        }
+        LeituraOcupacao leitura = new LeituraOcupacao();
+        leitura.setCentroId(centroId);
+        leitura.setDataHora(LocalDateTime.now());
+        leitura.setOcupacao(ocupacao);
+        if (!atual.offer(leitura)) {
+            descartadas.incrementAndGet();
+        }
+    }
+
+    private void gravarComLog() {
+        try {
+            gravar();
+        } catch (RuntimeException e) {
+            // As leituras do lote com falha se perdem; as que seguem na fila vão no próximo ciclo
+            logger.error("Falha ao gravar o histórico de ocupação", e);
+        }
+    }
+
+    // Executado sempre na thread de gravação
+    void gravar() {
+        PhoebusProperties.HistoricoOcupacao configuracao = properties.getHistoricoOcupacao();
+        if (!colecoesProntas) {
+            // Antes da primeira gravação, para a coleção nascer como série temporal e não como coleção comum
+            repository.garantirColecoes(configuracao.getRetencaoLeituras(), configuracao.getRetencaoMinutos(),
+                    configuracao.getRetencaoHoras());
+            colecoesProntas = true;
+        }
+        while (true) {
+            List<LeituraOcupacao> lote = new ArrayList<>(configuracao.getTamanhoLote());
+            if (fila.drainTo(lote, configuracao.getTamanhoLote()) == 0) {
+                return;
+            }
+            repository.insert(lote);
+        }
+    }
+
+    private void consolidarComLog() {
+        try {
+            consolidar();
+        } catch (RuntimeException e) {
+            // O registro não avança, então o próximo ciclo recalcula o mesmo período
+            logger.error("Falha na consolidação do histórico de ocupação", e);
+        }
+    }
+
+    void consolidar() {
+        LocalDateTime inicio = LocalDateTime.now();
+        Duration margem = properties.getHistoricoOcupacao().getMargem();
+        LocalDateTime desde = repository.buscarUltimaConsolidacao()
+                .map(ultima -> ultima.minus(margem))
+                .orElse(null);
+        repository.consolidar(desde);
+        repository.registrarConsolidacao(inicio);
+    }
+
+    // Sem resolução (ou auto), a menor camada que ainda retém o início do período e o cobre com até MAXIMO_PONTOS
+    // intervalos; o intervalo em andamento reflete a última consolidação
+    public HistoricoOcupacao listarPorCentro(String centroId, String resolucao, LocalDateTime dataInicio,
+                                             LocalDateTime dataFim) {
+        if (centroId == null || centroId.isBlank()) {
+            throw new IllegalArgumentException("ID do centro é obrigatório");
+        }
+        LocalDateTime agora = LocalDateTime.now();
+        LocalDateTime fim = dataFim != null ? dataFim : agora;
+        LocalDateTime inicio = dataInicio != null ? dataInicio : fim.minus(PERIODO_PADRAO);
+        if (!inicio.isBefore(fim)) {
+            throw new IllegalArgumentException("Data de início deve ser anterior à data de fim");
+        }
+        ResolucaoOcupacao escolhida = resolucao == null || RESOLUCAO_AUTOMATICA.equalsIgnoreCase(resolucao)
+                ? escolherResolucao(inicio, fim, agora)
+                : ResolucaoOcupacao.de(resolucao);
+        inicio = escolhida.truncar(inicio);
+        if (escolhida != ResolucaoOcupacao.LEITURAS && intervalos(escolhida, inicio, fim) >= MAXIMO_PONTOS) {
+            throw new IllegalArgumentException("Período excede o máximo de " + MAXIMO_PONTOS + " intervalos na resolução "
+                    + escolhida.getParametro());
+        }
+        if (!cache.existe(centroId)) {
+            throw new IllegalArgumentException("Centro comunitário com ID " + centroId + " não encontrado");
+        }
+
+        List<PontoOcupacao> pontos = repository.buscarPontos(centroId, escolhida, inicio, fim, MAXIMO_PONTOS + 1);
+        metricas.registrarDocumentos(MetricasServico.Relatorio.HISTORICO_OCUPACAO, pontos.size());
+        if (pontos.size() > MAXIMO_PONTOS) {
+            // Só as leituras brutas não têm o número de pontos limitado pelo período
+            throw new IllegalArgumentException("Período com mais de " + MAXIMO_PONTOS + " leituras; use uma resolução maior");
+        }
+        return new HistoricoOcupacao(centroId, escolhida, inicio, fim, pontos);
+    }
+
+    private ResolucaoOcupacao escolherResolucao(LocalDateTime inicio, LocalDateTime fim, LocalDateTime agora) {
+        PhoebusProperties.HistoricoOcupacao configuracao = properties.getHistoricoOcupacao();
+        if (!inicio.isBefore(agora.minus(configuracao.getRetencaoMinutos()))
+                && intervalos(ResolucaoOcupacao.MINUTO, ResolucaoOcupacao.MINUTO.truncar(inicio), fim) < MAXIMO_PONTOS) {
+            return ResolucaoOcupacao.MINUTO;
+        }
+        if (!inicio.isBefore(agora.minus(configuracao.getRetencaoHoras()))
+                && intervalos(ResolucaoOcupacao.HORA, ResolucaoOcupacao.HORA.truncar(inicio), fim) < MAXIMO_PONTOS) {
+            return ResolucaoOcupacao.HORA;
+        }
+        return ResolucaoOcupacao.DIA;
+    }
+
+    private static long intervalos(ResolucaoOcupacao resolucao, LocalDateTime inicio, LocalDateTime fim) {
+        return resolucao.getUnidade().between(inicio, fim);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("phoebus.historico.ocupacao.fila", this, servico -> servico.fila != null ? servico.fila.size() : 0)
+                .description("Leituras de ocupação aguardando gravação no histórico")
+                .register(registry);
+        FunctionCounter.builder("phoebus.historico.ocupacao.descartadas", descartadas, AtomicLong::get)
+                .description("Leituras de ocupação descartadas com a fila do histórico cheia")
+                .register(registry);
+    }
+}
@@ -0,0 +1,151 @@
+package com.phoebus.communityapi.service;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.phoebus.communityapi.config.PhoebusProperties;
+import com.phoebus.communityapi.model.CentroComunitario;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+@Service
+@RequiredArgsConstructor
+public class ImportacaoCentrosService {
+    private final CentroComunitarioService centroService;
+    private final ObjectMapper objectMapper;
+    private final PhoebusProperties properties;
+
+    // Um centro por linha; cada linha é lida e validada isoladamente, então uma linha inválida não interrompe a carga
+    public void importarNdjson(InputStream entrada, OutputStream saida) throws IOException {
+        try (Importacao importacao = new Importacao(saida)) {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(entrada, StandardCharsets.UTF_8));
+            String linha;
+            int registro = 0;
+            while ((linha = reader.readLine()) != null) {
+                registro++;
+                if (linha.isBlank()) {
+                    continue;
+                }
+                try {
+                    importacao.adicionar(registro, objectMapper.readValue(linha, CentroComunitario.class));
+                } catch (JsonProcessingException e) {
+                    importacao.rejeitar(registro, "JSON inválido: " + e.getOriginalMessage());
+                }
+            }
+        }
+    }
+
+    // Array JSON lido elemento a elemento: só um centro (e o lote atual) fica em memória
+    public void importarJson(InputStream entrada, OutputStream saida) throws IOException {
+        try (Importacao importacao = new Importacao(saida);
+             JsonParser parser = objectMapper.createParser(entrada)) {
+            int registro = 0;
+            try {
+                if (parser.nextToken() != JsonToken.START_ARRAY) {
+                    importacao.rejeitar(0, "O corpo deve ser um array JSON ou NDJSON");
+                    return;
+                }
+                while (parser.nextToken() != JsonToken.END_ARRAY) {
+                    registro++;
+                    JsonNode node = objectMapper.readTree(parser);
+                    try {
+                        importacao.adicionar(registro, objectMapper.treeToValue(node, CentroComunitario.class));
+                    } catch (JsonProcessingException e) {
+                        importacao.rejeitar(registro, "JSON inválido: " + e.getOriginalMessage());
+                    }
+                }
+            } catch (JsonProcessingException e) {
+                // Erro de sintaxe: não há como sincronizar com o próximo elemento
+                importacao.rejeitar(registro + 1, "JSON inválido, importação interrompida: " + e.getOriginalMessage());
+            }
+        }
+    }
+
+    private class Importacao implements AutoCloseable {
+        private final JsonGenerator relatorio;
+        private final OutputStream saida;
+        private final int tamanhoLote = properties.getImportacao().getTamanhoLote();
+        private List<CentroComunitario> lote = new ArrayList<>(tamanhoLote);
+        private List<Integer> registrosLote = new ArrayList<>(tamanhoLote);
+        private int importados;
+        private int rejeitados;
+
+        Importacao(OutputStream saida) throws IOException {
+            this.saida = saida;
+            this.relatorio = objectMapper.getFactory().createGenerator(saida, JsonEncoding.UTF8);
+            this.relatorio.configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+        }
+
+        void adicionar(int registro, CentroComunitario centro) throws IOException {
+            if (centro == null) {
+                rejeitar(registro, "Registro vazio");
+                return;
+            }
+            try {
+                centroService.validarCentro(centro);
+            } catch (IllegalArgumentException e) {
+                rejeitar(registro, e.getMessage());
+                return;
+            }
+
+            lote.add(centro);
+            registrosLote.add(registro);
+            if (lote.size() >= tamanhoLote) {
+                gravarLote();
+            }
+        }
+
+        void rejeitar(int registro, String erro) throws IOException {
+            rejeitados++;
+            relatorio.writeStartObject();
+            relatorio.writeNumberField("registro", registro);
+            relatorio.writeStringField("erro", erro);
+            relatorio.writeEndObject();
+            relatorio.writeRaw('\n');
+        }
+
+        private void gravarLote() throws IOException {
+            if (lote.isEmpty()) {
+                return;
+            }
+
+            Map<Integer, String> erros = centroService.inserirCentros(lote);
+            for (Map.Entry<Integer, String> erro : erros.entrySet()) {
+                rejeitar(registrosLote.get(erro.getKey()), erro.getValue());
+            }
+            importados += lote.size() - erros.size();
+            lote = new ArrayList<>(tamanhoLote);
+            registrosLote = new ArrayList<>(tamanhoLote);
+
+            // Envia os erros do lote ao cliente sem esperar o fim da carga
+            relatorio.flush();
+            saida.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            gravarLote();
+            relatorio.writeStartObject();
+            relatorio.writeNumberField("importados", importados);
+            relatorio.writeNumberField("rejeitados", rejeitados);
+            relatorio.writeEndObject();
+            relatorio.writeRaw('\n');
+            relatorio.close();
+            saida.flush();
+        }
+    }
+}
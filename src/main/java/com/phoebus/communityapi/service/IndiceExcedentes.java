@@ -0,0 +1,280 @@
+package com.phoebus.communityapi.service;
+
+import com.phoebus.communityapi.config.PhoebusProperties;
+import com.phoebus.communityapi.model.CentroComunitario;
+import com.phoebus.communityapi.model.DistribuicaoRecursos;
+import com.phoebus.communityapi.model.Recursos;
+import com.phoebus.communityapi.model.ResumoDistribuicao;
+import com.phoebus.communityapi.model.TipoRecurso;
+import com.phoebus.communityapi.repository.CentroComunitarioRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+// Índice em memória dos recursos de cada centro, ordenado por quantidade de cada tipo, para as sugestões de intercâmbio.
+// Carregado ao iniciar, atualizado a cada escrita feita pela API e recarregado por inteiro a cada
+// phoebus.sugestoes.intervalo-recarga.
+// Mantém também a distribuição de cada recurso e da taxa de ocupação entre os centros, servida sem varrer a coleção
+@Component
+@RequiredArgsConstructor
+public class IndiceExcedentes {
+    private static final Logger logger = LoggerFactory.getLogger(IndiceExcedentes.class);
+    private static final double ERRO_RELATIVO_DISTRIBUICAO = 0.01;
+
+    private final CentroComunitarioRepository repository;
+    private final PhoebusProperties properties;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Excedente> centros = new HashMap<>();
+    private final Map<TipoRecurso, TreeSet<Excedente>> porTipo = new EnumMap<>(TipoRecurso.class);
+    private final Map<TipoRecurso, DistribuicaoValores> distribuicaoRecursos = new EnumMap<>(TipoRecurso.class);
+    private final DistribuicaoValores distribuicaoOcupacao = new DistribuicaoValores(ERRO_RELATIVO_DISTRIBUICAO);
+    // Centros gravados no índice durante uma recarga: mantêm esse valor em vez do lido pela varredura. Escritas em um
+    // centro que ainda não está no índice não marcam nada, senão a varredura descartaria o único valor dele
+    private Set<String> alteradosDuranteCarga;
+    private volatile boolean carregado;
+    private ScheduledExecutorService executor;
+
+    {
+        for (TipoRecurso tipo : TipoRecurso.values()) {
+            porTipo.put(tipo, new TreeSet<>(Comparator.comparingInt((Excedente e) -> e.quantidade(tipo)).reversed()
+                    .thenComparing(Excedente::id)));
+            distribuicaoRecursos.put(tipo, new DistribuicaoValores(ERRO_RELATIVO_DISTRIBUICAO));
+        }
+    }
+
+    @PostConstruct
+    public void iniciar() {
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "indice-excedentes");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalo = properties.getSugestoes().getIntervaloRecarga().toMillis();
+        if (intervalo > 0) {
+            executor.scheduleWithFixedDelay(this::carregarComLog, intervalo, intervalo, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // Primeira carga fora das requisições, com ou sem a recarga periódica: até ela terminar, a distribuição responde 503
+    @EventListener(ApplicationReadyEvent.class)
+    public void carregarNaInicializacao() {
+        if (properties.getSugestoes().isCarregarNaInicializacao()) {
+            executor.execute(this::carregarComLog);
+        }
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    private void carregarComLog() {
+        try {
+            carregar();
+        } catch (RuntimeException e) {
+            logger.error("Falha ao carregar o índice de excedentes", e);
+        }
+    }
+
+    public synchronized void carregar() {
+        lock.writeLock().lock();
+        try {
+            alteradosDuranteCarga = new HashSet<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        // Uma passada pelo cursor, guardando só o que o índice usa de cada centro
+        List<Excedente> lidos;
+        try (Stream<CentroComunitario> todos = repository.percorrerRecursos()) {
+            lidos = todos.map(Excedente::de).toList();
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                alteradosDuranteCarga = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+
+        lock.writeLock().lock();
+        try {
+            Set<String> alterados = alteradosDuranteCarga;
+            alteradosDuranteCarga = null;
+            // Um centro que só chegou ao banco, ou ao índice, durante a varredura entra com o valor lido por ela
+            for (Excedente excedente : lidos) {
+                if (!alterados.contains(excedente.id())) {
+                    substituir(excedente);
+                }
+            }
+            carregado = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isCarregado() {
+        return carregado;
+    }
+
+    public void atualizar(CentroComunitario centro) {
+        lock.writeLock().lock();
+        try {
+            substituir(Excedente.de(centro));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void registrarIntercambio(String id, Recursos saida, Recursos entrada) {
+        lock.writeLock().lock();
+        try {
+            Excedente atual = centros.get(id);
+            if (atual == null) {
+                return;
+            }
+            int[] quantidades = atual.quantidades().clone();
+            for (TipoRecurso tipo : TipoRecurso.values()) {
+                quantidades[tipo.ordinal()] += entrada.quantidade(tipo) - saida.quantidade(tipo);
+            }
+            substituir(new Excedente(id, atual.nome(), quantidades, atual.capacidadeMaxima(), atual.ocupacaoAtual()));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void atualizarOcupacao(String id, int ocupacao) {
+        lock.writeLock().lock();
+        try {
+            Excedente atual = centros.get(id);
+            // Leituras acima da capacidade são rejeitadas pela gravação em lote
+            if (atual == null || ocupacao > atual.capacidadeMaxima()) {
+                return;
+            }
+            substituir(new Excedente(id, atual.nome(), atual.quantidades(), atual.capacidadeMaxima(), ocupacao));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    Optional<Excedente> buscar(String id) {
+        lock.readLock().lock();
+        try {
+            return Optional.ofNullable(centros.get(id));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    List<Excedente> listar() {
+        lock.readLock().lock();
+        try {
+            return new ArrayList<>(centros.values());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Percorre os centros do que mais tem ao que menos tem do tipo, parando no primeiro abaixo do mínimo
+    List<Excedente> buscarCandidatos(TipoRecurso tipo, int minimo, String excluirId, Predicate<Excedente> filtro, int limite) {
+        List<Excedente> candidatos = new ArrayList<>(limite);
+        lock.readLock().lock();
+        try {
+            for (Excedente excedente : porTipo.get(tipo)) {
+                if (candidatos.size() == limite || excedente.quantidade(tipo) < minimo) {
+                    break;
+                }
+                if (!excedente.id().equals(excluirId) && filtro.test(excedente)) {
+                    candidatos.add(excedente);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return candidatos;
+    }
+
+    DistribuicaoRecursos resumirDistribuicao() {
+        lock.readLock().lock();
+        try {
+            Map<String, ResumoDistribuicao> recursos = new LinkedHashMap<>();
+            distribuicaoRecursos.forEach((tipo, distribuicao) -> recursos.put(tipo.getCampo(), resumir(distribuicao)));
+            return new DistribuicaoRecursos(distribuicaoOcupacao.getTotal(), recursos, resumir(distribuicaoOcupacao));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static ResumoDistribuicao resumir(DistribuicaoValores distribuicao) {
+        return new ResumoDistribuicao(distribuicao.media(), distribuicao.minimo(), distribuicao.maximo(),
+                distribuicao.quantil(0.5), distribuicao.quantil(0.9), distribuicao.quantil(0.99));
+    }
+
+    private void substituir(Excedente novo) {
+        if (alteradosDuranteCarga != null) {
+            alteradosDuranteCarga.add(novo.id());
+        }
+        Excedente anterior = centros.put(novo.id(), novo);
+        for (TreeSet<Excedente> indice : porTipo.values()) {
+            if (anterior != null) {
+                indice.remove(anterior);
+            }
+            indice.add(novo);
+        }
+        // O valor anterior do centro sai da distribuição, então cada centro conta uma única vez
+        distribuicaoRecursos.forEach((tipo, distribuicao) -> {
+            if (anterior != null) {
+                distribuicao.remover(anterior.quantidade(tipo));
+            }
+            distribuicao.adicionar(novo.quantidade(tipo));
+        });
+        if (anterior != null) {
+            distribuicaoOcupacao.remover(anterior.taxaOcupacao());
+        }
+        distribuicaoOcupacao.adicionar(novo.taxaOcupacao());
+    }
+
+    record Excedente(String id, String nome, int[] quantidades, int capacidadeMaxima, int ocupacaoAtual) {
+        static Excedente de(CentroComunitario centro) {
+            int[] quantidades = centro.getRecursos() != null
+                    ? centro.getRecursos().paraArray() : new int[TipoRecurso.values().length];
+            return new Excedente(centro.getId(), centro.getNome(), quantidades, centro.getCapacidadeMaxima(), centro.getOcupacaoAtual());
+        }
+
+        int quantidade(TipoRecurso tipo) {
+            return quantidades[tipo.ordinal()];
+        }
+
+        double taxaOcupacao() {
+            return capacidadeMaxima > 0 ? (double) ocupacaoAtual / capacidadeMaxima : 0;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.phoebus.communityapi.service;
+
+import com.phoebus.communityapi.exception.IntercambioRejeitadoException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Supplier;
+
+// Métricas do CentroComunitarioService que o @Timed da classe não cobre: etapas do intercâmbio,
+// rejeições por motivo e documentos lidos pelos relatórios. Os medidores são criados uma vez, fora do caminho quente
+@Component
+public class MetricasServico {
+    private final Map<EtapaIntercambio, Timer> etapas = new EnumMap<>(EtapaIntercambio.class);
+    private final Map<IntercambioRejeitadoException.Motivo, Counter> rejeicoes = new EnumMap<>(IntercambioRejeitadoException.Motivo.class);
+    private final Map<Relatorio, DistributionSummary> documentosRelatorios = new EnumMap<>(Relatorio.class);
+
+    public MetricasServico(MeterRegistry registry) {
+        for (EtapaIntercambio etapa : EtapaIntercambio.values()) {
+            etapas.put(etapa, Timer.builder("phoebus.intercambio.etapa")
+                    .description("Tempo de cada etapa do intercâmbio unitário")
+                    .tag("etapa", nomeTag(etapa))
+                    .publishPercentileHistogram()
+                    .register(registry));
+        }
+        for (IntercambioRejeitadoException.Motivo motivo : IntercambioRejeitadoException.Motivo.values()) {
+            rejeicoes.put(motivo, Counter.builder("phoebus.intercambio.rejeicoes")
+                    .description("Intercâmbios recusados, unitários e em lote")
+                    .tag("motivo", nomeTag(motivo))
+                    .register(registry));
+        }
+        for (Relatorio relatorio : Relatorio.values()) {
+            documentosRelatorios.put(relatorio, DistributionSummary.builder("phoebus.relatorios.documentos")
+                    .description("Documentos lidos no MongoDB por chamada de relatório")
+                    .tag("relatorio", nomeTag(relatorio))
+                    .register(registry));
+        }
+    }
+
+    public <T> T medir(EtapaIntercambio etapa, Supplier<T> operacao) {
+        return etapas.get(etapa).record(operacao);
+    }
+
+    public void medir(EtapaIntercambio etapa, Runnable operacao) {
+        etapas.get(etapa).record(operacao);
+    }
+
+    public void registrarRejeicao(IllegalArgumentException erro) {
+        // Erros de entrada sem motivo próprio (ex.: corpo incompleto) contam como dados inválidos
+        registrarRejeicao(erro instanceof IntercambioRejeitadoException rejeicao
+                ? rejeicao.getMotivo() : IntercambioRejeitadoException.Motivo.DADOS_INVALIDOS);
+    }
+
+    public void registrarRejeicao(IntercambioRejeitadoException.Motivo motivo) {
+        rejeicoes.get(motivo).increment();
+    }
+
+    public void registrarDocumentos(Relatorio relatorio, long documentos) {
+        documentosRelatorios.get(relatorio).record(documentos);
+    }
+
+    private static String nomeTag(Enum<?> valor) {
+        return valor.name().toLowerCase(Locale.ROOT).replace('_', '-');
+    }
+
+    public enum EtapaIntercambio {
+        LEITURA,
+        VALIDACAO,
+        APLICACAO,
+        GRAVACAO,
+        INDICE
+    }
+
+    public enum Relatorio {
+        ALTA_OCUPACAO,
+        PROXIMOS,
+        MEDIA_RECURSOS,
+        DISTRIBUICAO_RECURSOS,
+        NEGOCIACOES,
+        EXPORTACAO_NEGOCIACOES,
+        ESTATISTICAS_INTERCAMBIO,
+        HISTORICO_OCUPACAO
+    }
+}
@@ -0,0 +1,330 @@
+package com.phoebus.communityapi.service;
+
+import com.phoebus.communityapi.config.PhoebusProperties;
+import com.phoebus.communityapi.exception.IndiceIndisponivelException;
+import com.phoebus.communityapi.model.CentroComunitario;
+import com.phoebus.communityapi.model.IntercambioRequest;
+import com.phoebus.communityapi.model.PlanoRebalanceamento;
+import com.phoebus.communityapi.model.Recursos;
+import com.phoebus.communityapi.model.ResultadoIntercambio;
+import com.phoebus.communityapi.model.TipoRecurso;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.IntUnaryOperator;
+import java.util.stream.IntStream;
+
+// Planeja intercâmbios que aproximam os recursos de cada centro da sua parcela proporcional à ocupação.
+// Em cada rodada, os pares candidatos (recebedor com falta, doador com sobra) são avaliados em paralelo contra o estado
+// da rodada; as propostas são aceitas da maior para a menor redução, sem repetir centro na mesma rodada
+@Service
+@RequiredArgsConstructor
+public class RebalanceamentoService {
+    private final IndiceExcedentes indice;
+    private final CentroComunitarioService centroService;
+    private final PhoebusProperties properties;
+
+    private static final int VIZINHANCA_DOADORES = 2;
+    private static final int QUANTIDADE_MAXIMA_POR_INTERCAMBIO = 1000;
+    private static final int TAMANHO_MINIMO_TAREFA = 256;
+    private static final long TEMPO_MAXIMO_PERMITIDO_MS = 60_000;
+    private static final int MAXIMO_INTERCAMBIOS_PERMITIDO = 10_000;
+
+    public PlanoRebalanceamento planejar(Long tempoMaximoMs, Integer maximoIntercambios, boolean aplicar) {
+        long tempo = tempoMaximoMs != null ? tempoMaximoMs : properties.getRebalanceamento().getTempoMaximo().toMillis();
+        int maximo = maximoIntercambios != null ? maximoIntercambios : properties.getRebalanceamento().getMaximoIntercambios();
+        if (tempo <= 0 || tempo > TEMPO_MAXIMO_PERMITIDO_MS) {
+            throw new IllegalArgumentException("Tempo máximo deve estar entre 1 e " + TEMPO_MAXIMO_PERMITIDO_MS + " ms");
+        }
+        if (maximo <= 0 || maximo > MAXIMO_INTERCAMBIOS_PERMITIDO) {
+            throw new IllegalArgumentException("Máximo de intercâmbios deve estar entre 1 e " + MAXIMO_INTERCAMBIOS_PERMITIDO);
+        }
+
+        // A carga é feita ao iniciar, fora das requisições: nem bloqueia esta thread nem consome o prazo do plano
+        if (!indice.isCarregado()) {
+            throw new IndiceIndisponivelException("Índice de recursos ainda em carregamento, tente novamente em instantes");
+        }
+        long inicio = System.nanoTime();
+        long prazo = inicio + tempo * 1_000_000;
+        Estado estado = new Estado(indice.listar());
+
+        PlanoRebalanceamento plano = new PlanoRebalanceamento();
+        plano.setDesequilibrioInicial(estado.desequilibrioTotal());
+        List<IntercambioRequest> intercambios = new ArrayList<>();
+        while (intercambios.size() < maximo) {
+            if (System.nanoTime() - prazo > 0) {
+                plano.setTempoEsgotado(true);
+                break;
+            }
+            List<Grupo> grupos = estado.montarGrupos();
+            List<Proposta> propostas = ForkJoinPool.commonPool().invoke(new BuscaPropostas(estado, grupos, 0, grupos.size(), prazo));
+            if (propostas.isEmpty()) {
+                break;
+            }
+
+            propostas.sort(Comparator.comparingDouble(Proposta::ganho).reversed());
+            boolean[] ocupados = new boolean[estado.tamanho()];
+            for (Proposta proposta : propostas) {
+                if (intercambios.size() == maximo) {
+                    break;
+                }
+                if (ocupados[proposta.recebedor()] || ocupados[proposta.doador()]) {
+                    continue;
+                }
+                ocupados[proposta.recebedor()] = true;
+                ocupados[proposta.doador()] = true;
+                estado.aplicar(proposta);
+                intercambios.add(estado.paraRequest(proposta));
+            }
+            plano.setRodadas(plano.getRodadas() + 1);
+        }
+
+        plano.setIntercambios(intercambios);
+        plano.setDesequilibrioFinal(estado.desequilibrioTotal());
+        plano.setDuracaoMs((System.nanoTime() - inicio) / 1_000_000);
+        if (aplicar && !intercambios.isEmpty()) {
+            plano.setResultados(aplicar(intercambios));
+        }
+        return plano;
+    }
+
+    // Pelo caminho normal de intercâmbios em lote: cada intercâmbio é validado de novo contra o banco
+    private List<ResultadoIntercambio> aplicar(List<IntercambioRequest> intercambios) {
+        int tamanhoLote = properties.getIntercambio().getTamanhoMaximoLote();
+        List<ResultadoIntercambio> resultados = new ArrayList<>(intercambios.size());
+        for (int inicio = 0; inicio < intercambios.size(); inicio += tamanhoLote) {
+            List<IntercambioRequest> lote = intercambios.subList(inicio, Math.min(inicio + tamanhoLote, intercambios.size()));
+            for (ResultadoIntercambio resultado : centroService.realizarIntercambiosEmLote(lote)) {
+                resultado.setIndice(resultado.getIndice() + inicio);
+                resultados.add(resultado);
+            }
+        }
+        return resultados;
+    }
+
+    // recebedor recebe quantidade de tipo do doador e devolve a contrapartida (vazia quando vale a exceção de ocupação)
+    record Proposta(int recebedor, int doador, TipoRecurso tipo, int quantidade,
+                    Recursos contrapartida, double ganho) {
+    }
+
+    // Um recebedor, o tipo que lhe falta e os doadores avaliados para ele na rodada
+    record Grupo(int recebedor, TipoRecurso tipo, int[] doadores) {
+    }
+
+    static final class Estado {
+        private static final TipoRecurso[] TIPOS = TipoRecurso.values();
+
+        private final String[] ids;
+        private final boolean[] altaOcupacao;
+        private final int[][] quantidades;
+        private final double[][] alvos;
+
+        Estado(List<IndiceExcedentes.Excedente> centros) {
+            int n = centros.size();
+            ids = new String[n];
+            altaOcupacao = new boolean[n];
+            quantidades = new int[n][];
+            alvos = new double[n][TIPOS.length];
+
+            // A parcela de cada centro é proporcional à ocupação; sem ninguém abrigado, à capacidade
+            long somaOcupacao = centros.stream().mapToLong(IndiceExcedentes.Excedente::ocupacaoAtual).sum();
+            boolean porCapacidade = somaOcupacao == 0;
+            double somaPesos = porCapacidade ? centros.stream().mapToLong(IndiceExcedentes.Excedente::capacidadeMaxima).sum() : somaOcupacao;
+            long[] totais = new long[TIPOS.length];
+            for (int i = 0; i < n; i++) {
+                IndiceExcedentes.Excedente centro = centros.get(i);
+                ids[i] = centro.id();
+                altaOcupacao[i] = centro.taxaOcupacao() > RegrasCentro.LIMITE_OCUPACAO_ALTA;
+                quantidades[i] = centro.quantidades().clone();
+                for (TipoRecurso tipo : TIPOS) {
+                    totais[tipo.ordinal()] += quantidades[i][tipo.ordinal()];
+                }
+            }
+            for (int i = 0; i < n; i++) {
+                IndiceExcedentes.Excedente centro = centros.get(i);
+                double peso = somaPesos > 0 ? (porCapacidade ? centro.capacidadeMaxima() : centro.ocupacaoAtual()) / somaPesos : 0;
+                for (TipoRecurso tipo : TIPOS) {
+                    alvos[i][tipo.ordinal()] = totais[tipo.ordinal()] * peso;
+                }
+            }
+        }
+
+        int tamanho() {
+            return ids.length;
+        }
+
+        // Unidades além da parcela do centro (negativo quando falta)
+        int sobra(int centro, TipoRecurso tipo) {
+            return (int) Math.floor(quantidades[centro][tipo.ordinal()] - alvos[centro][tipo.ordinal()]);
+        }
+
+        int falta(int centro, TipoRecurso tipo) {
+            return (int) Math.floor(alvos[centro][tipo.ordinal()] - quantidades[centro][tipo.ordinal()]);
+        }
+
+        double desequilibrio(int centro, int[] quantidadesCentro) {
+            double soma = 0;
+            for (TipoRecurso tipo : TIPOS) {
+                soma += tipo.getPontos() * Math.abs(quantidadesCentro[tipo.ordinal()] - alvos[centro][tipo.ordinal()]);
+            }
+            return soma;
+        }
+
+        double desequilibrioTotal() {
+            double soma = 0;
+            for (int i = 0; i < ids.length; i++) {
+                soma += desequilibrio(i, quantidades[i]);
+            }
+            return soma;
+        }
+
+        // Para cada tipo, recebedores e doadores são ordenados da maior para a menor falta/sobra e cada recebedor é
+        // comparado aos doadores de posição proporcional na outra lista, espalhando as propostas entre doadores diferentes
+        List<Grupo> montarGrupos() {
+            List<Grupo> grupos = new ArrayList<>();
+            for (TipoRecurso tipo : TIPOS) {
+                int[] recebedores = ordenarDecrescente(i -> falta(i, tipo));
+                int[] doadores = ordenarDecrescente(i -> sobra(i, tipo));
+                if (doadores.length == 0) {
+                    continue;
+                }
+                for (int posicao = 0; posicao < recebedores.length; posicao++) {
+                    int base = (int) ((long) posicao * doadores.length / recebedores.length);
+                    int de = Math.max(0, base - VIZINHANCA_DOADORES);
+                    int ate = Math.min(doadores.length, base + VIZINHANCA_DOADORES + 1);
+                    grupos.add(new Grupo(recebedores[posicao], tipo, Arrays.copyOfRange(doadores, de, ate)));
+                }
+            }
+            return grupos;
+        }
+
+        private int[] ordenarDecrescente(IntUnaryOperator valor) {
+            return IntStream.range(0, ids.length)
+                    .filter(i -> valor.applyAsInt(i) > 0)
+                    .boxed()
+                    .sorted(Comparator.comparingInt((Integer i) -> valor.applyAsInt(i)).reversed())
+                    .mapToInt(Integer::intValue)
+                    .toArray();
+        }
+
+        Proposta melhorProposta(Grupo grupo) {
+            int recebedor = grupo.recebedor();
+            TipoRecurso tipo = grupo.tipo();
+            int falta = Math.min(falta(recebedor, tipo), QUANTIDADE_MAXIMA_POR_INTERCAMBIO);
+            // Sem a exceção de ocupação, a contrapartida sai das sobras do recebedor com a mesma pontuação;
+            // a tabela de combinações é montada uma vez e vale para todos os doadores do grupo
+            CombinacaoRecursos combinacoes = null;
+            Proposta melhor = null;
+            for (int doador : grupo.doadores()) {
+                int quantidade = Math.min(falta, sobra(doador, tipo));
+                if (doador == recebedor || quantidade <= 0) {
+                    continue;
+                }
+
+                Recursos contrapartida;
+                if (altaOcupacao[recebedor] || altaOcupacao[doador]) {
+                    contrapartida = new Recursos();
+                } else {
+                    if (combinacoes == null) {
+                        int[] sobras = new int[TIPOS.length];
+                        for (TipoRecurso outro : TIPOS) {
+                            sobras[outro.ordinal()] = Math.max(0, sobra(recebedor, outro));
+                        }
+                        combinacoes = new CombinacaoRecursos(sobras, tipo, falta * tipo.getPontos());
+                    }
+                    while (quantidade > 0 && !combinacoes.alcanca(quantidade * tipo.getPontos())) {
+                        quantidade--;
+                    }
+                    if (quantidade == 0) {
+                        continue;
+                    }
+                    contrapartida = combinacoes.montar(quantidade * tipo.getPontos());
+                }
+
+                double ganho = ganho(recebedor, doador, tipo, quantidade, contrapartida);
+                if (ganho > 0 && (melhor == null || ganho > melhor.ganho())) {
+                    melhor = new Proposta(recebedor, doador, tipo, quantidade, contrapartida, ganho);
+                }
+            }
+            return melhor;
+        }
+
+        private double ganho(int recebedor, int doador, TipoRecurso tipo, int quantidade,
+                             Recursos contrapartida) {
+            int[] depoisRecebedor = quantidades[recebedor].clone();
+            int[] depoisDoador = quantidades[doador].clone();
+            transferir(depoisRecebedor, depoisDoador, tipo, quantidade, contrapartida);
+            return desequilibrio(recebedor, quantidades[recebedor]) + desequilibrio(doador, quantidades[doador])
+                    - desequilibrio(recebedor, depoisRecebedor) - desequilibrio(doador, depoisDoador);
+        }
+
+        void aplicar(Proposta proposta) {
+            transferir(quantidades[proposta.recebedor()], quantidades[proposta.doador()],
+                    proposta.tipo(), proposta.quantidade(), proposta.contrapartida());
+        }
+
+        private void transferir(int[] recebedor, int[] doador, TipoRecurso tipo, int quantidade,
+                                Recursos contrapartida) {
+            recebedor[tipo.ordinal()] += quantidade;
+            doador[tipo.ordinal()] -= quantidade;
+            for (TipoRecurso outro : TIPOS) {
+                recebedor[outro.ordinal()] -= contrapartida.quantidade(outro);
+                doador[outro.ordinal()] += contrapartida.quantidade(outro);
+            }
+        }
+
+        // O doador é a origem do intercâmbio e o recebedor, o destino
+        IntercambioRequest paraRequest(Proposta proposta) {
+            IntercambioRequest request = new IntercambioRequest();
+            request.setCentroOrigemId(ids[proposta.doador()]);
+            request.setCentroDestinoId(ids[proposta.recebedor()]);
+            request.setRecursosOrigem(Recursos.de(proposta.tipo(), proposta.quantidade()));
+            request.setRecursosDestino(proposta.contrapartida());
+            return request;
+        }
+    }
+
+    // Divide os pares candidatos em faixas processadas em paralelo; o estado só é lido durante a busca
+    static final class BuscaPropostas extends RecursiveTask<List<Proposta>> {
+        private final Estado estado;
+        private final List<Grupo> grupos;
+        private final int inicio;
+        private final int fim;
+        private final long prazo;
+
+        BuscaPropostas(Estado estado, List<Grupo> grupos, int inicio, int fim, long prazo) {
+            this.estado = estado;
+            this.grupos = grupos;
+            this.inicio = inicio;
+            this.fim = fim;
+            this.prazo = prazo;
+        }
+
+        @Override
+        protected List<Proposta> compute() {
+            if (fim - inicio > TAMANHO_MINIMO_TAREFA) {
+                int meio = (inicio + fim) >>> 1;
+                BuscaPropostas esquerda = new BuscaPropostas(estado, grupos, inicio, meio, prazo);
+                esquerda.fork();
+                List<Proposta> propostas = new BuscaPropostas(estado, grupos, meio, fim, prazo).compute();
+                propostas.addAll(esquerda.join());
+                return propostas;
+            }
+
+            List<Proposta> propostas = new ArrayList<>();
+            for (int i = inicio; i < fim && System.nanoTime() - prazo < 0; i++) {
+                Proposta proposta = estado.melhorProposta(grupos.get(i));
+                if (proposta != null) {
+                    propostas.add(proposta);
+                }
+            }
+            return propostas;
+        }
+    }
+}
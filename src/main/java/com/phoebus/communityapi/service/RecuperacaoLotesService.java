@@ -0,0 +1,92 @@
+package com.phoebus.communityapi.service;
+
+import com.phoebus.communityapi.config.PhoebusProperties;
+import com.phoebus.communityapi.model.Recursos;
+import com.phoebus.communityapi.repository.CentroComunitarioRepository;
+import com.phoebus.communityapi.repository.NegociacaoRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Lotes de intercâmbio interrompidos entre as etapas (marcas aplicadas, negociações gravadas, conclusão): as marcas
+// mais antigas que tempoLimiteLote indicam que a requisição não terminou. A decisão gravada no banco define o destino
+// do lote, então uma requisição lenta que ainda esteja em andamento e a recuperação nunca divergem
+@Service
+@RequiredArgsConstructor
+public class RecuperacaoLotesService {
+    private static final Logger logger = LoggerFactory.getLogger(RecuperacaoLotesService.class);
+
+    private final CentroComunitarioRepository repository;
+    private final NegociacaoRepository negociacaoRepository;
+    private final CacheCentros cache;
+    private final IndiceExcedentes indiceExcedentes;
+    private final PhoebusProperties properties;
+
+    private ScheduledExecutorService executor;
+
+    @PostConstruct
+    void iniciar() {
+        long intervalo = properties.getIntercambio().getIntervaloRecuperacaoLotes().toMillis();
+        if (intervalo <= 0) {
+            return;
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "recuperacao-lotes");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Primeira execução logo após iniciar: trata os lotes deixados por uma queda da instância anterior
+        executor.scheduleWithFixedDelay(this::recuperarComLog, 0, intervalo, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void encerrar() throws InterruptedException {
+        if (executor != null) {
+            executor.shutdown();
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        }
+    }
+
+    private void recuperarComLog() {
+        try {
+            recuperar();
+        } catch (RuntimeException e) {
+            // As marcas continuam nos centros e o próximo ciclo tenta de novo
+            logger.error("Falha na recuperação de lotes de intercâmbio", e);
+        }
+    }
+
+    void recuperar() {
+        LocalDateTime limite = LocalDateTime.now().minus(properties.getIntercambio().getTempoLimiteLote());
+        for (Map.Entry<String, List<String>> pendente : repository.buscarLotesPendentes(limite).entrySet()) {
+            String lote = pendente.getKey();
+            List<String> ids = pendente.getValue();
+            try {
+                // Mesma ordem da requisição: negociações primeiro, marcas por último
+                if (repository.decidirLote(lote, false)) {
+                    // A requisição confirmou e caiu antes de concluir; o índice de excedentes é corrigido na próxima recarga
+                    negociacaoRepository.concluirLote(lote);
+                    repository.concluirLote(lote, ids);
+                    logger.warn("Lote de intercâmbios {} interrompido depois da confirmação foi concluído ({} centros)", lote, ids.size());
+                } else {
+                    negociacaoRepository.removerLote(lote);
+                    Map<String, Recursos> desfeitos = repository.desfazerLote(lote);
+                    desfeitos.forEach((id, variacao) -> indiceExcedentes.registrarIntercambio(id, variacao, new Recursos()));
+                    logger.warn("Lote de intercâmbios {} interrompido foi desfeito ({} centros)", lote, desfeitos.size());
+                }
+            } finally {
+                cache.invalidar(ids);
+            }
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.phoebus.communityapi.service;
+
+import com.phoebus.communityapi.exception.IntercambioRejeitadoException;
+import com.phoebus.communityapi.model.CentroComunitario;
+import com.phoebus.communityapi.model.Negociacao;
+import com.phoebus.communityapi.model.NivelOcupacao;
+import com.phoebus.communityapi.model.Recursos;
+
+import java.time.LocalDateTime;
+
+// Regras de negócio sem acesso a dados, compartilhadas pela pilha MVC e pela variante reativa
+public final class RegrasCentro {
+    public static final double LIMITE_OCUPACAO_ALTA = 0.9;
+    // Mesmo raio de Metrics.KILOMETERS, usado pela busca por proximidade no MongoDB
+    private static final double RAIO_TERRA_KM = 6378.137;
+
+    private RegrasCentro() {
+    }
+
+    public static void validarCentro(CentroComunitario centro) {
+        if (centro.getNome() == null || centro.getNome().isBlank()) {
+            throw new IllegalArgumentException("Nome do centro é obrigatório");
+        }
+        if (centro.getEndereco() == null || centro.getEndereco().isBlank()) {
+            throw new IllegalArgumentException("Endereço é obrigatório");
+        }
+        if (centro.getLocalizacao() == null ||
+                centro.getLocalizacao().getLatitude() < -90 || centro.getLocalizacao().getLatitude() > 90 ||
+                centro.getLocalizacao().getLongitude() < -180 || centro.getLocalizacao().getLongitude() > 180) {
+            throw new IllegalArgumentException("Localização inválida");
+        }
+        if (centro.getCapacidadeMaxima() <= 0) {
+            throw new IllegalArgumentException("Capacidade máxima deve ser maior que 0");
+        }
+        if (centro.getOcupacaoAtual() < 0) {
+            throw new IllegalArgumentException("Ocupação atual não pode ser negativa");
+        }
+        if (centro.getOcupacaoAtual() > centro.getCapacidadeMaxima()) {
+            throw new IllegalArgumentException("Ocupação atual não pode exceder a capacidade máxima");
+        }
+        if (centro.getRecursos() == null) {
+            centro.setRecursos(new Recursos());
+        }
+        if (centro.getRecursos().possuiNegativo()) {
+            throw new IllegalArgumentException("Recursos não podem ser negativos");
+        }
+    }
+
+    public static void validarIntercambio(CentroComunitario origem, CentroComunitario destino,
+                                          Recursos recursosOrigem, Recursos recursosDestino) {
+        if (recursosOrigem == null || recursosDestino == null) {
+            throw new IntercambioRejeitadoException(IntercambioRejeitadoException.Motivo.DADOS_INVALIDOS,
+                    "Recursos de origem e destino são obrigatórios");
+        }
+
+        // Validar recursos não negativos
+        if (recursosOrigem.possuiNegativo() || recursosDestino.possuiNegativo()) {
+            throw new IntercambioRejeitadoException(IntercambioRejeitadoException.Motivo.DADOS_INVALIDOS,
+                    "Recursos não podem ser negativos");
+        }
+
+        // Validar recursos disponíveis
+        if (!origem.getRecursos().cobre(recursosOrigem)) {
+            throw new IntercambioRejeitadoException(IntercambioRejeitadoException.Motivo.SALDO_INSUFICIENTE,
+                    "Centro origem não possui recursos suficientes");
+        }
+        if (!destino.getRecursos().cobre(recursosDestino)) {
+            throw new IntercambioRejeitadoException(IntercambioRejeitadoException.Motivo.SALDO_INSUFICIENTE,
+                    "Centro destino não possui recursos suficientes");
+        }
+
+        // Calcular pontos
+        int pontosOrigem = recursosOrigem.pontos();
+        int pontosDestino = recursosDestino.pontos();
+
+        // Verificar ocupação > 90%
+        boolean origemAltaOcupacao = origem.getTaxaOcupacao() > LIMITE_OCUPACAO_ALTA;
+        boolean destinoAltaOcupacao = destino.getTaxaOcupacao() > LIMITE_OCUPACAO_ALTA;
+
+        if (!origemAltaOcupacao && !destinoAltaOcupacao && pontosOrigem != pontosDestino) {
+            throw pontuacaoDiferente();
+        }
+    }
+
+    public static IntercambioRejeitadoException pontuacaoDiferente() {
+        return new IntercambioRejeitadoException(IntercambioRejeitadoException.Motivo.PONTUACAO_DIFERENTE,
+                "Pontuação dos recursos deve ser igual, a menos que um centro tenha ocupação superior a 90%");
+    }
+
+    // Centro cuja ocupação acima de 90% liberou a diferença de pontos num intercâmbio já validado; null com pontos iguais
+    public static String centroExcecaoOcupacao(CentroComunitario origem, CentroComunitario destino,
+                                               Recursos recursosOrigem, Recursos recursosDestino) {
+        if (recursosOrigem.pontos() == recursosDestino.pontos()) {
+            return null;
+        }
+        return origem.getTaxaOcupacao() > LIMITE_OCUPACAO_ALTA ? origem.getId() : destino.getId();
+    }
+
+    // A negociação guarda os próprios objetos da requisição, que não são alterados depois do intercâmbio
+    public static Negociacao criarNegociacao(String centroOrigemId, String centroDestinoId,
+                                             Recursos recursosOrigem, Recursos recursosDestino) {
+        Negociacao negociacao = new Negociacao();
+        negociacao.setCentroOrigemId(centroOrigemId);
+        negociacao.setCentroDestinoId(centroDestinoId);
+        negociacao.setRecursosOrigem(recursosOrigem);
+        negociacao.setRecursosDestino(recursosDestino);
+        negociacao.setPontosOrigem(recursosOrigem.pontos());
+        negociacao.setPontosDestino(recursosDestino.pontos());
+        negociacao.setDataHora(LocalDateTime.now());
+        negociacao.setEventoPendente(true);
+
+        return negociacao;
+    }
+
+    public static Recursos negativo(Recursos recursos) {
+        return recursos != null ? recursos.negativo() : new Recursos();
+    }
+
+    public static NivelOcupacao nivelOcupacao(int ocupacao, int capacidadeMaxima) {
+        if (capacidadeMaxima > 0 && ocupacao >= capacidadeMaxima) {
+            return NivelOcupacao.LOTADO;
+        }
+        double taxa = capacidadeMaxima > 0 ? (double) ocupacao / capacidadeMaxima : 0;
+        return taxa > LIMITE_OCUPACAO_ALTA ? NivelOcupacao.ALTA : NivelOcupacao.NORMAL;
+    }
+
+    // Distância em km pela fórmula de haversine
+    public static double distanciaKm(double latitude1, double longitude1, double latitude2, double longitude2) {
+        double deltaLatitude = Math.toRadians(latitude2 - latitude1);
+        double deltaLongitude = Math.toRadians(longitude2 - longitude1);
+        double a = Math.pow(Math.sin(deltaLatitude / 2), 2) + Math.cos(Math.toRadians(latitude1))
+                * Math.cos(Math.toRadians(latitude2)) * Math.pow(Math.sin(deltaLongitude / 2), 2);
+        return 2 * RAIO_TERRA_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+}
@@ -0,0 +1,71 @@
+package com.phoebus.communityapi.service;
+
+import com.phoebus.communityapi.exception.IndiceIndisponivelException;
+import com.phoebus.communityapi.model.Recursos;
+import com.phoebus.communityapi.model.SugestaoIntercambio;
+import com.phoebus.communityapi.model.TipoRecurso;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+public class SugestaoIntercambioService {
+    private final IndiceExcedentes indice;
+
+    private static final int LIMITE_PADRAO = 10;
+    private static final int LIMITE_MAXIMO = 100;
+    private static final int QUANTIDADE_MAXIMA = 1000;
+
+    public List<SugestaoIntercambio> sugerirIntercambios(String centroId, String necessidade, Integer limite) {
+        if (limite != null && (limite <= 0 || limite > LIMITE_MAXIMO)) {
+            throw new IllegalArgumentException("Limite deve estar entre 1 e " + LIMITE_MAXIMO);
+        }
+        if (necessidade == null || !necessidade.matches("\\w+:\\d{1,9}")) {
+            throw new IllegalArgumentException("Necessidade deve estar no formato recurso:quantidade, ex.: medicos:2");
+        }
+        String[] partes = necessidade.split(":");
+        TipoRecurso tipo = TipoRecurso.doCampo(partes[0]);
+        int quantidade = Integer.parseInt(partes[1]);
+        if (quantidade <= 0 || quantidade > QUANTIDADE_MAXIMA) {
+            throw new IllegalArgumentException("Quantidade deve estar entre 1 e " + QUANTIDADE_MAXIMA);
+        }
+
+        // A carga é feita ao iniciar, fora das requisições: varrer a coleção aqui serializaria as consultas atrás dela
+        if (!indice.isCarregado()) {
+            throw new IndiceIndisponivelException("Índice de recursos ainda em carregamento, tente novamente em instantes");
+        }
+        IndiceExcedentes.Excedente solicitante = indice.buscar(centroId)
+                .orElseThrow(() -> new IllegalArgumentException("Centro comunitário com ID " + centroId + " não encontrado"));
+
+        // A oferta sai dos recursos do próprio solicitante e não depende do candidato: calculada uma vez por consulta
+        Recursos pedido = Recursos.de(tipo, quantidade);
+        int pontos = quantidade * tipo.getPontos();
+        Recursos oferta = CombinacaoRecursos.menorCombinacao(solicitante.quantidades(), tipo, pontos);
+        boolean solicitanteAltaOcupacao = solicitante.taxaOcupacao() > RegrasCentro.LIMITE_OCUPACAO_ALTA;
+
+        // Sem oferta de mesma pontuação, só serve um candidato que libere a exceção de ocupação
+        boolean qualquerCandidato = oferta != null || solicitanteAltaOcupacao;
+        List<IndiceExcedentes.Excedente> candidatos = indice.buscarCandidatos(tipo, quantidade, centroId,
+                candidato -> qualquerCandidato || candidato.taxaOcupacao() > RegrasCentro.LIMITE_OCUPACAO_ALTA,
+                limite != null ? limite : LIMITE_PADRAO);
+
+        return candidatos.stream()
+                .map(candidato -> {
+                    SugestaoIntercambio sugestao = new SugestaoIntercambio();
+                    sugestao.setCentroDestinoId(candidato.id());
+                    sugestao.setNomeDestino(candidato.nome());
+                    sugestao.setDisponivelDestino(candidato.quantidade(tipo));
+                    sugestao.setTaxaOcupacaoDestino(candidato.taxaOcupacao());
+                    sugestao.setRecursosOrigem(oferta != null ? oferta : new Recursos());
+                    sugestao.setRecursosDestino(pedido);
+                    sugestao.setPontosOrigem(oferta != null ? pontos : 0);
+                    sugestao.setPontosDestino(pontos);
+                    sugestao.setExcecaoOcupacao(oferta == null);
+                    return sugestao;
+                })
+                .collect(Collectors.toList());
+    }
+}
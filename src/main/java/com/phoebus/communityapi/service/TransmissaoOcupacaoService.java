@@ -0,0 +1,311 @@
+package com.phoebus.communityapi.service;
+
+import com.phoebus.communityapi.config.PhoebusProperties;
+import com.phoebus.communityapi.model.AtualizacaoOcupacao;
+import com.phoebus.communityapi.model.AvisoLimiteOcupacao;
+import com.phoebus.communityapi.model.CentroComunitario;
+import com.phoebus.communityapi.model.NivelOcupacao;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Ocupação dos centros publicada por SSE (GET /centers/occupancy/stream) a partir das alterações já gravadas, sem
+// consultar o banco. Cada assinante tem um buffer limitado com só o estado mais recente de cada centro: um painel
+// lento recebe menos eventos, não atrasa os demais nem acumula memória
+@Service
+public class TransmissaoOcupacaoService implements MeterBinder {
+    private static final Logger logger = LoggerFactory.getLogger(TransmissaoOcupacaoService.class);
+    static final String EVENTO_OCUPACAO = "ocupacao";
+    static final String EVENTO_LIMITE = "limite";
+    static final String EVENTO_DESCARTES = "descartes";
+
+    private final CacheCentros cache;
+    private final PhoebusProperties.TransmissaoOcupacao configuracao;
+    private final Executor entrega;
+    private final Set<Assinante> assinantes = ConcurrentHashMap.newKeySet();
+    // Última ocupação publicada de cada centro, base da variação e da mudança de nível
+    private final Map<String, Integer> ultimasOcupacoes = new ConcurrentHashMap<>();
+    private final AtomicLong descartados = new AtomicLong();
+    private ScheduledExecutorService heartbeat;
+
+    @Autowired
+    public TransmissaoOcupacaoService(CacheCentros cache, PhoebusProperties properties) {
+        this(cache, properties, executorEntrega());
+    }
+
+    TransmissaoOcupacaoService(CacheCentros cache, PhoebusProperties properties, Executor entrega) {
+        this.cache = cache;
+        this.configuracao = properties.getTransmissaoOcupacao();
+        if (configuracao.getTamanhoBuffer() <= 0) {
+            throw new IllegalArgumentException("Tamanho do buffer do stream de ocupação deve ser maior que 0");
+        }
+        this.entrega = entrega;
+    }
+
+    // O envio a um assinante lento fica bloqueado na escrita do socket; com threads virtuais isso não prende
+    // uma thread de plataforma por painel
+    private static Executor executorEntrega() {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("transmissao-ocupacao-");
+        executor.setDaemon(true);
+        try {
+            executor.setVirtualThreads(true);
+        } catch (UnsupportedOperationException e) {
+            logger.info("Threads virtuais indisponíveis nesta JVM, enviando o stream de ocupação em threads de plataforma");
+        }
+        return executor;
+    }
+
+    @PostConstruct
+    void iniciar() {
+        long intervalo = configuracao.getIntervaloHeartbeat().toMillis();
+        if (intervalo <= 0) {
+            return;
+        }
+        heartbeat = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "heartbeat-ocupacao");
+            thread.setDaemon(true);
+            return thread;
+        });
+        heartbeat.scheduleWithFixedDelay(() -> assinantes.forEach(Assinante::sinalizar), intervalo, intervalo,
+                TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void encerrar() {
+        if (heartbeat != null) {
+            heartbeat.shutdownNow();
+        }
+        assinantes.forEach(assinante -> assinante.emissor.complete());
+        assinantes.clear();
+    }
+
+    // Filtros combinados: sem centros e sem região, todos os centros
+    public SseEmitter assinar(List<String> centros, Double latitude, Double longitude, double raioKm) {
+        if ((latitude == null) != (longitude == null)) {
+            throw new IllegalArgumentException("Latitude e longitude devem ser informadas juntas");
+        }
+        if (latitude != null && (latitude < -90 || latitude > 90 || longitude < -180 || longitude > 180)) {
+            throw new IllegalArgumentException("Localização inválida");
+        }
+        if (raioKm <= 0) {
+            throw new IllegalArgumentException("Raio deve ser maior que 0");
+        }
+        Filtro filtro = new Filtro(centros != null ? Set.copyOf(centros) : Set.of(), latitude, longitude, raioKm);
+
+        Assinante assinante = new Assinante(criarEmissor(configuracao.getTempoConexao().toMillis()), filtro);
+        assinante.emissor.onCompletion(() -> assinantes.remove(assinante));
+        assinante.emissor.onTimeout(assinante.emissor::complete);
+        assinante.emissor.onError(erro -> assinantes.remove(assinante));
+        assinantes.add(assinante);
+        // Primeiro envio só com um comentário, para o cliente receber os cabeçalhos sem esperar uma alteração
+        assinante.sinalizar();
+        return assinante.emissor;
+    }
+
+    SseEmitter criarEmissor(long tempoConexao) {
+        return new SseEmitter(tempoConexao);
+    }
+
+    // ocupacaoAnterior vem do incremento e do decremento, que a conhecem; nos demais casos vale a última publicada
+    public void publicar(CentroComunitario centro, Integer ocupacaoAnterior) {
+        Integer ultima = ultimasOcupacoes.put(centro.getId(), centro.getOcupacaoAtual());
+        Integer anterior = ocupacaoAnterior != null ? ocupacaoAnterior : ultima;
+        if (assinantes.isEmpty() || (anterior != null && anterior == centro.getOcupacaoAtual())) {
+            return;
+        }
+
+        LocalDateTime agora = LocalDateTime.now();
+        AtualizacaoOcupacao atualizacao = new AtualizacaoOcupacao(centro.getId(), centro.getNome(),
+                centro.getOcupacaoAtual(), centro.getCapacidadeMaxima(), centro.getTaxaOcupacao(),
+                anterior != null ? centro.getOcupacaoAtual() - anterior : null, agora);
+        NivelOcupacao nivel = RegrasCentro.nivelOcupacao(centro.getOcupacaoAtual(), centro.getCapacidadeMaxima());
+        NivelOcupacao nivelAnterior = anterior != null ? RegrasCentro.nivelOcupacao(anterior, centro.getCapacidadeMaxima()) : null;
+        // Sem a ocupação anterior, só os níveis acima do normal são avisados
+        AvisoLimiteOcupacao aviso = nivel != nivelAnterior && (nivelAnterior != null || nivel != NivelOcupacao.NORMAL)
+                ? new AvisoLimiteOcupacao(centro.getId(), centro.getNome(), nivelAnterior, nivel, centro.getTaxaOcupacao(), agora)
+                : null;
+
+        for (Assinante assinante : assinantes) {
+            if (assinante.filtro.aceita(centro)) {
+                assinante.enfileirar(atualizacao, aviso);
+            }
+        }
+    }
+
+    // Leituras gravadas em lote pelo buffer de sensores: os centros só são lidos (pelo cache) se há assinantes
+    public void publicar(Collection<String> ids) {
+        if (assinantes.isEmpty()) {
+            // Sem a ocupação anterior confiável, a próxima publicação desses centros não tem variação
+            ultimasOcupacoes.keySet().removeAll(ids);
+            return;
+        }
+        cache.buscarTodos(ids).forEach(centro -> publicar(centro, null));
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("phoebus.transmissao.ocupacao.assinantes", assinantes, Set::size)
+                .description("Assinantes conectados ao stream de ocupação")
+                .register(registry);
+        FunctionCounter.builder("phoebus.transmissao.ocupacao.descartados", descartados, AtomicLong::get)
+                .description("Eventos descartados por buffer cheio de um assinante lento")
+                .register(registry);
+    }
+
+    private record Filtro(Set<String> centros, Double latitude, Double longitude, double raioKm) {
+        boolean aceita(CentroComunitario centro) {
+            if (!centros.isEmpty() && !centros.contains(centro.getId())) {
+                return false;
+            }
+            if (latitude == null) {
+                return true;
+            }
+            CentroComunitario.Localizacao localizacao = centro.getLocalizacao();
+            return localizacao != null && RegrasCentro.distanciaKm(latitude, longitude,
+                    localizacao.getLatitude(), localizacao.getLongitude()) <= raioKm;
+        }
+    }
+
+    // Pendentes por chave (evento + centro): uma alteração nova substitui a ainda não enviada do mesmo centro.
+    // No máximo um envio em andamento por assinante; o que chega durante o envio segue no próximo
+    private final class Assinante {
+        private final SseEmitter emissor;
+        private final Filtro filtro;
+        // Guardados pelo monitor do assinante
+        private final LinkedHashMap<String, Object> pendentes = new LinkedHashMap<>();
+        private long descartesPendentes;
+        private boolean sinalPendente;
+        private boolean enviando;
+        private boolean encerrado;
+
+        Assinante(SseEmitter emissor, Filtro filtro) {
+            this.emissor = emissor;
+            this.filtro = filtro;
+        }
+
+        void enfileirar(AtualizacaoOcupacao atualizacao, AvisoLimiteOcupacao aviso) {
+            synchronized (this) {
+                String chaveOcupacao = EVENTO_OCUPACAO + ":" + atualizacao.getCentroId();
+                AtualizacaoOcupacao pendente = (AtualizacaoOcupacao) pendentes.get(chaveOcupacao);
+                guardar(chaveOcupacao, pendente == null ? atualizacao : acumular(pendente, atualizacao));
+
+                if (aviso != null) {
+                    String chaveLimite = EVENTO_LIMITE + ":" + aviso.getCentroId();
+                    AvisoLimiteOcupacao avisoPendente = (AvisoLimiteOcupacao) pendentes.get(chaveLimite);
+                    if (avisoPendente == null) {
+                        guardar(chaveLimite, aviso);
+                    } else if (avisoPendente.getNivelAnterior() == aviso.getNivel()) {
+                        // Voltou ao nível que o assinante já conhece antes do envio
+                        pendentes.remove(chaveLimite);
+                    } else {
+                        guardar(chaveLimite, new AvisoLimiteOcupacao(aviso.getCentroId(), aviso.getNome(),
+                                avisoPendente.getNivelAnterior(), aviso.getNivel(), aviso.getTaxaOcupacao(), aviso.getDataHora()));
+                    }
+                }
+            }
+            agendarEnvio();
+        }
+
+        void sinalizar() {
+            synchronized (this) {
+                sinalPendente = true;
+            }
+            agendarEnvio();
+        }
+
+        private void guardar(String chave, Object evento) {
+            if (!pendentes.containsKey(chave) && pendentes.size() >= configuracao.getTamanhoBuffer()) {
+                Iterator<Object> maisAntigo = pendentes.values().iterator();
+                maisAntigo.next();
+                maisAntigo.remove();
+                descartesPendentes++;
+                descartados.incrementAndGet();
+            }
+            pendentes.put(chave, evento);
+        }
+
+        private AtualizacaoOcupacao acumular(AtualizacaoOcupacao pendente, AtualizacaoOcupacao nova) {
+            Integer variacao = pendente.getVariacao() != null && nova.getVariacao() != null
+                    ? pendente.getVariacao() + nova.getVariacao() : null;
+            return new AtualizacaoOcupacao(nova.getCentroId(), nova.getNome(), nova.getOcupacaoAtual(),
+                    nova.getCapacidadeMaxima(), nova.getTaxaOcupacao(), variacao, nova.getDataHora());
+        }
+
+        private void agendarEnvio() {
+            synchronized (this) {
+                if (enviando || encerrado) {
+                    return;
+                }
+                enviando = true;
+            }
+            entrega.execute(this::enviar);
+        }
+
+        // Todos os pendentes numa única escrita; repete enquanto chegarem eventos durante o envio
+        private void enviar() {
+            while (true) {
+                Set<ResponseBodyEmitter.DataWithMediaType> dados = new LinkedHashSet<>();
+                synchronized (this) {
+                    if (encerrado || (pendentes.isEmpty() && descartesPendentes == 0 && !sinalPendente)) {
+                        enviando = false;
+                        return;
+                    }
+                    if (descartesPendentes > 0) {
+                        // O cliente sabe que perdeu alterações e pode recarregar o estado por /centers/high-occupancy
+                        dados.addAll(SseEmitter.event().name(EVENTO_DESCARTES)
+                                .data(Map.of("quantidade", descartesPendentes)).build());
+                    }
+                    for (Object evento : pendentes.values()) {
+                        String nome = evento instanceof AvisoLimiteOcupacao ? EVENTO_LIMITE : EVENTO_OCUPACAO;
+                        dados.addAll(SseEmitter.event().name(nome).data(evento).build());
+                    }
+                    if (dados.isEmpty()) {
+                        dados.addAll(SseEmitter.event().comment("").build());
+                    }
+                    pendentes.clear();
+                    descartesPendentes = 0;
+                    sinalPendente = false;
+                }
+                try {
+                    emissor.send(dados);
+                } catch (IOException | IllegalStateException e) {
+                    // Cliente desconectado ou conexão já encerrada
+                    synchronized (this) {
+                        encerrado = true;
+                        enviando = false;
+                        pendentes.clear();
+                    }
+                    assinantes.remove(this);
+                    logger.debug("Assinante do stream de ocupação removido: {}", e.getMessage());
+                    return;
+                }
+            }
+        }
+    }
+}
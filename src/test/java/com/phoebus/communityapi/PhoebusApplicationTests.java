@@ -3,7 +3,18 @@ package com.phoebus.communityapi;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+@SpringBootTest(properties = {
+		"spring.data.mongodb.auto-index-creation=false",
+		"phoebus.mongo.manutencao-na-inicializacao=false",
+		"phoebus.sugestoes.intervalo-recarga=0",
+		"phoebus.sugestoes.carregar-na-inicializacao=false",
+		"phoebus.outbox.intervalo-relay=0",
+		"phoebus.intercambio.intervalo-recuperacao-lotes=0",
+		"phoebus.estatisticas-intercambio.intervalo=0",
+		"phoebus.transmissao-ocupacao.intervalo-heartbeat=0",
+		"phoebus.historico-ocupacao.intervalo-gravacao=0",
+		"phoebus.historico-ocupacao.intervalo-consolidacao=0"
+})
 class PhoebusApplicationTests {
 
 	@Test
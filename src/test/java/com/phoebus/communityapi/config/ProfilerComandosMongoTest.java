@@ -0,0 +1,118 @@
+package com.phoebus.communityapi.config;
+
+import com.mongodb.ServerAddress;
+import com.mongodb.connection.ClusterId;
+import com.mongodb.connection.ConnectionDescription;
+import com.mongodb.connection.ServerId;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import com.phoebus.communityapi.model.ComandoMongo;
+import org.bson.BsonDocument;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ProfilerComandosMongoTest {
+    private static final ConnectionDescription CONEXAO =
+            new ConnectionDescription(new ServerId(new ClusterId(), new ServerAddress()));
+
+    private final PhoebusProperties properties = new PhoebusProperties();
+
+    private ProfilerComandosMongo profiler;
+    private int proximoId;
+
+    @BeforeEach
+    public void setUp() {
+        properties.getMongo().getProfiler().setTop(2);
+        properties.getMongo().getProfiler().setLogRequisicoes(false);
+        profiler = new ProfilerComandosMongo(properties);
+    }
+
+    @Test
+    public void testComandoRegistradoComRotaEDocumentos() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/centers/high-occupancy");
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/centers/high-occupancy");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        profiler.doFilter(request, response, (req, res) -> {
+            profiler.preHandle(request, response, null);
+            executar("find", "{find: 'centers', filter: {}}", "{cursor: {firstBatch: [{}, {}, {}], id: 0}, ok: 1}", 5);
+        });
+
+        ComandoMongo comando = profiler.comandosMaisLentos().get(0);
+        assertEquals("find", comando.getComando());
+        assertEquals("centers", comando.getColecao());
+        assertEquals("GET /centers/high-occupancy", comando.getRota());
+        assertEquals(3, comando.getDocumentos());
+        assertEquals(5.0, comando.getDuracaoMs());
+        assertTrue(comando.isVarreduraCompleta());
+    }
+
+    @Test
+    public void testComandosDaSessaoFicamComARotaDaRequisicao() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("PUT", "/centers/42/occupancy");
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/centers/{id}/occupancy");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // Leitura da sessão antes do mapeamento e gravação depois do handler, como no SessionRepositoryFilter
+        profiler.doFilter(request, response, (req, res) -> {
+            executar("find", "{find: 'sessions', filter: {_id: 's'}}", "{cursor: {firstBatch: [{}], id: 0}, ok: 1}", 1);
+            profiler.preHandle(request, response, null);
+            executar("update", "{update: 'sessions', updates: [{q: {_id: 's'}}]}", "{n: 1, ok: 1}", 2);
+        });
+        executar("update", "{update: 'centers', updates: [{q: {_id: '1'}}]}", "{n: 1, ok: 1}", 3);
+
+        List<ComandoMongo> comandos = profiler.comandosMaisLentos();
+        assertEquals("-", comandos.get(0).getRota());
+        assertEquals("PUT /centers/{id}/occupancy", comandos.get(1).getRota());
+    }
+
+    @Test
+    public void testAggregateComMatchInicialNaoEVarreduraCompleta() {
+        executar("aggregate", "{aggregate: 'negociacoes', pipeline: [{$match: {centroOrigemId: '1'}}, {$sort: {dataHora: 1}}]}",
+                "{cursor: {firstBatch: [{}], id: 0}, ok: 1}", 1);
+        executar("aggregate", "{aggregate: 'centers', pipeline: [{$group: {_id: null}}]}",
+                "{cursor: {firstBatch: [{}], id: 0}, ok: 1}", 2);
+
+        List<ComandoMongo> comandos = profiler.comandosMaisLentos();
+
+        assertTrue(comandos.get(0).isVarreduraCompleta());
+        assertFalse(comandos.get(1).isVarreduraCompleta());
+        assertEquals("-", comandos.get(1).getRota());
+    }
+
+    @Test
+    public void testMantemSoOsMaisLentos() {
+        executar("update", "{update: 'centers', updates: [{q: {_id: '1'}}]}", "{n: 1, ok: 1}", 3);
+        executar("update", "{update: 'centers', updates: [{q: {_id: '2'}}]}", "{n: 1, ok: 1}", 9);
+        executar("update", "{update: 'centers', updates: [{q: {_id: '3'}}]}", "{n: 1, ok: 1}", 1);
+        executar("update", "{update: 'centers', updates: [{q: {_id: '4'}}]}", "{n: 1, ok: 1}", 6);
+
+        List<ComandoMongo> comandos = profiler.comandosMaisLentos();
+
+        assertEquals(List.of(9.0, 6.0), comandos.stream().map(ComandoMongo::getDuracaoMs).toList());
+        assertEquals("{\"_id\": \"2\"}", comandos.get(0).getResumo());
+    }
+
+    @Test
+    public void testIgnoraComandosSemColecao() {
+        executar("endSessions", "{endSessions: [{id: 1}]}", "{ok: 1}", 50);
+
+        assertTrue(profiler.comandosMaisLentos().isEmpty());
+    }
+
+    private void executar(String nome, String comando, String resposta, long duracaoMs) {
+        int id = ++proximoId;
+        profiler.commandStarted(new CommandStartedEvent(null, id, id, CONEXAO, "community_center", nome,
+                BsonDocument.parse(comando)));
+        profiler.commandSucceeded(new CommandSucceededEvent(null, id, id, CONEXAO, "community_center", nome,
+                BsonDocument.parse(resposta), TimeUnit.MILLISECONDS.toNanos(duracaoMs)));
+    }
+}
@@ -0,0 +1,132 @@
+package com.phoebus.communityapi.event;
+
+import com.phoebus.communityapi.config.PhoebusProperties;
+import com.phoebus.communityapi.model.CentroComunitario;
+import com.phoebus.communityapi.model.EstatisticasEventos;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+public class FilaEventosCapacidadeTest {
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private final PhoebusProperties properties = new PhoebusProperties();
+
+    @BeforeEach
+    public void setUp() {
+        properties.getEventos().setCapacidadeFila(2);
+        properties.getEventos().setTamanhoLote(10);
+    }
+
+    @Test
+    public void testDescartarAntigosMantemOsEventosMaisRecentes() throws InterruptedException {
+        properties.getEventos().setPoliticaTransbordo(PhoebusProperties.PoliticaTransbordo.DESCARTAR_ANTIGOS);
+        FilaEventosCapacidade fila = new FilaEventosCapacidade(eventPublisher, properties);
+        CapacidadeMaximaEvent primeiro = evento("1");
+        CapacidadeMaximaEvent segundo = evento("2");
+        CapacidadeMaximaEvent terceiro = evento("3");
+
+        fila.enfileirar(primeiro);
+        fila.enfileirar(segundo);
+        fila.enfileirar(terceiro);
+
+        assertEquals(2, fila.entregarLote(0));
+        assertEquals(List.of(segundo, terceiro), loteEntregue().getEventos());
+        EstatisticasEventos estatisticas = fila.estatisticas();
+        assertEquals(3, estatisticas.getRecebidos());
+        assertEquals(1, estatisticas.getDescartados());
+        assertEquals(2, estatisticas.getEntregues());
+        assertEquals(0, estatisticas.getTamanhoFila());
+    }
+
+    @Test
+    public void testDescartarNovosMantemOsEventosJaEnfileirados() throws InterruptedException {
+        properties.getEventos().setPoliticaTransbordo(PhoebusProperties.PoliticaTransbordo.DESCARTAR_NOVOS);
+        FilaEventosCapacidade fila = new FilaEventosCapacidade(eventPublisher, properties);
+        CapacidadeMaximaEvent primeiro = evento("1");
+        CapacidadeMaximaEvent segundo = evento("2");
+
+        fila.enfileirar(primeiro);
+        fila.enfileirar(segundo);
+        fila.enfileirar(evento("3"));
+
+        fila.entregarLote(0);
+        assertEquals(List.of(primeiro, segundo), loteEntregue().getEventos());
+        assertEquals(1, fila.estatisticas().getDescartados());
+    }
+
+    @Test
+    public void testEntregarNoChamadorQuandoFilaCheia() {
+        properties.getEventos().setPoliticaTransbordo(PhoebusProperties.PoliticaTransbordo.ENTREGAR_NO_CHAMADOR);
+        FilaEventosCapacidade fila = new FilaEventosCapacidade(eventPublisher, properties);
+        CapacidadeMaximaEvent terceiro = evento("3");
+
+        fila.enfileirar(evento("1"));
+        fila.enfileirar(evento("2"));
+        fila.enfileirar(terceiro);
+
+        assertEquals(List.of(terceiro), loteEntregue().getEventos());
+        EstatisticasEventos estatisticas = fila.estatisticas();
+        assertEquals(0, estatisticas.getDescartados());
+        assertEquals(2, estatisticas.getTamanhoFila());
+    }
+
+    @Test
+    public void testLoteLimitadoAoTamanhoConfigurado() throws InterruptedException {
+        properties.getEventos().setCapacidadeFila(10);
+        properties.getEventos().setTamanhoLote(2);
+        FilaEventosCapacidade fila = new FilaEventosCapacidade(eventPublisher, properties);
+        for (int i = 0; i < 3; i++) {
+            fila.enfileirar(evento(String.valueOf(i)));
+        }
+
+        assertEquals(2, fila.entregarLote(0));
+        assertEquals(1, fila.entregarLote(0));
+        assertEquals(0, fila.entregarLote(0));
+        verify(eventPublisher, times(2)).publishEvent(any(LoteCapacidadeMaximaEvent.class));
+        assertEquals(2, fila.estatisticas().getLotes());
+    }
+
+    @Test
+    public void testAtrasoDeEntregaPublicadoNoRegistro() throws InterruptedException {
+        FilaEventosCapacidade fila = new FilaEventosCapacidade(eventPublisher, properties);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        fila.bindTo(registry);
+
+        fila.enfileirar(evento("1"));
+        TimeGauge atrasoAtual = registry.get("phoebus.eventos.capacidade.atraso.atual").timeGauge();
+        assertTrue(atrasoAtual.value(TimeUnit.MILLISECONDS) >= 0);
+
+        fila.entregarLote(0);
+        assertEquals(1, registry.get("phoebus.eventos.capacidade.atraso").timer().count());
+        assertEquals(0, atrasoAtual.value(TimeUnit.MILLISECONDS));
+    }
+
+    private LoteCapacidadeMaximaEvent loteEntregue() {
+        ArgumentCaptor<LoteCapacidadeMaximaEvent> captor = ArgumentCaptor.forClass(LoteCapacidadeMaximaEvent.class);
+        verify(eventPublisher).publishEvent(captor.capture());
+        return captor.getValue();
+    }
+
+    private CapacidadeMaximaEvent evento(String id) {
+        CentroComunitario centro = new CentroComunitario();
+        centro.setId(id);
+        return new CapacidadeMaximaEvent(this, centro);
+    }
+}
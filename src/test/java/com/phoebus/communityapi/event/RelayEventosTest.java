@@ -0,0 +1,142 @@
+package com.phoebus.communityapi.event;
+
+import com.phoebus.communityapi.config.PhoebusProperties;
+import com.phoebus.communityapi.model.CentroComunitario;
+import com.phoebus.communityapi.model.EventoPendente;
+import com.phoebus.communityapi.model.Negociacao;
+import com.phoebus.communityapi.repository.CentroComunitarioRepository;
+import com.phoebus.communityapi.repository.NegociacaoRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class RelayEventosTest {
+    @Mock
+    private CentroComunitarioRepository repository;
+
+    @Mock
+    private NegociacaoRepository negociacaoRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Spy
+    private PhoebusProperties properties = new PhoebusProperties();
+
+    @InjectMocks
+    private RelayEventos relay;
+
+    @Test
+    public void testEventoCapacidadeConfirmadoSoDepoisDaEntrega() {
+        when(repository.buscarEventosCapacidadePendentes(anyInt(), any())).thenReturn(List.of(centroComEvento("1", "e1")));
+
+        relay.executar();
+
+        ArgumentCaptor<CapacidadeMaximaEvent> captor = ArgumentCaptor.forClass(CapacidadeMaximaEvent.class);
+        verify(eventPublisher).publishEvent(captor.capture());
+        assertEquals("1", captor.getValue().getCentro().getId());
+        verify(repository, never()).confirmarEventosCapacidade(any());
+
+        // Entrega confirmada pela fila: o próximo ciclo remove o evento do outbox
+        captor.getValue().confirmarEntrega();
+        relay.executar();
+
+        verify(repository).confirmarEventosCapacidade(Map.of("1", List.of("e1")));
+    }
+
+    @Test
+    public void testEventoCapacidadeEmEntregaNaoEReenviadoAntesDoPrazo() {
+        when(repository.buscarEventosCapacidadePendentes(anyInt(), any())).thenReturn(List.of(centroComEvento("1", "e1")));
+
+        relay.executar();
+        relay.executar();
+
+        verify(eventPublisher).publishEvent(any(CapacidadeMaximaEvent.class));
+        // O evento em entrega fica fora da consulta seguinte, então não ocupa o lote de outros centros
+        verify(repository).buscarEventosCapacidadePendentes(anyInt(), eq(List.of()));
+        verify(repository).buscarEventosCapacidadePendentes(anyInt(), eq(List.of("e1")));
+    }
+
+    @Test
+    public void testEventosCapacidadeCortadosDoOutboxSaoRegistrados() {
+        CentroComunitario centro = centroComEvento("1", "e1");
+        centro.setEventosDescartados(3);
+        when(repository.buscarEventosCapacidadePendentes(anyInt(), any())).thenReturn(List.of(centro));
+
+        relay.executar();
+
+        verify(repository).registrarEventosCapacidadeDescartados("1", 3);
+        verify(eventPublisher).publishEvent(any(CapacidadeMaximaEvent.class));
+    }
+
+    @Test
+    public void testEventoIntercambioRecusadoEAdiadoSemBloquearOsSeguintes() {
+        Negociacao entregue = negociacao("n1");
+        Negociacao rejeitada = negociacao("n2");
+        Negociacao seguinte = negociacao("n3");
+        when(negociacaoRepository.buscarEventosPendentes(anyInt())).thenReturn(List.of(entregue, rejeitada, seguinte));
+        doNothing().doThrow(new IllegalStateException("listener indisponível")).doNothing().when(eventPublisher)
+                .publishEvent(any(IntercambioRealizadoEvent.class));
+
+        relay.executar();
+
+        // A rejeitada volta depois de tempoReenvio; as outras saem do outbox
+        verify(negociacaoRepository).confirmarEventos(List.of("n1", "n3"));
+        ArgumentCaptor<LocalDateTime> proximaTentativa = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(negociacaoRepository).adiarEvento(eq("n2"), proximaTentativa.capture());
+        assertTrue(proximaTentativa.getValue().isAfter(LocalDateTime.now().plusSeconds(20)));
+        verify(negociacaoRepository, never()).descartarEvento(any());
+    }
+
+    @Test
+    public void testEventoIntercambioDescartadoDepoisDoMaximoDeTentativas() {
+        Negociacao rejeitada = negociacao("n1");
+        rejeitada.setTentativasEvento(properties.getOutbox().getMaximoTentativas() - 1);
+        when(negociacaoRepository.buscarEventosPendentes(anyInt())).thenReturn(List.of(rejeitada));
+        doThrow(new IllegalStateException("evento inválido")).when(eventPublisher).publishEvent(any(IntercambioRealizadoEvent.class));
+
+        relay.executar();
+
+        verify(negociacaoRepository).descartarEvento("n1");
+        verify(negociacaoRepository, never()).adiarEvento(any(), any());
+        verify(negociacaoRepository).confirmarEventos(List.of());
+    }
+
+    private CentroComunitario centroComEvento(String id, String idEvento) {
+        EventoPendente evento = new EventoPendente();
+        evento.setIdEvento(idEvento);
+        evento.setCriadoEm(LocalDateTime.now());
+        CentroComunitario centro = new CentroComunitario();
+        centro.setId(id);
+        centro.setCapacidadeMaxima(10);
+        centro.setOcupacaoAtual(10);
+        centro.setEventosPendentes(List.of(evento));
+        return centro;
+    }
+
+    private Negociacao negociacao(String id) {
+        Negociacao negociacao = new Negociacao();
+        negociacao.setId(id);
+        return negociacao;
+    }
+}
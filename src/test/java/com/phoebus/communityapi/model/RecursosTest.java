@@ -0,0 +1,48 @@
+package com.phoebus.communityapi.model;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.exc.InvalidFormatException;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RecursosTest {
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    public void testJsonMantemUmCampoPorTipo() throws Exception {
+        Recursos recursos = Recursos.de(TipoRecurso.MEDICOS, 2);
+        recursos.definir(TipoRecurso.CESTAS_BASICAS, 10);
+
+        String json = mapper.writeValueAsString(recursos);
+
+        assertEquals("{\"medicos\":2,\"voluntarios\":0,\"kitsMedicos\":0,\"veiculos\":0,\"cestasBasicas\":10}", json);
+        assertEquals(recursos, mapper.readValue(json, Recursos.class));
+    }
+
+    @Test
+    public void testJsonCamposAusentesValemZeroEDesconhecidosSaoIgnorados() throws Exception {
+        Recursos recursos = mapper.readValue("{\"veiculos\": 3, \"helicopteros\": {\"a\": 1}}", Recursos.class);
+
+        assertEquals(Recursos.de(TipoRecurso.VEICULOS, 3), recursos);
+        assertThrows(InvalidFormatException.class, () -> mapper.readValue("{\"medicos\": \"abc\"}", Recursos.class));
+    }
+
+    @Test
+    public void testTrocarCobreEPontos() {
+        Recursos saldo = Recursos.de(TipoRecurso.MEDICOS, 2);
+        Recursos saida = Recursos.de(TipoRecurso.MEDICOS, 1);
+        Recursos entrada = Recursos.de(TipoRecurso.VOLUNTARIOS, 3);
+
+        assertTrue(saldo.cobre(saida));
+        assertFalse(saldo.cobre(entrada));
+
+        saldo.trocar(saida, entrada);
+
+        assertEquals(1, saldo.quantidade(TipoRecurso.MEDICOS));
+        assertEquals(3, saldo.quantidade(TipoRecurso.VOLUNTARIOS));
+        assertEquals(4 + 3 * 3, saldo.pontos());
+        assertTrue(saldo.negativo().possuiNegativo());
+        assertTrue(new Recursos().isVazio());
+    }
+}
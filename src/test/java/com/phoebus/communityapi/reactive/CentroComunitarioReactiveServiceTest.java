@@ -0,0 +1,117 @@
+package com.phoebus.communityapi.reactive;
+
+import com.mongodb.client.result.UpdateResult;
+import com.phoebus.communityapi.config.PhoebusProperties;
+import com.phoebus.communityapi.model.CentroComunitario;
+import com.phoebus.communityapi.model.Negociacao;
+import com.phoebus.communityapi.model.Recursos;
+import com.phoebus.communityapi.model.TipoRecurso;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+// Só compilado e executado com o perfil Maven reactive (mvn -Preactive test)
+@ExtendWith(MockitoExtension.class)
+public class CentroComunitarioReactiveServiceTest {
+    private static final Mono<UpdateResult> APLICADO = Mono.just(UpdateResult.acknowledged(1, 1L, null));
+    private static final Mono<UpdateResult> SEM_SALDO = Mono.just(UpdateResult.acknowledged(0, 0L, null));
+
+    @Mock
+    private CentroComunitarioReactiveRepository repository;
+
+    @Mock
+    private NegociacaoReactiveRepository negociacaoRepository;
+
+    @Mock
+    private ReactiveMongoTemplate mongoTemplate;
+
+    @Spy
+    private PhoebusProperties properties = new PhoebusProperties();
+
+    @InjectMocks
+    private CentroComunitarioReactiveService service;
+
+    private Recursos recursosOrigem;
+    private Recursos recursosDestino;
+
+    @BeforeEach
+    public void preparar() {
+        // 1 médico (4 pontos) por 2 cestas básicas (2 x 2 pontos)
+        recursosOrigem = Recursos.de(TipoRecurso.MEDICOS, 1);
+        recursosDestino = Recursos.de(TipoRecurso.CESTAS_BASICAS, 2);
+        when(repository.findAllById(anyIterable())).thenReturn(Flux.just(
+                centro("a", Recursos.de(TipoRecurso.MEDICOS, 3)),
+                centro("b", Recursos.de(TipoRecurso.CESTAS_BASICAS, 4))));
+    }
+
+    @Test
+    public void testRealizarIntercambioGravaNegociacao() {
+        when(mongoTemplate.updateFirst(any(Query.class), any(UpdateDefinition.class), eq(CentroComunitario.class)))
+                .thenReturn(APLICADO);
+        when(negociacaoRepository.save(any(Negociacao.class))).thenAnswer(i -> Mono.just(i.getArgument(0)));
+
+        StepVerifier.create(service.realizarIntercambio("a", "b", recursosOrigem, recursosDestino))
+                .assertNext(negociacao -> {
+                    assertEquals("a", negociacao.getCentroOrigemId());
+                    assertEquals("b", negociacao.getCentroDestinoId());
+                    assertEquals(4, negociacao.getPontosOrigem());
+                })
+                .verifyComplete();
+        // Só os dois $inc condicionados, sem compensação
+        verify(mongoTemplate, times(2)).updateFirst(any(Query.class), any(UpdateDefinition.class), eq(CentroComunitario.class));
+    }
+
+    @Test
+    public void testRealizarIntercambioDestinoSemSaldoDesfazOrigem() {
+        // Origem aplicada, destino perdeu o saldo depois da leitura, $inc inverso na origem
+        when(mongoTemplate.updateFirst(any(Query.class), any(UpdateDefinition.class), eq(CentroComunitario.class)))
+                .thenReturn(APLICADO, SEM_SALDO, APLICADO);
+
+        StepVerifier.create(service.realizarIntercambio("a", "b", recursosOrigem, recursosDestino))
+                .expectErrorMatches(e -> e instanceof IllegalArgumentException
+                        && e.getMessage().equals("Centro destino não possui recursos suficientes"))
+                .verify();
+        verify(mongoTemplate, times(3)).updateFirst(any(Query.class), any(UpdateDefinition.class), eq(CentroComunitario.class));
+        verify(negociacaoRepository, never()).save(any(Negociacao.class));
+    }
+
+    @Test
+    public void testRealizarIntercambioFalhaNaNegociacaoDesfazOsDoisCentros() {
+        when(mongoTemplate.updateFirst(any(Query.class), any(UpdateDefinition.class), eq(CentroComunitario.class)))
+                .thenReturn(APLICADO);
+        when(negociacaoRepository.save(any(Negociacao.class))).thenReturn(Mono.error(new IllegalStateException("falha na gravação")));
+
+        StepVerifier.create(service.realizarIntercambio("a", "b", recursosOrigem, recursosDestino))
+                .expectErrorMessage("falha na gravação")
+                .verify();
+        // Dois $inc aplicados e os dois inversos
+        verify(mongoTemplate, times(4)).updateFirst(any(Query.class), any(UpdateDefinition.class), eq(CentroComunitario.class));
+    }
+
+    private static CentroComunitario centro(String id, Recursos recursos) {
+        CentroComunitario centro = new CentroComunitario();
+        centro.setId(id);
+        centro.setCapacidadeMaxima(100);
+        centro.setRecursos(recursos);
+        return centro;
+    }
+}
@@ -0,0 +1,118 @@
+package com.phoebus.communityapi.repository;
+
+import com.phoebus.communityapi.config.MongoConfig;
+import com.phoebus.communityapi.model.CentroComunitario;
+import com.phoebus.communityapi.model.DirecaoNegociacao;
+import com.phoebus.communityapi.model.EventoPendente;
+import com.phoebus.communityapi.model.Recursos;
+import com.phoebus.communityapi.model.RecursosMedia;
+import com.phoebus.communityapi.model.TipoRecurso;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OperacoesMongoTest {
+    private final MappingMongoConverter conversor = criarConversor();
+
+    @Test
+    public void testSubstituicaoCentroPreservaEventosPendentes() {
+        CentroComunitario centro = new CentroComunitario();
+        centro.setId("1");
+        centro.setNome("Centro A");
+        centro.setCapacidadeMaxima(100);
+        centro.setOcupacaoAtual(100);
+        Recursos recursos = new Recursos();
+        recursos.definir(TipoRecurso.MEDICOS, 2);
+        centro.setRecursos(recursos);
+        // Mesmo se vier preenchido, o outbox do POST não substitui o gravado
+        centro.setEventosPendentes(List.of(new EventoPendente()));
+
+        Document update = OperacoesMongo.substituicaoCentro(conversor, centro).getUpdateObject();
+
+        Document set = update.get("$set", Document.class);
+        assertEquals("Centro A", set.get("nome"));
+        assertEquals(100, set.get("ocupacaoAtual"));
+        assertEquals(1.0, set.get("taxaOcupacao"));
+        assertEquals(2, ((Document) set.get("recursos")).get("medicos"));
+        assertFalse(set.containsKey("_id"));
+        assertFalse(set.containsKey("eventosPendentes"));
+        // Campos do modelo ausentes no POST saem do documento, como numa substituição
+        Document unset = update.get("$unset", Document.class);
+        assertTrue(unset.containsKey("endereco"));
+        assertTrue(unset.containsKey("localizacao"));
+        assertFalse(unset.containsKey("eventosPendentes"));
+        assertFalse(unset.containsKey("lotesPendentes"));
+        assertFalse(unset.containsKey("eventosDescartados"));
+    }
+
+    @Test
+    public void testAtualizacaoOcupacaoContaEventosCortadosDoOutbox() {
+        Document set = OperacoesMongo.definicaoOcupacao(10).toPipeline(Aggregation.DEFAULT_CONTEXT).get(0).get("$set", Document.class);
+
+        // Mesmo $set: a contagem é calculada sobre o outbox anterior ao $slice
+        List<?> condicao = set.get("eventosDescartados", Document.class).getList("$cond", Object.class);
+        assertEquals("$eventosDescartados", condicao.get(2));
+        Document total = (Document) condicao.get(1);
+        assertEquals(new Document("$ifNull", List.of("$eventosDescartados", 0)), total.getList("$add", Object.class).get(0));
+        assertEquals("$eventosPendentes", set.get("eventosPendentes", Document.class).getList("$cond", Object.class).get(2));
+    }
+
+    @Test
+    public void testFiltroSaldoComExcecaoDeOcupacaoConfereATaxa() {
+        Document filtro = OperacoesMongo.filtroSaldo("1", Recursos.de(TipoRecurso.MEDICOS, 2), 0.9).getQueryObject();
+
+        assertEquals(new Document("$gte", 2), filtro.get("recursos.medicos"));
+        assertEquals(new Document("$gt", 0.9), filtro.get("taxaOcupacao"));
+        assertFalse(OperacoesMongo.filtroSaldo("1", Recursos.de(TipoRecurso.MEDICOS, 2)).getQueryObject().containsKey("taxaOcupacao"));
+    }
+
+    @Test
+    public void testConsultaExportacaoIgnoraLotesNaoConcluidos() {
+        Document filtro = OperacoesMongo.consultaExportacaoNegociacoes("1", null, null, DirecaoNegociacao.AMBAS).getQueryObject();
+
+        assertEquals(new Document("$exists", false), filtro.get("lote"));
+        assertEquals(2, filtro.getList("$or", Document.class).size());
+    }
+
+    @Test
+    public void testAgregacaoRecursosTemUmAcumuladorPorTipo() {
+        Document grupo = OperacoesMongo.agregacaoRecursos("$avg").toPipeline(Aggregation.DEFAULT_CONTEXT).get(0)
+                .get("$group", Document.class);
+
+        assertEquals(new Document("$sum", 1), grupo.get("totalCentros"));
+        for (TipoRecurso tipo : TipoRecurso.values()) {
+            assertEquals(new Document("$avg", "$recursos." + tipo.getCampo()), grupo.get(tipo.getCampo()));
+        }
+    }
+
+    @Test
+    public void testLerMediaRecursosSemCampoValeZero() {
+        // $avg é null quando nenhum centro tem o recurso
+        Document resultado = new Document("totalCentros", 2).append("medicos", 1.5).append("voluntarios", null);
+
+        RecursosMedia media = OperacoesMongo.lerMediaRecursos(resultado);
+
+        assertEquals(2, media.getTotalCentros());
+        assertEquals(1.5, media.media(TipoRecurso.MEDICOS));
+        assertEquals(0.0, media.media(TipoRecurso.VOLUNTARIOS));
+    }
+
+    private static MappingMongoConverter criarConversor() {
+        MongoCustomConversions conversoes = new MongoConfig().mongoCustomConversions();
+        MongoMappingContext contexto = new MongoMappingContext();
+        contexto.setSimpleTypeHolder(conversoes.getSimpleTypeHolder());
+        contexto.afterPropertiesSet();
+        MappingMongoConverter conversor = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, contexto);
+        conversor.setCustomConversions(conversoes);
+        conversor.afterPropertiesSet();
+        return conversor;
+    }
+}
@@ -0,0 +1,128 @@
+package com.phoebus.communityapi.service;
+
+import com.phoebus.communityapi.config.PhoebusProperties;
+import com.phoebus.communityapi.model.AmostraOcupacao;
+import com.phoebus.communityapi.model.CentroComunitario;
+import com.phoebus.communityapi.repository.CentroComunitarioRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class BufferOcupacaoServiceTest {
+    @Mock
+    private CentroComunitarioRepository repository;
+
+    @Mock
+    private CacheCentros cache;
+
+    @Mock
+    private IndiceExcedentes indiceExcedentes;
+
+    @Mock
+    private TransmissaoOcupacaoService transmissaoOcupacao;
+
+    @Mock
+    private HistoricoOcupacaoService historicoOcupacao;
+
+    @Spy
+    private PhoebusProperties properties = new PhoebusProperties();
+
+    @InjectMocks
+    private BufferOcupacaoService service;
+
+    @Test
+    public void testDescarregarGravaApenasUltimaLeituraDeCadaCentro() {
+        service.registrar(List.of(amostra("1", 10), amostra("2", 5), amostra("1", 12), amostra("1", 11)));
+        when(repository.atualizarOcupacoesEmLote(Map.of("1", 11, "2", 5), Map.of("1", 12, "2", 5))).thenReturn(2);
+
+        service.descarregar();
+
+        verify(repository).atualizarOcupacoesEmLote(Map.of("1", 11, "2", 5), Map.of("1", 12, "2", 5));
+        verify(cache).invalidar(Map.of("1", 11, "2", 5).keySet());
+
+        // Buffer esvaziado: a próxima descarga não grava nada
+        service.descarregar();
+        verify(repository).atualizarOcupacoesEmLote(any(), any());
+    }
+
+    @Test
+    public void testDescarregarEnviaMaiorLeituraDoIntervalo() {
+        // A maior leitura decide o evento de capacidade máxima gravado no outbox, mesmo que a última seja menor
+        service.registrar(List.of(amostra("1", 20), amostra("1", 18)));
+        when(repository.atualizarOcupacoesEmLote(Map.of("1", 18), Map.of("1", 20))).thenReturn(1);
+
+        service.descarregar();
+
+        verify(repository).atualizarOcupacoesEmLote(Map.of("1", 18), Map.of("1", 20));
+    }
+
+    @Test
+    public void testDescarregarPropagaApenasLeiturasGravadas() {
+        // "2" não existe e "3" ficou acima da capacidade: o bulkWrite só aplicou "1"
+        service.registrar(List.of(amostra("1", 10), amostra("2", 5), amostra("3", 500)));
+        when(repository.atualizarOcupacoesEmLote(any(), any())).thenReturn(1);
+        when(cache.buscarTodos(Set.of("1", "2", "3"))).thenReturn(List.of(centro("1", 10), centro("3", 90)));
+
+        service.descarregar();
+
+        verify(indiceExcedentes).atualizarOcupacao("1", 10);
+        verify(indiceExcedentes, never()).atualizarOcupacao(eq("3"), anyInt());
+        verify(transmissaoOcupacao).publicar(Set.of("1"));
+        verify(historicoOcupacao).registrar("1", 10);
+        verify(historicoOcupacao, never()).registrar(eq("3"), anyInt());
+    }
+
+    @Test
+    public void testRegistrarDuranteEncerramentoNaoFalha() throws Exception {
+        properties.getOcupacao().setTamanhoLote(1);
+        service.iniciar();
+        service.encerrar();
+
+        // Lote cheio com o executor já parado: a leitura fica pendente em vez de virar erro para o sensor
+        assertDoesNotThrow(() -> service.registrar(List.of(amostra("1", 10))));
+        when(repository.atualizarOcupacoesEmLote(Map.of("1", 10), Map.of("1", 10))).thenReturn(1);
+        service.descarregar();
+        verify(repository).atualizarOcupacoesEmLote(Map.of("1", 10), Map.of("1", 10));
+    }
+
+    @Test
+    public void testRegistrarRejeitaLoteComLeituraInvalida() {
+        assertThrows(IllegalArgumentException.class,
+                () -> service.registrar(List.of(amostra("1", 10), amostra("2", -1))));
+
+        service.descarregar();
+        verifyNoInteractions(repository);
+    }
+
+    private CentroComunitario centro(String id, int ocupacao) {
+        CentroComunitario centro = new CentroComunitario();
+        centro.setId(id);
+        centro.setCapacidadeMaxima(100);
+        centro.setOcupacaoAtual(ocupacao);
+        return centro;
+    }
+
+    private AmostraOcupacao amostra(String centroId, int ocupacao) {
+        AmostraOcupacao amostra = new AmostraOcupacao();
+        amostra.setCentroId(centroId);
+        amostra.setOcupacao(ocupacao);
+        return amostra;
+    }
+}
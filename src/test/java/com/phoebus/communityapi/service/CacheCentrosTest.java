@@ -0,0 +1,105 @@
+package com.phoebus.communityapi.service;
+
+import com.phoebus.communityapi.config.PhoebusProperties;
+import com.phoebus.communityapi.model.CentroComunitario;
+import com.phoebus.communityapi.model.EstatisticasCache;
+import com.phoebus.communityapi.repository.CentroComunitarioRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class CacheCentrosTest {
+    @Mock
+    private CentroComunitarioRepository repository;
+
+    private final PhoebusProperties properties = new PhoebusProperties();
+
+    private CacheCentros cache;
+
+    @BeforeEach
+    public void setUp() {
+        properties.getCache().setTamanhoMaximo(2);
+        cache = new CacheCentros(repository, properties);
+    }
+
+    @Test
+    public void testBuscarTodosLeSoOsAusentesDoCache() {
+        when(repository.findAllById(Set.of("1"))).thenReturn(List.of(centro("1")));
+        when(repository.findAllById(Set.of("2"))).thenReturn(List.of(centro("2")));
+
+        cache.buscar("1");
+        List<CentroComunitario> centros = cache.buscarTodos(List.of("1", "2"));
+
+        assertEquals(2, centros.size());
+        EstatisticasCache estatisticas = cache.estatisticas();
+        assertEquals(1, estatisticas.getAcertos());
+        assertEquals(2, estatisticas.getFalhas());
+    }
+
+    @Test
+    public void testRemoveOMenosUsadoAoExcederTamanhoMaximo() {
+        when(repository.findAllById(any())).thenAnswer(i -> List.of(centro(i.<Set<String>>getArgument(0).iterator().next())));
+
+        cache.buscar("1");
+        cache.buscar("2");
+        cache.buscar("1");
+        cache.buscar("3");
+        cache.buscar("1");
+        cache.buscar("2");
+
+        // "2" foi o menos usado quando "3" entrou, então é lido de novo
+        verify(repository, times(2)).findAllById(Set.of("2"));
+        verify(repository, times(1)).findAllById(Set.of("1"));
+        assertEquals(2, cache.estatisticas().getRemocoes());
+    }
+
+    @Test
+    public void testEntradaExpiradaEInvalidadaVoltamAoBanco() {
+        properties.getCache().setTtl(Duration.ZERO);
+        cache = new CacheCentros(repository, properties);
+        when(repository.findAllById(Set.of("1"))).thenReturn(List.of(centro("1")));
+
+        cache.buscar("1");
+        cache.buscar("1");
+        assertEquals(1, cache.estatisticas().getExpiracoes());
+
+        properties.getCache().setTtl(Duration.ofMinutes(1));
+        cache = new CacheCentros(repository, properties);
+        cache.buscar("1");
+        cache.invalidar("1");
+        assertTrue(cache.existe("1"));
+
+        verify(repository, times(4)).findAllById(Set.of("1"));
+    }
+
+    @Test
+    public void testCentroInexistenteNaoFicaEmCache() {
+        when(repository.findAllById(Set.of("9"))).thenReturn(List.of());
+
+        assertFalse(cache.existe("9"));
+        assertFalse(cache.existe("9"));
+
+        verify(repository, times(2)).findAllById(Set.of("9"));
+        assertEquals(0, cache.estatisticas().getTamanho());
+    }
+
+    private CentroComunitario centro(String id) {
+        CentroComunitario centro = new CentroComunitario();
+        centro.setId(id);
+        centro.setCapacidadeMaxima(100);
+        return centro;
+    }
+}
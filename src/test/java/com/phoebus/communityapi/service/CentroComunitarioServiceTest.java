@@ -1,23 +1,51 @@
 package com.phoebus.communityapi.service;
 
+import com.phoebus.communityapi.config.PhoebusProperties;
+import com.phoebus.communityapi.exception.IndiceIndisponivelException;
+import com.phoebus.communityapi.exception.IntercambioRejeitadoException;
 import com.phoebus.communityapi.model.CentroComunitario;
+import com.phoebus.communityapi.model.CentroProximo;
+import com.phoebus.communityapi.model.CursorNegociacao;
+import com.phoebus.communityapi.model.EstatisticasRecursos;
+import com.phoebus.communityapi.model.IntercambioRequest;
 import com.phoebus.communityapi.model.Negociacao;
+import com.phoebus.communityapi.model.Recursos;
+import com.phoebus.communityapi.model.RecursosMedia;
+import com.phoebus.communityapi.model.ResultadoIntercambio;
+import com.phoebus.communityapi.model.TipoRecurso;
 import com.phoebus.communityapi.repository.CentroComunitarioRepository;
+import com.phoebus.communityapi.repository.EstatisticasRecursosRepository;
 import com.phoebus.communityapi.repository.NegociacaoRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.geo.Distance;
+import org.springframework.data.geo.GeoResult;
+import org.springframework.data.geo.GeoResults;
+import org.springframework.data.geo.Metrics;
 
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -25,9 +53,32 @@ public class CentroComunitarioServiceTest {
     @Mock
     private CentroComunitarioRepository repository;
 
+    @Mock
+    private CacheCentros cache;
+
+    @Mock
+    private IndiceExcedentes indiceExcedentes;
+
+    @Mock
+    private TransmissaoOcupacaoService transmissaoOcupacao;
+
+    @Mock
+    private HistoricoOcupacaoService historicoOcupacao;
+
     @Mock
     private NegociacaoRepository negociacaoRepository;
 
+    @Mock
+    private EstatisticasRecursosRepository estatisticasRepository;
+
+    @Spy
+    private PhoebusProperties properties = new PhoebusProperties();
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Spy
+    private MetricasServico metricas = new MetricasServico(registry);
+
     @InjectMocks
     private CentroComunitarioService service;
 
@@ -42,12 +93,12 @@ public class CentroComunitarioServiceTest {
         centro.setLocalizacao(localizacao);
         centro.setCapacidadeMaxima(100);
         centro.setOcupacaoAtual(20);
-        CentroComunitario.Recursos recursos = new CentroComunitario.Recursos();
-        recursos.setMedicos(2);
-        recursos.setVoluntarios(5);
+        Recursos recursos = new Recursos();
+        recursos.definir(TipoRecurso.MEDICOS, 2);
+        recursos.definir(TipoRecurso.VOLUNTARIOS, 5);
         centro.setRecursos(recursos);
 
-        when(repository.save(any(CentroComunitario.class))).thenReturn(centro);
+        when(repository.substituir(centro)).thenReturn(Optional.empty());
 
         CentroComunitario resultado = service.adicionarCentro(centro);
 
@@ -106,10 +157,9 @@ public class CentroComunitarioServiceTest {
         centro.setId("68815b1396ef83016f0fee2e");
         centro.setNome("Centro E");
         centro.setCapacidadeMaxima(100);
-        centro.setOcupacaoAtual(50);
+        centro.setOcupacaoAtual(75);
 
-        when(repository.findById("68815b1396ef83016f0fee2e")).thenReturn(Optional.of(centro));
-        when(repository.save(any(CentroComunitario.class))).thenReturn(centro);
+        when(repository.definirOcupacao("68815b1396ef83016f0fee2e", 75)).thenReturn(Optional.of(centro));
 
         CentroComunitario resultado = service.atualizarOcupacao("68815b1396ef83016f0fee2e", 75);
 
@@ -119,33 +169,65 @@ public class CentroComunitarioServiceTest {
 
     @Test
     public void testAtualizarOcupacaoCentroNaoEncontrado() {
-        when(repository.findById("68815b1396ef83016f0fee2e")).thenReturn(Optional.empty());
+        when(repository.definirOcupacao("68815b1396ef83016f0fee2e", 50)).thenReturn(Optional.empty());
+        when(cache.buscar("68815b1396ef83016f0fee2e")).thenReturn(Optional.empty());
 
-        assertThrows(IllegalArgumentException.class, () -> service.atualizarOcupacao("68815b1396ef83016f0fee2e", 50));
+        IllegalArgumentException erro = assertThrows(IllegalArgumentException.class,
+                () -> service.atualizarOcupacao("68815b1396ef83016f0fee2e", 50));
+        assertTrue(erro.getMessage().contains("não encontrado"));
     }
 
     @Test
     public void testAtualizarOcupacaoNegativa() {
+        assertThrows(IllegalArgumentException.class, () -> service.atualizarOcupacao("68815b1396ef83016f0fee2e", -1));
+    }
+
+    @Test
+    public void testAtualizarOcupacaoExcedeCapacidade() {
         CentroComunitario centro = new CentroComunitario();
         centro.setId("68815b1396ef83016f0fee2e");
         centro.setCapacidadeMaxima(100);
         centro.setOcupacaoAtual(50);
 
-        when(repository.findById("68815b1396ef83016f0fee2e")).thenReturn(Optional.of(centro));
+        when(repository.definirOcupacao("68815b1396ef83016f0fee2e", 150)).thenReturn(Optional.empty());
+        when(cache.buscar("68815b1396ef83016f0fee2e")).thenReturn(Optional.of(centro));
 
-        assertThrows(IllegalArgumentException.class, () -> service.atualizarOcupacao("68815b1396ef83016f0fee2e", -1));
+        IllegalArgumentException erro = assertThrows(IllegalArgumentException.class,
+                () -> service.atualizarOcupacao("68815b1396ef83016f0fee2e", 150));
+        assertTrue(erro.getMessage().contains("100"));
     }
 
     @Test
-    public void testAtualizarOcupacaoExcedeCapacidade() {
+    public void testIncrementarOcupacaoAtingeCapacidade() {
         CentroComunitario centro = new CentroComunitario();
         centro.setId("68815b1396ef83016f0fee2e");
         centro.setCapacidadeMaxima(100);
-        centro.setOcupacaoAtual(50);
+        centro.setOcupacaoAtual(100);
+
+        when(repository.ajustarOcupacao("68815b1396ef83016f0fee2e", 2)).thenReturn(Optional.of(centro));
 
-        when(repository.findById("68815b1396ef83016f0fee2e")).thenReturn(Optional.of(centro));
+        CentroComunitario resultado = service.incrementarOcupacao("68815b1396ef83016f0fee2e", 2);
 
-        assertThrows(IllegalArgumentException.class, () -> service.atualizarOcupacao("68815b1396ef83016f0fee2e", 150));
+        assertEquals(100, resultado.getOcupacaoAtual());
+        verify(cache).atualizar(centro);
+    }
+
+    @Test
+    public void testDecrementarOcupacaoAbaixoDeZero() {
+        CentroComunitario centro = new CentroComunitario();
+        centro.setId("68815b1396ef83016f0fee2e");
+        centro.setCapacidadeMaxima(100);
+        centro.setOcupacaoAtual(0);
+
+        when(repository.ajustarOcupacao("68815b1396ef83016f0fee2e", -1)).thenReturn(Optional.empty());
+        when(cache.buscar("68815b1396ef83016f0fee2e")).thenReturn(Optional.of(centro));
+
+        assertThrows(IllegalArgumentException.class, () -> service.decrementarOcupacao("68815b1396ef83016f0fee2e", 1));
+    }
+
+    @Test
+    public void testIncrementarOcupacaoQuantidadeInvalida() {
+        assertThrows(IllegalArgumentException.class, () -> service.incrementarOcupacao("68815b1396ef83016f0fee2e", 0));
     }
 
     @Test
@@ -155,12 +237,12 @@ public class CentroComunitarioServiceTest {
         origem.setNome("Centro A");
         origem.setCapacidadeMaxima(100);
         origem.setOcupacaoAtual(50);
-        CentroComunitario.Recursos recursosOrigem = new CentroComunitario.Recursos();
-        recursosOrigem.setMedicos(2);
-        recursosOrigem.setVoluntarios(5);
-        recursosOrigem.setKitsMedicos(3);
-        recursosOrigem.setVeiculos(1);
-        recursosOrigem.setCestasBasicas(10);
+        Recursos recursosOrigem = new Recursos();
+        recursosOrigem.definir(TipoRecurso.MEDICOS, 2);
+        recursosOrigem.definir(TipoRecurso.VOLUNTARIOS, 5);
+        recursosOrigem.definir(TipoRecurso.KITS_MEDICOS, 3);
+        recursosOrigem.definir(TipoRecurso.VEICULOS, 1);
+        recursosOrigem.definir(TipoRecurso.CESTAS_BASICAS, 10);
         origem.setRecursos(recursosOrigem);
 
         CentroComunitario destino = new CentroComunitario();
@@ -168,24 +250,24 @@ public class CentroComunitarioServiceTest {
         destino.setNome("Centro B");
         destino.setCapacidadeMaxima(100);
         destino.setOcupacaoAtual(50);
-        CentroComunitario.Recursos recursosDestino = new CentroComunitario.Recursos();
-        recursosDestino.setMedicos(1);
-        recursosDestino.setVoluntarios(1);
-        recursosDestino.setKitsMedicos(1);
-        recursosDestino.setVeiculos(1);
-        recursosDestino.setCestasBasicas(5);
+        Recursos recursosDestino = new Recursos();
+        recursosDestino.definir(TipoRecurso.MEDICOS, 1);
+        recursosDestino.definir(TipoRecurso.VOLUNTARIOS, 1);
+        recursosDestino.definir(TipoRecurso.KITS_MEDICOS, 1);
+        recursosDestino.definir(TipoRecurso.VEICULOS, 1);
+        recursosDestino.definir(TipoRecurso.CESTAS_BASICAS, 5);
         destino.setRecursos(recursosDestino);
 
-        CentroComunitario.RecursosIntercambio recursosOrigemIntercambio = new CentroComunitario.RecursosIntercambio();
-        recursosOrigemIntercambio.setVoluntarios(2); // 2 * 3 = 6 pontos
-        recursosOrigemIntercambio.setVeiculos(1);   // 1 * 5 = 5 pontos (total: 11 pontos)
-        CentroComunitario.RecursosIntercambio recursosDestinoIntercambio = new CentroComunitario.RecursosIntercambio();
-        recursosDestinoIntercambio.setMedicos(1);   // 1 * 4 = 4 pontos
-        recursosDestinoIntercambio.setKitsMedicos(1); // 1 * 7 = 7 pontos (total: 11 pontos)
+        Recursos recursosOrigemIntercambio = new Recursos();
+        recursosOrigemIntercambio.definir(TipoRecurso.VOLUNTARIOS, 2); // 2 * 3 = 6 pontos
+        recursosOrigemIntercambio.definir(TipoRecurso.VEICULOS, 1);   // 1 * 5 = 5 pontos (total: 11 pontos)
+        Recursos recursosDestinoIntercambio = new Recursos();
+        recursosDestinoIntercambio.definir(TipoRecurso.MEDICOS, 1);   // 1 * 4 = 4 pontos
+        recursosDestinoIntercambio.definir(TipoRecurso.KITS_MEDICOS, 1); // 1 * 7 = 7 pontos (total: 11 pontos)
 
-        when(repository.findById("68815b1396ef83016f0fee2e")).thenReturn(Optional.of(origem));
-        when(repository.findById("68815ab396ef83016f0fee2d")).thenReturn(Optional.of(destino));
-        when(repository.save(any(CentroComunitario.class))).thenReturn(origem, destino);
+        when(cache.buscarTodos(List.of("68815b1396ef83016f0fee2e", "68815ab396ef83016f0fee2d")))
+                .thenReturn(List.of(origem, destino));
+        when(repository.aplicarIntercambio(any(), any(), any())).thenReturn(true);
         when(negociacaoRepository.save(any(Negociacao.class))).thenAnswer(i -> i.getArgument(0));
 
         Negociacao resultado = service.realizarIntercambio("68815b1396ef83016f0fee2e", "68815ab396ef83016f0fee2d",
@@ -196,10 +278,14 @@ public class CentroComunitarioServiceTest {
         assertEquals("68815ab396ef83016f0fee2d", resultado.getCentroDestinoId());
         assertEquals(11, resultado.getPontosOrigem());
         assertEquals(11, resultado.getPontosDestino());
-        assertEquals(2, resultado.getRecursosOrigem().getVoluntarios());
-        assertEquals(1, resultado.getRecursosOrigem().getVeiculos());
-        assertEquals(1, resultado.getRecursosDestino().getMedicos());
-        assertEquals(1, resultado.getRecursosDestino().getKitsMedicos());
+        verify(cache).invalidar(List.of("68815b1396ef83016f0fee2e", "68815ab396ef83016f0fee2d"));
+        assertEquals(2, resultado.getRecursosOrigem().quantidade(TipoRecurso.VOLUNTARIOS));
+        assertEquals(1, resultado.getRecursosOrigem().quantidade(TipoRecurso.VEICULOS));
+        assertEquals(1, resultado.getRecursosDestino().quantidade(TipoRecurso.MEDICOS));
+        assertEquals(1, resultado.getRecursosDestino().quantidade(TipoRecurso.KITS_MEDICOS));
+        for (String etapa : List.of("leitura", "validacao", "aplicacao", "gravacao", "indice")) {
+            assertEquals(1, registry.get("phoebus.intercambio.etapa").tag("etapa", etapa).timer().count());
+        }
     }
 
     @Test
@@ -209,8 +295,8 @@ public class CentroComunitarioServiceTest {
         origem.setNome("Centro A");
         origem.setCapacidadeMaxima(100);
         origem.setOcupacaoAtual(50);
-        CentroComunitario.Recursos recursosOrigem = new CentroComunitario.Recursos();
-        recursosOrigem.setMedicos(2);
+        Recursos recursosOrigem = new Recursos();
+        recursosOrigem.definir(TipoRecurso.MEDICOS, 2);
         origem.setRecursos(recursosOrigem);
 
         CentroComunitario destino = new CentroComunitario();
@@ -218,18 +304,21 @@ public class CentroComunitarioServiceTest {
         destino.setNome("Centro B");
         destino.setCapacidadeMaxima(100);
         destino.setOcupacaoAtual(91);
-        CentroComunitario.Recursos recursosDestino = new CentroComunitario.Recursos();
-        recursosDestino.setKitsMedicos(2);
+        Recursos recursosDestino = new Recursos();
+        recursosDestino.definir(TipoRecurso.KITS_MEDICOS, 2);
         destino.setRecursos(recursosDestino);
 
-        CentroComunitario.RecursosIntercambio recursosOrigemIntercambio = new CentroComunitario.RecursosIntercambio();
-        recursosOrigemIntercambio.setMedicos(1); // 1 * 4 = 4 pontos
-        CentroComunitario.RecursosIntercambio recursosDestinoIntercambio = new CentroComunitario.RecursosIntercambio();
-        recursosDestinoIntercambio.setKitsMedicos(1); // 1 * 7 = 7 pontos
-
-        when(repository.findById("68815b1396ef83016f0fee2e")).thenReturn(Optional.of(origem));
-        when(repository.findById("68815ab396ef83016f0fee2d")).thenReturn(Optional.of(destino));
-        when(repository.save(any(CentroComunitario.class))).thenReturn(origem, destino);
+        Recursos recursosOrigemIntercambio = new Recursos();
+        recursosOrigemIntercambio.definir(TipoRecurso.MEDICOS, 1); // 1 * 4 = 4 pontos
+        Recursos recursosDestinoIntercambio = new Recursos();
+        recursosDestinoIntercambio.definir(TipoRecurso.KITS_MEDICOS, 1); // 1 * 7 = 7 pontos
+
+        when(cache.buscarTodos(List.of("68815b1396ef83016f0fee2e", "68815ab396ef83016f0fee2d")))
+                .thenReturn(List.of(origem, destino));
+        when(repository.aplicarIntercambio(any(), any(), any())).thenReturn(true);
+        // A exceção de ocupação do destino é conferida de novo no documento
+        when(repository.aplicarIntercambio(eq("68815ab396ef83016f0fee2d"), any(), any(), eq(RegrasCentro.LIMITE_OCUPACAO_ALTA)))
+                .thenReturn(true);
         when(negociacaoRepository.save(any(Negociacao.class))).thenAnswer(i -> i.getArgument(0));
 
         Negociacao resultado = service.realizarIntercambio("68815b1396ef83016f0fee2e", "68815ab396ef83016f0fee2d",
@@ -240,6 +329,53 @@ public class CentroComunitarioServiceTest {
         assertEquals(7, resultado.getPontosDestino());
     }
 
+    @Test
+    public void testRealizarIntercambioOcupacaoCaiuDepoisDaLeituraRejeitaPontuacaoDiferente() {
+        CentroComunitario origem = new CentroComunitario();
+        origem.setId("68815b1396ef83016f0fee2e");
+        origem.setNome("Centro A");
+        origem.setCapacidadeMaxima(100);
+        origem.setOcupacaoAtual(50);
+        Recursos recursosOrigem = new Recursos();
+        recursosOrigem.definir(TipoRecurso.MEDICOS, 2);
+        origem.setRecursos(recursosOrigem);
+
+        CentroComunitario destino = new CentroComunitario();
+        destino.setId("68815ab396ef83016f0fee2d");
+        destino.setNome("Centro B");
+        destino.setCapacidadeMaxima(100);
+        destino.setOcupacaoAtual(91);
+        Recursos recursosDestino = new Recursos();
+        recursosDestino.definir(TipoRecurso.KITS_MEDICOS, 2);
+        destino.setRecursos(recursosDestino);
+
+        Recursos recursosOrigemIntercambio = new Recursos();
+        recursosOrigemIntercambio.definir(TipoRecurso.MEDICOS, 1); // 1 * 4 = 4 pontos
+        Recursos recursosDestinoIntercambio = new Recursos();
+        recursosDestinoIntercambio.definir(TipoRecurso.KITS_MEDICOS, 1); // 1 * 7 = 7 pontos
+
+        when(cache.buscarTodos(List.of("68815b1396ef83016f0fee2e", "68815ab396ef83016f0fee2d")))
+                .thenReturn(List.of(origem, destino));
+        when(repository.aplicarIntercambio(any(), any(), any())).thenReturn(true);
+        // O cache ainda mostra 91%, mas o destino já desceu para 80% no banco
+        when(repository.aplicarIntercambio(eq("68815ab396ef83016f0fee2d"), any(), any(), eq(RegrasCentro.LIMITE_OCUPACAO_ALTA)))
+                .thenReturn(false);
+        CentroComunitario destinoAtual = new CentroComunitario();
+        destinoAtual.setId("68815ab396ef83016f0fee2d");
+        destinoAtual.setCapacidadeMaxima(100);
+        destinoAtual.setOcupacaoAtual(80);
+        when(repository.findById("68815ab396ef83016f0fee2d")).thenReturn(Optional.of(destinoAtual));
+
+        IntercambioRejeitadoException erro = assertThrows(IntercambioRejeitadoException.class, () ->
+                service.realizarIntercambio("68815b1396ef83016f0fee2e", "68815ab396ef83016f0fee2d",
+                        recursosOrigemIntercambio, recursosDestinoIntercambio));
+
+        assertEquals(IntercambioRejeitadoException.Motivo.PONTUACAO_DIFERENTE, erro.getMotivo());
+        // A origem já aplicada é desfeita e nenhuma negociação é gravada
+        verify(repository).desfazerIntercambio("68815b1396ef83016f0fee2e", recursosOrigemIntercambio, recursosDestinoIntercambio);
+        verify(negociacaoRepository, never()).save(any(Negociacao.class));
+    }
+
     @Test
     public void testRealizarIntercambioRecursosInsuficientes() {
         CentroComunitario origem = new CentroComunitario();
@@ -247,8 +383,8 @@ public class CentroComunitarioServiceTest {
         origem.setNome("Centro A");
         origem.setCapacidadeMaxima(100);
         origem.setOcupacaoAtual(50);
-        CentroComunitario.Recursos recursosOrigem = new CentroComunitario.Recursos();
-        recursosOrigem.setMedicos(1);
+        Recursos recursosOrigem = new Recursos();
+        recursosOrigem.definir(TipoRecurso.MEDICOS, 1);
         origem.setRecursos(recursosOrigem);
 
         CentroComunitario destino = new CentroComunitario();
@@ -256,17 +392,17 @@ public class CentroComunitarioServiceTest {
         destino.setNome("Centro B");
         destino.setCapacidadeMaxima(100);
         destino.setOcupacaoAtual(50);
-        CentroComunitario.Recursos recursosDestino = new CentroComunitario.Recursos();
-        recursosDestino.setKitsMedicos(1);
+        Recursos recursosDestino = new Recursos();
+        recursosDestino.definir(TipoRecurso.KITS_MEDICOS, 1);
         destino.setRecursos(recursosDestino);
 
-        CentroComunitario.RecursosIntercambio recursosOrigemIntercambio = new CentroComunitario.RecursosIntercambio();
-        recursosOrigemIntercambio.setMedicos(2);
-        CentroComunitario.RecursosIntercambio recursosDestinoIntercambio = new CentroComunitario.RecursosIntercambio();
-        recursosDestinoIntercambio.setKitsMedicos(1);
+        Recursos recursosOrigemIntercambio = new Recursos();
+        recursosOrigemIntercambio.definir(TipoRecurso.MEDICOS, 2);
+        Recursos recursosDestinoIntercambio = new Recursos();
+        recursosDestinoIntercambio.definir(TipoRecurso.KITS_MEDICOS, 1);
 
-        when(repository.findById("68815b1396ef83016f0fee2e")).thenReturn(Optional.of(origem));
-        when(repository.findById("68815ab396ef83016f0fee2d")).thenReturn(Optional.of(destino));
+        when(cache.buscarTodos(List.of("68815b1396ef83016f0fee2e", "68815ab396ef83016f0fee2d")))
+                .thenReturn(List.of(origem, destino));
 
         assertThrows(IllegalArgumentException.class, () ->
                 service.realizarIntercambio("68815b1396ef83016f0fee2e", "68815ab396ef83016f0fee2d",
@@ -280,8 +416,8 @@ public class CentroComunitarioServiceTest {
         origem.setNome("Centro A");
         origem.setCapacidadeMaxima(100);
         origem.setOcupacaoAtual(50);
-        CentroComunitario.Recursos recursosOrigem = new CentroComunitario.Recursos();
-        recursosOrigem.setMedicos(2);
+        Recursos recursosOrigem = new Recursos();
+        recursosOrigem.definir(TipoRecurso.MEDICOS, 2);
         origem.setRecursos(recursosOrigem);
 
         CentroComunitario destino = new CentroComunitario();
@@ -289,21 +425,23 @@ public class CentroComunitarioServiceTest {
         destino.setNome("Centro B");
         destino.setCapacidadeMaxima(100);
         destino.setOcupacaoAtual(50);
-        CentroComunitario.Recursos recursosDestino = new CentroComunitario.Recursos();
-        recursosDestino.setKitsMedicos(2);
+        Recursos recursosDestino = new Recursos();
+        recursosDestino.definir(TipoRecurso.KITS_MEDICOS, 2);
         destino.setRecursos(recursosDestino);
 
-        CentroComunitario.RecursosIntercambio recursosOrigemIntercambio = new CentroComunitario.RecursosIntercambio();
-        recursosOrigemIntercambio.setMedicos(1);
-        CentroComunitario.RecursosIntercambio recursosDestinoIntercambio = new CentroComunitario.RecursosIntercambio();
-        recursosDestinoIntercambio.setKitsMedicos(1);
+        Recursos recursosOrigemIntercambio = new Recursos();
+        recursosOrigemIntercambio.definir(TipoRecurso.MEDICOS, 1);
+        Recursos recursosDestinoIntercambio = new Recursos();
+        recursosDestinoIntercambio.definir(TipoRecurso.KITS_MEDICOS, 1);
 
-        when(repository.findById("68815b1396ef83016f0fee2e")).thenReturn(Optional.of(origem));
-        when(repository.findById("68815ab396ef83016f0fee2d")).thenReturn(Optional.of(destino));
+        when(cache.buscarTodos(List.of("68815b1396ef83016f0fee2e", "68815ab396ef83016f0fee2d")))
+                .thenReturn(List.of(origem, destino));
 
         assertThrows(IllegalArgumentException.class, () ->
                 service.realizarIntercambio("68815b1396ef83016f0fee2e", "68815ab396ef83016f0fee2d",
                         recursosOrigemIntercambio, recursosDestinoIntercambio));
+        assertEquals(1, rejeicoes("pontuacao-diferente"));
+        assertEquals(0, rejeicoes("saldo-insuficiente"));
     }
 
     @Test
@@ -313,8 +451,8 @@ public class CentroComunitarioServiceTest {
         origem.setNome("Centro A");
         origem.setCapacidadeMaxima(100);
         origem.setOcupacaoAtual(50);
-        CentroComunitario.Recursos recursosOrigem = new CentroComunitario.Recursos();
-        recursosOrigem.setVoluntarios(5);
+        Recursos recursosOrigem = new Recursos();
+        recursosOrigem.definir(TipoRecurso.VOLUNTARIOS, 5);
         origem.setRecursos(recursosOrigem);
 
         CentroComunitario destino = new CentroComunitario();
@@ -322,31 +460,81 @@ public class CentroComunitarioServiceTest {
         destino.setNome("Centro B");
         destino.setCapacidadeMaxima(100);
         destino.setOcupacaoAtual(50);
-        CentroComunitario.Recursos recursosDestino = new CentroComunitario.Recursos();
-        recursosDestino.setMedicos(1);
+        Recursos recursosDestino = new Recursos();
+        recursosDestino.definir(TipoRecurso.MEDICOS, 1);
         destino.setRecursos(recursosDestino);
 
-        CentroComunitario.RecursosIntercambio recursosOrigemIntercambio = new CentroComunitario.RecursosIntercambio();
-        recursosOrigemIntercambio.setVoluntarios(-1);
-        CentroComunitario.RecursosIntercambio recursosDestinoIntercambio = new CentroComunitario.RecursosIntercambio();
-        recursosDestinoIntercambio.setMedicos(1);
+        Recursos recursosOrigemIntercambio = new Recursos();
+        recursosOrigemIntercambio.definir(TipoRecurso.VOLUNTARIOS, -1);
+        Recursos recursosDestinoIntercambio = new Recursos();
+        recursosDestinoIntercambio.definir(TipoRecurso.MEDICOS, 1);
 
-        when(repository.findById("68815b1396ef83016f0fee2e")).thenReturn(Optional.of(origem));
-        when(repository.findById("68815ab396ef83016f0fee2d")).thenReturn(Optional.of(destino));
+        when(cache.buscarTodos(List.of("68815b1396ef83016f0fee2e", "68815ab396ef83016f0fee2d")))
+                .thenReturn(List.of(origem, destino));
 
         assertThrows(IllegalArgumentException.class, () ->
                 service.realizarIntercambio("68815b1396ef83016f0fee2e", "68815ab396ef83016f0fee2d",
                         recursosOrigemIntercambio, recursosDestinoIntercambio));
     }
 
+    @Test
+    public void testRealizarIntercambioConcorrenteCompensaOrigem() {
+        CentroComunitario origem = new CentroComunitario();
+        origem.setId("68815b1396ef83016f0fee2e");
+        origem.setCapacidadeMaxima(100);
+        Recursos recursosOrigem = new Recursos();
+        recursosOrigem.definir(TipoRecurso.MEDICOS, 2);
+        origem.setRecursos(recursosOrigem);
+
+        CentroComunitario destino = new CentroComunitario();
+        destino.setId("68815ab396ef83016f0fee2d");
+        destino.setCapacidadeMaxima(100);
+        Recursos recursosDestino = new Recursos();
+        recursosDestino.definir(TipoRecurso.MEDICOS, 2);
+        destino.setRecursos(recursosDestino);
+
+        Recursos recursosOrigemIntercambio = new Recursos();
+        recursosOrigemIntercambio.definir(TipoRecurso.MEDICOS, 1);
+        Recursos recursosDestinoIntercambio = new Recursos();
+        recursosDestinoIntercambio.definir(TipoRecurso.MEDICOS, 1);
+
+        when(cache.buscarTodos(List.of("68815b1396ef83016f0fee2e", "68815ab396ef83016f0fee2d")))
+                .thenReturn(List.of(destino, origem));
+        // Outro intercâmbio consumiu o saldo do destino entre a leitura e a atualização
+        when(repository.aplicarIntercambio("68815b1396ef83016f0fee2e", recursosOrigemIntercambio, recursosDestinoIntercambio))
+                .thenReturn(true);
+        when(repository.aplicarIntercambio("68815ab396ef83016f0fee2d", recursosDestinoIntercambio, recursosOrigemIntercambio))
+                .thenReturn(false);
+
+        assertThrows(IllegalArgumentException.class, () ->
+                service.realizarIntercambio("68815b1396ef83016f0fee2e", "68815ab396ef83016f0fee2d",
+                        recursosOrigemIntercambio, recursosDestinoIntercambio));
+        verify(repository).desfazerIntercambio("68815b1396ef83016f0fee2e", recursosOrigemIntercambio, recursosDestinoIntercambio);
+        verify(negociacaoRepository, never()).save(any(Negociacao.class));
+    }
+
+    @Test
+    public void testRealizarIntercambioCentroDestinoNaoEncontrado() {
+        CentroComunitario origem = new CentroComunitario();
+        origem.setId("68815b1396ef83016f0fee2e");
+        origem.setRecursos(new Recursos());
+
+        when(cache.buscarTodos(List.of("68815b1396ef83016f0fee2e", "68815ab396ef83016f0fee2d")))
+                .thenReturn(List.of(origem));
+
+        assertThrows(IllegalArgumentException.class, () ->
+                service.realizarIntercambio("68815b1396ef83016f0fee2e", "68815ab396ef83016f0fee2d",
+                        new Recursos(), new Recursos()));
+    }
+
     @Test
     public void testRealizarIntercambioMesmosCentros() {
-        CentroComunitario.RecursosIntercambio recursosOrigemIntercambio = new CentroComunitario.RecursosIntercambio();
-        recursosOrigemIntercambio.setVoluntarios(2);
-        recursosOrigemIntercambio.setVeiculos(1);
-        CentroComunitario.RecursosIntercambio recursosDestinoIntercambio = new CentroComunitario.RecursosIntercambio();
-        recursosDestinoIntercambio.setMedicos(1);
-        recursosDestinoIntercambio.setKitsMedicos(1);
+        Recursos recursosOrigemIntercambio = new Recursos();
+        recursosOrigemIntercambio.definir(TipoRecurso.VOLUNTARIOS, 2);
+        recursosOrigemIntercambio.definir(TipoRecurso.VEICULOS, 1);
+        Recursos recursosDestinoIntercambio = new Recursos();
+        recursosDestinoIntercambio.definir(TipoRecurso.MEDICOS, 1);
+        recursosDestinoIntercambio.definir(TipoRecurso.KITS_MEDICOS, 1);
 
         assertThrows(IllegalArgumentException.class, () ->
                 service.realizarIntercambio("68815b1396ef83016f0fee2e", "68815b1396ef83016f0fee2e",
@@ -360,8 +548,8 @@ public class CentroComunitarioServiceTest {
         origem.setNome("Centro A");
         origem.setCapacidadeMaxima(100);
         origem.setOcupacaoAtual(50);
-        CentroComunitario.Recursos recursosOrigem = new CentroComunitario.Recursos();
-        recursosOrigem.setCestasBasicas(10);
+        Recursos recursosOrigem = new Recursos();
+        recursosOrigem.definir(TipoRecurso.CESTAS_BASICAS, 10);
         origem.setRecursos(recursosOrigem);
 
         CentroComunitario destino = new CentroComunitario();
@@ -369,18 +557,18 @@ public class CentroComunitarioServiceTest {
         destino.setNome("Centro B");
         destino.setCapacidadeMaxima(100);
         destino.setOcupacaoAtual(50);
-        CentroComunitario.Recursos recursosDestino = new CentroComunitario.Recursos();
-        recursosDestino.setVoluntarios(5);
+        Recursos recursosDestino = new Recursos();
+        recursosDestino.definir(TipoRecurso.VOLUNTARIOS, 5);
         destino.setRecursos(recursosDestino);
 
-        CentroComunitario.RecursosIntercambio recursosOrigemIntercambio = new CentroComunitario.RecursosIntercambio();
-        recursosOrigemIntercambio.setCestasBasicas(3);
-        CentroComunitario.RecursosIntercambio recursosDestinoIntercambio = new CentroComunitario.RecursosIntercambio();
-        recursosDestinoIntercambio.setVoluntarios(2);
+        Recursos recursosOrigemIntercambio = new Recursos();
+        recursosOrigemIntercambio.definir(TipoRecurso.CESTAS_BASICAS, 3);
+        Recursos recursosDestinoIntercambio = new Recursos();
+        recursosDestinoIntercambio.definir(TipoRecurso.VOLUNTARIOS, 2);
 
-        when(repository.findById("68815b1396ef83016f0fee2e")).thenReturn(Optional.of(origem));
-        when(repository.findById("68815ab396ef83016f0fee2d")).thenReturn(Optional.of(destino));
-        when(repository.save(any(CentroComunitario.class))).thenReturn(origem, destino);
+        when(cache.buscarTodos(List.of("68815b1396ef83016f0fee2e", "68815ab396ef83016f0fee2d")))
+                .thenReturn(List.of(origem, destino));
+        when(repository.aplicarIntercambio(any(), any(), any())).thenReturn(true);
         when(negociacaoRepository.save(any(Negociacao.class))).thenAnswer(i -> i.getArgument(0));
 
         Negociacao resultado = service.realizarIntercambio("68815b1396ef83016f0fee2e", "68815ab396ef83016f0fee2d",
@@ -389,8 +577,114 @@ public class CentroComunitarioServiceTest {
         assertNotNull(resultado);
         assertEquals(6, resultado.getPontosOrigem());
         assertEquals(6, resultado.getPontosDestino());
-        assertEquals(3, resultado.getRecursosOrigem().getCestasBasicas());
-        assertEquals(2, resultado.getRecursosDestino().getVoluntarios());
+        assertEquals(3, resultado.getRecursosOrigem().quantidade(TipoRecurso.CESTAS_BASICAS));
+        assertEquals(2, resultado.getRecursosDestino().quantidade(TipoRecurso.VOLUNTARIOS));
+    }
+
+    @Test
+    public void testRealizarIntercambiosEmLoteUsaSaldosDosAnteriores() {
+        CentroComunitario centroA = centroComRecursos("a", 3, 0);
+        CentroComunitario centroB = centroComRecursos("b", 0, 4);
+        CentroComunitario centroC = centroComRecursos("c", 3, 0);
+
+        // A só possui os voluntários do segundo intercâmbio depois de recebê-los no primeiro (4 * 3 = 3 * 4 pontos)
+        List<IntercambioRequest> requests = List.of(
+                intercambio("b", "a", 0, 4, 3, 0),
+                intercambio("a", "c", 0, 4, 3, 0),
+                intercambio("a", "b", 0, 4, 3, 0));
+
+        when(repository.findAllById(any())).thenReturn(List.of(centroA, centroB, centroC));
+        when(repository.aplicarVariacoesEmLote(any(), any())).thenAnswer(i -> ((Map<?, ?>) i.getArgument(1)).size());
+        when(repository.decidirLote(any(), eq(true))).thenReturn(true);
+
+        List<ResultadoIntercambio> resultados = service.realizarIntercambiosEmLote(requests);
+
+        assertTrue(resultados.get(0).isSucesso());
+        assertTrue(resultados.get(1).isSucesso());
+        assertFalse(resultados.get(2).isSucesso());
+        assertEquals(4, centroC.getRecursos().quantidade(TipoRecurso.VOLUNTARIOS));
+        assertEquals(3, centroA.getRecursos().quantidade(TipoRecurso.MEDICOS));
+        verify(negociacaoRepository).saveAll(argThat((List<Negociacao> negociacoes) -> negociacoes.size() == 2));
+        verify(negociacaoRepository).concluirLote(any());
+        verify(repository).concluirLote(any(), any());
+        assertNull(resultados.get(0).getNegociacao().getLote());
+        verify(indiceExcedentes).registrarIntercambio(eq("c"), any(Recursos.class), argThat((Recursos variacao) ->
+                variacao.quantidade(TipoRecurso.VOLUNTARIOS) == 4 && variacao.quantidade(TipoRecurso.MEDICOS) == -3));
+        verify(indiceExcedentes, never()).atualizar(any());
+    }
+
+    @Test
+    public void testRealizarIntercambiosEmLoteConflitoDesfazLote() {
+        CentroComunitario centroA = centroComRecursos("a", 3, 0);
+        CentroComunitario centroB = centroComRecursos("b", 0, 4);
+
+        when(repository.findAllById(any())).thenReturn(List.of(centroA, centroB));
+        // Só um dos dois centros ainda tinha o saldo lido
+        when(repository.aplicarVariacoesEmLote(any(), any())).thenReturn(1);
+
+        List<ResultadoIntercambio> resultados = service.realizarIntercambiosEmLote(
+                List.of(intercambio("a", "b", 3, 0, 0, 4)));
+
+        assertFalse(resultados.get(0).isSucesso());
+        verify(repository).desfazerLote(any());
+        verify(negociacaoRepository, never()).saveAll(any());
+        assertEquals(1, rejeicoes("saldo-alterado"));
+    }
+
+    @Test
+    public void testRealizarIntercambiosEmLoteDesfeitoPelaRecuperacao() {
+        CentroComunitario centroA = centroComRecursos("a", 3, 0);
+        CentroComunitario centroB = centroComRecursos("b", 0, 4);
+
+        when(repository.findAllById(any())).thenReturn(List.of(centroA, centroB));
+        when(repository.aplicarVariacoesEmLote(any(), any())).thenReturn(2);
+        // A recuperação de lotes decidiu desfazer o lote antes da confirmação
+        when(repository.decidirLote(any(), eq(true))).thenReturn(false);
+
+        List<ResultadoIntercambio> resultados = service.realizarIntercambiosEmLote(
+                List.of(intercambio("a", "b", 3, 0, 0, 4)));
+
+        assertFalse(resultados.get(0).isSucesso());
+        verify(negociacaoRepository).removerLote(any());
+        verify(repository).desfazerLote(any());
+        verify(repository, never()).concluirLote(any(), any());
+        verify(negociacaoRepository, never()).concluirLote(any());
+        verify(indiceExcedentes, never()).registrarIntercambio(any(), any(), any());
+    }
+
+    @Test
+    public void testRealizarIntercambiosEmLoteExcedeTamanhoMaximo() {
+        properties.getIntercambio().setTamanhoMaximoLote(1);
+
+        assertThrows(IllegalArgumentException.class, () -> service.realizarIntercambiosEmLote(
+                List.of(new IntercambioRequest(), new IntercambioRequest())));
+    }
+
+    private CentroComunitario centroComRecursos(String id, int medicos, int voluntarios) {
+        CentroComunitario centro = new CentroComunitario();
+        centro.setId(id);
+        centro.setCapacidadeMaxima(100);
+        Recursos recursos = new Recursos();
+        recursos.definir(TipoRecurso.MEDICOS, medicos);
+        recursos.definir(TipoRecurso.VOLUNTARIOS, voluntarios);
+        centro.setRecursos(recursos);
+        return centro;
+    }
+
+    private IntercambioRequest intercambio(String origemId, String destinoId, int medicosOrigem, int voluntariosOrigem,
+                                           int medicosDestino, int voluntariosDestino) {
+        IntercambioRequest request = new IntercambioRequest();
+        request.setCentroOrigemId(origemId);
+        request.setCentroDestinoId(destinoId);
+        Recursos recursosOrigem = new Recursos();
+        recursosOrigem.definir(TipoRecurso.MEDICOS, medicosOrigem);
+        recursosOrigem.definir(TipoRecurso.VOLUNTARIOS, voluntariosOrigem);
+        Recursos recursosDestino = new Recursos();
+        recursosDestino.definir(TipoRecurso.MEDICOS, medicosDestino);
+        recursosDestino.definir(TipoRecurso.VOLUNTARIOS, voluntariosDestino);
+        request.setRecursosOrigem(recursosOrigem);
+        request.setRecursosDestino(recursosDestino);
+        return request;
     }
 
     @Test
@@ -400,23 +694,19 @@ public class CentroComunitarioServiceTest {
         centro1.setNome("Centro A");
         centro1.setCapacidadeMaxima(100);
         centro1.setOcupacaoAtual(91); // > 90%
-        CentroComunitario centro2 = new CentroComunitario();
-        centro2.setId("2");
-        centro2.setNome("Centro B");
-        centro2.setCapacidadeMaxima(100);
-        centro2.setOcupacaoAtual(50); // < 90%
 
-        when(repository.findAll()).thenReturn(Arrays.asList(centro1, centro2));
+        when(repository.findByTaxaOcupacaoGreaterThan(eq(0.9), any(Pageable.class))).thenReturn(List.of(centro1));
 
         List<CentroComunitario> resultado = service.listarCentrosAltaOcupacao();
 
         assertEquals(1, resultado.size());
         assertEquals("Centro A", resultado.get(0).getNome());
+        assertEquals(0.91, resultado.get(0).getTaxaOcupacao(), 0.001);
     }
 
     @Test
     public void testListarCentrosAltaOcupacaoSemCentros() {
-        when(repository.findAll()).thenReturn(Collections.emptyList());
+        when(repository.findByTaxaOcupacaoGreaterThan(eq(0.9), any(Pageable.class))).thenReturn(Collections.emptyList());
 
         List<CentroComunitario> resultado = service.listarCentrosAltaOcupacao();
 
@@ -424,56 +714,161 @@ public class CentroComunitarioServiceTest {
     }
 
     @Test
-    public void testCalcularMediaRecursos() {
-        CentroComunitario centro1 = new CentroComunitario();
-        centro1.setId("1");
-        CentroComunitario.Recursos recursos1 = new CentroComunitario.Recursos();
-        recursos1.setMedicos(2);
-        recursos1.setVoluntarios(4);
-        recursos1.setKitsMedicos(3);
-        recursos1.setVeiculos(1);
-        recursos1.setCestasBasicas(10);
-        centro1.setRecursos(recursos1);
+    public void testListarCentrosAltaOcupacaoComLimiteEOrdem() {
+        ArgumentCaptor<Pageable> pageable = ArgumentCaptor.forClass(Pageable.class);
+        when(repository.findByTaxaOcupacaoGreaterThan(eq(0.5), pageable.capture())).thenReturn(Collections.emptyList());
 
-        CentroComunitario centro2 = new CentroComunitario();
-        centro2.setId("2");
-        CentroComunitario.Recursos recursos2 = new CentroComunitario.Recursos();
-        recursos2.setMedicos(4);
-        recursos2.setVoluntarios(6);
-        recursos2.setKitsMedicos(1);
-        recursos2.setVeiculos(3);
-        recursos2.setCestasBasicas(5);
-        centro2.setRecursos(recursos2);
+        service.listarCentrosAltaOcupacao(0.5, Sort.Direction.ASC, 10);
 
-        when(repository.findAll()).thenReturn(Arrays.asList(centro1, centro2));
+        assertEquals(10, pageable.getValue().getPageSize());
+        assertEquals(Sort.Direction.ASC, pageable.getValue().getSort().getOrderFor("taxaOcupacao").getDirection());
+    }
 
-        CentroComunitarioService.RecursosMedia resultado = service.calcularMediaRecursos();
+    @Test
+    public void testListarCentrosProximos() {
+        CentroComunitario centro = new CentroComunitario();
+        centro.setId("1");
+        centro.setNome("Centro A");
+        centro.setCapacidadeMaxima(100);
+        centro.setOcupacaoAtual(60);
+        CentroComunitario.Localizacao localizacao = new CentroComunitario.Localizacao();
+        localizacao.setLatitude(-23.55);
+        localizacao.setLongitude(-46.63);
+        centro.setLocalizacao(localizacao);
+
+        when(repository.buscarProximos(-23.5, -46.6, 5, 10, 20)).thenReturn(new GeoResults<>(
+                List.of(new GeoResult<>(centro, new Distance(6.2, Metrics.KILOMETERS))), Metrics.KILOMETERS));
+
+        List<CentroProximo> resultado = service.listarCentrosProximos(-23.5, -46.6, 5, 10, null);
+
+        assertEquals(1, resultado.size());
+        assertEquals(6.2, resultado.get(0).getDistanciaKm(), 0.001);
+        assertEquals(40, resultado.get(0).getCentro().getVagasDisponiveis());
+        assertEquals(List.of(-46.63, -23.55), resultado.get(0).getCentro().getPosicao().getCoordinates());
+    }
+
+    @Test
+    public void testListarCentrosProximosParametrosInvalidos() {
+        assertThrows(IllegalArgumentException.class, () -> service.listarCentrosProximos(91, 0, 5, 1, null));
+        assertThrows(IllegalArgumentException.class, () -> service.listarCentrosProximos(0, 0, 0, 1, null));
+        assertThrows(IllegalArgumentException.class, () -> service.listarCentrosProximos(0, 0, 5, 0, null));
+        assertThrows(IllegalArgumentException.class, () -> service.listarCentrosProximos(0, 0, 5, 1, 1001));
+    }
+
+    @Test
+    public void testListarCentrosAltaOcupacaoTaxaInvalida() {
+        assertThrows(IllegalArgumentException.class, () ->
+                service.listarCentrosAltaOcupacao(1.5, Sort.Direction.DESC, null));
+    }
+
+    @Test
+    public void testCalcularDistribuicaoRecursosAntesDaCargaDoIndice() {
+        when(indiceExcedentes.isCarregado()).thenReturn(false);
 
-        assertEquals(3.0, resultado.getMedicos(), 0.01);
-        assertEquals(5.0, resultado.getVoluntarios(), 0.01);
-        assertEquals(2.0, resultado.getKitsMedicos(), 0.01);
-        assertEquals(2.0, resultado.getVeiculos(), 0.01);
-        assertEquals(7.5, resultado.getCestasBasicas(), 0.01);
+        assertThrows(IndiceIndisponivelException.class, () -> service.calcularDistribuicaoRecursos());
+        // A varredura da coleção nunca é feita na requisição
+        verify(indiceExcedentes, never()).carregar();
+    }
+
+    @Test
+    public void testCalcularMediaRecursos() {
+        RecursosMedia media = new RecursosMedia();
+        media.definir(TipoRecurso.MEDICOS, 3.0);
+        media.definir(TipoRecurso.VOLUNTARIOS, 5.0);
+        media.definir(TipoRecurso.KITS_MEDICOS, 2.0);
+        media.definir(TipoRecurso.VEICULOS, 2.0);
+        media.definir(TipoRecurso.CESTAS_BASICAS, 7.5);
+
+        when(repository.calcularMediaRecursos()).thenReturn(Optional.of(media));
+
+        RecursosMedia resultado = service.calcularMediaRecursos();
+
+        assertEquals(3.0, resultado.media(TipoRecurso.MEDICOS), 0.01);
+        assertEquals(5.0, resultado.media(TipoRecurso.VOLUNTARIOS), 0.01);
+        assertEquals(2.0, resultado.media(TipoRecurso.KITS_MEDICOS), 0.01);
+        assertEquals(2.0, resultado.media(TipoRecurso.VEICULOS), 0.01);
+        assertEquals(7.5, resultado.media(TipoRecurso.CESTAS_BASICAS), 0.01);
     }
 
     @Test
     public void testCalcularMediaRecursosSemCentros() {
-        when(repository.findAll()).thenReturn(Collections.emptyList());
+        when(repository.calcularMediaRecursos()).thenReturn(Optional.empty());
 
-        CentroComunitarioService.RecursosMedia resultado = service.calcularMediaRecursos();
+        RecursosMedia resultado = service.calcularMediaRecursos();
 
-        assertEquals(0.0, resultado.getMedicos(), 0.01);
-        assertEquals(0.0, resultado.getVoluntarios(), 0.01);
-        assertEquals(0.0, resultado.getKitsMedicos(), 0.01);
-        assertEquals(0.0, resultado.getVeiculos(), 0.01);
-        assertEquals(0.0, resultado.getCestasBasicas(), 0.01);
+        assertEquals(0.0, resultado.media(TipoRecurso.MEDICOS), 0.01);
+        assertEquals(0.0, resultado.media(TipoRecurso.VOLUNTARIOS), 0.01);
+        assertEquals(0.0, resultado.media(TipoRecurso.KITS_MEDICOS), 0.01);
+        assertEquals(0.0, resultado.media(TipoRecurso.VEICULOS), 0.01);
+        assertEquals(0.0, resultado.media(TipoRecurso.CESTAS_BASICAS), 0.01);
     }
 
     @Test
-    public void testListarNegociacoesPorCentro() {
+    public void testCalcularMediaRecursosTotaisAcumulados() {
+        properties.getRelatorios().setMediaRecursos(PhoebusProperties.ModoMediaRecursos.TOTAIS_ACUMULADOS);
+        EstatisticasRecursos estatisticas = new EstatisticasRecursos();
+        estatisticas.setTotalCentros(2);
+        estatisticas.definirTotal(TipoRecurso.MEDICOS, 6);
+        estatisticas.definirTotal(TipoRecurso.VOLUNTARIOS, 10);
+        estatisticas.definirTotal(TipoRecurso.KITS_MEDICOS, 4);
+        estatisticas.definirTotal(TipoRecurso.VEICULOS, 4);
+        estatisticas.definirTotal(TipoRecurso.CESTAS_BASICAS, 15);
+
+        when(estatisticasRepository.findById(EstatisticasRecursos.ID_GLOBAL)).thenReturn(Optional.of(estatisticas));
+
+        RecursosMedia resultado = service.calcularMediaRecursos();
+
+        assertEquals(3.0, resultado.media(TipoRecurso.MEDICOS), 0.01);
+        assertEquals(5.0, resultado.media(TipoRecurso.VOLUNTARIOS), 0.01);
+        assertEquals(7.5, resultado.media(TipoRecurso.CESTAS_BASICAS), 0.01);
+        verify(repository, never()).calcularMediaRecursos();
+    }
+
+    @Test
+    public void testAdicionarCentroAtualizaTotaisAcumulados() {
+        properties.getRelatorios().setMediaRecursos(PhoebusProperties.ModoMediaRecursos.TOTAIS_ACUMULADOS);
         CentroComunitario centro = new CentroComunitario();
-        centro.setId("68815b1396ef83016f0fee2e");
+        centro.setNome("Centro F");
+        centro.setEndereco("Rua Teste, 202");
+        centro.setLocalizacao(new CentroComunitario.Localizacao());
+        centro.setCapacidadeMaxima(100);
+        Recursos recursos = new Recursos();
+        recursos.definir(TipoRecurso.MEDICOS, 2);
+        centro.setRecursos(recursos);
+
+        when(repository.substituir(centro)).thenReturn(Optional.empty());
+
+        service.adicionarCentro(centro);
+
+        verify(estatisticasRepository).incrementar(eq(1), eq(recursos));
+    }
+
+    @Test
+    public void testReenvioDeCentroAplicaSoADiferencaNosTotais() {
+        properties.getRelatorios().setMediaRecursos(PhoebusProperties.ModoMediaRecursos.TOTAIS_ACUMULADOS);
+        CentroComunitario centro = new CentroComunitario();
+        centro.setId("1");
+        centro.setNome("Centro F");
+        centro.setEndereco("Rua Teste, 202");
+        centro.setLocalizacao(new CentroComunitario.Localizacao());
+        centro.setCapacidadeMaxima(100);
+        centro.setRecursos(Recursos.de(TipoRecurso.MEDICOS, 5));
+        CentroComunitario anterior = new CentroComunitario();
+        anterior.setId("1");
+        anterior.setRecursos(Recursos.de(TipoRecurso.MEDICOS, 2));
 
+        // O documento anterior vem da própria gravação, sem findById separado
+        when(repository.substituir(centro)).thenReturn(Optional.of(anterior));
+
+        service.adicionarCentro(centro);
+
+        verify(estatisticasRepository).incrementar(0, Recursos.de(TipoRecurso.MEDICOS, 3));
+        verify(estatisticasRepository, times(1)).incrementar(anyInt(), any(Recursos.class));
+        verify(repository, never()).findById(any());
+    }
+
+    @Test
+    public void testListarNegociacoesPorCentro() {
         Negociacao negociacao1 = new Negociacao();
         negociacao1.setCentroOrigemId("68815b1396ef83016f0fee2e");
         negociacao1.setCentroDestinoId("68815ab396ef83016f0fee2d");
@@ -484,13 +879,9 @@ public class CentroComunitarioServiceTest {
         negociacao2.setCentroDestinoId("68815b1396ef83016f0fee2e");
         negociacao2.setDataHora(LocalDateTime.now().minusHours(1));
 
-        Negociacao negociacao3 = new Negociacao();
-        negociacao3.setCentroOrigemId("other");
-        negociacao3.setCentroDestinoId("another");
-        negociacao3.setDataHora(LocalDateTime.now());
-
-        when(repository.findById("68815b1396ef83016f0fee2e")).thenReturn(Optional.of(centro));
-        when(negociacaoRepository.findAll()).thenReturn(Arrays.asList(negociacao1, negociacao2, negociacao3));
+        when(cache.existe("68815b1396ef83016f0fee2e")).thenReturn(true);
+        when(negociacaoRepository.buscarPorCentro("68815b1396ef83016f0fee2e", null, null, null))
+                .thenReturn(Arrays.asList(negociacao1, negociacao2));
 
         List<Negociacao> resultado = service.listarNegociacoesPorCentro("68815b1396ef83016f0fee2e", null);
 
@@ -501,32 +892,47 @@ public class CentroComunitarioServiceTest {
 
     @Test
     public void testListarNegociacoesPorCentroComDataInicio() {
-        CentroComunitario centro = new CentroComunitario();
-        centro.setId("68815b1396ef83016f0fee2e");
-
-        Negociacao negociacao1 = new Negociacao();
-        negociacao1.setCentroOrigemId("68815b1396ef83016f0fee2e");
-        negociacao1.setCentroDestinoId("68815ab396ef83016f0fee2d");
-        negociacao1.setDataHora(LocalDateTime.now().minusHours(4));
-
         Negociacao negociacao2 = new Negociacao();
         negociacao2.setCentroOrigemId("68815b1396ef83016f0fee2e");
         negociacao2.setCentroDestinoId("68815ab396ef83016f0fee2d");
         negociacao2.setDataHora(LocalDateTime.now().minusHours(2));
 
-        when(repository.findById("68815b1396ef83016f0fee2e")).thenReturn(Optional.of(centro));
-        when(negociacaoRepository.findAll()).thenReturn(Arrays.asList(negociacao1, negociacao2));
-
         LocalDateTime dataInicio = LocalDateTime.now().minusHours(3);
+        when(cache.existe("68815b1396ef83016f0fee2e")).thenReturn(true);
+        when(negociacaoRepository.buscarPorCentro("68815b1396ef83016f0fee2e", dataInicio, null, null))
+                .thenReturn(List.of(negociacao2));
+
         List<Negociacao> resultado = service.listarNegociacoesPorCentro("68815b1396ef83016f0fee2e", dataInicio);
 
         assertEquals(1, resultado.size());
         assertEquals(negociacao2, resultado.get(0));
     }
 
+    @Test
+    public void testListarNegociacoesPorCentroComCursor() {
+        LocalDateTime dataHora = LocalDateTime.of(2025, 7, 23, 17, 6, 15);
+        String cursor = new CursorNegociacao(dataHora, "68815c0096ef83016f0fee30").codificar();
+
+        when(cache.existe("68815b1396ef83016f0fee2e")).thenReturn(true);
+        when(negociacaoRepository.buscarPorCentro("68815b1396ef83016f0fee2e", null,
+                new CursorNegociacao(dataHora, "68815c0096ef83016f0fee30"), 50)).thenReturn(Collections.emptyList());
+
+        List<Negociacao> resultado = service.listarNegociacoesPorCentro("68815b1396ef83016f0fee2e", null, cursor, 50);
+
+        assertTrue(resultado.isEmpty());
+    }
+
+    @Test
+    public void testListarNegociacoesPorCentroCursorInvalido() {
+        when(cache.existe("68815b1396ef83016f0fee2e")).thenReturn(true);
+
+        assertThrows(IllegalArgumentException.class, () ->
+                service.listarNegociacoesPorCentro("68815b1396ef83016f0fee2e", null, "nao-e-um-cursor", 50));
+    }
+
     @Test
     public void testListarNegociacoesPorCentroCentroNaoEncontrado() {
-        when(repository.findById("68815b1396ef83016f0fee2e")).thenReturn(Optional.empty());
+        when(cache.existe("68815b1396ef83016f0fee2e")).thenReturn(false);
 
         assertThrows(IllegalArgumentException.class, () ->
                 service.listarNegociacoesPorCentro("68815b1396ef83016f0fee2e", null));
@@ -534,13 +940,14 @@ public class CentroComunitarioServiceTest {
 
     @Test
     public void testListarNegociacoesPorCentroDataFutura() {
-        CentroComunitario centro = new CentroComunitario();
-        centro.setId("68815b1396ef83016f0fee2e");
-
-        when(repository.findById("68815b1396ef83016f0fee2e")).thenReturn(Optional.of(centro));
+        when(cache.existe("68815b1396ef83016f0fee2e")).thenReturn(true);
 
         LocalDateTime dataFutura = LocalDateTime.now().plusHours(1);
         assertThrows(IllegalArgumentException.class, () ->
                 service.listarNegociacoesPorCentro("68815b1396ef83016f0fee2e", dataFutura));
     }
-}
\ No newline at end of file
+
+    private double rejeicoes(String motivo) {
+        return registry.get("phoebus.intercambio.rejeicoes").tag("motivo", motivo).counter().count();
+    }
+}
@@ -0,0 +1,73 @@
+package com.phoebus.communityapi.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DistribuicaoValoresTest {
+
+    @Test
+    public void testQuantisDentroDoErroRelativo() {
+        DistribuicaoValores distribuicao = new DistribuicaoValores(0.01);
+        for (int valor = 1; valor <= 1000; valor++) {
+            distribuicao.adicionar(valor);
+        }
+
+        assertEquals(1000, distribuicao.getTotal());
+        assertEquals(500.5, distribuicao.media(), 1e-9);
+        assertEquals(1, distribuicao.minimo(), 0.01);
+        assertEquals(1000, distribuicao.maximo(), 10);
+        assertEquals(500, distribuicao.quantil(0.5), 5);
+        assertEquals(900, distribuicao.quantil(0.9), 9);
+        assertEquals(990, distribuicao.quantil(0.99), 9.9);
+    }
+
+    @Test
+    public void testRemocaoDesfazAdicao() {
+        DistribuicaoValores distribuicao = new DistribuicaoValores(0.01);
+        distribuicao.adicionar(0);
+        distribuicao.adicionar(5);
+        distribuicao.adicionar(300);
+
+        // O centro com 300 passa a ter 7 e o com 0 passa a ter 2
+        distribuicao.remover(300);
+        distribuicao.adicionar(7);
+        distribuicao.remover(0);
+        distribuicao.adicionar(2);
+
+        assertEquals(3, distribuicao.getTotal());
+        assertEquals(2, distribuicao.minimo(), 0.02);
+        assertEquals(7, distribuicao.maximo(), 0.07);
+        assertEquals(5, distribuicao.quantil(0.5), 0.05);
+        assertEquals(14.0 / 3, distribuicao.media(), 1e-9);
+    }
+
+    @Test
+    public void testCombinarEquivaleAAdicionarTudo() {
+        DistribuicaoValores primeira = new DistribuicaoValores(0.01);
+        DistribuicaoValores segunda = new DistribuicaoValores(0.01);
+        DistribuicaoValores todas = new DistribuicaoValores(0.01);
+        for (int valor = 0; valor < 200; valor++) {
+            (valor % 3 == 0 ? primeira : segunda).adicionar(valor * 0.005);
+            todas.adicionar(valor * 0.005);
+        }
+
+        primeira.combinar(segunda);
+
+        assertEquals(todas.getTotal(), primeira.getTotal());
+        assertEquals(todas.quantil(0.5), primeira.quantil(0.5));
+        assertEquals(todas.quantil(0.99), primeira.quantil(0.99));
+        assertEquals(todas.maximo(), primeira.maximo());
+        assertThrows(IllegalArgumentException.class, () -> primeira.combinar(new DistribuicaoValores(0.02)));
+    }
+
+    @Test
+    public void testDistribuicaoVazia() {
+        DistribuicaoValores distribuicao = new DistribuicaoValores(0.01);
+
+        assertEquals(0, distribuicao.quantil(0.5));
+        assertEquals(0, distribuicao.minimo());
+        assertEquals(0, distribuicao.maximo());
+        assertEquals(0, distribuicao.media());
+    }
+}
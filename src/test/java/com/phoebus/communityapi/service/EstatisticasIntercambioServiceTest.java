@@ -0,0 +1,85 @@
+package com.phoebus.communityapi.service;
+
+import com.phoebus.communityapi.config.PhoebusProperties;
+import com.phoebus.communityapi.model.EstatisticasIntercambio;
+import com.phoebus.communityapi.model.Granularidade;
+import com.phoebus.communityapi.repository.EstatisticasIntercambioRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class EstatisticasIntercambioServiceTest {
+    @Mock
+    private EstatisticasIntercambioRepository repository;
+
+    @Mock
+    private CacheCentros cache;
+
+    @Mock
+    private MetricasServico metricas;
+
+    @Spy
+    private PhoebusProperties properties = new PhoebusProperties();
+
+    @InjectMocks
+    private EstatisticasIntercambioService service;
+
+    @Test
+    public void testConsolidarRecalculaDesdeUltimaConsolidacaoMenosMargem() {
+        when(repository.buscarUltimaConsolidacao()).thenReturn(Optional.of(LocalDateTime.of(2025, 3, 10, 8, 10)));
+
+        service.consolidar();
+
+        verify(repository).consolidar(LocalDateTime.of(2025, 3, 10, 8, 5));
+        verify(repository).registrarConsolidacao(any(LocalDateTime.class));
+    }
+
+    @Test
+    public void testPrimeiraConsolidacaoReconstroiTudo() {
+        when(repository.buscarUltimaConsolidacao()).thenReturn(Optional.empty());
+
+        service.consolidar();
+
+        verify(repository).consolidar(isNull());
+    }
+
+    @Test
+    public void testListarAlinhaInicioAoIntervalo() {
+        LocalDateTime inicio = LocalDateTime.of(2025, 3, 10, 8, 45);
+        LocalDateTime fim = LocalDateTime.of(2025, 3, 20, 0, 0);
+        EstatisticasIntercambio estatisticas = new EstatisticasIntercambio();
+        when(cache.existe("1")).thenReturn(true);
+        when(repository.buscarPorCentro("1", Granularidade.DIA, LocalDateTime.of(2025, 3, 10, 0, 0), fim))
+                .thenReturn(List.of(estatisticas));
+
+        assertEquals(List.of(estatisticas), service.listarPorCentro("1", "day", inicio, fim));
+        verify(metricas).registrarDocumentos(MetricasServico.Relatorio.ESTATISTICAS_INTERCAMBIO, 1);
+    }
+
+    @Test
+    public void testListarRejeitaParametrosInvalidos() {
+        LocalDateTime fim = LocalDateTime.of(2025, 3, 20, 0, 0);
+
+        assertThrows(IllegalArgumentException.class, () -> service.listarPorCentro("1", "week", null, fim));
+        assertThrows(IllegalArgumentException.class, () -> service.listarPorCentro("1", "hour", fim, fim.minusDays(1)));
+        // 1000 horas ou mais
+        assertThrows(IllegalArgumentException.class, () -> service.listarPorCentro("1", "hour", fim.minusDays(42), fim));
+
+        when(cache.existe("9")).thenReturn(false);
+        assertThrows(IllegalArgumentException.class, () -> service.listarPorCentro("9", "hour", null, fim));
+    }
+}
@@ -0,0 +1,136 @@
+package com.phoebus.communityapi.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.phoebus.communityapi.config.PhoebusProperties;
+import com.phoebus.communityapi.model.DirecaoNegociacao;
+import com.phoebus.communityapi.model.Negociacao;
+import com.phoebus.communityapi.model.Recursos;
+import com.phoebus.communityapi.model.TipoRecurso;
+import com.phoebus.communityapi.repository.NegociacaoRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class ExportacaoNegociacoesServiceTest {
+    private static final LocalDateTime INICIO = LocalDateTime.of(2025, 1, 1, 0, 0);
+    private static final LocalDateTime FIM = LocalDateTime.of(2026, 1, 1, 0, 0);
+
+    @Mock
+    private NegociacaoRepository negociacaoRepository;
+
+    @Mock
+    private CacheCentros cache;
+
+    @Mock
+    private MetricasServico metricas;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    @Spy
+    private PhoebusProperties properties = new PhoebusProperties();
+
+    @InjectMocks
+    private ExportacaoNegociacoesService service;
+
+    @Test
+    public void testExportarNdjsonUmaNegociacaoPorLinha() throws Exception {
+        when(cache.existe("1")).thenReturn(true);
+        AtomicBoolean fechado = new AtomicBoolean();
+        when(negociacaoRepository.exportarPorCentro("1", INICIO, FIM, DirecaoNegociacao.ORIGEM, 500))
+                .thenReturn(Stream.of(negociacao("a", "1", "2"), negociacao("b", "1", "3")).onClose(() -> fechado.set(true)));
+
+        ByteArrayOutputStream saida = new ByteArrayOutputStream();
+        service.exportar(service.preparar("1", INICIO, FIM, "origem", "ndjson"), saida);
+
+        String[] linhas = saida.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, linhas.length);
+        assertTrue(linhas[0].startsWith("{\"id\":\"a\""));
+        assertTrue(linhas[1].contains("\"dataHora\":\"2025-03-10T08:30:00\""));
+        assertEquals(negociacao("b", "1", "3"), objectMapper.readValue(linhas[1], Negociacao.class));
+        assertTrue(fechado.get());
+        verify(metricas).registrarDocumentos(MetricasServico.Relatorio.EXPORTACAO_NEGOCIACOES, 2);
+    }
+
+    @Test
+    public void testExportarCsvComCabecalhoEColunasPorRecurso() throws Exception {
+        when(cache.existe("1")).thenReturn(true);
+        Negociacao negociacao = negociacao("a", "Centro, Norte", "1");
+        when(negociacaoRepository.exportarPorCentro("1", null, null, DirecaoNegociacao.AMBAS, 500))
+                .thenReturn(Stream.of(negociacao));
+
+        ByteArrayOutputStream saida = new ByteArrayOutputStream();
+        service.exportar(service.preparar("1", null, null, "AMBAS", "csv"), saida);
+
+        String[] linhas = saida.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals("id,dataHora,centroOrigemId,centroDestinoId,pontosOrigem,pontosDestino," +
+                "recursosOrigem.medicos,recursosOrigem.voluntarios,recursosOrigem.kitsMedicos,recursosOrigem.veiculos," +
+                "recursosOrigem.cestasBasicas,recursosDestino.medicos,recursosDestino.voluntarios," +
+                "recursosDestino.kitsMedicos,recursosDestino.veiculos,recursosDestino.cestasBasicas", linhas[0]);
+        assertEquals("a,2025-03-10T08:30,\"Centro, Norte\",1,4,6,1,0,0,0,0,0,2,0,0,0", linhas[1]);
+    }
+
+    @Test
+    public void testExportarDescarregaAPrimeiraLinhaSemEsperarOLote() throws Exception {
+        when(cache.existe("1")).thenReturn(true);
+        ByteArrayOutputStream saida = new ByteArrayOutputStream();
+        AtomicInteger recebidosAntesDaSegunda = new AtomicInteger(-1);
+        when(negociacaoRepository.exportarPorCentro("1", null, null, DirecaoNegociacao.AMBAS, 500))
+                .thenReturn(Stream.of(negociacao("a", "1", "2"), negociacao("b", "1", "3"))
+                        .peek(negociacao -> {
+                            if (negociacao.getId().equals("b")) {
+                                recebidosAntesDaSegunda.set(saida.size());
+                            }
+                        }));
+
+        service.exportar(service.preparar("1", null, null, "ambas", "ndjson"), saida);
+
+        // Lida antes da segunda negociação do cursor, a primeira já estava na resposta
+        assertTrue(recebidosAntesDaSegunda.get() > 0);
+        assertEquals(2, saida.toString(StandardCharsets.UTF_8).split("\n").length);
+    }
+
+    @Test
+    public void testPrepararRejeitaParametrosInvalidos() {
+        assertThrows(IllegalArgumentException.class, () -> service.preparar("1", FIM, INICIO, "ambas", "csv"));
+        assertThrows(IllegalArgumentException.class, () -> service.preparar("1", null, null, "entrada", "csv"));
+        assertThrows(IllegalArgumentException.class, () -> service.preparar("1", null, null, "ambas", "xml"));
+        verify(cache, never()).existe(anyString());
+
+        when(cache.existe("9")).thenReturn(false);
+        assertThrows(IllegalArgumentException.class, () -> service.preparar("9", null, null, "ambas", "csv"));
+    }
+
+    private static Negociacao negociacao(String id, String origem, String destino) {
+        Negociacao negociacao = new Negociacao();
+        negociacao.setId(id);
+        negociacao.setCentroOrigemId(origem);
+        negociacao.setCentroDestinoId(destino);
+        negociacao.setRecursosOrigem(Recursos.de(TipoRecurso.MEDICOS, 1));
+        negociacao.setRecursosDestino(Recursos.de(TipoRecurso.VOLUNTARIOS, 2));
+        negociacao.setPontosOrigem(4);
+        negociacao.setPontosDestino(6);
+        negociacao.setDataHora(LocalDateTime.of(2025, 3, 10, 8, 30));
+        return negociacao;
+    }
+}
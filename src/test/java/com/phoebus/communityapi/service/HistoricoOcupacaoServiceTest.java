@@ -0,0 +1,129 @@
+package com.phoebus.communityapi.service;
+
+import com.phoebus.communityapi.config.PhoebusProperties;
+import com.phoebus.communityapi.model.HistoricoOcupacao;
+import com.phoebus.communityapi.model.LeituraOcupacao;
+import com.phoebus.communityapi.model.PontoOcupacao;
+import com.phoebus.communityapi.model.ResolucaoOcupacao;
+import com.phoebus.communityapi.repository.HistoricoOcupacaoRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class HistoricoOcupacaoServiceTest {
+    @Mock
+    private HistoricoOcupacaoRepository repository;
+
+    @Mock
+    private CacheCentros cache;
+
+    @Mock
+    private MetricasServico metricas;
+
+    @Spy
+    private PhoebusProperties properties = new PhoebusProperties();
+
+    @InjectMocks
+    private HistoricoOcupacaoService service;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testGravarCriaColecoesAntesDaPrimeiraGravacaoEmLotes() throws Exception {
+        // Gravação só quando o teste pede, sem consolidação em segundo plano
+        properties.getHistoricoOcupacao().setIntervaloGravacao(Duration.ofHours(1));
+        properties.getHistoricoOcupacao().setIntervaloConsolidacao(Duration.ZERO);
+        properties.getHistoricoOcupacao().setTamanhoLote(2);
+        service.iniciar();
+        try {
+            service.registrar("1", 10);
+            service.registrar("2", 20);
+            service.registrar("1", 11);
+
+            service.gravar();
+
+            ArgumentCaptor<List<LeituraOcupacao>> lotes = ArgumentCaptor.forClass(List.class);
+            InOrder ordem = inOrder(repository);
+            ordem.verify(repository).garantirColecoes(Duration.ofDays(7), Duration.ofDays(30), Duration.ofDays(730));
+            ordem.verify(repository, times(2)).insert(lotes.capture());
+            assertEquals(List.of(2, 1), lotes.getAllValues().stream().map(List::size).toList());
+            assertEquals(11, lotes.getAllValues().get(1).get(0).getOcupacao());
+        } finally {
+            service.encerrar();
+        }
+    }
+
+    @Test
+    public void testRegistroInativoSemIniciar() {
+        service.registrar("1", 10);
+
+        verify(repository, never()).insert(any(List.class));
+    }
+
+    @Test
+    public void testConsolidarRecalculaDesdeUltimaConsolidacaoMenosMargem() {
+        when(repository.buscarUltimaConsolidacao()).thenReturn(Optional.of(LocalDateTime.of(2025, 3, 10, 8, 10)));
+
+        service.consolidar();
+
+        verify(repository).consolidar(LocalDateTime.of(2025, 3, 10, 8, 5));
+        verify(repository).registrarConsolidacao(any(LocalDateTime.class));
+    }
+
+    @Test
+    public void testListarEscolheResolucaoPeloPeriodo() {
+        LocalDateTime fim = LocalDateTime.now().truncatedTo(ChronoUnit.MINUTES);
+        when(cache.existe("1")).thenReturn(true);
+        when(repository.buscarPontos(eq("1"), any(ResolucaoOcupacao.class), any(LocalDateTime.class), eq(fim), eq(1001)))
+                .thenReturn(List.of(new PontoOcupacao()));
+
+        // 6 horas cabem em minutos, 10 dias em horas e 200 dias passam da retenção dos minutos e do limite das horas
+        assertEquals(ResolucaoOcupacao.MINUTO, service.listarPorCentro("1", null, fim.minusHours(6), fim).getResolucao());
+        assertEquals(ResolucaoOcupacao.HORA, service.listarPorCentro("1", "auto", fim.minusDays(10), fim).getResolucao());
+        HistoricoOcupacao dias = service.listarPorCentro("1", "auto", fim.minusDays(200), fim);
+        assertEquals(ResolucaoOcupacao.DIA, dias.getResolucao());
+        assertEquals(fim.minusDays(200).truncatedTo(ChronoUnit.DAYS), dias.getInicio());
+        verify(metricas, times(3)).registrarDocumentos(MetricasServico.Relatorio.HISTORICO_OCUPACAO, 1);
+    }
+
+    @Test
+    public void testListarRejeitaParametrosInvalidos() {
+        LocalDateTime fim = LocalDateTime.of(2025, 3, 20, 0, 0);
+
+        assertThrows(IllegalArgumentException.class, () -> service.listarPorCentro("1", "week", null, fim));
+        assertThrows(IllegalArgumentException.class, () -> service.listarPorCentro("1", "hour", fim, fim.minusDays(1)));
+        // 1000 minutos ou mais
+        assertThrows(IllegalArgumentException.class, () -> service.listarPorCentro("1", "minute", fim.minusDays(1), fim));
+
+        when(cache.existe("9")).thenReturn(false);
+        assertThrows(IllegalArgumentException.class, () -> service.listarPorCentro("9", "hour", null, fim));
+
+        // Leituras brutas sem limite pelo período: mais de 1000 pedem uma resolução maior
+        when(cache.existe("1")).thenReturn(true);
+        when(repository.buscarPontos(eq("1"), eq(ResolucaoOcupacao.LEITURAS), any(), eq(fim), anyInt()))
+                .thenReturn(Collections.nCopies(1001, new PontoOcupacao()));
+        assertThrows(IllegalArgumentException.class, () -> service.listarPorCentro("1", "raw", null, fim));
+    }
+}
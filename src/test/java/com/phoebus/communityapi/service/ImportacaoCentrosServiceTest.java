@@ -0,0 +1,102 @@
+package com.phoebus.communityapi.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.phoebus.communityapi.config.PhoebusProperties;
+import com.phoebus.communityapi.model.CentroComunitario;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class ImportacaoCentrosServiceTest {
+    @Mock
+    private CentroComunitarioService centroService;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @Spy
+    private PhoebusProperties properties = new PhoebusProperties();
+
+    @InjectMocks
+    private ImportacaoCentrosService service;
+
+    @Test
+    public void testImportarNdjsonReportaLinhasInvalidas() throws Exception {
+        String ndjson = """
+                {"nome": "Centro A", "capacidadeMaxima": 100}
+                {"nome": "Centro B", "capacidadeMaxima": 0}
+                {"nome": "Centro C",
+                {"nome": "Centro D", "capacidadeMaxima": 50}
+                """;
+        doAnswer(i -> {
+            if (i.<CentroComunitario>getArgument(0).getCapacidadeMaxima() <= 0) {
+                throw new IllegalArgumentException("Capacidade máxima deve ser maior que 0");
+            }
+            return null;
+        }).when(centroService).validarCentro(any());
+        when(centroService.inserirCentros(any())).thenReturn(Map.of());
+
+        String relatorio = importarNdjson(ndjson);
+
+        verify(centroService).inserirCentros(argThat((List<CentroComunitario> centros) -> centros.size() == 2));
+        assertTrue(relatorio.contains("{\"registro\":2,\"erro\":\"Capacidade máxima deve ser maior que 0\"}"));
+        assertTrue(relatorio.contains("\"registro\":3"));
+        assertTrue(relatorio.endsWith("{\"importados\":2,\"rejeitados\":2}\n"));
+    }
+
+    @Test
+    public void testImportarNdjsonGravaEmLotes() throws Exception {
+        properties.getImportacao().setTamanhoLote(2);
+        String ndjson = """
+                {"nome": "Centro A"}
+                {"nome": "Centro B"}
+                {"nome": "Centro C"}
+                """;
+        // Segundo registro rejeitado pelo MongoDB (ex.: ID duplicado)
+        when(centroService.inserirCentros(any())).thenReturn(Map.of(1, "duplicate key"), Map.of());
+
+        String relatorio = importarNdjson(ndjson);
+
+        verify(centroService, times(2)).inserirCentros(any());
+        assertTrue(relatorio.contains("{\"registro\":2,\"erro\":\"duplicate key\"}"));
+        assertTrue(relatorio.endsWith("{\"importados\":2,\"rejeitados\":1}\n"));
+    }
+
+    @Test
+    public void testImportarJsonArray() throws Exception {
+        String json = "[{\"nome\": \"Centro A\"}, {\"nome\": 1, \"capacidadeMaxima\": \"x\"}, {\"nome\": \"Centro C\"}]";
+        when(centroService.inserirCentros(any())).thenReturn(Map.of());
+
+        ByteArrayOutputStream saida = new ByteArrayOutputStream();
+        service.importarJson(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), saida);
+        String relatorio = saida.toString(StandardCharsets.UTF_8);
+
+        verify(centroService).inserirCentros(argThat((List<CentroComunitario> centros) -> centros.size() == 2));
+        assertTrue(relatorio.contains("\"registro\":2"), relatorio);
+        assertTrue(relatorio.endsWith("{\"importados\":2,\"rejeitados\":1}\n"), relatorio);
+    }
+
+    private String importarNdjson(String ndjson) throws Exception {
+        ByteArrayOutputStream saida = new ByteArrayOutputStream();
+        service.importarNdjson(new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)), saida);
+        return saida.toString(StandardCharsets.UTF_8);
+    }
+}
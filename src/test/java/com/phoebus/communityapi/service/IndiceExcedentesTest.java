@@ -0,0 +1,100 @@
+package com.phoebus.communityapi.service;
+
+import com.phoebus.communityapi.config.PhoebusProperties;
+import com.phoebus.communityapi.model.CentroComunitario;
+import com.phoebus.communityapi.model.Recursos;
+import com.phoebus.communityapi.model.TipoRecurso;
+import com.phoebus.communityapi.repository.CentroComunitarioRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class IndiceExcedentesTest {
+    @Mock
+    private CentroComunitarioRepository repository;
+
+    private IndiceExcedentes indice;
+
+    @BeforeEach
+    public void setUp() {
+        indice = new IndiceExcedentes(repository, new PhoebusProperties());
+    }
+
+    @Test
+    public void testEscritaDuranteACargaEmCentroForaDoIndiceMantemOValorLido() {
+        // Intercâmbio e leitura de ocupação gravados enquanto a primeira carga ainda percorre o cursor
+        when(repository.percorrerRecursos()).thenAnswer(invocacao -> {
+            indice.registrarIntercambio("a", new Recursos(), Recursos.de(TipoRecurso.MEDICOS, 2));
+            indice.atualizarOcupacao("a", 40);
+            return Stream.of(centro("a", 10, 5));
+        });
+
+        indice.carregar();
+
+        IndiceExcedentes.Excedente a = indice.buscar("a").orElseThrow();
+        assertEquals(5, a.quantidade(TipoRecurso.MEDICOS));
+        assertEquals(10, a.ocupacaoAtual());
+        assertEquals(1, indice.resumirDistribuicao().getTotalCentros());
+    }
+
+    @Test
+    public void testEscritaDuranteARecargaPrevaleceSobreOValorLido() {
+        when(repository.percorrerRecursos()).thenReturn(Stream.of(centro("a", 10, 5), centro("b", 20, 1)));
+        indice.carregar();
+
+        // A varredura leu "a" antes do intercâmbio que tirou 2 médicos dele
+        when(repository.percorrerRecursos()).thenAnswer(invocacao -> {
+            indice.registrarIntercambio("a", Recursos.de(TipoRecurso.MEDICOS, 2), new Recursos());
+            return Stream.of(centro("a", 10, 5), centro("b", 30, 1));
+        });
+        indice.carregar();
+
+        assertEquals(3, indice.buscar("a").orElseThrow().quantidade(TipoRecurso.MEDICOS));
+        assertEquals(30, indice.buscar("b").orElseThrow().ocupacaoAtual());
+        assertEquals(2, indice.resumirDistribuicao().getTotalCentros());
+    }
+
+    @Test
+    public void testOcupacaoAcimaDaCapacidadeNaoBloqueiaOValorLido() {
+        when(repository.percorrerRecursos()).thenReturn(Stream.of(centro("a", 10, 5)));
+        indice.carregar();
+
+        // Leitura rejeitada pela gravação em lote: o índice não a guarda, então a recarga usa o valor do banco
+        when(repository.percorrerRecursos()).thenAnswer(invocacao -> {
+            indice.atualizarOcupacao("a", 500);
+            return Stream.of(centro("a", 60, 5));
+        });
+        indice.carregar();
+
+        assertEquals(60, indice.buscar("a").orElseThrow().ocupacaoAtual());
+    }
+
+    @Test
+    public void testFalhaNaCargaMantemIndiceNaoCarregado() {
+        when(repository.percorrerRecursos()).thenThrow(new IllegalStateException("banco indisponível"));
+
+        assertThrows(IllegalStateException.class, () -> indice.carregar());
+
+        assertFalse(indice.isCarregado());
+        assertEquals(List.of(), indice.listar());
+    }
+
+    private static CentroComunitario centro(String id, int ocupacao, int medicos) {
+        CentroComunitario centro = new CentroComunitario();
+        centro.setId(id);
+        centro.setNome("Centro " + id);
+        centro.setCapacidadeMaxima(100);
+        centro.setOcupacaoAtual(ocupacao);
+        centro.setRecursos(Recursos.de(TipoRecurso.MEDICOS, medicos));
+        return centro;
+    }
+}
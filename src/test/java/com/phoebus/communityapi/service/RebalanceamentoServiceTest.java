@@ -0,0 +1,132 @@
+package com.phoebus.communityapi.service;
+
+import com.phoebus.communityapi.config.PhoebusProperties;
+import com.phoebus.communityapi.exception.IndiceIndisponivelException;
+import com.phoebus.communityapi.model.CentroComunitario;
+import com.phoebus.communityapi.model.IntercambioRequest;
+import com.phoebus.communityapi.model.PlanoRebalanceamento;
+import com.phoebus.communityapi.model.Recursos;
+import com.phoebus.communityapi.model.ResultadoIntercambio;
+import com.phoebus.communityapi.model.TipoRecurso;
+import com.phoebus.communityapi.repository.CentroComunitarioRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class RebalanceamentoServiceTest {
+    @Mock
+    private CentroComunitarioRepository repository;
+
+    @Mock
+    private CentroComunitarioService centroService;
+
+    private final List<CentroComunitario> centros = new ArrayList<>();
+
+    private IndiceExcedentes indice;
+
+    private RebalanceamentoService service;
+
+    @BeforeEach
+    public void setUp() {
+        PhoebusProperties properties = new PhoebusProperties();
+        indice = new IndiceExcedentes(repository, properties);
+        service = new RebalanceamentoService(indice, centroService, properties);
+    }
+
+    @Test
+    public void testPlanoLevaKitsParaCentroComOcupacaoAlta() {
+        CentroComunitario lotado = centro("lotado", 95);
+        CentroComunitario vazio = centro("vazio", 5);
+        vazio.getRecursos().definir(TipoRecurso.KITS_MEDICOS, 10);
+        centros.addAll(List.of(lotado, vazio));
+        when(repository.percorrerRecursos()).thenAnswer(invocacao -> centros.stream());
+        indice.carregar();
+
+        PlanoRebalanceamento plano = service.planejar(null, null, false);
+
+        assertEquals(1, plano.getIntercambios().size());
+        IntercambioRequest intercambio = plano.getIntercambios().get(0);
+        assertEquals("vazio", intercambio.getCentroOrigemId());
+        assertEquals("lotado", intercambio.getCentroDestinoId());
+        assertEquals(9, intercambio.getRecursosOrigem().quantidade(TipoRecurso.KITS_MEDICOS));
+        // Doação sem contrapartida: permitida pela exceção de ocupação acima de 90%
+        assertEquals(new Recursos(), intercambio.getRecursosDestino());
+        assertTrue(plano.getDesequilibrioFinal() < plano.getDesequilibrioInicial());
+        verifyNoInteractions(centroService);
+    }
+
+    @Test
+    public void testPlanoEntreCentrosNormaisRespeitaPontuacaoIgual() {
+        CentroComunitario a = centro("A", 50);
+        a.getRecursos().definir(TipoRecurso.MEDICOS, 6);
+        CentroComunitario b = centro("B", 50);
+        b.getRecursos().definir(TipoRecurso.VOLUNTARIOS, 8);
+        centros.addAll(List.of(a, b));
+        when(repository.percorrerRecursos()).thenAnswer(invocacao -> centros.stream());
+        indice.carregar();
+
+        PlanoRebalanceamento plano = service.planejar(null, null, false);
+
+        assertEquals(1, plano.getIntercambios().size());
+        IntercambioRequest intercambio = plano.getIntercambios().get(0);
+        assertEquals(pontos(intercambio.getRecursosOrigem()), pontos(intercambio.getRecursosDestino()));
+        assertEquals(0, plano.getDesequilibrioFinal(), 0.001);
+    }
+
+    @Test
+    public void testAplicarUsaIntercambiosEmLote() {
+        CentroComunitario lotado = centro("lotado", 95);
+        CentroComunitario vazio = centro("vazio", 5);
+        vazio.getRecursos().definir(TipoRecurso.KITS_MEDICOS, 10);
+        centros.addAll(List.of(lotado, vazio));
+        when(repository.percorrerRecursos()).thenAnswer(invocacao -> centros.stream());
+        indice.carregar();
+        when(centroService.realizarIntercambiosEmLote(any()))
+                .thenReturn(new ArrayList<>(List.of(ResultadoIntercambio.falha(0, "Centro origem não possui recursos suficientes"))));
+
+        PlanoRebalanceamento plano = service.planejar(1000L, 10, true);
+
+        verify(centroService).realizarIntercambiosEmLote(plano.getIntercambios());
+        assertEquals(1, plano.getResultados().size());
+        assertFalse(plano.getResultados().get(0).isSucesso());
+    }
+
+    @Test
+    public void testIndiceNaoCarregadoRespondeIndisponivel() {
+        assertThrows(IndiceIndisponivelException.class, () -> service.planejar(null, null, false));
+        verifyNoInteractions(repository, centroService);
+    }
+
+    @Test
+    public void testParametrosInvalidos() {
+        assertThrows(IllegalArgumentException.class, () -> service.planejar(0L, null, false));
+        assertThrows(IllegalArgumentException.class, () -> service.planejar(null, 0, false));
+    }
+
+    private CentroComunitario centro(String id, int ocupacao) {
+        CentroComunitario centro = new CentroComunitario();
+        centro.setId(id);
+        centro.setNome("Centro " + id);
+        centro.setCapacidadeMaxima(100);
+        centro.setOcupacaoAtual(ocupacao);
+        centro.setRecursos(new Recursos());
+        return centro;
+    }
+
+    private int pontos(Recursos recursos) {
+        return recursos.quantidade(TipoRecurso.MEDICOS) * 4 + recursos.quantidade(TipoRecurso.VOLUNTARIOS) * 3 + recursos.quantidade(TipoRecurso.KITS_MEDICOS) * 7 +
+                recursos.quantidade(TipoRecurso.VEICULOS) * 5 + recursos.quantidade(TipoRecurso.CESTAS_BASICAS) * 2;
+    }
+}
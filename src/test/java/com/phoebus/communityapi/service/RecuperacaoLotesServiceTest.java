@@ -0,0 +1,76 @@
+package com.phoebus.communityapi.service;
+
+import com.phoebus.communityapi.config.PhoebusProperties;
+import com.phoebus.communityapi.model.Recursos;
+import com.phoebus.communityapi.model.TipoRecurso;
+import com.phoebus.communityapi.repository.CentroComunitarioRepository;
+import com.phoebus.communityapi.repository.NegociacaoRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class RecuperacaoLotesServiceTest {
+    @Mock
+    private CentroComunitarioRepository repository;
+
+    @Mock
+    private NegociacaoRepository negociacaoRepository;
+
+    @Mock
+    private CacheCentros cache;
+
+    @Mock
+    private IndiceExcedentes indiceExcedentes;
+
+    @Spy
+    private PhoebusProperties properties = new PhoebusProperties();
+
+    @InjectMocks
+    private RecuperacaoLotesService service;
+
+    @Test
+    public void testLoteInterrompidoSemConfirmacaoEDesfeito() {
+        Recursos variacao = new Recursos();
+        variacao.definir(TipoRecurso.MEDICOS, 3);
+        when(repository.buscarLotesPendentes(any(LocalDateTime.class))).thenReturn(Map.of("l1", List.of("a", "b")));
+        when(repository.decidirLote("l1", false)).thenReturn(false);
+        when(repository.desfazerLote("l1")).thenReturn(Map.of("a", variacao));
+
+        service.recuperar();
+
+        verify(negociacaoRepository).removerLote("l1");
+        // O índice volta a quantidade do centro para antes do lote
+        verify(indiceExcedentes).registrarIntercambio(eq("a"), eq(variacao), argThat(Recursos::isVazio));
+        verify(repository, never()).concluirLote(any(), any());
+        verify(cache).invalidar(List.of("a", "b"));
+    }
+
+    @Test
+    public void testLoteInterrompidoDepoisDaConfirmacaoEConcluido() {
+        when(repository.buscarLotesPendentes(any(LocalDateTime.class))).thenReturn(Map.of("l1", List.of("a")));
+        when(repository.decidirLote("l1", false)).thenReturn(true);
+
+        service.recuperar();
+
+        verify(negociacaoRepository).concluirLote("l1");
+        verify(repository).concluirLote("l1", List.of("a"));
+        verify(repository, never()).desfazerLote(any());
+        verify(negociacaoRepository, never()).removerLote(any());
+        verify(cache).invalidar(List.of("a"));
+    }
+}
@@ -0,0 +1,151 @@
+package com.phoebus.communityapi.service;
+
+import com.phoebus.communityapi.config.PhoebusProperties;
+import com.phoebus.communityapi.exception.IndiceIndisponivelException;
+import com.phoebus.communityapi.model.CentroComunitario;
+import com.phoebus.communityapi.model.DistribuicaoRecursos;
+import com.phoebus.communityapi.model.Recursos;
+import com.phoebus.communityapi.model.ResumoDistribuicao;
+import com.phoebus.communityapi.model.SugestaoIntercambio;
+import com.phoebus.communityapi.model.TipoRecurso;
+import com.phoebus.communityapi.repository.CentroComunitarioRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.lenient;
+
+@ExtendWith(MockitoExtension.class)
+public class SugestaoIntercambioServiceTest {
+    @Mock
+    private CentroComunitarioRepository repository;
+
+    private final List<CentroComunitario> centros = new ArrayList<>();
+
+    private IndiceExcedentes indice;
+
+    private SugestaoIntercambioService service;
+
+    @BeforeEach
+    public void setUp() {
+        indice = new IndiceExcedentes(repository, new PhoebusProperties());
+        service = new SugestaoIntercambioService(indice);
+        lenient().when(repository.percorrerRecursos()).thenAnswer(invocacao -> centros.stream());
+    }
+
+    @Test
+    public void testSugereCandidatosComOfertaDeMesmaPontuacao() {
+        centros.add(centro("solicitante", 50, 10, 4, 6));
+        centros.add(centro("A", 50, 5, 0, 0));
+        centros.add(centro("B", 50, 3, 0, 0));
+        centros.add(centro("C", 50, 1, 0, 0));
+        indice.carregar();
+
+        List<SugestaoIntercambio> sugestoes = service.sugerirIntercambios("solicitante", "medicos:3", null);
+
+        assertEquals(List.of("A", "B"), sugestoes.stream().map(SugestaoIntercambio::getCentroDestinoId).toList());
+        SugestaoIntercambio sugestao = sugestoes.get(0);
+        // 12 pontos com o menor número de itens: 4 voluntários (e não 2 voluntários + 3 cestas ou 6 cestas)
+        assertEquals(4, sugestao.getRecursosOrigem().quantidade(TipoRecurso.VOLUNTARIOS));
+        assertEquals(0, sugestao.getRecursosOrigem().quantidade(TipoRecurso.CESTAS_BASICAS));
+        assertEquals(0, sugestao.getRecursosOrigem().quantidade(TipoRecurso.MEDICOS));
+        assertEquals(3, sugestao.getRecursosDestino().quantidade(TipoRecurso.MEDICOS));
+        assertEquals(12, sugestao.getPontosOrigem());
+        assertEquals(12, sugestao.getPontosDestino());
+        assertFalse(sugestao.isExcecaoOcupacao());
+    }
+
+    @Test
+    public void testSemOfertaSugereApenasCandidatosComOcupacaoAlta() {
+        centros.add(centro("solicitante", 50, 0, 0, 1));
+        centros.add(centro("A", 50, 5, 0, 0));
+        centros.add(centro("B", 95, 2, 0, 0));
+        indice.carregar();
+
+        List<SugestaoIntercambio> sugestoes = service.sugerirIntercambios("solicitante", "medicos:1", null);
+
+        assertEquals(1, sugestoes.size());
+        assertEquals("B", sugestoes.get(0).getCentroDestinoId());
+        assertTrue(sugestoes.get(0).isExcecaoOcupacao());
+        assertEquals(0, sugestoes.get(0).getPontosOrigem());
+    }
+
+    @Test
+    public void testIndiceAcompanhaIntercambiosRegistrados() {
+        centros.add(centro("solicitante", 50, 0, 0, 4));
+        centros.add(centro("A", 50, 2, 0, 0));
+        centros.add(centro("B", 50, 1, 0, 0));
+        indice.carregar();
+
+        Recursos medicos = new Recursos();
+        medicos.definir(TipoRecurso.MEDICOS, 1);
+        Recursos nada = new Recursos();
+        indice.registrarIntercambio("A", medicos, nada);
+        indice.registrarIntercambio("B", nada, medicos);
+
+        List<SugestaoIntercambio> sugestoes = service.sugerirIntercambios("solicitante", "medicos:2", null);
+
+        assertEquals(List.of("B"), sugestoes.stream().map(SugestaoIntercambio::getCentroDestinoId).toList());
+    }
+
+    @Test
+    public void testIndiceMantemDistribuicaoDosRecursosEDaOcupacao() {
+        centros.add(centro("A", 20, 2, 0, 0));
+        centros.add(centro("B", 50, 10, 0, 0));
+        centros.add(centro("C", 80, 40, 0, 0));
+        indice.carregar();
+
+        Recursos medicos = new Recursos();
+        medicos.definir(TipoRecurso.MEDICOS, 30);
+        indice.registrarIntercambio("C", medicos, new Recursos());
+        indice.registrarIntercambio("A", new Recursos(), medicos);
+        indice.atualizarOcupacao("B", 100);
+
+        DistribuicaoRecursos distribuicao = indice.resumirDistribuicao();
+
+        // Cada centro conta uma vez, com o valor atual: medicos 32, 10 e 10
+        assertEquals(3, distribuicao.getTotalCentros());
+        ResumoDistribuicao resumoMedicos = distribuicao.getRecursos().get("medicos");
+        assertEquals(10, resumoMedicos.getMinimo(), 0.1);
+        assertEquals(10, resumoMedicos.getP50(), 0.1);
+        assertEquals(32, resumoMedicos.getMaximo(), 0.32);
+        assertEquals(52.0 / 3, resumoMedicos.getMedia(), 1e-9);
+        assertEquals(0, distribuicao.getRecursos().get("veiculos").getMaximo());
+        assertEquals(1.0, distribuicao.getTaxaOcupacao().getMaximo(), 0.01);
+        assertEquals(0.2, distribuicao.getTaxaOcupacao().getMinimo(), 0.002);
+    }
+
+    @Test
+    public void testIndiceNaoCarregadoRespondeIndisponivel() {
+        assertThrows(IndiceIndisponivelException.class, () -> service.sugerirIntercambios("solicitante", "medicos:1", null));
+    }
+
+    @Test
+    public void testNecessidadeInvalida() {
+        indice.carregar();
+        assertThrows(IllegalArgumentException.class, () -> service.sugerirIntercambios("solicitante", "medicos", null));
+        assertThrows(IllegalArgumentException.class, () -> service.sugerirIntercambios("solicitante", "helicopteros:1", null));
+        assertThrows(IllegalArgumentException.class, () -> service.sugerirIntercambios("solicitante", "medicos:0", null));
+        assertThrows(IllegalArgumentException.class, () -> service.sugerirIntercambios("inexistente", "medicos:1", null));
+    }
+
+    private CentroComunitario centro(String id, int ocupacao, int medicos, int voluntarios, int cestasBasicas) {
+        CentroComunitario centro = new CentroComunitario();
+        centro.setId(id);
+        centro.setNome("Centro " + id);
+        centro.setCapacidadeMaxima(100);
+        centro.setOcupacaoAtual(ocupacao);
+        Recursos recursos = new Recursos();
+        recursos.definir(TipoRecurso.MEDICOS, medicos);
+        recursos.definir(TipoRecurso.VOLUNTARIOS, voluntarios);
+        recursos.definir(TipoRecurso.CESTAS_BASICAS, cestasBasicas);
+        centro.setRecursos(recursos);
+        return centro;
+    }
+}
@@ -0,0 +1,158 @@
+package com.phoebus.communityapi.service;
+
+import com.phoebus.communityapi.config.PhoebusProperties;
+import com.phoebus.communityapi.model.AtualizacaoOcupacao;
+import com.phoebus.communityapi.model.AvisoLimiteOcupacao;
+import com.phoebus.communityapi.model.CentroComunitario;
+import com.phoebus.communityapi.model.NivelOcupacao;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+@ExtendWith(MockitoExtension.class)
+public class TransmissaoOcupacaoServiceTest {
+    @Mock
+    private CacheCentros cache;
+
+    private final PhoebusProperties properties = new PhoebusProperties();
+    // Envios agendados só rodam quando o teste pede, como um assinante que ainda não consumiu o stream
+    private final Deque<Runnable> envios = new ArrayDeque<>();
+    private final List<Object> recebidos = new ArrayList<>();
+    private TransmissaoOcupacaoService service;
+
+    @BeforeEach
+    public void preparar() {
+        properties.getTransmissaoOcupacao().setTamanhoBuffer(2);
+        service = new TransmissaoOcupacaoService(cache, properties, envios::add) {
+            @Override
+            SseEmitter criarEmissor(long tempoConexao) {
+                return new SseEmitter(tempoConexao) {
+                    @Override
+                    public synchronized void send(Set<ResponseBodyEmitter.DataWithMediaType> dados) {
+                        // Só os dados dos eventos; nomes, comentários e separadores são texto
+                        dados.stream()
+                                .map(ResponseBodyEmitter.DataWithMediaType::getData)
+                                .filter(dado -> !(dado instanceof String))
+                                .forEach(recebidos::add);
+                    }
+                };
+            }
+        };
+    }
+
+    @Test
+    public void testPublicaVariacaoEAvisoDeLimiteSoParaCentrosDoFiltro() {
+        service.assinar(List.of("1"), null, null, 10);
+        enviar();
+
+        service.publicar(centro("1", 95), 80);
+        service.publicar(centro("2", 99), 80);
+        enviar();
+
+        assertEquals(2, recebidos.size());
+        AtualizacaoOcupacao atualizacao = (AtualizacaoOcupacao) recebidos.get(0);
+        assertEquals("1", atualizacao.getCentroId());
+        assertEquals(95, atualizacao.getOcupacaoAtual());
+        assertEquals(15, atualizacao.getVariacao());
+        AvisoLimiteOcupacao aviso = (AvisoLimiteOcupacao) recebidos.get(1);
+        assertEquals(NivelOcupacao.NORMAL, aviso.getNivelAnterior());
+        assertEquals(NivelOcupacao.ALTA, aviso.getNivel());
+    }
+
+    @Test
+    public void testAssinanteLentoRecebeSoEstadoMaisRecente() {
+        service.assinar(null, null, null, 10);
+
+        // Passa por 90% e 100% e volta ao normal antes de o assinante consumir
+        service.publicar(centro("1", 95), 80);
+        service.publicar(centro("1", 100), 95);
+        service.publicar(centro("1", 85), 100);
+        enviar();
+
+        assertEquals(1, recebidos.size());
+        AtualizacaoOcupacao atualizacao = (AtualizacaoOcupacao) recebidos.get(0);
+        assertEquals(85, atualizacao.getOcupacaoAtual());
+        assertEquals(5, atualizacao.getVariacao());
+    }
+
+    @Test
+    public void testBufferCheioDescartaMaisAntigosEAvisaAssinante() {
+        service.assinar(null, null, null, 10);
+
+        service.publicar(centro("1", 10), 5);
+        service.publicar(centro("2", 10), 5);
+        service.publicar(centro("3", 10), 5);
+        enviar();
+
+        assertEquals(Map.of("quantidade", 1L), recebidos.get(0));
+        assertEquals(List.of("2", "3"), recebidos.subList(1, 3).stream()
+                .map(evento -> ((AtualizacaoOcupacao) evento).getCentroId())
+                .toList());
+    }
+
+    @Test
+    public void testFiltroPorRegiao() {
+        service.assinar(null, -8.05, -34.9, 5);
+        enviar();
+
+        CentroComunitario proximo = centro("1", 10);
+        proximo.getLocalizacao().setLatitude(-8.06);
+        proximo.getLocalizacao().setLongitude(-34.89);
+        CentroComunitario distante = centro("2", 10);
+        distante.getLocalizacao().setLatitude(-7.12);
+        distante.getLocalizacao().setLongitude(-34.86);
+        service.publicar(proximo, 5);
+        service.publicar(distante, 5);
+        enviar();
+
+        assertEquals(1, recebidos.size());
+        assertEquals("1", ((AtualizacaoOcupacao) recebidos.get(0)).getCentroId());
+    }
+
+    @Test
+    public void testAssinarRejeitaFiltrosInvalidos() {
+        assertThrows(IllegalArgumentException.class, () -> service.assinar(null, -8.05, null, 5));
+        assertThrows(IllegalArgumentException.class, () -> service.assinar(null, 91.0, -34.9, 5));
+        assertThrows(IllegalArgumentException.class, () -> service.assinar(null, -8.05, -34.9, 0));
+    }
+
+    @Test
+    public void testLoteSemAssinantesNaoLeCentros() {
+        service.publicar(List.of("1", "2"));
+
+        verifyNoInteractions(cache);
+    }
+
+    private void enviar() {
+        while (!envios.isEmpty()) {
+            envios.poll().run();
+        }
+    }
+
+    private static CentroComunitario centro(String id, int ocupacao) {
+        CentroComunitario centro = new CentroComunitario();
+        centro.setId(id);
+        centro.setNome("Centro " + id);
+        CentroComunitario.Localizacao localizacao = new CentroComunitario.Localizacao();
+        localizacao.setLatitude(-8.05);
+        localizacao.setLongitude(-34.9);
+        centro.setLocalizacao(localizacao);
+        centro.setCapacidadeMaxima(100);
+        centro.setOcupacaoAtual(ocupacao);
+        return centro;
+    }
+}